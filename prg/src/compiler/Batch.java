@@ -0,0 +1,280 @@
+package compiler;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import compiler.common.report.*;
+
+/**
+ * Batch mode: compiles many source files within a single JVM.
+ *
+ * The source files are listed on the command line after option
+ * <code>--batch</code> or in a manifest file specified by
+ * <code>--batch=manifest</code> (one file name per line, lines starting with
+ * <code>#</code> are ignored). All other options are passed to the compilation
+ * of each source file. The files are compiled in parallel by a pool of
+ * <code>--threads=n</code> workers (the number of available processors by
+ * default); the output of each compilation is collected and printed out in
+ * the order the files were listed.
+ *
+ * @author sliva
+ */
+public class Batch {
+
+	/**
+	 * Checks whether the command line requests the batch mode.
+	 *
+	 * @param args
+	 *            Command line arguments.
+	 * @return <code>true</code> if the batch mode is requested,
+	 *         <code>false</code> otherwise.
+	 */
+	public static boolean isBatch(String args[]) {
+		for (String arg : args)
+			if (arg.equals("--batch") || arg.startsWith("--batch="))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Compiles all source files listed on the command line.
+	 *
+	 * @param args
+	 *            Command line arguments.
+	 * @return The exit status of the batch, i.e., <code>1</code> if any of
+	 *         the compilations failed and <code>0</code> otherwise.
+	 */
+	public static int run(String args[]) {
+		System.out.println("This is PREV compiler (2016):");
+
+		Vector<String> options = new Vector<String>();
+		Vector<String> srcFNames = new Vector<String>();
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		try {
+			for (String arg : args) {
+				if (arg.equals("--batch"))
+					continue;
+				if (arg.startsWith("--batch=")) {
+					srcFNames.addAll(readManifest(arg.replaceFirst("--batch=", "")));
+					continue;
+				}
+				if (arg.startsWith("--threads=")) {
+					try {
+						numThreads = Integer.parseInt(arg.replaceFirst("--threads=", ""));
+						if (numThreads < 1)
+							throw new NumberFormatException();
+					} catch (NumberFormatException ex) {
+						Report.warning("Illegal number of threads specified by '" + arg + "' ignored.");
+						numThreads = Runtime.getRuntime().availableProcessors();
+					}
+					continue;
+				}
+				if (arg.startsWith("-"))
+					options.add(arg);
+				else
+					srcFNames.add(arg);
+			}
+			if (srcFNames.isEmpty())
+				throw new CompilerError("No source files specified.");
+		} catch (CompilerError errorReport) {
+			System.err.println(":-( " + errorReport.getMessage());
+			return 1;
+		}
+
+		return compileAll(options, srcFNames, numThreads);
+	}
+
+	/**
+	 * Compiles a list of source files in parallel.
+	 *
+	 * @param options
+	 *            Options used for every compilation.
+	 * @param srcFNames
+	 *            The names of the source files.
+	 * @param numThreads
+	 *            The number of worker threads.
+	 * @return The exit status of the batch.
+	 */
+	public static int compileAll(List<String> options, List<String> srcFNames, int numThreads) {
+		PrintStream stdout = System.out;
+		PrintStream stderr = System.err;
+		CapturingStream capturedOut = new CapturingStream(stdout);
+		CapturingStream capturedErr = new CapturingStream(stderr);
+		System.setOut(new PrintStream(capturedOut, true));
+		System.setErr(new PrintStream(capturedErr, true));
+
+		ExecutorService workers = Executors.newFixedThreadPool(Math.min(numThreads, srcFNames.size()));
+		Vector<Future<Result>> results = new Vector<Future<Result>>();
+		try {
+			for (String srcFName : srcFNames) {
+				final String args[] = options.toArray(new String[options.size() + 1]);
+				args[args.length - 1] = srcFName;
+				results.add(workers.submit(new Callable<Result>() {
+					@Override
+					public Result call() {
+						return compile(args, capturedOut, capturedErr);
+					}
+				}));
+			}
+
+			int numFailed = 0;
+			for (int i = 0; i < srcFNames.size(); i++) {
+				Result result;
+				try {
+					result = results.get(i).get();
+				} catch (InterruptedException | ExecutionException ex) {
+					result = new Result(1, new byte[0], (":-( " + ex.getMessage() + "\n").getBytes());
+				}
+				stdout.println("[" + srcFNames.get(i) + "]");
+				stdout.write(result.out, 0, result.out.length);
+				stdout.flush();
+				stderr.write(result.err, 0, result.err.length);
+				stderr.flush();
+				if (result.status != 0)
+					numFailed++;
+			}
+
+			stdout.println(":-) Compiled " + srcFNames.size() + " file(s), " + numFailed + " failed.");
+			return numFailed == 0 ? 0 : 1;
+		} finally {
+			workers.shutdownNow();
+			System.setOut(stdout);
+			System.setErr(stderr);
+		}
+	}
+
+	/**
+	 * Compiles a single source file while capturing its output.
+	 *
+	 * @param args
+	 *            Command line arguments of the compilation.
+	 * @param capturedOut
+	 *            The stream capturing the standard output.
+	 * @param capturedErr
+	 *            The stream capturing the standard error output.
+	 * @return The result of the compilation.
+	 */
+	private static Result compile(String args[], CapturingStream capturedOut, CapturingStream capturedErr) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		capturedOut.capture(out);
+		capturedErr.capture(err);
+		int status;
+		try {
+			status = Main.compile(args);
+		} catch (RuntimeException | StackOverflowError ex) {
+			System.err.println(":-( Internal error: " + ex);
+			status = 1;
+		} finally {
+			System.out.flush();
+			System.err.flush();
+			capturedOut.release();
+			capturedErr.release();
+		}
+		return new Result(status, out.toByteArray(), err.toByteArray());
+	}
+
+	/**
+	 * Reads the names of the source files from a manifest file.
+	 *
+	 * @param manifest
+	 *            The name of the manifest file.
+	 * @return The list of source file names.
+	 */
+	private static Vector<String> readManifest(String manifest) {
+		Vector<String> srcFNames = new Vector<String>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(manifest))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#"))
+					continue;
+				srcFNames.add(line);
+			}
+		} catch (IOException ex) {
+			throw new CompilerError("Cannot read manifest file '" + manifest + "'.");
+		}
+		return srcFNames;
+	}
+
+	/**
+	 * The exit status and the output of a single compilation.
+	 */
+	private static class Result {
+
+		public final int status;
+
+		public final byte[] out;
+
+		public final byte[] err;
+
+		public Result(int status, byte[] out, byte[] err) {
+			this.status = status;
+			this.out = out;
+			this.err = err;
+		}
+
+	}
+
+	/**
+	 * An output stream that redirects everything written by a thread to the
+	 * buffer the thread is capturing its output into, or to the original
+	 * stream if the thread is not capturing its output.
+	 */
+	public static class CapturingStream extends OutputStream {
+
+		/** The original stream. */
+		private final OutputStream original;
+
+		/**
+		 * The buffer each thread is capturing its output into (threads started
+		 * by a compilation, e.g., for writing logs, capture their output into
+		 * the same buffer).
+		 */
+		private final InheritableThreadLocal<OutputStream> buffers = new InheritableThreadLocal<OutputStream>();
+
+		public CapturingStream(OutputStream original) {
+			this.original = original;
+		}
+
+		/**
+		 * Starts capturing the output of the current thread.
+		 *
+		 * @param buffer
+		 *            The buffer the output is captured into.
+		 */
+		public void capture(OutputStream buffer) {
+			buffers.set(buffer);
+		}
+
+		/**
+		 * Stops capturing the output of the current thread.
+		 */
+		public void release() {
+			buffers.remove();
+		}
+
+		private OutputStream target() {
+			OutputStream buffer = buffers.get();
+			return buffer == null ? original : buffer;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			target().write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			target().write(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			target().flush();
+		}
+
+	}
+
+}
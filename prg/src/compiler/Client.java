@@ -0,0 +1,221 @@
+package compiler;
+
+import java.io.*;
+import java.net.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * The client of the compile server: a drop-in replacement for
+ * <code>java compiler.Main</code> that forwards the compilation to a running
+ * {@link Server} and falls back to compiling within its own JVM if no server
+ * is running.
+ *
+ * Besides the options of {@link Main}, it accepts <code>--port=n</code> (the
+ * port of the server) and <code>--inline</code> (send the source text instead
+ * of the source file name, e.g., for unsaved editor buffers read from the
+ * standard input when the file name is <code>-</code>). Option
+ * <code>--shutdown</code> stops the server. Compilations the server cannot
+ * perform (see {@link #isServable(Vector)}) are performed within the client's
+ * own JVM as well.
+ *
+ * @author sliva
+ */
+public class Client {
+
+	/**
+	 * The entry point of the client.
+	 *
+	 * @param args
+	 *            Command line arguments.
+	 */
+	public static void main(String args[]) {
+		int port = Server.defaultPort;
+		boolean inline = false;
+		boolean shutdown = false;
+		Vector<String> taskArgs = new Vector<String>();
+		for (String arg : args) {
+			if (arg.startsWith("--port=")) {
+				try {
+					port = Integer.parseInt(arg.replaceFirst("--port=", ""));
+				} catch (NumberFormatException ex) {
+					System.err.println(":-o Illegal port specified by '" + arg + "' ignored.");
+				}
+				continue;
+			}
+			if (arg.equals("--inline")) {
+				inline = true;
+				continue;
+			}
+			if (arg.equals("--shutdown")) {
+				shutdown = true;
+				continue;
+			}
+			taskArgs.add(arg);
+		}
+
+		if (!shutdown && !isServable(taskArgs)) {
+			compileLocally(taskArgs, inline);
+			return;
+		}
+
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			if (shutdown) {
+				out.writeUTF(Server.magic);
+				out.writeUTF("shutdown");
+				out.flush();
+				System.exit(receive(in));
+			}
+
+			System.out.println("This is PREV compiler (2016):");
+			send(out, taskArgs, inline);
+			System.exit(receive(in));
+		} catch (ConnectException ex) {
+			if (shutdown)
+				System.exit(0);
+			// No server is running: compile within this JVM.
+			compileLocally(taskArgs, inline);
+		} catch (IOException ex) {
+			System.err.println("IOException :-( " + ex.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Checks whether a compilation can be performed by the server. It cannot
+	 * if it specifies a working directory (the server compiles in a private
+	 * working directory of its own) or if the name of the source file leads
+	 * out of the current directory, even if only to return to it (the files
+	 * generated by the compilation are named after the source file, but the
+	 * server sends back only files within its working directory).
+	 *
+	 * @param args
+	 *            Command line arguments of the compilation.
+	 * @return <code>true</code> if the compilation can be performed by the
+	 *         server.
+	 */
+	private static boolean isServable(Vector<String> args) {
+		boolean srcFound = false;
+		for (String arg : args) {
+			if (arg.startsWith("--workdir="))
+				return false;
+			if ((arg.startsWith("-") && !arg.equals("-")) || srcFound)
+				continue;
+			srcFound = true;
+			if (arg.equals("-") || new File(arg).isAbsolute())
+				continue;
+			// Checked as by the server, which resolves the name against its
+			// working directory rather than against the current directory.
+			if (!Server.isConfined(arg))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Compiles within this JVM (if no server is running or the compilation
+	 * cannot be performed by the server).
+	 */
+	private static void compileLocally(Vector<String> args, boolean inline) {
+		if (inline)
+			args = inlineSource(args);
+		Main.main(args.toArray(new String[args.size()]));
+	}
+
+	/**
+	 * Sends a compilation request.
+	 */
+	private static void send(DataOutputStream out, Vector<String> args, boolean inline) throws IOException {
+		byte[] source = null;
+		if (inline) {
+			for (int i = 0; i < args.size(); i++) {
+				if (args.get(i).startsWith("-") && !args.get(i).equals("-"))
+					continue;
+				if (args.get(i).equals("-")) {
+					source = readAll(System.in);
+					args.set(i, "stdin.prev");
+				} else
+					source = Files.readAllBytes(Paths.get(args.get(i)));
+				break;
+			}
+		}
+
+		out.writeUTF(Server.magic);
+		out.writeUTF("compile");
+		out.writeUTF(new File("").getAbsolutePath());
+		out.writeInt(args.size());
+		for (String arg : args)
+			out.writeUTF(arg);
+		out.writeBoolean(source != null);
+		if (source != null) {
+			out.writeInt(source.length);
+			out.write(source);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Receives the response to a request.
+	 *
+	 * @return The exit status of the compilation.
+	 */
+	private static int receive(DataInputStream in) throws IOException {
+		while (true) {
+			int kind = in.readUnsignedByte();
+			if (kind == Server.frameOut || kind == Server.frameErr) {
+				byte[] chunk = new byte[in.readInt()];
+				in.readFully(chunk);
+				PrintStream stream = kind == Server.frameOut ? System.out : System.err;
+				stream.write(chunk, 0, chunk.length);
+				stream.flush();
+			} else if (kind == Server.frameFile) {
+				String fName = in.readUTF();
+				byte[] content = new byte[in.readInt()];
+				in.readFully(content);
+				Path file = Paths.get(fName);
+				Path cwd = Paths.get("").toAbsolutePath().normalize();
+				if (file.isAbsolute() || !cwd.resolve(file).normalize().startsWith(cwd))
+					throw new IOException("Compile server sent file '" + fName + "' outside the current directory.");
+				if (file.getParent() != null)
+					Files.createDirectories(file.getParent());
+				Files.write(file, content);
+			} else if (kind == Server.frameExit) {
+				return in.readInt();
+			} else
+				throw new IOException("Malformed response from the compile server.");
+		}
+	}
+
+	/**
+	 * Replaces source file name <code>-</code> with a temporary file
+	 * containing the standard input (used when no server is running).
+	 */
+	private static Vector<String> inlineSource(Vector<String> args) {
+		for (int i = 0; i < args.size(); i++) {
+			if (!args.get(i).equals("-"))
+				continue;
+			try {
+				File tmpFile = File.createTempFile("stdin", ".prev");
+				tmpFile.deleteOnExit();
+				Files.write(tmpFile.toPath(), readAll(System.in));
+				args.set(i, tmpFile.getPath());
+			} catch (IOException ex) {
+				System.err.println("IOException :-( " + ex.getMessage());
+				System.exit(1);
+			}
+		}
+		return args;
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		byte[] chunk = new byte[8192];
+		int len;
+		while ((len = in.read(chunk)) != -1)
+			buffer.write(chunk, 0, len);
+		return buffer.toByteArray();
+	}
+
+}
@@ -0,0 +1,139 @@
+package compiler;
+
+import java.util.concurrent.atomic.*;
+
+import compiler.common.names.*;
+import compiler.common.stats.*;
+import compiler.data.frg.*;
+import compiler.data.imc.*;
+import compiler.data.typ.*;
+
+/**
+ * The mutable state shared by the phases of a single compilation.
+ *
+ * Phases reach this state through static methods (e.g.,
+ * {@link compiler.data.imc.TEMP#newTempName()}), but as several compilations
+ * can run in the same JVM at the same time, the state itself is kept per
+ * compilation: each thread performing a compilation is bound to its own
+ * context. Threads helping with a compilation (see {@link Recursion} and
+ * {@link Workers}) are bound to the context of the compilation as well.
+ *
+ * @author sliva
+ */
+public class Context {
+
+	/** The identifiers of the program being compiled. */
+	public final Names names = new Names();
+
+	/** The types of the program being compiled. */
+	public final Typs typs = new Typs();
+
+	/** The allocator of temporary register names and anonymous label names. */
+	public final NameAllocator imcNames = new NameAllocator();
+
+	/** The number of all abstract syntax tree nodes. */
+	public int astNodeCount = 0;
+
+	/** The number of identifiers given to intermediate code expressions. */
+	private final AtomicInteger imcExprCount = new AtomicInteger();
+
+	/**
+	 * The number of identifiers of intermediate code expressions each thread
+	 * takes at once.
+	 */
+	private static final int IMC_EXPR_ID_BLOCK = 1024;
+
+	/**
+	 * The next identifier and the end of the block of identifiers taken by each
+	 * thread.
+	 */
+	private final ThreadLocal<int[]> imcExprIds = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[] { 0, 0 };
+		}
+	};
+
+	/**
+	 * The statistics of the compilation (threads helping with the compilation
+	 * add their work to it).
+	 */
+	public Stats stats = new Stats(false);
+
+	/** The number of warnings printed out. */
+	public int numWarnings = 0;
+
+	/** The code fragment instructions are currently being generated for. */
+	public CodeFragment codeGenFragment = null;
+
+	/** The code fragment registers are currently being allocated for. */
+	public CodeFragment regAllocFragment = null;
+
+	/**
+	 * Returns a new identifier of an intermediate code expression. Identifiers
+	 * are taken in blocks by each thread, so they are unique even if
+	 * expressions are constructed by several threads at the same time, but
+	 * they are dense only as long as a single thread constructs them.
+	 *
+	 * @return A new identifier.
+	 */
+	public int newImcExprId() {
+		int[] ids = imcExprIds.get();
+		if (ids[0] == ids[1]) {
+			ids[0] = imcExprCount.getAndAdd(IMC_EXPR_ID_BLOCK);
+			ids[1] = ids[0] + IMC_EXPR_ID_BLOCK;
+		}
+		return ids[0]++;
+	}
+
+	/**
+	 * Returns the number of identifiers given to intermediate code expressions
+	 * (including those taken but not used yet).
+	 *
+	 * @return The number of identifiers.
+	 */
+	public int imcExprCount() {
+		return imcExprCount.get();
+	}
+
+	/** The context bound to each thread. */
+	private static final ThreadLocal<Context> contexts = new ThreadLocal<Context>() {
+		@Override
+		protected Context initialValue() {
+			return new Context();
+		}
+	};
+
+	/**
+	 * Returns the context of the compilation performed by the current thread.
+	 *
+	 * @return The context of the current compilation.
+	 */
+	public static Context current() {
+		return contexts.get();
+	}
+
+	/**
+	 * Binds a context to the current thread.
+	 *
+	 * @param context
+	 *            The context of the compilation the current thread takes part
+	 *            in.
+	 */
+	public static void bind(Context context) {
+		contexts.set(context);
+	}
+
+	/**
+	 * Binds a fresh context to the current thread; to be called before a new
+	 * compilation is started.
+	 *
+	 * @return The new context.
+	 */
+	public static Context reset() {
+		Context context = new Context();
+		contexts.set(context);
+		return context;
+	}
+
+}
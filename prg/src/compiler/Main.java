@@ -28,107 +28,170 @@ public class Main {
 	 *            Command line arguments.
 	 */
 	public static void main(String args[]) {
+		// Many source files are compiled in a single run in batch mode.
+		if (Batch.isBatch(args)) {
+			System.exit(Batch.run(args));
+		}
+
 		// OK, start at the very beginning.
 		System.out.println("This is PREV compiler (2016):");
 
+		System.exit(compile(args));
+	}
+
+	/**
+	 * Compiles a single source file as specified by the command line
+	 * arguments. The compilation is performed within a fresh context bound to
+	 * the current thread, so several compilations can run in parallel.
+	 * 
+	 * @param args
+	 *            Command line arguments.
+	 * @return The exit status of the compilation.
+	 */
+	public static int compile(String args[]) {
+		Context.reset();
+
 		try {
 			// Parse the command line.
 			Task task = new Task(args);
 
 			// Carry out the compilation up to the specified phase.
-			while (true) {
-
-				// ***** Lexical analysis. *****
-				if (task.phase.equals("lexan")) {
-					LexAn lexAn = new LexAn(task);
-					while (lexAn.lexAn().token != Symbol.Token.EOF) {
-					}
-					lexAn.close();
-					break;
-				}
-
-				// ***** Syntax analysis. *****
-				SynAn synAn = new SynAn(task);
-				task.prgAST = synAn.synAn();
-				synAn.close();
-				if (task.phase.equals("synan"))
-					break;
-
-				// ***** Abstract syntax tree. *****
-				Abstr abstr = new Abstr(task);
-				abstr.close();
-				if (task.phase.equals("abstr"))
-					break;
-
-				// ***** Semantic analysis. *****
-				SemAn seman = new SemAn(task);
-				(new EvalValue(task.prgAttrs)).visit(task.prgAST);
-				(new EvalDecl(task.prgAttrs)).visit(task.prgAST);
-				(new EvalTyp(task.prgAttrs)).visit(task.prgAST);
-				(new EvalMem(task.prgAttrs)).visit(task.prgAST);
-				seman.close();
-				if (task.phase.equals("seman"))
-					break;
-
-				if (Report.getNumWarnings() > 0)
-					break;
-
-				// Frames and accesses.
-				Frames frames = new Frames(task);
-				(new EvalFrames(task.prgAttrs)).visit(task.prgAST);
-				frames.close();
-				if (task.phase.equals("frames"))
-					break;
-				
-				// Intermediate code generation.
-				Imcode imcode = new Imcode(task);
-				(new EvalImcode(task.prgAttrs, task.fragments)).visit(task.prgAST);
-				imcode.close();
-				if (task.phase.equals("imcode"))
-					break;
-				
-				// Linearization of the intermediate code.
-				if (task.phase.equals("lincode")){
-					LinCode linCode = new LinCode(task);
-//					(new EvalLinCode(task.fragments)).visit(task.prgAST);
-					linCode.close();
-				}
-				if (task.phase.equals("lincode"))
-					break;
-				
-				// Liveness analysis.
-				CodeGen codeGen = new CodeGen(task, task.phase.equals("codegen"));
-//				(new EvalCodeGen(task.fragments)).visit(task.prgAST);
-				codeGen.close();
-				if (task.phase.equals("codegen"))
-					break;
-				
-				// Register allocation.
-				RegAlloc regAlloc = new RegAlloc(task);
-//				(new EvalCodeGen(task.fragments)).visit(task.prgAST);
-				regAlloc.close();
-				if (task.phase.equals("regalloc"))
-					break;
-
-				break;
-			}
+			compile(task);
 		} catch (CompilerError errorReport) {
 			// As dead as a dodo. Print error message and signal error.
 			System.err.println(":-( " + errorReport.getMessage());
-			System.exit(1);
+			return 1;
 		} catch (IOException errorReport) {
 			System.err.println("IOException :-( " + errorReport.getMessage());
-			System.exit(1);
+			return 1;
 		}
 
 		if (Report.getNumWarnings() > 0) {
 			// There is still room for improvement.
 			Report.warning("Have you seen all warning messages?");
-			System.exit(0);
+			return 0;
 		} else {
 			// Let's hope it ever comes this far.
 			Report.info("Done.");
-			System.exit(0);
+			return 0;
+		}
+	}
+
+	/**
+	 * Carries out the compilation up to the phase specified by the task.
+	 * 
+	 * @param task
+	 *            The parameters and internal data of the compilation process.
+	 * @throws IOException
+	 *             If the source file cannot be read.
+	 */
+	public static void compile(Task task) throws IOException {
+		try {
+			compilePhases(task);
+		} finally {
+			// Phases interrupted by an error leave neither log files nor
+			// logging threads behind.
+			task.abortPhases();
+		}
+
+		if (task.stats.enabled)
+			task.stats.write(task.file(task.xmlFName + ".stats.json"), task.srcFName);
+	}
+
+	private static void compilePhases(Task task) throws IOException {
+		while (true) {
+
+			// ***** Lexical analysis. *****
+			if (task.phase.equals("lexan")) {
+				task.stats.begPhase("LexAn");
+				LexAn lexAn = new LexAn(task);
+				while (lexAn.lexAn().token != Symbol.Token.EOF) {
+				}
+				lexAn.close();
+				task.stats.endPhase();
+				break;
+			}
+
+			// ***** Syntax analysis. *****
+			// (Lexical analysis is performed on demand and is thus included.)
+			task.stats.begPhase("SynAn");
+			SynAn synAn = new SynAn(task);
+			task.prgAST = synAn.synAn();
+			synAn.close();
+			task.stats.endPhase();
+			if (task.phase.equals("synan"))
+				break;
+
+			// ***** Abstract syntax tree. *****
+			task.stats.begPhase("Abstr");
+			Abstr abstr = new Abstr(task);
+			abstr.close();
+			task.stats.endPhase();
+			if (task.phase.equals("abstr"))
+				break;
+
+			// ***** Semantic analysis. *****
+			SemAn seman = new SemAn(task);
+			(new PassManager(task)).run();
+			seman.close();
+			if (task.phase.equals("seman"))
+				break;
+
+			if (Report.getNumWarnings() > 0)
+				break;
+
+			// Frames and accesses.
+			Frames frames = new Frames(task);
+			task.stats.begPhase("EvalFrames");
+			if (task.parallelism > 1)
+				(new ParEvalFrames(task.prgAttrs, task.parallelism)).visit(task.prgAST);
+			else
+				(new EvalFrames(task.prgAttrs)).visit(task.prgAST);
+			task.stats.endPhase();
+			frames.close();
+			if (task.phase.equals("frames"))
+				break;
+			
+			// Intermediate code generation.
+			Imcode imcode = new Imcode(task);
+			task.stats.begPhase("EvalImcode");
+			if (task.parallelism > 1)
+				(new ParEvalImcode(task.prgAttrs, task.fragments, task.parallelism)).visit(task.prgAST);
+			else
+				(new EvalImcode(task.prgAttrs, task.fragments)).visit(task.prgAST);
+			task.stats.endPhase();
+			imcode.close();
+			if (task.phase.equals("imcode"))
+				break;
+			
+			// Linearization of the intermediate code.
+			if (task.phase.equals("lincode")){
+				LinCode linCode = new LinCode(task);
+//				(new EvalLinCode(task.fragments)).visit(task.prgAST);
+				linCode.close();
+			}
+			if (task.phase.equals("lincode"))
+				break;
+			
+			// Liveness analysis.
+			task.stats.begPhase("CodeGen");
+			CodeGen codeGen = new CodeGen(task, task.phase.equals("codegen"));
+			task.stats.endPhase();
+//			(new EvalCodeGen(task.fragments)).visit(task.prgAST);
+			codeGen.close();
+			if (task.phase.equals("codegen"))
+				break;
+			
+			// Register allocation.
+			task.stats.begPhase("RegAlloc");
+			RegAlloc regAlloc = new RegAlloc(task);
+			task.stats.endPhase();
+//			(new EvalCodeGen(task.fragments)).visit(task.prgAST);
+			regAlloc.close();
+			if (task.phase.equals("regalloc"))
+				break;
+
+			break;
 		}
 	}
 
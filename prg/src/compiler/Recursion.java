@@ -0,0 +1,284 @@
+package compiler;
+
+/**
+ * Guards the deeply recursive parts of the compiler (the parser and the
+ * traversals of trees) against running out of stack.
+ *
+ * Guarded calls are counted per thread. Once the stack of the current thread
+ * holds a certain number of guarded calls, the next guarded call is performed
+ * on another thread with a fresh stack (a stack segment) while the current
+ * thread waits for it to return. Hence the depth of recursion is limited only
+ * by the available memory, but threads performing compilations keep their
+ * default stack size.
+ *
+ * Stack segments are not free, as each of them is a thread with a large stack.
+ * A stack segment is created only when the first guarded call overflows to it,
+ * and it is then reused by all guarded calls overflowing from the same thread,
+ * i.e., there is one stack segment per level of nesting rather than one per
+ * guarded call. The whole chain of stack segments is discarded once the
+ * outermost guarded call of the thread that has started it returns. The thread
+ * of a stack segment takes part in the same compilation as its creator (it is
+ * bound to the same context and inherits the inheritable thread-local values
+ * of its creator), and the work it does is added to the statistics of the
+ * compilation.
+ *
+ * A guarded call is performed as
+ *
+ * <pre>
+ * if (!Recursion.enter())
+ * 	return Recursion.extend(call);
+ * try {
+ * 	...
+ * } finally {
+ * 	Recursion.exit();
+ * }
+ * </pre>
+ *
+ * where <code>call</code> performs the same guarded call again (on the new
+ * stack segment).
+ *
+ * @author sliva
+ */
+public class Recursion {
+
+	/**
+	 * The number of guarded calls the stack of a thread not created here can
+	 * hold (as its stack size is not known, the number is kept small).
+	 */
+	private static final int FIRST_SEGMENT_DEPTH = 256;
+
+	/** The number of guarded calls a new stack segment can hold. */
+	private static final int SEGMENT_DEPTH = 4096;
+
+	/** The stack size of a thread running a new stack segment (in bytes). */
+	private static final long SEGMENT_SIZE = 32L << 20;
+
+	/**
+	 * The state of guarded calls on a single thread.
+	 */
+	private static class Depth {
+
+		/** The number of guarded calls in progress. */
+		private int depth = 0;
+
+		/** The number of guarded calls the stack can hold. */
+		private final int limit;
+
+		/** Whether the thread runs a stack segment created here. */
+		private final boolean isSegment;
+
+		/**
+		 * The stack segment guarded calls overflowing from this thread are
+		 * performed on (or <code>null</code> if none has been needed yet).
+		 */
+		private Segment next = null;
+
+		private Depth(int limit, boolean isSegment) {
+			this.limit = limit;
+			this.isSegment = isSegment;
+		}
+
+	}
+
+	/** The state of guarded calls on the current thread. */
+	private static final ThreadLocal<Depth> depths = new ThreadLocal<Depth>() {
+		@Override
+		protected Depth initialValue() {
+			return new Depth(FIRST_SEGMENT_DEPTH, false);
+		}
+	};
+
+	/**
+	 * A guarded call to be performed on a new stack segment.
+	 *
+	 * @param <Value>
+	 *            The type of the result of the call.
+	 * @param <Failure>
+	 *            The type of the checked exception the call can throw.
+	 */
+	public interface Call<Value, Failure extends Exception> {
+
+		public Value call() throws Failure;
+
+	}
+
+	/**
+	 * Enters a guarded call.
+	 *
+	 * @return <code>true</code> if the call can be performed on the current
+	 *         thread (and {@link #exit()} must be called once it returns), or
+	 *         <code>false</code> if it must be performed by
+	 *         {@link #extend(Call)}.
+	 */
+	public static boolean enter() {
+		Depth depth = depths.get();
+		if (depth.depth == depth.limit)
+			return false;
+		depth.depth++;
+		return true;
+	}
+
+	/**
+	 * Exits a guarded call. Once the outermost guarded call of a thread not
+	 * created here returns, the chain of stack segments it has used is
+	 * discarded.
+	 */
+	public static void exit() {
+		Depth depth = depths.get();
+		depth.depth--;
+		if ((depth.depth == 0) && (!depth.isSegment) && (depth.next != null)) {
+			depth.next.stop();
+			depth.next = null;
+		}
+	}
+
+	/**
+	 * Performs a guarded call on the stack segment following the stack of the
+	 * current thread and waits for it to return. Whatever the call returns or
+	 * throws is returned or thrown here.
+	 *
+	 * @param call
+	 *            The guarded call.
+	 * @return The result of the call.
+	 * @throws Failure
+	 *             The checked exception thrown by the call.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <Value, Failure extends Exception> Value extend(Call<Value, Failure> call) throws Failure {
+		Depth depth = depths.get();
+		if (depth.next == null)
+			depth.next = new Segment();
+		depth.next.perform(call);
+		Throwable error = depth.next.error;
+		Object result = depth.next.result;
+		depth.next.error = null;
+		depth.next.result = null;
+		if (error instanceof RuntimeException)
+			throw (RuntimeException) error;
+		if (error instanceof Error)
+			throw (Error) error;
+		if (error != null)
+			throw (Failure) error;
+		return (Value) result;
+	}
+
+	/**
+	 * A stack segment, i.e., a thread performing guarded calls handed over to
+	 * it one at a time by the thread whose stack it continues.
+	 */
+	private static class Segment implements Runnable {
+
+		/** The context of the compilation. */
+		private final Context context = Context.current();
+
+		/** The thread running this stack segment. */
+		private final Thread thread;
+
+		/** The guarded call to be performed (or <code>null</code> if none). */
+		private Call<?, ?> call = null;
+
+		/** The result of the last guarded call performed. */
+		private Object result = null;
+
+		/** The exception thrown by the last guarded call performed. */
+		private Throwable error = null;
+
+		/** Whether the thread running this stack segment should terminate. */
+		private boolean stopped = false;
+
+		private Segment() {
+			thread = new Thread(null, this, Thread.currentThread().getName() + "+", SEGMENT_SIZE);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		@Override
+		public void run() {
+			Context.bind(context);
+			Depth depth = new Depth(SEGMENT_DEPTH, true);
+			depths.set(depth);
+			try {
+				while (true) {
+					Call<?, ?> call;
+					synchronized (this) {
+						while ((this.call == null) && (!stopped))
+							await();
+						if (this.call == null)
+							break;
+						call = this.call;
+					}
+					Object result = null;
+					Throwable error = null;
+					long[] work = context.stats.begWork();
+					try {
+						result = call.call();
+					} catch (Throwable ex) {
+						error = ex;
+					}
+					context.stats.endWork(work);
+					synchronized (this) {
+						this.result = result;
+						this.error = error;
+						this.call = null;
+						notifyAll();
+					}
+				}
+			} finally {
+				if (depth.next != null)
+					depth.next.stop();
+			}
+		}
+
+		/**
+		 * Performs a guarded call on this stack segment and waits for it to
+		 * return.
+		 */
+		private synchronized void perform(Call<?, ?> call) {
+			this.call = call;
+			notifyAll();
+			boolean interrupted = false;
+			while (this.call != null)
+				interrupted |= await();
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+
+		/**
+		 * Terminates the thread running this stack segment (and the stack
+		 * segments following it) and waits for it to finish.
+		 */
+		private void stop() {
+			synchronized (this) {
+				stopped = true;
+				notifyAll();
+			}
+			boolean interrupted = false;
+			while (true) {
+				try {
+					thread.join();
+					break;
+				} catch (InterruptedException ex) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+
+		/**
+		 * Waits for this stack segment to be notified.
+		 *
+		 * @return <code>true</code> if the wait has been interrupted.
+		 */
+		private boolean await() {
+			try {
+				wait();
+				return false;
+			} catch (InterruptedException ex) {
+				return true;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,399 @@
+package compiler;
+
+import java.io.*;
+import java.net.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import compiler.common.report.*;
+
+/**
+ * The compile server: a long-lived process that accepts compilation requests
+ * on a loopback socket so that the compiler stays loaded (and JIT-compiled)
+ * between compilations.
+ *
+ * Each request carries the client's command line and either the name of the
+ * source file (read by the server relative to the client's current directory)
+ * or the source text itself. The compilation is performed in a private
+ * working directory; the standard output and the standard error output of the
+ * compilation are streamed back to the client as they are produced, followed
+ * by all files generated by the compilation (the <code>.mms</code> file and
+ * the logs) and the exit status. See {@link Client} for the client side.
+ *
+ * Usage: <code>java compiler.Server [--port=n] [--threads=n]</code>
+ *
+ * @author sliva
+ */
+public class Server {
+
+	/** The port the server listens on by default. */
+	public static final int defaultPort = 4016;
+
+	/** The magic string starting every request. */
+	public static final String magic = "PREV/1";
+
+	/** Response frame: a chunk of the standard output. */
+	public static final int frameOut = 'O';
+
+	/** Response frame: a chunk of the standard error output. */
+	public static final int frameErr = 'E';
+
+	/** Response frame: a file generated by the compilation. */
+	public static final int frameFile = 'F';
+
+	/** Response frame: the exit status (the last frame of every response). */
+	public static final int frameExit = 'X';
+
+	/** The socket the server accepts requests on. */
+	private final ServerSocket serverSocket;
+
+	/** Worker threads performing the compilations. */
+	private final ExecutorService workers;
+
+	/** The stream capturing the standard output of the workers. */
+	private final Batch.CapturingStream capturedOut;
+
+	/** The stream capturing the standard error output of the workers. */
+	private final Batch.CapturingStream capturedErr;
+
+	/**
+	 * Constructs a new compile server.
+	 *
+	 * @param port
+	 *            The port on the loopback interface the server listens on.
+	 * @param numThreads
+	 *            The number of worker threads.
+	 * @throws IOException
+	 *             If the socket cannot be opened.
+	 */
+	public Server(int port, int numThreads) throws IOException {
+		serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		workers = Executors.newFixedThreadPool(numThreads);
+		capturedOut = new Batch.CapturingStream(System.out);
+		capturedErr = new Batch.CapturingStream(System.err);
+	}
+
+	/**
+	 * The entry point of the compile server.
+	 *
+	 * @param args
+	 *            Command line arguments.
+	 */
+	public static void main(String args[]) {
+		int port = defaultPort;
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		for (String arg : args) {
+			try {
+				if (arg.startsWith("--port=")) {
+					port = Integer.parseInt(arg.replaceFirst("--port=", ""));
+					continue;
+				}
+				if (arg.startsWith("--threads=")) {
+					numThreads = Math.max(1, Integer.parseInt(arg.replaceFirst("--threads=", "")));
+					continue;
+				}
+			} catch (NumberFormatException ex) {
+			}
+			Report.warning("Command line option '" + arg + "' ignored.");
+		}
+
+		try {
+			Server server = new Server(port, numThreads);
+			Report.info("PREV compile server listening on port " + server.serverSocket.getLocalPort() + ".");
+			server.serve();
+		} catch (IOException ex) {
+			System.err.println("IOException :-( " + ex.getMessage());
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Accepts requests until the server is shut down.
+	 */
+	public void serve() {
+		PrintStream stdout = System.out;
+		PrintStream stderr = System.err;
+		System.setOut(new PrintStream(capturedOut, true));
+		System.setErr(new PrintStream(capturedErr, true));
+		try {
+			while (true) {
+				final Socket socket;
+				try {
+					socket = serverSocket.accept();
+				} catch (IOException ex) {
+					// The server socket has been closed.
+					break;
+				}
+				workers.submit(new Runnable() {
+					@Override
+					public void run() {
+						handle(socket);
+					}
+				});
+			}
+		} finally {
+			workers.shutdown();
+			System.setOut(stdout);
+			System.setErr(stderr);
+		}
+	}
+
+	/**
+	 * Shuts the server down; requests being processed are completed.
+	 */
+	public void shutdown() {
+		try {
+			serverSocket.close();
+		} catch (IOException ex) {
+		}
+	}
+
+	/**
+	 * Handles a single request.
+	 *
+	 * @param socket
+	 *            The socket connected to the client.
+	 */
+	private void handle(Socket socket) {
+		try (Socket s = socket) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+
+			if (!in.readUTF().equals(magic))
+				return;
+			String command = in.readUTF();
+			if (command.equals("shutdown")) {
+				shutdown();
+				sendExit(out, 0);
+				return;
+			}
+			if (!command.equals("compile"))
+				return;
+
+			String cwd = in.readUTF();
+			String args[] = new String[in.readInt()];
+			for (int i = 0; i < args.length; i++)
+				args[i] = in.readUTF();
+			byte[] source = null;
+			if (in.readBoolean()) {
+				source = new byte[in.readInt()];
+				in.readFully(source);
+			}
+
+			compile(cwd, args, source, out);
+		} catch (IOException ex) {
+			// The client has gone away.
+		}
+	}
+
+	/**
+	 * Performs a compilation requested by a client.
+	 *
+	 * @param cwd
+	 *            The current directory of the client.
+	 * @param args
+	 *            The command line of the client (options
+	 *            <code>--workdir=</code> are ignored, as the compilation is
+	 *            performed in a private working directory).
+	 * @param source
+	 *            The source text (or <code>null</code> if the source file
+	 *            should be read by the server).
+	 * @param out
+	 *            The stream the response is written to.
+	 * @throws IOException
+	 *             If the response cannot be sent.
+	 */
+	private void compile(String cwd, String args[], byte[] source, DataOutputStream out) throws IOException {
+		Path workDir = Files.createTempDirectory("prevc");
+		try {
+			// The compilation must not leave its private working directory.
+			Vector<String> ownArgs = new Vector<String>();
+			for (String arg : args) {
+				if (arg.startsWith("--workdir=")) {
+					FrameStream frameErr = new FrameStream(out, Server.frameErr);
+					frameErr.write((":-o Working directory specified by '" + arg
+							+ "' ignored by the compile server.\n").getBytes());
+					continue;
+				}
+				ownArgs.add(arg);
+			}
+			args = ownArgs.toArray(new String[ownArgs.size()]);
+
+			// Find the source file.
+			int srcIdx = -1;
+			for (int i = 0; i < args.length; i++)
+				if (!args[i].startsWith("-")) {
+					srcIdx = i;
+					break;
+				}
+
+			// Place the source file within the working directory.
+			Path srcFile = null;
+			if (srcIdx != -1) {
+				String srcFName = args[srcIdx];
+				if (new File(srcFName).isAbsolute()) {
+					if (source != null) {
+						srcFName = new File(srcFName).getName();
+						args[srcIdx] = srcFName;
+					}
+				}
+				if (!new File(srcFName).isAbsolute()) {
+					if (source == null) {
+						try {
+							source = Files.readAllBytes(Paths.get(cwd).resolve(srcFName));
+						} catch (IOException ex) {
+							source = null;
+						}
+					}
+					if (source != null) {
+						srcFile = workDir.resolve(srcFName).normalize();
+						if (!isConfined(srcFName)) {
+							// The compiler would look for it outside the working
+							// directory and report it missing instead.
+							FrameStream frameErr = new FrameStream(out, Server.frameErr);
+							frameErr.write((":-( Source file '" + srcFName + "' lies outside the current directory"
+									+ " and cannot be compiled by the compile server.\n").getBytes());
+							sendExit(out, 1);
+							return;
+						}
+						// The compiler resolves the name as given, so every
+						// directory it names must exist (e.g., 'sub/../a.prev').
+						Path dir = workDir;
+						for (Path name : Paths.get(srcFName)) {
+							dir = dir.resolve(name);
+							Path normDir = dir.normalize();
+							if (normDir.startsWith(workDir) && !normDir.equals(srcFile))
+								Files.createDirectories(normDir);
+						}
+						Files.write(srcFile, source);
+					}
+				}
+			}
+
+			// Compile.
+			String taskArgs[] = Arrays.copyOf(args, args.length + 1);
+			taskArgs[args.length] = "--workdir=" + workDir.toString();
+			int status;
+			FrameStream frameOut = new FrameStream(out, Server.frameOut);
+			FrameStream frameErr = new FrameStream(out, Server.frameErr);
+			capturedOut.capture(frameOut);
+			capturedErr.capture(frameErr);
+			try {
+				status = Main.compile(taskArgs);
+			} catch (RuntimeException | StackOverflowError ex) {
+				System.err.println(":-( Internal error: " + ex);
+				status = 1;
+			} finally {
+				System.out.flush();
+				System.err.flush();
+				capturedOut.release();
+				capturedErr.release();
+			}
+
+			// Send the generated files back.
+			Vector<Path> files = new Vector<Path>();
+			collectFiles(workDir.toFile(), files);
+			Collections.sort(files);
+			for (Path file : files) {
+				if (file.equals(srcFile))
+					continue;
+				byte[] content = Files.readAllBytes(file);
+				synchronized (out) {
+					out.writeByte(frameFile);
+					out.writeUTF(workDir.relativize(file).toString().replace(File.separatorChar, '/'));
+					out.writeInt(content.length);
+					out.write(content);
+				}
+			}
+
+			sendExit(out, status);
+		} finally {
+			deleteAll(workDir.toFile());
+		}
+	}
+
+	/**
+	 * Checks whether a relative file name stays within the directory it is
+	 * resolved against (whichever directory that is), i.e., whether it can
+	 * name a file within the private working directory of a compilation. The
+	 * client and the server must agree on it (see {@link Client}).
+	 *
+	 * @param fName
+	 *            The relative file name.
+	 * @return <code>true</code> if the file name stays within the directory.
+	 */
+	public static boolean isConfined(String fName) {
+		return !Paths.get(fName).normalize().startsWith("..");
+	}
+
+	private static void sendExit(DataOutputStream out, int status) throws IOException {
+		synchronized (out) {
+			out.writeByte(frameExit);
+			out.writeInt(status);
+			out.flush();
+		}
+	}
+
+	private static void collectFiles(File dir, Vector<Path> files) {
+		File[] entries = dir.listFiles();
+		if (entries == null)
+			return;
+		for (File entry : entries) {
+			if (entry.isDirectory())
+				collectFiles(entry, files);
+			else
+				files.add(entry.toPath());
+		}
+	}
+
+	private static void deleteAll(File file) {
+		File[] entries = file.listFiles();
+		if (entries != null)
+			for (File entry : entries)
+				deleteAll(entry);
+		file.delete();
+	}
+
+	/**
+	 * An output stream that sends everything written to it to the client as
+	 * response frames of a given kind.
+	 */
+	private static class FrameStream extends OutputStream {
+
+		private final DataOutputStream out;
+
+		private final int kind;
+
+		public FrameStream(DataOutputStream out, int kind) {
+			this.out = out;
+			this.kind = kind;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return;
+			synchronized (out) {
+				out.writeByte(kind);
+				out.writeInt(len);
+				out.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			synchronized (out) {
+				out.flush();
+			}
+		}
+
+	}
+
+}
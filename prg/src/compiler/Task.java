@@ -1,11 +1,14 @@
 package compiler;
 
+import java.io.*;
 import java.util.*;
 
 import compiler.common.report.*;
+import compiler.common.stats.*;
 import compiler.data.ast.*;
 import compiler.data.ast.attr.*;
 import compiler.data.frg.*;
+import compiler.phase.*;
 
 /**
  * The parameters and internal data of the compilation process.
@@ -29,12 +32,39 @@ public class Task {
 	/** A list of phases logging should be performed for. */
 	public final String loggedPhases;
 
+	/** Whether logs are written out by separate threads. */
+	public final boolean asyncLog;
+
+	/**
+	 * The format of log files ({@code xml}, {@code bin} or {@code bin.gz}),
+	 * also used as the extension of their names.
+	 */
+	public final String logFormat;
+
 	/** The last phase of the compiler to be performed. */
 	public final String phase;
 	
 	/** Number of registers if regalloc phase is performed. */
 	public final int numRegs;
 
+	/** The register allocator ({@code graph} or {@code linear}). */
+	public final String regAlloc;
+
+	/**
+	 * The directory relative file names are resolved against (or
+	 * <code>null</code> if they are resolved against the current directory).
+	 */
+	public final String workDName;
+
+	/**
+	 * The number of threads function bodies are checked and translated by (1
+	 * if they are processed sequentially).
+	 */
+	public final int parallelism;
+
+	/** Statistics of the compilation (collected only if requested). */
+	public final Stats stats;
+
 	/**
 	 * Construct a new compilation task based on the command-line agruments.
 	 * 
@@ -47,8 +77,14 @@ public class Task {
 		String xmlFName = "";
 		String xslDName = "";
 		String loggedPhases = "";
+		boolean asyncLog = false;
+		String logFormat = "";
 		String phase = "";
 		int numRegs = 4;
+		String regAlloc = "";
+		String workDName = null;
+		String stats = "";
+		int parallelism = 1;
 
 		for (int argc = 0; argc < args.length; argc++) {
 			if (args[argc].startsWith("-")) {
@@ -78,6 +114,23 @@ public class Task {
 					continue;
 				}
 
+				if (args[argc].equals("--asynclog")) {
+					asyncLog = true;
+					continue;
+				}
+
+				if (args[argc].startsWith("--logformat=")) {
+					if (logFormat == "") {
+						logFormat = args[argc].replaceFirst("--logformat=", "");
+						if (!logFormat.matches("xml|bin|bin\\.gz")) {
+							Report.warning("Illegal log format specified by '" + args[argc] + "' ignored.");
+							logFormat = "";
+						}
+					} else
+						Report.warning("Log format already specified, option '" + args[argc] + "' ignored.");
+					continue;
+				}
+
 				if (args[argc].startsWith("--xsldir=")) {
 					if (xslDName == "") {
 						xslDName = args[argc].replaceFirst("--xsldir=", "");
@@ -101,6 +154,59 @@ public class Task {
 					continue;
 				}
 
+				if (args[argc].startsWith("--regalloc=")) {
+					if (regAlloc == "") {
+						regAlloc = args[argc].replaceFirst("--regalloc=", "");
+						if (!regAlloc.matches("graph|linear")) {
+							Report.warning("Illegal register allocator specified by '" + args[argc] + "' ignored.");
+							regAlloc = "";
+						}
+					} else
+						Report.warning("Register allocator already specified, option '" + args[argc] + "' ignored.");
+					continue;
+				}
+
+				if (args[argc].startsWith("--workdir=")) {
+					if (workDName == null) {
+						workDName = args[argc].replaceFirst("--workdir=", "");
+						if (workDName.equals("")) {
+							Report.warning("No working directory specified by '" + args[argc] + "'; option ignored.");
+							workDName = null;
+						}
+					} else
+						Report.warning("Working directory already specified, option '" + args[argc] + "' ignored.");
+					continue;
+				}
+
+				if (args[argc].startsWith("--stats=")) {
+					if (stats == "") {
+						stats = args[argc].replaceFirst("--stats=", "");
+						if (!stats.equals("json")) {
+							Report.warning("Illegal statistics format specified by '" + args[argc] + "' ignored.");
+							stats = "";
+						}
+					} else
+						Report.warning("Statistics already requested, option '" + args[argc] + "' ignored.");
+					continue;
+				}
+
+				if (args[argc].equals("--parallel")) {
+					parallelism = Runtime.getRuntime().availableProcessors();
+					continue;
+				}
+
+				if (args[argc].startsWith("--parallel=")) {
+					try {
+						parallelism = Integer.parseInt(args[argc].replaceFirst("--parallel=", ""));
+						if (parallelism < 1)
+							throw new NumberFormatException();
+					} catch (NumberFormatException ex) {
+						Report.warning("Illegal number of threads specified by '" + args[argc] + "' ignored.");
+						parallelism = 1;
+					}
+					continue;
+				}
+
 				Report.warning("Unknown command line option '" + args[argc] + "'.");
 			} else {
 				// This is a file name.
@@ -117,14 +223,36 @@ public class Task {
 		this.xmlFName = xmlFName;
 		this.xslDName = xslDName;
 		this.loggedPhases = loggedPhases;
+		this.asyncLog = asyncLog;
+		this.logFormat = logFormat.equals("") ? "xml" : logFormat;
 		this.phase = phase;
 		this.numRegs = numRegs;
+		this.regAlloc = regAlloc.equals("") ? "graph" : regAlloc;
+		this.workDName = workDName;
+		this.parallelism = parallelism;
+		this.stats = new Stats(!stats.equals(""));
+		Context.current().stats = this.stats;
 
 		// Check the source file name.
 		if (this.srcFName == "")
 			throw new CompilerError("Source file name not specified.");
 	}
 
+	/**
+	 * Returns the file a file name used by the compilation refers to, i.e.,
+	 * resolves relative file names against the working directory.
+	 * 
+	 * @param fName
+	 *            The file name.
+	 * @return The file.
+	 */
+	public File file(String fName) {
+		File file = new File(fName);
+		if (workDName == null || file.isAbsolute())
+			return file;
+		return new File(workDName, fName);
+	}
+
 	/**
 	 * The abstract syntax tree representing the program that is being compiled.
 	 */
@@ -139,5 +267,20 @@ public class Task {
 	 * Fragments of the program (indexed by entry labels).
 	 */
     public HashMap<String, Fragment> fragments = new HashMap<String, Fragment>();
+
+	/**
+	 * The phases that have been started but have not been closed yet.
+	 */
+	public final Vector<Phase> openPhases = new Vector<Phase>();
+
+	/**
+	 * Aborts all phases that have been started but have not been closed yet
+	 * (the most recent one first), e.g., if compilation has been aborted by
+	 * an error.
+	 */
+	public void abortPhases() {
+		while (!openPhases.isEmpty())
+			openPhases.lastElement().abort();
+	}
     
 }
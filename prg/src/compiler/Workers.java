@@ -0,0 +1,96 @@
+package compiler;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Performs independent jobs of a compilation (e.g., processing of different
+ * function bodies) in parallel.
+ *
+ * Jobs are forked one after another by the thread performing the compilation
+ * and are performed by a pool of worker threads bound to the context of the
+ * compilation. Once the jobs are joined, an error thrown by any of them is
+ * rethrown: if several jobs have failed, the error of the job forked first is
+ * rethrown, so that the same error is reported as if the jobs had been
+ * performed one after another in the order they have been forked. Hence, if
+ * the thread forking the jobs fails itself, it should join the jobs forked so
+ * far before it rethrows its own error. The work of each job is added to the
+ * statistics of the compilation.
+ *
+ * @author sliva
+ */
+public class Workers {
+
+	/** The pool of worker threads. */
+	private final ForkJoinPool pool;
+
+	/** The context of the compilation. */
+	private final Context context = Context.current();
+
+	/** The jobs forked but not joined yet. */
+	private final Vector<ForkJoinTask<?>> tasks = new Vector<ForkJoinTask<?>>();
+
+	/** The errors thrown by the jobs forked but not joined yet. */
+	private final Vector<Throwable[]> errors = new Vector<Throwable[]>();
+
+	/**
+	 * Constructs a new pool of worker threads.
+	 *
+	 * @param numThreads
+	 *            The number of worker threads.
+	 */
+	public Workers(int numThreads) {
+		pool = new ForkJoinPool(numThreads);
+	}
+
+	/**
+	 * Forks a job.
+	 *
+	 * @param job
+	 *            The job.
+	 */
+	public void fork(final Runnable job) {
+		final Throwable[] error = new Throwable[1];
+		tasks.add(pool.submit(new Runnable() {
+			@Override
+			public void run() {
+				Context.bind(context);
+				long[] work = context.stats.begWork();
+				try {
+					job.run();
+				} catch (Throwable ex) {
+					error[0] = ex;
+				}
+				context.stats.endWork(work);
+			}
+		}));
+		errors.add(error);
+	}
+
+	/**
+	 * Waits for all jobs forked so far to finish and rethrows the error thrown
+	 * by the first of them that has failed.
+	 */
+	public void join() {
+		for (ForkJoinTask<?> task : tasks)
+			task.join();
+		Throwable error = null;
+		for (Throwable[] jobError : errors)
+			if ((error == null) && (jobError[0] != null))
+				error = jobError[0];
+		tasks.clear();
+		errors.clear();
+		if (error instanceof RuntimeException)
+			throw (RuntimeException) error;
+		if (error instanceof Error)
+			throw (Error) error;
+	}
+
+	/**
+	 * Shuts the pool of worker threads down.
+	 */
+	public void close() {
+		pool.shutdown();
+	}
+
+}
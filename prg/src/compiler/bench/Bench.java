@@ -0,0 +1,566 @@
+package compiler.bench;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import compiler.*;
+import compiler.common.report.*;
+import compiler.data.ast.attr.*;
+import compiler.data.codegen.*;
+import compiler.data.frg.*;
+import compiler.phase.codegen.*;
+import compiler.phase.frames.*;
+import compiler.phase.imcode.*;
+import compiler.phase.lexan.*;
+import compiler.phase.regalloc.*;
+import compiler.phase.seman.*;
+import compiler.phase.synan.*;
+import compiler.phase.utils.*;
+
+/**
+ * The benchmark harness: measures each phase of the compiler in isolation.
+ *
+ * For every source file and every selected benchmark, the harness performs a
+ * number of warm-up iterations followed by a number of measured iterations.
+ * Each iteration repeats invocations of the benchmark for (at least) the
+ * specified time; only the phase itself is timed, its input is prepared anew
+ * before each invocation. The results are printed out and, if requested,
+ * dumped in JSON format.
+ *
+ * Register allocation benchmarks format the final code but discard it instead
+ * of writing the <code>.mms</code> file, so that file I/O is not timed.
+ *
+ * Besides source files, synthetic inputs produced by {@link ProgramGenerator}
+ * can be benchmarked: each option <code>--synthetic=knob=value,...</code>
+ * generates one program with the specified knobs.
+ *
+ * Usage:
+ * <code>java compiler.bench.Bench [--bench=regex] [--warmup=n] [--iterations=n] [--time=ms] [--json=file] [--synthetic=knobs] files...</code>
+ *
+ * @author sliva
+ */
+public class Bench {
+
+	/** The numbers of registers register allocation is benchmarked with. */
+	private static final int[] numRegsList = { 4, 8, 16 };
+
+	/** The register allocators that are benchmarked. */
+	private static final String[] regAllocList = { "graph", "linear" };
+
+	/** The number of warm-up iterations. */
+	private int warmup = 5;
+
+	/** The number of measured iterations. */
+	private int iterations = 10;
+
+	/** The minimal time of a single iteration (in nanoseconds). */
+	private long iterationTime = 100000000L;
+
+	/** The directory generated files are written to. */
+	private final String workDName;
+
+	/** The results of the benchmarks performed so far. */
+	private final Vector<Result> results = new Vector<Result>();
+
+	public Bench() throws IOException {
+		File workDir = Files.createTempDirectory("prevbench").toFile();
+		workDir.deleteOnExit();
+		workDName = workDir.getPath();
+	}
+
+	/**
+	 * The entry point of the benchmark harness.
+	 *
+	 * @param args
+	 *            Command line arguments.
+	 */
+	public static void main(String args[]) throws Exception {
+		Bench bench = new Bench();
+		String filter = ".*";
+		String jsonFName = null;
+		Vector<String> srcFNames = new Vector<String>();
+		for (String arg : args) {
+			if (arg.startsWith("--bench="))
+				filter = arg.replaceFirst("--bench=", "");
+			else if (arg.startsWith("--warmup="))
+				bench.warmup = Integer.parseInt(arg.replaceFirst("--warmup=", ""));
+			else if (arg.startsWith("--iterations="))
+				bench.iterations = Integer.parseInt(arg.replaceFirst("--iterations=", ""));
+			else if (arg.startsWith("--time="))
+				bench.iterationTime = Long.parseLong(arg.replaceFirst("--time=", "")) * 1000000L;
+			else if (arg.startsWith("--json="))
+				jsonFName = arg.replaceFirst("--json=", "");
+			else if (arg.startsWith("--synthetic="))
+				srcFNames.add(bench.synthetic(arg.replaceFirst("--synthetic=", "")));
+			else if (arg.startsWith("-"))
+				Report.warning("Unknown command line option '" + arg + "'.");
+			else
+				srcFNames.add(arg);
+		}
+
+		for (String srcFName : srcFNames)
+			for (Benchmark benchmark : bench.benchmarks(srcFName))
+				if (benchmark.name.matches(filter))
+					bench.measure(benchmark);
+
+		if (jsonFName != null)
+			bench.writeJSON(new File(jsonFName));
+		System.exit(0);
+	}
+
+	/**
+	 * Generates a synthetic program.
+	 *
+	 * @param spec
+	 *            The knobs of the generator (see {@link ProgramGenerator}).
+	 * @return The name of the generated source file.
+	 */
+	public String synthetic(String spec) throws IOException {
+		ProgramGenerator generator = new ProgramGenerator();
+		if (!generator.configure(spec))
+			Report.warning("Illegal synthetic program specification '" + spec + "'.");
+		File file = new File(workDName, "synthetic-" + spec.replaceAll("[^A-Za-z0-9]+", "_") + ".prev");
+		file.deleteOnExit();
+		generator.generate(file);
+		return file.getPath();
+	}
+
+	/**
+	 * Measures a single benchmark.
+	 *
+	 * @param benchmark
+	 *            The benchmark.
+	 */
+	public Result measure(Benchmark benchmark) throws Exception {
+		for (int i = 0; i < warmup; i++)
+			iteration(benchmark);
+		Result result = new Result(benchmark);
+		for (int i = 0; i < iterations; i++) {
+			long[] iteration = iteration(benchmark);
+			result.add(iteration[0], iteration[1], iteration[2]);
+		}
+		results.add(result);
+		System.out.println(result);
+		return result;
+	}
+
+	/**
+	 * Performs a single iteration of a benchmark.
+	 *
+	 * @return The total time (in nanoseconds), the number of invocations and
+	 *         the number of units processed.
+	 */
+	private long[] iteration(Benchmark benchmark) throws Exception {
+		long time = 0;
+		long invocations = 0;
+		long units = 0;
+		while (time < iterationTime) {
+			benchmark.setup();
+			long begTime = System.nanoTime();
+			units += benchmark.run();
+			time += System.nanoTime() - begTime;
+			invocations++;
+		}
+		return new long[] { time, invocations, units };
+	}
+
+	/**
+	 * Dumps the results in JSON format.
+	 *
+	 * @param file
+	 *            The file the results are written to.
+	 */
+	public void writeJSON(File file) throws IOException {
+		try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+			writer.println("[");
+			for (int i = 0; i < results.size(); i++)
+				writer.println("  " + results.get(i).toJSON() + (i < results.size() - 1 ? "," : ""));
+			writer.println("]");
+		}
+	}
+
+	/**
+	 * The result of a single benchmark.
+	 */
+	public static class Result {
+
+		public final Benchmark benchmark;
+
+		/** Average time per invocation of each iteration. */
+		private final Vector<Double> scores = new Vector<Double>();
+
+		private long invocations = 0;
+
+		private long units = 0;
+
+		private long time = 0;
+
+		public Result(Benchmark benchmark) {
+			this.benchmark = benchmark;
+		}
+
+		private void add(long time, long invocations, long units) {
+			scores.add((double) time / invocations);
+			this.time += time;
+			this.invocations += invocations;
+			this.units += units;
+		}
+
+		/** Returns the average time per invocation (in nanoseconds). */
+		public double score() {
+			double sum = 0;
+			for (double score : scores)
+				sum += score;
+			return sum / scores.size();
+		}
+
+		/** Returns the standard deviation of the time per invocation. */
+		public double error() {
+			double score = score();
+			double sum = 0;
+			for (double s : scores)
+				sum += (s - score) * (s - score);
+			return scores.size() > 1 ? Math.sqrt(sum / (scores.size() - 1)) : 0;
+		}
+
+		/** Returns the number of units processed per second. */
+		public double throughput() {
+			return time == 0 ? 0 : units * 1e9 / time;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%-24s %-20s %14.0f ns/op +- %10.0f %14.0f %s/s", benchmark.name,
+					new File(benchmark.srcFName).getName(), score(), error(), throughput(), benchmark.unit());
+		}
+
+		public String toJSON() {
+			return String.format(Locale.ROOT,
+					"{ \"benchmark\": \"%s\", \"input\": \"%s\", \"mode\": \"avgt\", \"iterations\": %d, \"invocations\": %d, "
+							+ "\"score\": %.1f, \"scoreError\": %.1f, \"scoreUnit\": \"ns/op\", \"throughput\": %.1f, \"throughputUnit\": \"%s/s\" }",
+					benchmark.name, benchmark.srcFName.replace("\\", "\\\\").replace("\"", "\\\""), scores.size(),
+					invocations, score(), error(), throughput(), benchmark.unit());
+		}
+
+	}
+
+	/* The compiler pipeline used to prepare the inputs of the benchmarks. */
+
+	/**
+	 * Creates a new compilation task and binds a fresh context to the current
+	 * thread.
+	 */
+	public Task task(String srcFName, int numRegs) {
+		return task(srcFName, numRegs, "graph");
+	}
+
+	/**
+	 * Creates a new compilation task using the specified register allocator
+	 * and binds a fresh context to the current thread.
+	 */
+	public Task task(String srcFName, int numRegs, String regAlloc) {
+		Context.reset();
+		return new Task(new String[] { "--phase=regalloc", "--numregs=" + numRegs, "--regalloc=" + regAlloc,
+				"--workdir=" + workDName, new File(srcFName).getAbsolutePath() });
+	}
+
+	public static void parse(Task task) throws IOException {
+		SynAn synAn = new SynAn(task);
+		task.prgAST = synAn.synAn();
+		synAn.close();
+	}
+
+	/**
+	 * Performs the first <code>numPasses</code> semantic analysis passes on
+	 * fresh attributes.
+	 */
+	public static void seman(Task task, int numPasses) {
+		task.prgAttrs = new Attributes();
+		if (numPasses > 0)
+			(new EvalValue(task.prgAttrs)).visit(task.prgAST);
+		if (numPasses > 1)
+			(new EvalDecl(task.prgAttrs)).visit(task.prgAST);
+		if (numPasses > 2)
+			(new EvalTyp(task.prgAttrs)).visit(task.prgAST);
+		if (numPasses > 3)
+			(new EvalMem(task.prgAttrs)).visit(task.prgAST);
+	}
+
+	public static void frames(Task task) {
+		(new EvalFrames(task.prgAttrs)).visit(task.prgAST);
+	}
+
+	public static void imcode(Task task) {
+		task.fragments = new HashMap<String, Fragment>();
+		(new EvalImcode(task.prgAttrs, task.fragments)).visit(task.prgAST);
+	}
+
+	/**
+	 * Generates instructions for all code fragments and computes their
+	 * successors.
+	 */
+	public static Vector<EvalCodeGen> codegen(Task task) {
+		Vector<EvalCodeGen> codeGens = new Vector<EvalCodeGen>();
+		for (Fragment fragment : task.fragments.values())
+			if (fragment instanceof CodeFragment)
+				codeGens.add(CodeGen.selectInstructions(task.prgAttrs, (CodeFragment) fragment));
+		return codeGens;
+	}
+
+	private static void resetLiveness(Vector<EvalCodeGen> codeGens) {
+		for (EvalCodeGen codeGen : codeGens) {
+			for (Instr instr : codeGen.instructions)
+				instr.clearAttrs();
+			CodeGenUtils.calcInstrSuccessors(codeGen);
+		}
+	}
+
+	/* The benchmarks. */
+
+	/**
+	 * Returns all benchmarks for a single source file.
+	 *
+	 * @param srcFName
+	 *            The name of the source file.
+	 * @return The benchmarks.
+	 */
+	public Vector<Benchmark> benchmarks(final String srcFName) {
+		Vector<Benchmark> benchmarks = new Vector<Benchmark>();
+
+		benchmarks.add(new Benchmark("lexan", srcFName) {
+			private Task task;
+
+			public void setup() {
+				task = task(srcFName, 4);
+			}
+
+			public long run() throws IOException {
+				long numSymbols = 0;
+				LexAn lexAn = new LexAn(task);
+				while (lexAn.lexAn().token != Symbol.Token.EOF)
+					numSymbols++;
+				lexAn.close();
+				return numSymbols + 1;
+			}
+
+			public String unit() {
+				return "tokens";
+			}
+		});
+
+		benchmarks.add(new Benchmark("synan", srcFName) {
+			private Task task;
+
+			public void setup() {
+				task = task(srcFName, 4);
+			}
+
+			public long run() throws IOException {
+				parse(task);
+				return 1;
+			}
+		});
+
+		final String[] semanPasses = { "seman.value", "seman.decl", "seman.typ", "seman.mem" };
+		for (int pass = 0; pass < semanPasses.length; pass++) {
+			final int numPasses = pass;
+			benchmarks.add(new Benchmark(semanPasses[pass], srcFName) {
+				private Task task;
+
+				public void setup() throws IOException {
+					if (task == null) {
+						task = task(srcFName, 4);
+						parse(task);
+					}
+					seman(task, numPasses);
+				}
+
+				public long run() {
+					switch (numPasses) {
+					case 0:
+						(new EvalValue(task.prgAttrs)).visit(task.prgAST);
+						break;
+					case 1:
+						(new EvalDecl(task.prgAttrs)).visit(task.prgAST);
+						break;
+					case 2:
+						(new EvalTyp(task.prgAttrs)).visit(task.prgAST);
+						break;
+					case 3:
+						(new EvalMem(task.prgAttrs)).visit(task.prgAST);
+						break;
+					}
+					return 1;
+				}
+			});
+		}
+
+		benchmarks.add(new Benchmark("seman", srcFName) {
+			private Task task;
+
+			public void setup() throws IOException {
+				if (task == null) {
+					task = task(srcFName, 4);
+					parse(task);
+				}
+				task.prgAttrs = new Attributes();
+			}
+
+			public long run() {
+				(new PassManager(task)).run();
+				return 1;
+			}
+		});
+
+		benchmarks.add(new Benchmark("frames", srcFName) {
+			private Task task;
+
+			public void setup() throws IOException {
+				if (task == null) {
+					task = task(srcFName, 4);
+					parse(task);
+				}
+				seman(task, 4);
+			}
+
+			public long run() {
+				frames(task);
+				return 1;
+			}
+		});
+
+		benchmarks.add(new Benchmark("imcode", srcFName) {
+			private Task task;
+
+			public void setup() throws IOException {
+				if (task == null) {
+					task = task(srcFName, 4);
+					parse(task);
+				}
+				seman(task, 4);
+				frames(task);
+			}
+
+			public long run() {
+				imcode(task);
+				return 1;
+			}
+		});
+
+		benchmarks.add(new Benchmark("lincode", srcFName) {
+			private Task task;
+
+			public void setup() throws IOException {
+				if (task == null) {
+					task = task(srcFName, 4);
+					parse(task);
+					seman(task, 4);
+					frames(task);
+					imcode(task);
+				}
+			}
+
+			public long run() {
+				long numFragments = 0;
+				for (Fragment fragment : task.fragments.values())
+					if (fragment instanceof CodeFragment) {
+						((CodeFragment) fragment).stmt.linCode();
+						numFragments++;
+					}
+				return numFragments;
+			}
+
+			public String unit() {
+				return "fragments";
+			}
+		});
+
+		benchmarks.add(new Benchmark("codegen.calcInOut", srcFName) {
+			private Vector<EvalCodeGen> codeGens;
+
+			public void setup() throws IOException {
+				if (codeGens == null) {
+					Task task = task(srcFName, 4);
+					parse(task);
+					seman(task, 4);
+					frames(task);
+					imcode(task);
+					codeGens = codegen(task);
+				}
+				resetLiveness(codeGens);
+			}
+
+			public long run() {
+				long numInstrs = 0;
+				for (EvalCodeGen codeGen : codeGens) {
+					CodeGenUtils.calcInOut(codeGen);
+					numInstrs += codeGen.instructions.size();
+				}
+				return numInstrs;
+			}
+
+			public String unit() {
+				return "instrs";
+			}
+		});
+
+		benchmarks.add(new Benchmark("codegen.calcInterference", srcFName) {
+			private Vector<EvalCodeGen> codeGens;
+
+			public void setup() throws IOException {
+				if (codeGens == null) {
+					Task task = task(srcFName, 4);
+					parse(task);
+					seman(task, 4);
+					frames(task);
+					imcode(task);
+					codeGens = codegen(task);
+					resetLiveness(codeGens);
+					for (EvalCodeGen codeGen : codeGens)
+						CodeGenUtils.calcInOut(codeGen);
+				}
+			}
+
+			public long run() {
+				long numInstrs = 0;
+				for (EvalCodeGen codeGen : codeGens) {
+					CodeGenUtils.calcInterference(codeGen);
+					numInstrs += codeGen.instructions.size();
+				}
+				return numInstrs;
+			}
+
+			public String unit() {
+				return "instrs";
+			}
+		});
+
+		for (final String allocator : regAllocList) {
+			for (final int numRegs : numRegsList) {
+				benchmarks.add(new Benchmark("regalloc." + allocator + ".k" + numRegs, srcFName) {
+					private Task task;
+
+					public void setup() throws IOException {
+						task = task(srcFName, numRegs, allocator);
+						parse(task);
+						seman(task, 4);
+						frames(task);
+						imcode(task);
+						CodeGen codeGen = new CodeGen(task, false);
+						codeGen.close();
+					}
+
+					public long run() {
+						RegAlloc regAlloc = new RegAlloc(task, false);
+						regAlloc.close();
+						return 1;
+					}
+				});
+			}
+		}
+
+		return benchmarks;
+	}
+
+}
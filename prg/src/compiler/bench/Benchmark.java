@@ -0,0 +1,55 @@
+package compiler.bench;
+
+/**
+ * A benchmark measuring a single phase of the compiler on a single input.
+ *
+ * Before each invocation of {@link #run()}, the harness calls
+ * {@link #setup()} which prepares the input of the phase (i.e., performs all
+ * preceding phases); only {@link #run()} is timed.
+ *
+ * @author sliva
+ */
+public abstract class Benchmark {
+
+	/** The name of the benchmark. */
+	public final String name;
+
+	/** The name of the source file the benchmark is performed on. */
+	public final String srcFName;
+
+	/**
+	 * Constructs a new benchmark.
+	 *
+	 * @param name
+	 *            The name of the benchmark.
+	 * @param srcFName
+	 *            The name of the source file.
+	 */
+	public Benchmark(String name, String srcFName) {
+		this.name = name;
+		this.srcFName = srcFName;
+	}
+
+	/**
+	 * Prepares the input of a single invocation (not timed).
+	 */
+	public abstract void setup() throws Exception;
+
+	/**
+	 * Performs a single invocation of the measured phase (timed).
+	 *
+	 * @return The number of units processed by the invocation (e.g., tokens
+	 *         for the lexical analysis), used to compute the throughput.
+	 */
+	public abstract long run() throws Exception;
+
+	/**
+	 * The unit of work the throughput is reported in.
+	 *
+	 * @return The name of the unit.
+	 */
+	public String unit() {
+		return "files";
+	}
+
+}
@@ -0,0 +1,399 @@
+package compiler.bench;
+
+import java.io.*;
+import java.util.*;
+
+import compiler.common.report.*;
+
+/**
+ * A generator of synthetic PREV programs used for scaling tests.
+ *
+ * The generated programs are valid (they pass all phases of the compiler and
+ * terminate when run) and their shape is controlled by the following knobs:
+ * <ul>
+ * <li><code>functions</code>: the number of functions,</li>
+ * <li><code>statements</code>: the number of statements in a function body,</li>
+ * <li><code>depth</code>: the maximal depth of an expression,</li>
+ * <li><code>nesting</code>: the maximal nesting depth of <code>where</code>,
+ * <code>for</code>, <code>while</code> and <code>if</code> expressions,</li>
+ * <li><code>livevars</code>: the number of integer variables of a function
+ * that are live throughout its body,</li>
+ * <li><code>types</code>: the number of record types (each containing an array
+ * and the previous record type),</li>
+ * <li><code>lines</code>: the approximate number of lines of the program
+ * (overrides <code>functions</code>),</li>
+ * <li><code>seed</code>: the seed of the random number generator.</li>
+ * </ul>
+ *
+ * Usage: <code>java compiler.bench.ProgramGenerator [--knob=value ...] [--out=file]</code>
+ *
+ * @author sliva
+ */
+public class ProgramGenerator {
+
+	/** The number of functions. */
+	public int functions = 10;
+
+	/** The number of statements in a function body. */
+	public int statements = 20;
+
+	/** The maximal depth of an expression. */
+	public int depth = 3;
+
+	/** The maximal nesting depth of compound expressions. */
+	public int nesting = 2;
+
+	/** The number of variables live throughout a function body. */
+	public int liveVars = 8;
+
+	/** The number of record types. */
+	public int types = 2;
+
+	/** The approximate number of lines (or 0 if not specified). */
+	public int lines = 0;
+
+	/** The seed of the random number generator. */
+	public long seed = 1;
+
+	/** The random number generator. */
+	private Random random;
+
+	/** The generated program. */
+	private PrintWriter out;
+
+	/** The number of lines generated so far. */
+	private int numLines;
+
+	/** The number of local variables introduced by nested wheres so far. */
+	private int numLocals;
+
+	/**
+	 * The entry point of the generator.
+	 *
+	 * @param args
+	 *            Command line arguments.
+	 */
+	public static void main(String args[]) throws IOException {
+		ProgramGenerator generator = new ProgramGenerator();
+		String outFName = null;
+		for (String arg : args) {
+			if (arg.startsWith("--out="))
+				outFName = arg.replaceFirst("--out=", "");
+			else if (!generator.configure(arg))
+				Report.warning("Unknown command line option '" + arg + "'.");
+		}
+		if (outFName == null) {
+			Writer writer = new OutputStreamWriter(System.out, "UTF-8");
+			generator.generate(writer);
+			writer.flush();
+		} else
+			generator.generate(new File(outFName));
+	}
+
+	/**
+	 * Sets knobs from a specification of the form
+	 * <code>knob=value,knob=value,...</code> (each knob may also be given as
+	 * <code>--knob=value</code>).
+	 *
+	 * @param spec
+	 *            The specification.
+	 * @return <code>true</code> if all knobs have been recognized,
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean configure(String spec) {
+		boolean recognized = true;
+		for (String knob : spec.split(",")) {
+			String[] pair = knob.replaceFirst("^--", "").split("=", 2);
+			if (pair.length != 2) {
+				recognized = false;
+				continue;
+			}
+			try {
+				switch (pair[0]) {
+				case "functions":
+					functions = Integer.parseInt(pair[1]);
+					break;
+				case "statements":
+					statements = Integer.parseInt(pair[1]);
+					break;
+				case "depth":
+					depth = Integer.parseInt(pair[1]);
+					break;
+				case "nesting":
+					nesting = Integer.parseInt(pair[1]);
+					break;
+				case "livevars":
+					liveVars = Math.max(1, Integer.parseInt(pair[1]));
+					break;
+				case "types":
+					types = Integer.parseInt(pair[1]);
+					break;
+				case "lines":
+					lines = Integer.parseInt(pair[1]);
+					break;
+				case "seed":
+					seed = Long.parseLong(pair[1]);
+					break;
+				default:
+					recognized = false;
+				}
+			} catch (NumberFormatException ex) {
+				recognized = false;
+			}
+		}
+		return recognized;
+	}
+
+	/**
+	 * Generates a program into a file.
+	 *
+	 * @param file
+	 *            The file.
+	 */
+	public void generate(File file) throws IOException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"))) {
+			generate(writer);
+		}
+	}
+
+	/**
+	 * Generates a program.
+	 *
+	 * @param writer
+	 *            The writer the program is written to.
+	 */
+	public void generate(Writer writer) {
+		random = new Random(seed);
+		out = new PrintWriter(writer);
+		numLines = 0;
+
+		line("(printInt(main(1)), printChr('\\n'), 0)");
+		line("where");
+
+		// Types.
+		for (int t = 0; t < types; t++) {
+			StringBuilder type = new StringBuilder("typ t" + t + ":rec{c0:integer, c1:arr[4]integer");
+			if (t > 0)
+				type.append(", c2:t" + (t - 1));
+			type.append("}");
+			line("  " + type);
+		}
+		if (types > 0)
+			line("  var g:t" + (types - 1));
+
+		// Functions.
+		int numFunctions = 0;
+		while (lines > 0 ? numLines < lines : numFunctions < functions) {
+			function(numFunctions);
+			numFunctions++;
+		}
+
+		// The main function calls all other functions.
+		line("  fun main(x:integer):integer =");
+		line("    (s = 0,");
+		for (int f = 0; f < numFunctions; f++)
+			line("     s = s + f" + f + "(x, " + f + (types > 0 ? ", @g" : "") + ") / 2,");
+		line("     s)");
+		line("    where var s:integer end");
+
+		line("  # STDLIB");
+		line("  fun printChr(c:char):void");
+		line("  fun printInt(i:integer):void");
+		line("end");
+		out.flush();
+	}
+
+	private void line(String line) {
+		out.println(line);
+		numLines++;
+		for (int c = 0; c < line.length(); c++)
+			if (line.charAt(c) == '\n')
+				numLines++;
+	}
+
+	/**
+	 * Generates a function.
+	 *
+	 * @param f
+	 *            The index of the function.
+	 */
+	private void function(int f) {
+		numLocals = 0;
+		line("  fun f" + f + "(p0:integer, p1:integer" + (types > 0 ? ", q:ptr t" + (types - 1) : "") + "):integer =");
+		line("    (");
+		for (int v = 0; v < liveVars; v++)
+			line("     v" + v + " = p" + (v % 2) + " + " + v + ",");
+		if (types > 0) {
+			// The local array and record are read by expressions, so they
+			// are initialized as well.
+			StringBuilder init = new StringBuilder("    ");
+			for (int k = 0; k < 4; k++)
+				init.append(" a[" + k + "] = p" + (k % 2) + " + " + k + ",");
+			line(init.toString());
+			String rec = "r";
+			for (int t = types - 1; t >= 0; t--) {
+				init = new StringBuilder("     " + rec + ".c0 = p0 + " + t + ",");
+				for (int k = 0; k < 4; k++)
+					init.append(" " + rec + ".c1[" + k + "] = p1 + " + k + ",");
+				line(init.toString());
+				rec = rec + ".c2";
+			}
+		}
+		for (int s = 0; s < statements; s++)
+			line("     " + statement(f, 0, "     ") + ",");
+		if (types > 0)
+			line("     r.c0 = v0, a[1] = r.c0, q^.c0 = a[1],");
+		if (f > 0)
+			line("     v0 = v0 + f" + (f - 1) + "(v0, 1" + (types > 0 ? ", q" : "") + "),");
+		StringBuilder sum = new StringBuilder("v0");
+		for (int v = 1; v < liveVars; v++)
+			sum.append(" + v" + v);
+		line("     " + sum + ")");
+		StringBuilder decls = new StringBuilder("    where");
+		for (int v = 0; v < liveVars; v++)
+			decls.append(" var v" + v + ":integer");
+		for (int n = 0; n < nesting; n++)
+			decls.append(" var i" + n + ":integer");
+		if (types > 0)
+			decls.append(" var r:t" + (types - 1) + " var a:arr[4]integer");
+		decls.append(" end");
+		line(decls.toString());
+	}
+
+	/**
+	 * Generates a statement, i.e., an expression of type <code>void</code>.
+	 *
+	 * @param f
+	 *            The index of the function.
+	 * @param level
+	 *            The nesting level of the statement.
+	 * @param indent
+	 *            The indentation of the statement.
+	 * @return The statement.
+	 */
+	private String statement(int f, int level, String indent) {
+		int kind = level < nesting ? random.nextInt(6) : 0;
+		String inner = indent + "  ";
+		switch (kind) {
+		case 1: {
+			// A for loop with a bounded number of iterations.
+			String i = "i" + level;
+			return "for " + i + " = 0, " + random.nextInt(8) + ":\n" + inner + body(f, level + 1, inner) + "\n" + indent
+					+ "end";
+		}
+		case 2: {
+			// A while loop with a bounded number of iterations.
+			String i = "i" + level;
+			return "(" + i + " = 0, while " + i + " < " + random.nextInt(8) + ":\n" + inner + "(" + body(f, level + 1, inner + " ")
+					+ ", " + i + " = " + i + " + 1)\n" + indent + "end)";
+		}
+		case 3:
+			return "if " + condition(depth) + " then\n" + inner + body(f, level + 1, inner) + "\n" + indent + "else\n"
+					+ inner + body(f, level + 1, inner) + "\n" + indent + "end";
+		case 4: {
+			// A nested where introducing a local variable.
+			String l = "l" + (numLocals++);
+			return "(" + l + " = " + expression(depth) + ",\n" + inner + variable() + " = " + variable() + " + " + l + ")\n"
+					+ inner + "where var " + l + ":integer end";
+		}
+		default:
+			return assignment();
+		}
+	}
+
+	/**
+	 * Generates a sequence of statements.
+	 */
+	private String body(int f, int level, String indent) {
+		int numStatements = 1 + random.nextInt(3);
+		StringBuilder body = new StringBuilder("(");
+		for (int s = 0; s < numStatements; s++) {
+			if (s > 0)
+				body.append(",\n" + indent + " ");
+			body.append(statement(f, level, indent + " "));
+		}
+		return body.append(")").toString();
+	}
+
+	private String assignment() {
+		if (types > 0 && random.nextInt(4) == 0)
+			return component() + " = " + expression(depth);
+		return variable() + " = " + expression(depth);
+	}
+
+	private String variable() {
+		return "v" + random.nextInt(liveVars);
+	}
+
+	/**
+	 * Generates an access to an integer component of a record.
+	 */
+	private String component() {
+		StringBuilder access = new StringBuilder(random.nextBoolean() ? "r" : "q^");
+		for (int t = types - 1; t > 0 && random.nextBoolean(); t--)
+			access.append(".c2");
+		if (random.nextBoolean())
+			access.append(".c0");
+		else
+			access.append(".c1[" + random.nextInt(4) + "]");
+		return access.toString();
+	}
+
+	/**
+	 * Generates an integer expression.
+	 *
+	 * @param depth
+	 *            The maximal depth of the expression.
+	 */
+	private String expression(int depth) {
+		if (depth <= 0 || random.nextInt(4) == 0) {
+			switch (random.nextInt(types > 0 ? 5 : 3)) {
+			case 0:
+				return Integer.toString(random.nextInt(100));
+			case 1:
+			case 2:
+				return variable();
+			case 3:
+				return "a[" + random.nextInt(4) + "]";
+			default:
+				return component();
+			}
+		}
+		switch (random.nextInt(6)) {
+		case 0:
+			return "(" + expression(depth - 1) + " + " + expression(depth - 1) + ")";
+		case 1:
+			return "(" + expression(depth - 1) + " - " + expression(depth - 1) + ")";
+		case 2:
+			return "(" + expression(depth - 1) + " * " + expression(depth - 1) + ")";
+		case 3:
+			return "(" + expression(depth - 1) + " / " + (1 + random.nextInt(9)) + ")";
+		case 4:
+			return "-" + expression(depth - 1);
+		default:
+			return "(" + expression(depth - 1) + " % " + (1 + random.nextInt(9)) + ")";
+		}
+	}
+
+	/**
+	 * Generates a boolean expression.
+	 *
+	 * @param depth
+	 *            The maximal depth of the expression.
+	 */
+	private String condition(int depth) {
+		String[] relations = { "==", "!=", "<", ">", "<=", ">=" };
+		if (depth <= 1 || random.nextInt(3) == 0)
+			return "(" + expression(depth - 1) + " " + relations[random.nextInt(relations.length)] + " "
+					+ expression(depth - 1) + ")";
+		switch (random.nextInt(3)) {
+		case 0:
+			return "(" + condition(depth - 1) + " & " + condition(depth - 1) + ")";
+		case 1:
+			return "(" + condition(depth - 1) + " | " + condition(depth - 1) + ")";
+		default:
+			return "!" + condition(depth - 1);
+		}
+	}
+
+}
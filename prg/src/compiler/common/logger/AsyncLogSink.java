@@ -0,0 +1,253 @@
+package compiler.common.logger;
+
+import java.util.concurrent.locks.*;
+
+import compiler.*;
+import compiler.common.report.*;
+import compiler.common.stats.*;
+
+/**
+ * A log sink that passes log elements to another log sink on a separate
+ * writer thread.
+ *
+ * Log elements are put into a bounded ring buffer by the compiling thread and
+ * taken out by the writer thread; as there is a single producer and a single
+ * consumer, no locks are needed. To keep the number of thread switches low,
+ * the writer thread is woken up only after a batch of log elements has been
+ * buffered (or after a short timeout). If the buffer is full, the compiling
+ * thread waits until the writer thread has emptied half of it (no log element
+ * is ever dropped, so the log file is the same as without the writer thread).
+ * Method {@link #close()} returns only after the writer thread has written
+ * out the entire log, and method {@link #abort()} only after the writer thread
+ * has abandoned it; either way the writer thread ends.
+ *
+ * @author sliva
+ */
+class AsyncLogSink implements LogSink {
+
+	/** The number of log elements the buffer can hold (a power of 2). */
+	private static final int CAPACITY = 1 << 14;
+
+	/**
+	 * The number of log elements after which a waiting writer thread is woken
+	 * up (a power of 2).
+	 */
+	private static final int BATCH = CAPACITY / 4;
+
+	/** The longest time the writer thread waits before it looks again (in ns). */
+	private static final long WAIT = 1000000;
+
+	/* Kinds of buffered log elements. */
+	private static final byte BEG_ELEMENT = 0;
+	private static final byte ADD_ATTRIBUTE = 1;
+	private static final byte END_ELEMENT = 2;
+	private static final byte CLOSE = 3;
+	private static final byte ABORT = 4;
+
+	/** The log sink the log elements are passed to. */
+	private final LogSink sink;
+
+	/** Kinds of buffered log elements. */
+	private final byte[] kinds = new byte[CAPACITY];
+
+	/** Tag or attribute names of buffered log elements. */
+	private final String[] names = new String[CAPACITY];
+
+	/** Attribute values of buffered log elements. */
+	private final String[] values = new String[CAPACITY];
+
+	/** The number of log elements put into the buffer. */
+	private volatile long tail = 0;
+
+	/** The number of log elements taken out of the buffer. */
+	private volatile long head = 0;
+
+	/** Whether the writer thread waits for the next log element. */
+	private volatile boolean writerWaiting = false;
+
+	/** Whether the compiling thread waits for a free slot in the buffer. */
+	private volatile boolean producerWaiting = false;
+
+	/** The compiling thread. */
+	private volatile Thread producer;
+
+	/** The writer thread. */
+	private final Thread writer;
+
+	/** The error the writer thread has ended with (or <code>null</code>). */
+	private volatile Throwable error = null;
+
+	/**
+	 * Constructs a new log sink and starts its writer thread.
+	 *
+	 * @param sink
+	 *            The log sink the log elements are passed to.
+	 */
+	public AsyncLogSink(LogSink sink) {
+		this.sink = sink;
+		this.producer = Thread.currentThread();
+		final Context context = Context.current();
+		this.writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				// Warnings count within the compilation being logged.
+				Context.bind(context);
+				write(context.stats);
+			}
+		}, "logger");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	@Override
+	public void begElement(String tagName) {
+		put(BEG_ELEMENT, tagName, null);
+	}
+
+	@Override
+	public void addAttribute(String attrName, String attrValue) {
+		put(ADD_ATTRIBUTE, attrName, attrValue);
+	}
+
+	@Override
+	public void endElement() {
+		put(END_ELEMENT, null, null);
+	}
+
+	@Override
+	public void close() {
+		put(CLOSE, null, null);
+		join();
+		if (error != null)
+			rethrow();
+	}
+
+	@Override
+	public void abort() {
+		if (error == null) {
+			try {
+				put(ABORT, null, null);
+			} catch (RuntimeException | Error ex) {
+				// The writer thread has failed meanwhile.
+			}
+		}
+		join();
+		if (error != null) {
+			// The writer thread has ended before it got to the end of the log.
+			sink.abort();
+		}
+	}
+
+	/**
+	 * Waits for the writer thread to end.
+	 */
+	private void join() {
+		LockSupport.unpark(writer);
+		boolean interrupted = false;
+		while (true) {
+			try {
+				writer.join();
+				break;
+			} catch (InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Puts a log element into the buffer (waits while the buffer is full).
+	 */
+	private void put(byte kind, String name, String value) {
+		long t = tail;
+		while (t - head == CAPACITY) {
+			if (error != null)
+				rethrow();
+			producer = Thread.currentThread();
+			producerWaiting = true;
+			if (t - head == CAPACITY)
+				LockSupport.park(this);
+			producerWaiting = false;
+		}
+		int slot = (int) t & (CAPACITY - 1);
+		kinds[slot] = kind;
+		names[slot] = name;
+		values[slot] = value;
+		tail = t + 1;
+		if ((((t + 1) & (BATCH - 1)) == 0) && writerWaiting)
+			LockSupport.unpark(writer);
+	}
+
+	/**
+	 * Takes log elements out of the buffer and passes them to the log sink
+	 * (runs on the writer thread). The work of the writer thread is added to
+	 * the statistics of the compilation each time it has emptied the buffer,
+	 * so that it is added to the phase the log elements have been logged in.
+	 *
+	 * @param stats
+	 *            The statistics of the compilation.
+	 */
+	private void write(Stats stats) {
+		long[] work = stats.begWork();
+		try {
+			long h = head;
+			while (true) {
+				if ((h == tail) && (work != null)) {
+					stats.endWork(work);
+					work = stats.begWork();
+				}
+				while (h == tail) {
+					writerWaiting = true;
+					if (h == tail)
+						LockSupport.parkNanos(this, WAIT);
+					writerWaiting = false;
+				}
+				int slot = (int) h & (CAPACITY - 1);
+				byte kind = kinds[slot];
+				String name = names[slot];
+				String value = values[slot];
+				names[slot] = null;
+				values[slot] = null;
+				head = ++h;
+				if (producerWaiting && (tail - h <= CAPACITY / 2))
+					LockSupport.unpark(producer);
+				switch (kind) {
+				case BEG_ELEMENT:
+					sink.begElement(name);
+					break;
+				case ADD_ATTRIBUTE:
+					sink.addAttribute(name, value);
+					break;
+				case END_ELEMENT:
+					sink.endElement();
+					break;
+				case CLOSE:
+					sink.close();
+					stats.endWork(work);
+					return;
+				case ABORT:
+					sink.abort();
+					stats.endWork(work);
+					return;
+				default:
+					throw new InternalCompilerError();
+				}
+			}
+		} catch (RuntimeException | Error ex) {
+			error = ex;
+			LockSupport.unpark(producer);
+		}
+	}
+
+	/**
+	 * Rethrows the error the writer thread has ended with on the compiling
+	 * thread.
+	 */
+	private void rethrow() {
+		if (error instanceof RuntimeException)
+			throw (RuntimeException) error;
+		throw (Error) error;
+	}
+
+}
@@ -0,0 +1,236 @@
+package compiler.common.logger;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.zip.*;
+
+import compiler.common.report.*;
+
+/**
+ * A log sink that writes log elements to the log file in a compact binary
+ * form (which can be converted to XML by {@link LogToXML}).
+ *
+ * The log file starts with {@link #MAGIC}, the format version and the name of
+ * the style file, followed by a sequence of events, each starting with a
+ * single byte:
+ * <ul>
+ * <li>{@link #BEG_ELEMENT} followed by the tag;</li>
+ * <li>{@link #ADD_ATTRIBUTE} followed by the attribute name and value;</li>
+ * <li>{@link #END_ELEMENT};</li>
+ * <li>{@link #END_LOG} (the last event).</li>
+ * </ul>
+ * The root element is not recorded. All numbers are written as unsigned
+ * varints (7 bits per byte, the least significant group first). Tags and
+ * attribute names are interned: a name is written as its index in the table
+ * of names seen so far, and a new name as the size of the table followed by
+ * the string. An attribute value is written as a number whose two least
+ * significant bits denote its kind (see {@link #VALUE_REF}, etc.): decimal
+ * integers are written as numbers, other values are interned like names (but
+ * only {@link #MAX_VALUES} of them). Strings are written as their length
+ * followed by their UTF-8 encoding. The entire log file can be compressed by
+ * GZIP.
+ *
+ * @author sliva
+ */
+class BinaryLogSink implements LogSink {
+
+	/** The first bytes of a binary log file. */
+	static final byte[] MAGIC = { 'P', 'L', 'O', 'G' };
+
+	/** The version of the format. */
+	static final int VERSION = 1;
+
+	/* Events. */
+	static final int BEG_ELEMENT = 0;
+	static final int ADD_ATTRIBUTE = 1;
+	static final int END_ELEMENT = 2;
+	static final int END_LOG = 3;
+
+	/* Kinds of attribute values. */
+	static final int VALUE_REF = 0;
+	static final int VALUE_NEW = 1;
+	static final int VALUE_NONNEG = 2;
+	static final int VALUE_NEG = 3;
+
+	/** The maximal number of interned attribute values. */
+	static final int MAX_VALUES = 1 << 16;
+
+	/** The name of the generated log file. */
+	private final String logFileName;
+
+	/** The log file (or <code>null</code> if writing has failed). */
+	private OutputStream out;
+
+	/** The interned names. */
+	private final HashMap<String, Integer> names = new HashMap<String, Integer>();
+
+	/** The interned attribute values. */
+	private final HashMap<String, Integer> values = new HashMap<String, Integer>();
+
+	/** The number of open elements (including the root element). */
+	private int depth = 1;
+
+	/**
+	 * Constructs a new log sink and opens the log file.
+	 *
+	 * @param logFileName
+	 *            The name of the log file.
+	 * @param xslFileName
+	 *            The name of the style file.
+	 * @param compressed
+	 *            Whether the log file is compressed.
+	 */
+	public BinaryLogSink(String logFileName, String xslFileName, boolean compressed) {
+		this.logFileName = logFileName;
+		try {
+			out = new BufferedOutputStream(new FileOutputStream(logFileName), 1 << 16);
+			if (compressed)
+				out = new GZIPOutputStream(out, 1 << 16);
+			out.write(MAGIC);
+			writeNumber(VERSION);
+			writeString(xslFileName);
+		} catch (IOException ex) {
+			out = null;
+		}
+	}
+
+	@Override
+	public void begElement(String tagName) {
+		depth++;
+		try {
+			if (out != null) {
+				out.write(BEG_ELEMENT);
+				writeName(tagName);
+			}
+		} catch (IOException ex) {
+			out = null;
+		}
+	}
+
+	@Override
+	public void addAttribute(String attrName, String attrValue) {
+		try {
+			if (out != null) {
+				out.write(ADD_ATTRIBUTE);
+				writeName(attrName);
+				writeValue(attrValue);
+			}
+		} catch (IOException ex) {
+			out = null;
+		}
+	}
+
+	@Override
+	public void endElement() {
+		if (depth == 1)
+			throw new InternalCompilerError();
+		depth--;
+		try {
+			if (out != null)
+				out.write(END_ELEMENT);
+		} catch (IOException ex) {
+			out = null;
+		}
+	}
+
+	@Override
+	public void close() {
+		if (depth != 1)
+			throw new InternalCompilerError();
+		depth--;
+		try {
+			if (out != null) {
+				out.write(END_LOG);
+				out.close();
+			}
+		} catch (IOException ex) {
+			out = null;
+		}
+		if (out == null)
+			Report.warning("Cannot generate log file '" + logFileName + "'.");
+	}
+
+	@Override
+	public void abort() {
+		try {
+			if (out != null)
+				out.close();
+		} catch (IOException ex) {
+		}
+		out = null;
+		new File(logFileName).delete();
+	}
+
+	private void writeName(String name) throws IOException {
+		Integer index = names.get(name);
+		if (index != null) {
+			writeNumber(index);
+		} else {
+			writeNumber(names.size());
+			writeString(name);
+			names.put(name, names.size());
+		}
+	}
+
+	private void writeValue(String value) throws IOException {
+		long number = decimal(value);
+		if (number >= 0) {
+			writeNumber((number << 2) | VALUE_NONNEG);
+			return;
+		}
+		if (number > Long.MIN_VALUE) {
+			writeNumber(((-number - 1) << 2) | VALUE_NEG);
+			return;
+		}
+		Integer index = values.get(value);
+		if (index != null) {
+			writeNumber(((long) index << 2) | VALUE_REF);
+		} else {
+			writeNumber(VALUE_NEW);
+			writeString(value);
+			if (values.size() < MAX_VALUES)
+				values.put(value, values.size());
+		}
+	}
+
+	/**
+	 * Returns the integer written in a string in the canonical decimal form
+	 * (between <code>-2^61</code> and <code>2^61-1</code>), or
+	 * {@link Long#MIN_VALUE} if the string is not such an integer.
+	 */
+	static long decimal(String value) {
+		int length = value.length();
+		boolean negative = (length > 0) && (value.charAt(0) == '-');
+		int start = negative ? 1 : 0;
+		if ((length == start) || (length - start > 18))
+			return Long.MIN_VALUE;
+		if ((value.charAt(start) == '0') && ((length - start > 1) || negative))
+			return Long.MIN_VALUE;
+		long number = 0;
+		for (int i = start; i < length; i++) {
+			char c = value.charAt(i);
+			if ((c < '0') || (c > '9'))
+				return Long.MIN_VALUE;
+			number = 10 * number + (c - '0');
+		}
+		if (number >= (1L << 61))
+			return Long.MIN_VALUE;
+		return negative ? -number : number;
+	}
+
+	private void writeNumber(long number) throws IOException {
+		while ((number & ~0x7FL) != 0) {
+			out.write((int) ((number & 0x7F) | 0x80));
+			number >>>= 7;
+		}
+		out.write((int) number);
+	}
+
+	private void writeString(String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeNumber(bytes.length);
+		out.write(bytes);
+	}
+
+}
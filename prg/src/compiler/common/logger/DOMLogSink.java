@@ -0,0 +1,164 @@
+package compiler.common.logger;
+
+import java.util.*;
+import javax.xml.parsers.*;
+import org.w3c.dom.*;
+
+import compiler.common.report.*;
+
+/**
+ * A log sink that builds the entire log document in memory and dumps it at
+ * the end (used when the log document must be transformed before it is
+ * written out). The transformed document is written out through another log
+ * sink (a {@link StreamLogSink} if it is written out as XML).
+ *
+ * @author sliva
+ */
+class DOMLogSink implements LogSink {
+
+	/** The name of the generated log file. */
+	private final String xmlFileName;
+
+	/** The name of the style file. */
+	private final String xslFileName;
+
+	/** The document representing the entire log. */
+	private final Document doc;
+
+	/** The path from the root of the log document to the current node. */
+	private final Stack<Element> elements = new Stack<Element>();
+
+	/** The document transformer. */
+	private final compiler.common.logger.Transformer transformer;
+
+	/**
+	 * The log sink the transformed document is written out through (or
+	 * <code>null</code> if it is written out as XML).
+	 */
+	private final LogSink target;
+
+	/**
+	 * Constructs a new log sink.
+	 *
+	 * @param xmlFileName
+	 *            The name of the log file.
+	 * @param xslFileName
+	 *            The name of the style file.
+	 * @param transformer
+	 *            The document transformer (or <code>null</code>).
+	 * @param target
+	 *            The log sink the transformed document is written out through
+	 *            (or <code>null</code> if it is written out as XML).
+	 */
+	public DOMLogSink(String xmlFileName, String xslFileName, compiler.common.logger.Transformer transformer,
+			LogSink target) {
+		this.xmlFileName = xmlFileName;
+		this.xslFileName = xslFileName;
+		this.transformer = transformer;
+		this.target = target;
+
+		// Prepare a new log document.
+		try {
+			doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+		} catch (ParserConfigurationException ex) {
+			throw new InternalCompilerError();
+		}
+		// Elements are only ever appended to their parents, so the check that
+		// a new child is not an ancestor (which walks up the entire path to the
+		// root on every append) is not needed.
+		doc.setStrictErrorChecking(false);
+
+		// Create the root element representing the entire phase.
+		Element phase = doc.createElement("report");
+		doc.appendChild(phase);
+		elements.push(phase);
+
+		// Add XSL declaration.
+		ProcessingInstruction xsl = doc.createProcessingInstruction("xml-stylesheet",
+				"type=\"text/xsl\" href=\"" + xslFileName + "\"");
+		doc.insertBefore(xsl, phase);
+	}
+
+	@Override
+	public void begElement(String tagName) {
+		try {
+			Element element = doc.createElement(tagName);
+			elements.peek().appendChild(element);
+			elements.push(element);
+		} catch (EmptyStackException ex) {
+			throw new InternalCompilerError();
+		}
+	}
+
+	@Override
+	public void addAttribute(String attrName, String attrValue) {
+		try {
+			elements.peek().setAttribute(attrName, attrValue);
+		} catch (EmptyStackException ex) {
+			throw new InternalCompilerError();
+		}
+	}
+
+	@Override
+	public void endElement() {
+		try {
+			elements.pop();
+		} catch (EmptyStackException ex) {
+			throw new InternalCompilerError();
+		}
+	}
+
+	@Override
+	public void close() {
+		endElement();
+
+		Document transformedDoc = transformer == null ? doc : transformer.transform(doc);
+
+		// The document is written out as XML by a streaming log sink, which
+		// produces the same file as the DOM serializer but (unlike the DOM
+		// serializer) does not recurse into nested elements.
+		LogSink sink = target != null ? target : new StreamLogSink(xmlFileName, xslFileName);
+		replay(transformedDoc.getDocumentElement(), sink);
+		sink.close();
+	}
+
+	@Override
+	public void abort() {
+		// Nothing has been written out yet.
+		if (target != null)
+			target.abort();
+	}
+
+	/**
+	 * Writes out the children of the root element of the document (and all
+	 * their descendants) through a log sink. As the document is as deep as
+	 * the program is nested, it is walked with an explicit stack.
+	 */
+	private static void replay(Element root, LogSink sink) {
+		// A null node stands for the end of the element above it.
+		Stack<Node> nodes = new Stack<Node>();
+		pushChildren(root, nodes);
+		while (!nodes.isEmpty()) {
+			Node node = nodes.pop();
+			if (node == null) {
+				sink.endElement();
+				continue;
+			}
+			if (node.getNodeType() != Node.ELEMENT_NODE)
+				continue;
+			sink.begElement(node.getNodeName());
+			NamedNodeMap attrs = node.getAttributes();
+			for (int attrIdx = 0; attrIdx < attrs.getLength(); attrIdx++)
+				sink.addAttribute(attrs.item(attrIdx).getNodeName(), attrs.item(attrIdx).getNodeValue());
+			nodes.push(null);
+			pushChildren(node, nodes);
+		}
+	}
+
+	private static void pushChildren(Node node, Stack<Node> nodes) {
+		NodeList children = node.getChildNodes();
+		for (int childIdx = children.getLength() - 1; childIdx >= 0; childIdx--)
+			nodes.push(children.item(childIdx));
+	}
+
+}
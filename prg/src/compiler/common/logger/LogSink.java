@@ -0,0 +1,48 @@
+package compiler.common.logger;
+
+/**
+ * The destination of log elements produced by a {@link Logger}.
+ * 
+ * Elements arrive in the depth-first order (see {@link compiler.common.logger}
+ * ); the root element of the log is opened by the sink itself and is closed by
+ * {@link #close()}.
+ * 
+ * @author sliva
+ */
+interface LogSink {
+
+	/**
+	 * Starts a new element as a child of the current element.
+	 * 
+	 * @param tagName
+	 *            The tag of the new element.
+	 */
+	public void begElement(String tagName);
+
+	/**
+	 * Adds an attribute to the current element.
+	 * 
+	 * @param attrName
+	 *            The attribute name.
+	 * @param attrValue
+	 *            The attribute value.
+	 */
+	public void addAttribute(String attrName, String attrValue);
+
+	/**
+	 * Ends the current element.
+	 */
+	public void endElement();
+
+	/**
+	 * Ends the root element and writes out the rest of the log.
+	 */
+	public void close();
+
+	/**
+	 * Abandons the log (if compilation has been aborted) and releases the log
+	 * file.
+	 */
+	public void abort();
+
+}
@@ -0,0 +1,179 @@
+package compiler.common.logger;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.zip.*;
+
+import compiler.common.report.*;
+
+/**
+ * Converts binary log files (see {@link BinaryLogSink}) into XML log files
+ * that are the same as the ones the compiler produces with option
+ * <code>--logformat=xml</code>.
+ *
+ * Usage:
+ * <code>java compiler.common.logger.LogToXML files...</code>
+ *
+ * The XML log file is written next to the binary one: extension
+ * <code>.bin</code> or <code>.bin.gz</code> is replaced by <code>.xml</code>.
+ * Compressed log files are recognized by their content.
+ *
+ * @author sliva
+ */
+public class LogToXML {
+
+	/**
+	 * The entry point of the converter.
+	 *
+	 * @param args
+	 *            Names of binary log files.
+	 */
+	public static void main(String args[]) {
+		int numFailed = 0;
+		for (String logFName : args) {
+			String xmlFName = logFName.replaceFirst("\\.bin(\\.gz)?$", "") + ".xml";
+			try {
+				convert(logFName, xmlFName);
+			} catch (IOException | CompilerError ex) {
+				System.err.println(":-( " + logFName + ": " + ex.getMessage());
+				numFailed++;
+			}
+		}
+		System.exit(numFailed == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Converts a binary log file into an XML log file.
+	 *
+	 * @param logFName
+	 *            The name of the binary log file.
+	 * @param xmlFName
+	 *            The name of the XML log file.
+	 * @throws IOException
+	 *             If the binary log file cannot be read.
+	 */
+	public static void convert(String logFName, String xmlFName) throws IOException {
+		try (InputStream in = open(logFName)) {
+			new LogToXML(in).convert(xmlFName);
+		}
+	}
+
+	/** Opens a binary log file (decompressing it if needed). */
+	private static InputStream open(String logFName) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(logFName), 1 << 16);
+		in.mark(2);
+		int b0 = in.read();
+		int b1 = in.read();
+		in.reset();
+		if ((b0 == (GZIPInputStream.GZIP_MAGIC & 0xFF)) && (b1 == (GZIPInputStream.GZIP_MAGIC >>> 8)))
+			in = new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16);
+		return in;
+	}
+
+	/** The binary log file. */
+	private final InputStream in;
+
+	/** The interned names. */
+	private final Vector<String> names = new Vector<String>();
+
+	/** The interned attribute values. */
+	private final Vector<String> values = new Vector<String>();
+
+	private LogToXML(InputStream in) {
+		this.in = in;
+	}
+
+	private void convert(String xmlFName) throws IOException {
+		for (byte b : BinaryLogSink.MAGIC) {
+			if (in.read() != b)
+				throw new CompilerError("Not a binary log file.");
+		}
+		if (readNumber() != BinaryLogSink.VERSION)
+			throw new CompilerError("Unsupported version of the binary log file.");
+		String xslFName = readString();
+
+		LogSink sink = new StreamLogSink(xmlFName, xslFName);
+		while (true) {
+			switch (read()) {
+			case BinaryLogSink.BEG_ELEMENT:
+				sink.begElement(readName());
+				break;
+			case BinaryLogSink.ADD_ATTRIBUTE:
+				sink.addAttribute(readName(), readValue());
+				break;
+			case BinaryLogSink.END_ELEMENT:
+				sink.endElement();
+				break;
+			case BinaryLogSink.END_LOG:
+				sink.close();
+				return;
+			default:
+				throw new CompilerError("Corrupted binary log file.");
+			}
+		}
+	}
+
+	private int read() throws IOException {
+		int b = in.read();
+		if (b < 0)
+			throw new CompilerError("Unexpected end of the binary log file.");
+		return b;
+	}
+
+	private String readName() throws IOException {
+		long index = readNumber();
+		if (index == names.size())
+			names.add(readString());
+		else if (index > names.size())
+			throw new CompilerError("Corrupted binary log file.");
+		return names.get((int) index);
+	}
+
+	private String readValue() throws IOException {
+		long number = readNumber();
+		switch ((int) (number & 3)) {
+		case BinaryLogSink.VALUE_REF:
+			if ((number >>> 2) >= values.size())
+				throw new CompilerError("Corrupted binary log file.");
+			return values.get((int) (number >>> 2));
+		case BinaryLogSink.VALUE_NEW:
+			String value = readString();
+			if (values.size() < BinaryLogSink.MAX_VALUES)
+				values.add(value);
+			return value;
+		case BinaryLogSink.VALUE_NONNEG:
+			return Long.toString(number >>> 2);
+		default:
+			return Long.toString(-(number >>> 2) - 1);
+		}
+	}
+
+	private long readNumber() throws IOException {
+		long number = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = read();
+			number |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return number;
+			if (shift > 56)
+				throw new CompilerError("Corrupted binary log file.");
+		}
+	}
+
+	private String readString() throws IOException {
+		long length = readNumber();
+		if (length > Integer.MAX_VALUE)
+			throw new CompilerError("Corrupted binary log file.");
+		byte[] bytes = new byte[(int) length];
+		int offset = 0;
+		while (offset < bytes.length) {
+			int n = in.read(bytes, offset, bytes.length - offset);
+			if (n < 0)
+				throw new CompilerError("Unexpected end of the binary log file.");
+			offset += n;
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -1,13 +1,5 @@
 package compiler.common.logger;
 
-import java.io.*;
-import java.util.*;
-import javax.xml.parsers.*;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.*;
-import javax.xml.transform.stream.*;
-import org.w3c.dom.*;
-
 import compiler.common.report.*;
 
 /**
@@ -23,15 +15,24 @@ public class Logger implements AutoCloseable {
 	/** The name of the style file. */
 	private final String xslFileName;
 
-	/** The document representing the entire log. */
-	private final Document doc;
-
-	/** The path from the root of the log document to the current node. */
-	private final Stack<Element> elements = new Stack<Element>();
-
 	/** The document transformer. */
 	private Transformer transformer;
 
+	/** Whether log elements are written out by a separate thread. */
+	private final boolean async;
+
+	/**
+	 * The format of the log file: <code>xml</code>, <code>bin</code> or
+	 * <code>bin.gz</code> (see {@link BinaryLogSink}).
+	 */
+	private final String format;
+
+	/**
+	 * The destination of log elements (chosen when the first element is
+	 * logged).
+	 */
+	private LogSink sink = null;
+
 	/**
 	 * Constructs a new logger.
 	 * 
@@ -42,26 +43,50 @@ public class Logger implements AutoCloseable {
 	 *            The name of the phase being logged.
 	 */
 	public Logger(String xmlFileName, String xslFileName) {
+		this(xmlFileName, xslFileName, false, "xml");
+	}
+
+	/**
+	 * Constructs a new logger.
+	 * 
+	 * @param xmlFileName
+	 *            The file name of the log file (without phase name and
+	 *            <code>.xml</code> extension).
+	 * @param xslFileName
+	 *            The name of the phase being logged.
+	 * @param async
+	 *            Whether log elements are written out by a separate thread.
+	 * @param format
+	 *            The format of the log file: <code>xml</code>,
+	 *            <code>bin</code> or <code>bin.gz</code>.
+	 */
+	public Logger(String xmlFileName, String xslFileName, boolean async, String format) {
 		this.xmlFileName = xmlFileName;
 		this.xslFileName = xslFileName;
 		this.transformer = null;
+		this.async = async;
+		this.format = format;
+	}
 
-		// Prepare a new log document.
-		try {
-			doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-		} catch (ParserConfigurationException ex) {
-			throw new InternalCompilerError();
+	/**
+	 * Returns the destination of log elements. Unless the log document must be
+	 * transformed, log elements are written to the log file (in XML or in the
+	 * binary format) as they are produced; otherwise the entire log document
+	 * is built in memory first. Either is done by a separate thread if so
+	 * requested.
+	 */
+	private LogSink sink() {
+		if (sink == null) {
+			LogSink binarySink = format.equals("xml") ? null
+					: new BinaryLogSink(xmlFileName, xslFileName, format.equals("bin.gz"));
+			if (transformer != null)
+				sink = new DOMLogSink(xmlFileName, xslFileName, transformer, binarySink);
+			else
+				sink = binarySink != null ? binarySink : new StreamLogSink(xmlFileName, xslFileName);
+			if (async)
+				sink = new AsyncLogSink(sink);
 		}
-
-		// Create the root element representing the entire phase.
-		Element phase = doc.createElement("report");
-		doc.appendChild(phase);
-		elements.push(phase);
-
-		// Add XSL declaration.
-		ProcessingInstruction xsl = doc.createProcessingInstruction("xml-stylesheet",
-				"type=\"text/xsl\" href=\"" + this.xslFileName + "\"");
-		doc.insertBefore(xsl, phase);
+		return sink;
 	}
 
 	/**
@@ -69,27 +94,26 @@ public class Logger implements AutoCloseable {
 	 */
 	@Override
 	public void close() {
-		try {
-			elements.pop();
-		} catch (EmptyStackException ex) {
-			throw new InternalCompilerError();
-		}
+		sink().close();
+	}
 
-		Document transformedDoc = transformer == null ? doc : transformer.transform(doc);
-
-		// Dump the log document out.
-		try {
-			TransformerFactory transformerFactory = TransformerFactory.newInstance();
-			javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
-			DOMSource source = new DOMSource(transformedDoc);
-			StreamResult result = new StreamResult(new File(xmlFileName));
-			transformer.transform(source, result);
-		} catch (TransformerException ex) {
-			Report.warning("Cannot generate log file '" + xmlFileName + "'.");
-		}
+	/**
+	 * Abandons the log document (if compilation has been aborted).
+	 */
+	public void abort() {
+		if (sink != null)
+			sink.abort();
 	}
 	
+	/**
+	 * Sets the document transformer (before anything is logged).
+	 * 
+	 * @param transformer
+	 *            The document transformer.
+	 */
 	public void setTransformer(Transformer transformer) {
+		if (sink != null)
+			throw new InternalCompilerError();
 		this.transformer = transformer;
 	}
 
@@ -102,13 +126,7 @@ public class Logger implements AutoCloseable {
 	 *            The tag of the new log element.
 	 */
 	public void begElement(String tagName) {
-		try {
-			Element element = doc.createElement(tagName);
-			elements.peek().appendChild(element);
-			elements.push(element);
-		} catch (EmptyStackException ex) {
-			throw new InternalCompilerError();
-		}
+		sink().begElement(tagName);
 	}
 
 	/**
@@ -120,11 +138,7 @@ public class Logger implements AutoCloseable {
 	 *            The attribute value.
 	 */
 	public void addAttribute(String attrName, String attrValue) {
-		try {
-			elements.peek().setAttribute(attrName, attrValue);
-		} catch (EmptyStackException ex) {
-			throw new InternalCompilerError();
-		}
+		sink().addAttribute(attrName, attrValue);
 	}
 
 	/**
@@ -132,11 +146,7 @@ public class Logger implements AutoCloseable {
 	 * current log element again.
 	 */
 	public void endElement() {
-		try {
-			elements.pop();
-		} catch (EmptyStackException ex) {
-			throw new InternalCompilerError();
-		}
+		sink().endElement();
 	}
 
 }
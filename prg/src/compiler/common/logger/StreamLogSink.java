@@ -0,0 +1,260 @@
+package compiler.common.logger;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import compiler.common.report.*;
+
+/**
+ * A log sink that writes elements to the log file as they are produced.
+ *
+ * The start tag of an element is written only when one of its children gets
+ * a child of its own or when the element ends, and so are its children that
+ * contain no elements. Hence attributes can be added to an element after its
+ * leaf children (e.g., after its position), and all attributes are written in
+ * the same (sorted) order and empty elements in the same form as by the DOM
+ * serializer: the log file is identical to the one produced by
+ * {@link DOMLogSink}, but only a few elements are kept in memory. If
+ * compilation is aborted, the incomplete log file is deleted (see
+ * {@link #abort()}), so no log file is left behind as by {@link DOMLogSink}.
+ *
+ * Tags are written out directly (rather than by a streaming XML writer, which
+ * limits the depth of elements) and the open elements are kept on an explicit
+ * stack, so the depth of the log is limited only by the available memory. If
+ * the log file cannot be written, a warning is reported once the log is closed
+ * and the incomplete log file is deleted.
+ *
+ * @author sliva
+ */
+class StreamLogSink implements LogSink {
+
+	/** An element whose start tag has not been written yet. */
+	private static class Element {
+
+		/** The tag of the element. */
+		final String tagName;
+
+		/** The attributes of the element. */
+		final TreeMap<String, String> attrs = new TreeMap<String, String>();
+
+		Element(String tagName) {
+			this.tagName = tagName;
+		}
+
+	}
+
+	/** The name of the generated log file. */
+	private final String xmlFileName;
+
+	/** The log file (or <code>null</code> if writing it has failed). */
+	private Writer out = null;
+
+	/** The tags of the open elements whose start tags have been written. */
+	private final Vector<String> open = new Vector<String>();
+
+	/** The number of open elements (including the root element). */
+	private int depth = 0;
+
+	/** The open element whose start tag has not been written yet. */
+	private Element pending = null;
+
+	/** The depth of the pending element. */
+	private int pendingDepth = 0;
+
+	/** The completed children of the pending element (all of them leaves). */
+	private final Vector<Element> children = new Vector<Element>();
+
+	/** The open child of the pending element (or <code>null</code>). */
+	private Element child = null;
+
+	/**
+	 * Constructs a new log sink and opens the log file.
+	 *
+	 * @param xmlFileName
+	 *            The name of the log file.
+	 * @param xslFileName
+	 *            The name of the style file.
+	 */
+	public StreamLogSink(String xmlFileName, String xslFileName) {
+		this.xmlFileName = xmlFileName;
+		try {
+			out = new BufferedWriter(
+					new OutputStreamWriter(new FileOutputStream(xmlFileName), StandardCharsets.UTF_8), 1 << 16);
+			out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+			out.write("<?xml-stylesheet type=\"text/xsl\" href=\"" + xslFileName + "\"?>");
+		} catch (IOException ex) {
+			fail();
+		}
+		begElement("report");
+	}
+
+	@Override
+	public void begElement(String tagName) {
+		depth++;
+		if (child != null) {
+			// No more attributes can be added to the pending element.
+			write(pending, false);
+			pending = child;
+			pendingDepth = depth - 1;
+			child = new Element(tagName);
+		} else if (pending != null) {
+			child = new Element(tagName);
+		} else {
+			pending = new Element(tagName);
+			pendingDepth = depth;
+		}
+	}
+
+	@Override
+	public void addAttribute(String attrName, String attrValue) {
+		if ((child != null) && (depth == pendingDepth + 1))
+			child.attrs.put(attrName, attrValue);
+		else if ((pending != null) && (depth == pendingDepth))
+			pending.attrs.put(attrName, attrValue);
+		else
+			throw new InternalCompilerError();
+	}
+
+	@Override
+	public void endElement() {
+		if (depth == 0)
+			throw new InternalCompilerError();
+		depth--;
+		if (child != null) {
+			children.add(child);
+			child = null;
+		} else if (pending != null) {
+			write(pending, true);
+			pending = null;
+		} else {
+			try {
+				writeEnd();
+			} catch (IOException ex) {
+				fail();
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		endElement();
+		if (depth != 0)
+			throw new InternalCompilerError();
+		try {
+			if (out != null)
+				out.close();
+		} catch (IOException ex) {
+			fail();
+		}
+		if (out == null) {
+			Report.warning("Cannot generate log file '" + xmlFileName + "'.");
+			new File(xmlFileName).delete();
+		}
+	}
+
+	@Override
+	public void abort() {
+		fail();
+		new File(xmlFileName).delete();
+	}
+
+	/**
+	 * Writes the pending element together with its completed children.
+	 *
+	 * @param element
+	 *            The pending element.
+	 * @param ended
+	 *            Whether the element has ended.
+	 */
+	private void write(Element element, boolean ended) {
+		try {
+			if (ended && children.isEmpty()) {
+				writeStart(element, true);
+			} else {
+				writeStart(element, false);
+				for (Element leaf : children)
+					writeStart(leaf, true);
+				if (ended)
+					writeEnd();
+			}
+		} catch (IOException ex) {
+			fail();
+		}
+		children.clear();
+	}
+
+	private void writeStart(Element element, boolean empty) throws IOException {
+		if (!empty)
+			open.add(element.tagName);
+		if (out == null)
+			return;
+		out.write('<');
+		out.write(element.tagName);
+		for (Map.Entry<String, String> attr : element.attrs.entrySet()) {
+			out.write(' ');
+			out.write(attr.getKey());
+			out.write("=\"");
+			writeEscaped(attr.getValue());
+			out.write('"');
+		}
+		out.write(empty ? "/>" : ">");
+	}
+
+	private void writeEnd() throws IOException {
+		String tagName = open.remove(open.size() - 1);
+		if (out == null)
+			return;
+		out.write("</");
+		out.write(tagName);
+		out.write('>');
+	}
+
+	/**
+	 * Writes an attribute value, escaping markup characters as well as control
+	 * characters (as character references), as the DOM serializer does.
+	 */
+	private void writeEscaped(String value) throws IOException {
+		int start = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			String escaped;
+			switch (c) {
+			case '&':
+				escaped = "&amp;";
+				break;
+			case '<':
+				escaped = "&lt;";
+				break;
+			case '>':
+				escaped = "&gt;";
+				break;
+			case '"':
+				escaped = "&quot;";
+				break;
+			default:
+				if (c >= 32)
+					continue;
+				escaped = "&#" + (int) c + ";";
+			}
+			out.write(value, start, i - start);
+			out.write(escaped);
+			start = i + 1;
+		}
+		out.write(value, start, value.length() - start);
+	}
+
+	/**
+	 * Stops writing the log file (once writing it has failed or compilation
+	 * has been aborted).
+	 */
+	private void fail() {
+		try {
+			if (out != null)
+				out.close();
+		} catch (IOException ex) {
+		}
+		out = null;
+	}
+
+}
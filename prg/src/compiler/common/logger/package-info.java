@@ -15,6 +15,23 @@
  * becomes the current element again.</li>
  * </ul>
  * 
+ * <p>
+ * Elements are written to the log file as they are constructed, so the log
+ * document is never kept in memory as a whole. Only if a
+ * {@link compiler.common.logger.Transformer transformer} has been set (before
+ * the first element is constructed), the entire document is built using DOM
+ * and transformed before it is written out. With option
+ * <code>--asynclog</code>, either is done by a separate writer thread of each
+ * logger so that the compiling thread only buffers the elements.
+ * </p>
+ * 
+ * <p>
+ * With option <code>--logformat=bin</code> (or <code>--logformat=bin.gz</code>
+ * for a compressed file) log files are written in a compact binary format
+ * instead; {@link compiler.common.logger.LogToXML} converts them back into XML
+ * log files that can be viewed using the XSL files.
+ * </p>
+ * 
  * @author sliva
  */
 package compiler.common.logger;
\ No newline at end of file
@@ -0,0 +1,135 @@
+package compiler.common.names;
+
+import java.util.*;
+
+/**
+ * The table of identifiers of a single compilation.
+ *
+ * Every distinct identifier is stored only once and is assigned a dense
+ * number (starting with 0) in the order identifiers are first seen. An
+ * identifier can be interned directly from a character buffer so that no
+ * string is created for identifiers that have already been seen.
+ *
+ * @author sliva
+ */
+public class Names {
+
+	/** Identifiers indexed by their numbers. */
+	private String[] names = new String[256];
+
+	/** Hash codes of identifiers indexed by their numbers. */
+	private int[] hashes = new int[256];
+
+	/** The number of identifiers. */
+	private int size = 0;
+
+	/**
+	 * The hash table of identifiers: numbers of identifiers increased by 1
+	 * (or 0 for free slots).
+	 */
+	private int[] table = new int[512];
+
+	/**
+	 * Returns the number of an identifier, adding the identifier to the table
+	 * if it has not been seen yet.
+	 *
+	 * @param chars
+	 *            The buffer containing the identifier.
+	 * @param start
+	 *            The index of the first character of the identifier.
+	 * @param length
+	 *            The length of the identifier.
+	 * @return The number of the identifier.
+	 */
+	public int intern(char[] chars, int start, int length) {
+		int hash = 0;
+		for (int i = start; i < start + length; i++)
+			hash = 31 * hash + chars[i];
+		int mask = table.length - 1;
+		for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+			int id = table[slot] - 1;
+			if (id < 0) {
+				return add(new String(chars, start, length), hash, slot);
+			}
+			if ((hashes[id] == hash) && equals(names[id], chars, start, length))
+				return id;
+		}
+	}
+
+	/**
+	 * Returns the number of an identifier, adding the identifier to the table
+	 * if it has not been seen yet.
+	 *
+	 * @param name
+	 *            The identifier.
+	 * @return The number of the identifier.
+	 */
+	public int intern(String name) {
+		int hash = name.hashCode();
+		int mask = table.length - 1;
+		for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+			int id = table[slot] - 1;
+			if (id < 0) {
+				return add(name, hash, slot);
+			}
+			if ((hashes[id] == hash) && names[id].equals(name))
+				return id;
+		}
+	}
+
+	/**
+	 * Returns the identifier with the specified number.
+	 *
+	 * @param id
+	 *            The number of the identifier.
+	 * @return The identifier.
+	 */
+	public String name(int id) {
+		return names[id];
+	}
+
+	/**
+	 * Returns the number of identifiers.
+	 *
+	 * @return The number of identifiers.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private static boolean equals(String name, char[] chars, int start, int length) {
+		if (name.length() != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (name.charAt(i) != chars[start + i])
+				return false;
+		}
+		return true;
+	}
+
+	private int add(String name, int hash, int slot) {
+		if (size == names.length) {
+			names = Arrays.copyOf(names, 2 * size);
+			hashes = Arrays.copyOf(hashes, 2 * size);
+		}
+		int id = size++;
+		names[id] = name;
+		hashes[id] = hash;
+		table[slot] = id + 1;
+		if (2 * size > table.length)
+			rehash();
+		return id;
+	}
+
+	private void rehash() {
+		table = new int[2 * table.length];
+		int mask = table.length - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = hashes[id] & mask;
+			while (table[slot] != 0)
+				slot = (slot + 1) & mask;
+			table[slot] = id + 1;
+		}
+	}
+
+}
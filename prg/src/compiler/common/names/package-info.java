@@ -0,0 +1,13 @@
+/**
+ * Identifiers shared by all phases of the compiler.
+ * 
+ * <p>
+ * Identifiers are interned by the lexical analyzer: each distinct identifier is
+ * assigned a dense number (see {@link compiler.common.names.Names}) which is
+ * then carried by lexical symbols and AST nodes and used by the symbol table
+ * instead of the identifier itself.
+ * </p>
+ * 
+ * @author sliva
+ */
+package compiler.common.names;
@@ -0,0 +1,27 @@
+package compiler.common.report;
+
+/**
+ * A mapping of offsets of characters to their files, lines and columns (see
+ * {@link compiler.common.report.Position}).
+ *
+ * @author sliva
+ */
+public abstract class LineMap {
+
+	/**
+	 * Returns the name of the file containing the character at the specified
+	 * offset.
+	 */
+	public abstract String fileName(int offset);
+
+	/**
+	 * Returns the line of the character at the specified offset.
+	 */
+	public abstract int line(int offset);
+
+	/**
+	 * Returns the column of the character at the specified offset.
+	 */
+	public abstract int column(int offset);
+
+}
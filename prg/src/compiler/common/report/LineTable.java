@@ -0,0 +1,101 @@
+package compiler.common.report;
+
+import java.util.*;
+
+/**
+ * The table of lines of a source file.
+ *
+ * Positions within the file are stored as offsets of characters (see
+ * {@link compiler.common.report.Position}); the table converts an offset into
+ * the line and the column of the character only when they are needed. A tab
+ * advances the column by 8, other characters by 1 (as in the lexical
+ * analyzer). Offsets past the end of the file denote columns following the
+ * last character of the file.
+ *
+ * @author sliva
+ */
+public class LineTable extends LineMap {
+
+	/** The name of the source file. */
+	private final String fileName;
+
+	/** The content of the source file. */
+	private final char[] chars;
+
+	/** The number of characters of the source file. */
+	private final int length;
+
+	/** The offsets of the first characters of lines. */
+	private int[] lineStarts = new int[256];
+
+	/** The number of lines. */
+	private int numLines = 1;
+
+	/**
+	 * Constructs the table of a source file containing a single line (lines
+	 * are added as they are seen by the lexical analyzer).
+	 *
+	 * @param fileName
+	 *            The name of the source file.
+	 * @param chars
+	 *            The content of the source file.
+	 * @param length
+	 *            The number of characters of the source file.
+	 */
+	public LineTable(String fileName, char[] chars, int length) {
+		this.fileName = fileName;
+		this.chars = chars;
+		this.length = length;
+	}
+
+	/**
+	 * Adds a line.
+	 *
+	 * @param offset
+	 *            The offset of the first character of the line (the character
+	 *            following LF).
+	 */
+	public void addLine(int offset) {
+		if (numLines == lineStarts.length)
+			lineStarts = Arrays.copyOf(lineStarts, 2 * numLines);
+		lineStarts[numLines++] = offset;
+	}
+
+	/**
+	 * Returns the name of the file containing the character at the specified
+	 * offset.
+	 */
+	@Override
+	public String fileName(int offset) {
+		return fileName;
+	}
+
+	/**
+	 * Returns the line of the character at the specified offset.
+	 */
+	@Override
+	public int line(int offset) {
+		int lo = 0;
+		int hi = numLines - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (lineStarts[mid] <= offset)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return lo + 1;
+	}
+
+	/**
+	 * Returns the column of the character at the specified offset.
+	 */
+	@Override
+	public int column(int offset) {
+		int column = 1;
+		for (int index = lineStarts[line(offset) - 1]; index < offset; index++)
+			column += (index < length) && (chars[index] == '\t') ? 8 : 1;
+		return column;
+	}
+
+}
@@ -5,27 +5,39 @@ import compiler.common.logger.*;
 /**
  * Denotes the position of a text within a file.
  * 
+ * The position is stored as the offsets of the first and the last character
+ * of the text packed into a single <code>long</code>; lines and columns are
+ * computed by the {@link compiler.common.report.LineTable table of lines} of
+ * the file only when they are needed. Positions given by lines and columns
+ * directly are supported as well, but take more space.
+ * 
  * @author sliva
  */
 public class Position implements Loggable {
 
-	/** The name of the file containing the first character of text. */
-	private final String begFileName;
-
-	/** The line of the first character of the text. */
-	private final int begLine;
-
-	/** The column of the first character of the text. */
-	private final int begColumn;
-
-	/** The name of the file containing the last character of the text. */
-	private final String endFileName;
+	/** The table of lines of the file. */
+	private final LineMap lines;
 
-	/** The line of the last character of the text. */
-	private final int endLine;
+	/**
+	 * The offset of the first character of the text (the upper 32 bits) and
+	 * the offset of the last character of the text (the lower 32 bits).
+	 */
+	private final long range;
 
-	/** The column of the last character of the text. */
-	private final int endColumn;
+	/**
+	 * Constructs a new position denoting a sequence of characters.
+	 * 
+	 * @param lines
+	 *            The table of lines of the file containing the text.
+	 * @param begOffset
+	 *            The offset of the first character of the text.
+	 * @param endOffset
+	 *            The offset of the last character of the text.
+	 */
+	public Position(LineMap lines, int begOffset, int endOffset) {
+		this.lines = lines;
+		this.range = ((long) begOffset << 32) | (endOffset & 0xFFFFFFFFL);
+	}
 
 	/**
 	 * Constructs a new position denoting a single character.
@@ -60,12 +72,7 @@ public class Position implements Loggable {
 	 *            The column of the last character of the text.
 	 */
 	public Position(String begFileName, int begLine, int begColumn, String endFileName, int endLine, int endColumn) {
-		this.begFileName = begFileName;
-		this.begLine = begLine;
-		this.begColumn = begColumn;
-		this.endFileName = endFileName;
-		this.endLine = endLine;
-		this.endColumn = endColumn;
+		this(new Explicit(begFileName, begLine, begColumn, endFileName, endLine, endColumn), 0, 1);
 	}
 
 	/**
@@ -75,12 +82,8 @@ public class Position implements Loggable {
 	 *            The specified position.
 	 */
 	public Position(Position position) {
-		this.begFileName = position.begFileName;
-		this.begLine = position.begLine;
-		this.begColumn = position.begColumn;
-		this.endFileName = position.endFileName;
-		this.endLine = position.endLine;
-		this.endColumn = position.endColumn;
+		this.lines = position.lines;
+		this.range = position.range;
 	}
 
 	/**
@@ -92,41 +95,52 @@ public class Position implements Loggable {
 	 *            The last position.
 	 */
 	public Position(Position begPosition, Position endPosition) {
-		this.begFileName = begPosition.begFileName;
-		this.begLine = begPosition.begLine;
-		this.begColumn = begPosition.begColumn;
-		this.endFileName = begPosition.endFileName;
-		this.endLine = endPosition.endLine;
-		this.endColumn = endPosition.endColumn;
+		if ((begPosition.lines == endPosition.lines) && !(begPosition.lines instanceof Explicit)) {
+			this.lines = begPosition.lines;
+			this.range = (begPosition.range & 0xFFFFFFFF00000000L) | (endPosition.range & 0xFFFFFFFFL);
+		} else {
+			this.lines = new Explicit(begPosition.getBegFileName(), begPosition.getBegLine(),
+					begPosition.getBegColumn(), begPosition.getEndFileName(), endPosition.getEndLine(),
+					endPosition.getEndColumn());
+			this.range = 1;
+		}
+	}
+
+	private int begOffset() {
+		return (int) (range >>> 32);
+	}
+
+	private int endOffset() {
+		return (int) range;
 	}
 
 	public String getBegFileName() {
-		return begFileName;
+		return lines.fileName(begOffset());
 	}
 
 	public int getBegLine() {
-		return begLine;
+		return lines.line(begOffset());
 	}
 
 	public int getBegColumn() {
-		return begColumn;
+		return lines.column(begOffset());
 	}
 
 	public String getEndFileName() {
-		return endFileName;
+		return lines.fileName(endOffset());
 	}
 
 	public int getEndLine() {
-		return endLine;
+		return lines.line(endOffset());
 	}
 
 	public int getEndColumn() {
-		return endColumn;
+		return lines.column(endOffset());
 	}
 	
 	@Override
 	public String toString() {
-		return "[" + begLine + "." + begColumn + "--" + endLine + "." + endColumn + "]";
+		return "[" + getBegLine() + "." + getBegColumn() + "--" + getEndLine() + "." + getEndColumn() + "]";
 	}
 
 	@Override
@@ -134,13 +148,57 @@ public class Position implements Loggable {
 		if (logger == null)
 			return;
 		logger.begElement("position");
-		logger.addAttribute("begsource", begFileName);
-		logger.addAttribute("begLine", Integer.toString(begLine));
-		logger.addAttribute("begColumn", Integer.toString(begColumn));
-		logger.addAttribute("endsource", endFileName);
-		logger.addAttribute("endLine", Integer.toString(endLine));
-		logger.addAttribute("endColumn", Integer.toString(endColumn));
+		logger.addAttribute("begsource", getBegFileName());
+		logger.addAttribute("begLine", Integer.toString(getBegLine()));
+		logger.addAttribute("begColumn", Integer.toString(getBegColumn()));
+		logger.addAttribute("endsource", getEndFileName());
+		logger.addAttribute("endLine", Integer.toString(getEndLine()));
+		logger.addAttribute("endColumn", Integer.toString(getEndColumn()));
 		logger.endElement();
 	}
 
+	/**
+	 * The lines and columns of a position given directly (the first character
+	 * of the text has offset 0, the last one offset 1).
+	 */
+	private static class Explicit extends LineMap {
+
+		private final String begFileName;
+
+		private final String endFileName;
+
+		private final int begLine;
+
+		private final int begColumn;
+
+		private final int endLine;
+
+		private final int endColumn;
+
+		Explicit(String begFileName, int begLine, int begColumn, String endFileName, int endLine, int endColumn) {
+			this.begFileName = begFileName;
+			this.endFileName = endFileName;
+			this.begLine = begLine;
+			this.begColumn = begColumn;
+			this.endLine = endLine;
+			this.endColumn = endColumn;
+		}
+
+		@Override
+		public String fileName(int offset) {
+			return offset == 0 ? begFileName : endFileName;
+		}
+
+		@Override
+		public int line(int offset) {
+			return offset == 0 ? begLine : endLine;
+		}
+
+		@Override
+		public int column(int offset) {
+			return offset == 0 ? begColumn : endColumn;
+		}
+
+	}
+
 }
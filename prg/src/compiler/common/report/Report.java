@@ -1,5 +1,7 @@
 package compiler.common.report;
 
+import compiler.*;
+
 /**
  * Static methods for printing out info, debug, and warning messages.
  * 
@@ -56,16 +58,14 @@ public class Report {
 		System.out.println(message);
 	}
 
-	/** Number of warnings printed out. */
-	private static int numWarnings = 0;
-
 	/**
-	 * Returns the number of warnings printed out so far.
+	 * Returns the number of warnings printed out so far by the current
+	 * compilation.
 	 * 
 	 * @return The number of warnings printed out so far.
 	 */
 	public static int getNumWarnings() {
-		return numWarnings;
+		return Context.current().numWarnings;
 	}
 
 	/**
@@ -77,7 +77,7 @@ public class Report {
 	public static void warning(String message) {
 		System.err.print(":-o ");
 		System.err.println(message);
-		numWarnings++;
+		Context.current().numWarnings++;
 	}
 
 	/**
@@ -93,7 +93,7 @@ public class Report {
 	public static void warning(Position position, String message) {
 		System.err.print(":-o " + position.toString() + " ");
 		System.err.println(message);
-		numWarnings++;
+		Context.current().numWarnings++;
 	}
 
 }
@@ -0,0 +1,267 @@
+package compiler.common.stats;
+
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+
+/**
+ * Statistics of a single compilation: the wall time, the CPU time and the
+ * number of bytes allocated by each phase, and counters describing each code
+ * fragment. The statistics are dumped in JSON format.
+ *
+ * The CPU time and the allocations of a phase include the work done by the
+ * threads helping the compiling thread (worker threads, stack segments and
+ * log writer threads): each of them measures its own work by
+ * {@link #begWork()} and {@link #endWork(long[])}, and the work it has done
+ * while the phase is being measured is added to the phase.
+ *
+ * @author sliva
+ */
+public class Stats {
+
+	/** Whether statistics are being collected. */
+	public final boolean enabled;
+
+	/** The statistics of the phases performed so far. */
+	private final Vector<PhaseStats> phases = new Vector<PhaseStats>();
+
+	/** The statistics of the code fragments (indexed by entry labels). */
+	private final LinkedHashMap<String, FragmentStats> fragments = new LinkedHashMap<String, FragmentStats>();
+
+	/** The phase being measured. */
+	private PhaseStats curPhase = null;
+
+	/** The bean providing CPU time and allocation counters of threads. */
+	private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+	/**
+	 * Constructs new statistics.
+	 *
+	 * @param enabled
+	 *            Whether statistics should be collected at all.
+	 */
+	public Stats(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Starts measuring a phase.
+	 *
+	 * @param name
+	 *            The name of the phase.
+	 */
+	public synchronized void begPhase(String name) {
+		if (!enabled)
+			return;
+		curPhase = new PhaseStats(name);
+		phases.add(curPhase);
+		curPhase.wallTime = -System.nanoTime();
+		curPhase.cpuTime = -cpuTime();
+		curPhase.allocatedBytes = -allocatedBytes();
+	}
+
+	/**
+	 * Stops measuring the current phase.
+	 */
+	public synchronized void endPhase() {
+		if ((!enabled) || (curPhase == null))
+			return;
+		curPhase.allocatedBytes += allocatedBytes();
+		curPhase.cpuTime += cpuTime();
+		curPhase.wallTime += System.nanoTime();
+		curPhase = null;
+	}
+
+	/**
+	 * Starts measuring the work of a thread helping the compiling thread.
+	 *
+	 * @return The CPU time and the number of bytes allocated by the current
+	 *         thread so far (or <code>null</code> if statistics are not being
+	 *         collected).
+	 */
+	public long[] begWork() {
+		if (!enabled)
+			return null;
+		return new long[] { cpuTime(), allocatedBytes() };
+	}
+
+	/**
+	 * Stops measuring the work of a thread helping the compiling thread and
+	 * adds it to the phase being measured (the work done while no phase is
+	 * being measured is not counted, just as it is not on the compiling
+	 * thread).
+	 *
+	 * @param work
+	 *            The result of the matching call of {@link #begWork()}.
+	 */
+	public void endWork(long[] work) {
+		if (work == null)
+			return;
+		long cpuTime = cpuTime() - work[0];
+		long allocatedBytes = allocatedBytes() - work[1];
+		synchronized (this) {
+			if (curPhase == null)
+				return;
+			curPhase.cpuTime += cpuTime;
+			curPhase.allocatedBytes += allocatedBytes;
+		}
+	}
+
+	/**
+	 * Returns the statistics of a code fragment.
+	 *
+	 * @param label
+	 *            The entry label of the code fragment.
+	 * @return The statistics of the code fragment.
+	 */
+	public FragmentStats fragment(String label) {
+		FragmentStats fragment = fragments.get(label);
+		if (fragment == null) {
+			fragment = new FragmentStats(label);
+			fragments.put(label, fragment);
+		}
+		return fragment;
+	}
+
+	private long cpuTime() {
+		return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : 0;
+	}
+
+	private long allocatedBytes() {
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+			if (bean.isThreadAllocatedMemorySupported())
+				return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+	/**
+	 * Dumps the statistics in JSON format.
+	 *
+	 * @param file
+	 *            The file the statistics are written to.
+	 * @param srcFName
+	 *            The name of the source file.
+	 */
+	public void write(File file, String srcFName) throws IOException {
+		try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+			writer.println("{");
+			writer.println("  \"source\": " + quote(srcFName) + ",");
+			writer.println("  \"phases\": [");
+			for (int i = 0; i < phases.size(); i++) {
+				PhaseStats phase = phases.get(i);
+				writer.print("    { \"name\": " + quote(phase.name));
+				writer.print(", \"wallTimeNs\": " + phase.wallTime);
+				writer.print(", \"cpuTimeNs\": " + phase.cpuTime);
+				writer.print(", \"allocatedBytes\": " + phase.allocatedBytes);
+				writer.println(" }" + (i < phases.size() - 1 ? "," : ""));
+			}
+			writer.println("  ],");
+			writer.println("  \"fragments\": [");
+			int i = 0;
+			for (FragmentStats fragment : fragments.values()) {
+				writer.print("    { \"label\": " + quote(fragment.label));
+				writer.print(", \"instructions\": " + fragment.instructions);
+				writer.print(", \"temps\": " + fragment.temps);
+				writer.print(", \"livenessIterations\": " + fragment.livenessIterations);
+				writer.print(", \"interferenceEdges\": " + fragment.interferenceEdges);
+				writer.print(", \"spillRounds\": " + fragment.spillRounds);
+				writer.print(", \"spilledTemps\": " + fragment.spilledTemps);
+				writer.print(", \"coalescedMoves\": " + fragment.coalescedMoves);
+				writer.print(", \"regAllocLivenessIterations\": " + fragment.regAllocLivenessIterations);
+				writer.print(", \"regAllocTimeNs\": " + fragment.regAllocTime);
+				writer.println(" }" + (++i < fragments.size() ? "," : ""));
+			}
+			writer.println("  ]");
+			writer.println("}");
+		}
+	}
+
+	private static String quote(String string) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : string.toCharArray()) {
+			if (c == '"' || c == '\\')
+				quoted.append('\\').append(c);
+			else if (c < 32)
+				quoted.append(String.format("\\u%04x", (int) c));
+			else
+				quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * The statistics of a single phase.
+	 */
+	public static class PhaseStats {
+
+		/** The name of the phase. */
+		public final String name;
+
+		/** Wall time (in nanoseconds). */
+		public long wallTime;
+
+		/**
+		 * CPU time of the compiling thread and the threads helping it (in
+		 * nanoseconds).
+		 */
+		public long cpuTime;
+
+		/**
+		 * The number of bytes allocated by the compiling thread and the threads
+		 * helping it.
+		 */
+		public long allocatedBytes;
+
+		public PhaseStats(String name) {
+			this.name = name;
+		}
+
+	}
+
+	/**
+	 * The statistics of a single code fragment.
+	 */
+	public static class FragmentStats {
+
+		/** The entry label of the code fragment. */
+		public final String label;
+
+		/** The number of generated instructions. */
+		public int instructions;
+
+		/** The number of temporary registers used by generated instructions. */
+		public int temps;
+
+		/** The number of basic block evaluations of liveness analysis in code generation. */
+		public int livenessIterations;
+
+		/**
+		 * The number of edges of the interference graph (0 if the graph has
+		 * not been built).
+		 */
+		public int interferenceEdges;
+
+		/** The number of rounds of register allocation ending with spills. */
+		public int spillRounds;
+
+		/** The number of spilled temporary registers. */
+		public int spilledTemps;
+
+		/** The number of moves removed by coalescing. */
+		public int coalescedMoves;
+
+		/** The number of basic block evaluations of liveness analysis in register allocation. */
+		public int regAllocLivenessIterations;
+
+		/** Wall time of register allocation (in nanoseconds). */
+		public long regAllocTime;
+
+		public FragmentStats(String label) {
+			this.label = label;
+		}
+
+	}
+
+}
@@ -1,14 +1,55 @@
 package compiler.data.ast;
 
+import compiler.*;
 import compiler.common.report.*;
+import compiler.data.ast.code.*;
 
 /**
  * @author sliva
  */
 public abstract class ASTNode extends Position implements AST, Typeable {
 
+	/**
+	 * The identifier of this node: nodes of the same compilation are numbered
+	 * densely from 0 in the order of their construction (see
+	 * {@link compiler.data.ast.attr.Attribute}).
+	 */
+	public final int id;
+
 	public ASTNode(Position position) {
 		super(position);
+		this.id = Context.current().astNodeCount++;
+	}
+
+	/**
+	 * Accepts a visitor. As the depth of the abstract syntax tree is not
+	 * limited, visiting a node is a guarded call (see {@link Recursion}).
+	 */
+	@Override
+	public final void accept(final Visitor visitor) {
+		if (!Recursion.enter()) {
+			Recursion.extend(new Recursion.Call<Void, RuntimeException>() {
+				@Override
+				public Void call() {
+					accept(visitor);
+					return null;
+				}
+			});
+			return;
+		}
+		try {
+			dispatch(visitor);
+		} finally {
+			Recursion.exit();
+		}
 	}
 
+	/**
+	 * Calls back the visitor (see {@link Visitor}).
+	 * 
+	 * @param visitor
+	 *            The visitor.
+	 */
+	protected abstract void dispatch(Visitor visitor);
+
 }
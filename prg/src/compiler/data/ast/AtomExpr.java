@@ -23,7 +23,7 @@ public class AtomExpr extends Expr {
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
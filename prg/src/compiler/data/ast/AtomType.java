@@ -20,7 +20,7 @@ public class AtomType extends Type {
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
@@ -26,7 +26,7 @@ public class BinExpr extends Expr {
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
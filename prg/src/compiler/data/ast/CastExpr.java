@@ -19,7 +19,7 @@ public class CastExpr extends Expr {
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
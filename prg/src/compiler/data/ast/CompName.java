@@ -8,12 +8,12 @@ import compiler.data.ast.code.*;
  */
 public class CompName extends VarName {
 
-	public CompName(Position position, String name) {
-		super(position, name);
+	public CompName(Position position, String name, int nameId) {
+		super(position, name, nameId);
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
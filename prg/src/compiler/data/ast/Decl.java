@@ -9,11 +9,14 @@ public abstract class Decl extends ASTNode {
 
 	public final String name;
 
+	public final int nameId;
+
 	public final Type type;
 
-	public Decl(Position position, String name, Type type) {
+	public Decl(Position position, String name, int nameId, Type type) {
 		super(position);
 		this.name = name;
+		this.nameId = nameId;
 		this.type = type;
 	}
 
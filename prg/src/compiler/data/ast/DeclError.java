@@ -11,11 +11,11 @@ import compiler.data.ast.code.*;
 public class DeclError extends Decl {
 
 	public DeclError() {
-		super(new Position("", 0, 0), null, null);
+		super(new Position("", 0, 0), null, -1, null);
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
@@ -8,5 +8,7 @@ package compiler.data.ast;
 public interface Declarable extends AST {
 
 	public String name();
+
+	public int nameId();
 	
 }
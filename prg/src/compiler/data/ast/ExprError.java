@@ -15,7 +15,7 @@ public class ExprError extends Expr {
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
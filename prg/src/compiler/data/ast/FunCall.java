@@ -11,12 +11,15 @@ import compiler.data.ast.code.*;
 public class FunCall extends Expr implements Declarable {
 
 	private String name;
+
+	private final int nameId;
 	
 	private final Expr[] args;
 
-	public FunCall(Position position, String name, LinkedList<Expr> args) {
+	public FunCall(Position position, String name, int nameId, LinkedList<Expr> args) {
 		super(position);
 		this.name = name;
+		this.nameId = nameId;
 		this.args = new Expr[args.size()];
 		for (int a = 0; a < args.size(); a++)
 			this.args[a] = args.get(a);
@@ -36,7 +39,12 @@ public class FunCall extends Expr implements Declarable {
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	public int nameId() {
+		return nameId;
+	}
+
+	@Override
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
@@ -12,8 +12,8 @@ public class FunDecl extends Decl {
 
 	private final ParDecl[] pars;
 	
-	public FunDecl(Position position, String name, LinkedList<ParDecl> pars, Type type) {
-		super(position, name, type);
+	public FunDecl(Position position, String name, int nameId, LinkedList<ParDecl> pars, Type type) {
+		super(position, name, nameId, type);
 		this.pars = new ParDecl[pars.size()];
 		for (int p = 0; p < pars.size(); p++)
 			this.pars[p] = pars.get(p);
@@ -28,7 +28,7 @@ public class FunDecl extends Decl {
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
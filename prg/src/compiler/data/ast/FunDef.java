@@ -12,13 +12,13 @@ public class FunDef extends FunDecl {
 
 	public final Expr body;
 
-	public FunDef(Position position, String name, LinkedList<ParDecl> pars, Type type, Expr body) {
-		super(position, name, pars, type);
+	public FunDef(Position position, String name, int nameId, LinkedList<ParDecl> pars, Type type, Expr body) {
+		super(position, name, nameId, pars, type);
 		this.body = body;
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
@@ -8,12 +8,12 @@ import compiler.data.ast.code.*;
  */
 public class ParDecl extends VarDecl {
 
-	public ParDecl(Position position, String name, Type type) {
-		super(position, name, type);
+	public ParDecl(Position position, String name, int nameId, Type type) {
+		super(position, name, nameId, type);
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
@@ -10,9 +10,12 @@ public class VarName extends Expr implements Declarable {
 
 	private final String name;
 
-	public VarName(Position position, String name) {
+	private final int nameId;
+
+	public VarName(Position position, String name, int nameId) {
 		super(position);
 		this.name = name;
+		this.nameId = nameId;
 	}
 
 	@Override
@@ -21,7 +24,12 @@ public class VarName extends Expr implements Declarable {
 	}
 
 	@Override
-	public void accept(Visitor visitor) {
+	public int nameId() {
+		return nameId;
+	}
+
+	@Override
+	protected void dispatch(Visitor visitor) {
 		visitor.visit(this);
 	}
 
@@ -2,6 +2,7 @@ package compiler.data.ast.attr;
 
 import java.util.*;
 
+import compiler.*;
 import compiler.common.report.*;
 import compiler.data.ast.*;
 
@@ -20,12 +21,17 @@ import compiler.data.ast.*;
  * adding new attributes to AST without changing AST hierarchy.
  * </p>
  * 
+ * <p>
+ * Values are stored in an array indexed by identifiers of AST nodes (see
+ * {@link ASTNode#id}).
+ * </p>
+ * 
  * @author sliva
  */
 public class Attribute<Node extends AST, Value> {
 
-	/** A mapping from AST nodes to attribute values. */
-	private HashMap<Node, Value> mapping = mapping = new HashMap<Node, Value>();;
+	/** Attribute values indexed by identifiers of AST nodes. */
+	private Object[] values = new Object[0];
 
 	/**
 	 * Sets a value of the AST nodes' attribute (if it has not been set
@@ -40,11 +46,14 @@ public class Attribute<Node extends AST, Value> {
 	 *             inserted is <code>null</code>.
 	 */
 	public void set(Node node, Value value) {
-		if (mapping.containsKey(node))
+		int id = ((ASTNode) node).id;
+		if ((id < values.length) && (values[id] != null))
 			throw new InternalCompilerError();
 		if (value == null)
 			throw new InternalCompilerError();
-		mapping.put(node, value);
+		if (id >= values.length)
+			values = Arrays.copyOf(values, capacity(id, values.length, Context.current().astNodeCount));
+		values[id] = value;
 	}
 
 	/**
@@ -55,8 +64,37 @@ public class Attribute<Node extends AST, Value> {
 	 * @return AST node's attribute value or <code>null</code> if the value has
 	 *         not yet been set.
 	 */
+	@SuppressWarnings("unchecked")
 	public Value get(Node node) {
-		return mapping.get(node);
+		int id = ((ASTNode) node).id;
+		return id < values.length ? (Value) values[id] : null;
+	}
+
+	/**
+	 * Makes room for the values of all AST nodes constructed so far, so that
+	 * values of different nodes can be set by different threads at the same
+	 * time.
+	 */
+	public void reserve() {
+		int count = Context.current().astNodeCount;
+		if (values.length < count)
+			values = Arrays.copyOf(values, count);
+	}
+
+	/**
+	 * Returns the new length of an array of attribute values that must hold
+	 * the value of the node with the given identifier.
+	 * 
+	 * @param id
+	 *            The identifier of the node.
+	 * @param length
+	 *            The current length of the array.
+	 * @param count
+	 *            The number of nodes created so far.
+	 * @return The new length of the array.
+	 */
+	static int capacity(int id, int length, int count) {
+		return Math.max(id + 1, Math.max(2 * length, count));
 	}
 
 }
@@ -14,10 +14,10 @@ import compiler.phase.codegen.EvalCodeGen;
 public class Attributes {
 
 	/**
-	 * Values of simple integer constant expressions. Value <code>null</code>
-	 * signals that the value of the attribute cannot be computed.
+	 * Values of simple integer constant expressions. If the value is not set,
+	 * the value of the attribute cannot be computed.
 	 */
-	public Attribute<Expr, Long> valueAttr = new Attribute<Expr, Long>();
+	public LongAttribute<Expr> valueAttr = new LongAttribute<Expr>();
 
 	/**
 	 * Declarations of declarable entities, i.e., every entry denotes a link
@@ -71,11 +71,26 @@ public class Attributes {
 	/**
 	 * Generated code.
 	 */
-	public IMCAttribute<IMCExpr, Integer> regAttr = new IMCAttribute<IMCExpr, Integer>();
+	public IMCAttribute<IMCExpr> regAttr = new IMCAttribute<IMCExpr>();
 	
 	/**
 	 * Code generator for every code fragment.
 	 */
 	public CodeGenAttribute<CodeFragment, EvalCodeGen> codeGenAttr = new CodeGenAttribute<CodeFragment, EvalCodeGen>();
 
+	/**
+	 * Makes room for the values of all AST nodes constructed so far in all
+	 * attributes of AST nodes (see {@link Attribute#reserve()}).
+	 */
+	public void reserve() {
+		valueAttr.reserve();
+		declAttr.reserve();
+		typAttr.reserve();
+		memAttr.reserve();
+		frmAttr.reserve();
+		accAttr.reserve();
+		imcAttr.reserve();
+		frgAttr.reserve();
+	}
+
 }
@@ -2,8 +2,9 @@ package compiler.data.ast.attr;
 
 import java.util.*;
 
+import compiler.*;
 import compiler.common.report.*;
-import compiler.data.imc.IMC;
+import compiler.data.imc.*;
 
 /**
  * AST node's attribute.
@@ -20,12 +21,20 @@ import compiler.data.imc.IMC;
  * adding new attributes to AST without changing AST hierarchy.
  * </p>
  * 
+ * <p>
+ * Values are integers stored unboxed in an array indexed by identifiers of
+ * intermediate code expressions (see {@link IMCExpr#id}).
+ * </p>
+ * 
  * @author sliva
  */
-public class IMCAttribute<Node extends IMC, Value> {
+public class IMCAttribute<Node extends IMCExpr> {
+
+	/** Attribute values indexed by identifiers of expressions. */
+	private int[] values = new int[0];
 
-	/** A mapping from AST nodes to attribute values. */
-	private HashMap<Node, Value> mapping = mapping = new HashMap<Node, Value>();;
+	/** Flags signaling which values have been set. */
+	private boolean[] defined = new boolean[0];
 
 	/**
 	 * Sets a value of the AST nodes' attribute (if it has not been set
@@ -36,15 +45,18 @@ public class IMCAttribute<Node extends IMC, Value> {
 	 * @param value
 	 *            AST node's attribute value.
 	 * @throws InternalCompilerError
-	 *             If the value has already been set or if the value to be
-	 *             inserted is <code>null</code>.
+	 *             If the value has already been set.
 	 */
-	public void set(Node node, Value value) {
-		if (mapping.containsKey(node))
+	public void set(Node node, int value) {
+		int id = node.id;
+		if (id >= values.length) {
+			int length = Attribute.capacity(id, values.length, Context.current().imcExprCount());
+			values = Arrays.copyOf(values, length);
+			defined = Arrays.copyOf(defined, length);
+		} else if (defined[id])
 			throw new InternalCompilerError();
-		if (value == null)
-			throw new InternalCompilerError();
-		mapping.put(node, value);
+		values[id] = value;
+		defined[id] = true;
 	}
 
 	/**
@@ -52,11 +64,15 @@ public class IMCAttribute<Node extends IMC, Value> {
 	 * 
 	 * @param node
 	 *            AST node.
-	 * @return AST node's attribute value or <code>null</code> if the value has
-	 *         not yet been set.
+	 * @return AST node's attribute value.
+	 * @throws InternalCompilerError
+	 *             If the value has not yet been set.
 	 */
-	public Value get(Node node) {
-		return mapping.get(node);
+	public int get(Node node) {
+		int id = node.id;
+		if ((id >= defined.length) || !defined[id])
+			throw new InternalCompilerError();
+		return values[id];
 	}
 
 }
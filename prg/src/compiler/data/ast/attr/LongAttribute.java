@@ -0,0 +1,100 @@
+package compiler.data.ast.attr;
+
+import java.util.*;
+
+import compiler.*;
+import compiler.common.report.*;
+import compiler.data.ast.*;
+
+/**
+ * AST node's attribute with integer values.
+ * 
+ * <p>
+ * Like {@link Attribute}, but the values are stored unboxed.
+ * </p>
+ * 
+ * @author sliva
+ */
+public class LongAttribute<Node extends AST> {
+
+	/** Attribute values indexed by identifiers of AST nodes. */
+	private long[] values = new long[0];
+
+	/** Flags signaling which values have been set. */
+	private boolean[] defined = new boolean[0];
+
+	/**
+	 * Sets a value of the AST nodes' attribute (if it has not been set
+	 * already.)
+	 * 
+	 * @param node
+	 *            AST node.
+	 * @param value
+	 *            AST node's attribute value.
+	 * @throws InternalCompilerError
+	 *             If the value has already been set.
+	 */
+	public void set(Node node, long value) {
+		int id = ((ASTNode) node).id;
+		if (id >= values.length) {
+			int length = Attribute.capacity(id, values.length, Context.current().astNodeCount);
+			values = Arrays.copyOf(values, length);
+			defined = Arrays.copyOf(defined, length);
+		} else if (defined[id])
+			throw new InternalCompilerError();
+		values[id] = value;
+		defined[id] = true;
+	}
+
+	/**
+	 * Makes room for the values of all AST nodes constructed so far (see
+	 * {@link Attribute#reserve()}).
+	 */
+	public void reserve() {
+		int count = Context.current().astNodeCount;
+		if (values.length < count) {
+			values = Arrays.copyOf(values, count);
+			defined = Arrays.copyOf(defined, count);
+		}
+	}
+
+	/**
+	 * Checks whether a value of the AST node's attribute has been set.
+	 * 
+	 * @param node
+	 *            AST node.
+	 * @return <code>true</code> if the value has been set.
+	 */
+	public boolean isSet(Node node) {
+		int id = ((ASTNode) node).id;
+		return (id < defined.length) && defined[id];
+	}
+
+	/**
+	 * Gets a value of the AST node's attribute.
+	 * 
+	 * @param node
+	 *            AST node.
+	 * @return AST node's attribute value.
+	 * @throws InternalCompilerError
+	 *             If the value has not yet been set.
+	 */
+	public long value(Node node) {
+		if (!isSet(node))
+			throw new InternalCompilerError();
+		return values[((ASTNode) node).id];
+	}
+
+	/**
+	 * Gets a value of the AST node's attribute.
+	 * 
+	 * @param node
+	 *            AST node.
+	 * @return AST node's attribute value or <code>null</code> if the value has
+	 *         not yet been set.
+	 */
+	public Long get(Node node) {
+		return isSet(node) ? values[((ASTNode) node).id] : null;
+	}
+
+}
@@ -0,0 +1,95 @@
+package compiler.data.ast.code;
+
+import java.util.*;
+
+import compiler.*;
+import compiler.data.ast.*;
+
+/**
+ * A visitor that counts the nodes of a subtree of the abstract syntax tree
+ * that later phases allocate names for.
+ *
+ * @author sliva
+ */
+public class CountVisitor extends FullVisitor {
+
+	/** The number of function definitions. */
+	public int numFunDefs = 0;
+
+	/** The number of string constants. */
+	public int numStrings = 0;
+
+	/** The number of for loops. */
+	public int numForExprs = 0;
+
+	/** The number of conditional expressions. */
+	public int numIfExprs = 0;
+
+	/** The number of while loops. */
+	public int numWhileExprs = 0;
+
+	@Override
+	public void visit(AtomExpr atomExpr) {
+		if (atomExpr.type == AtomExpr.AtomTypes.STRING)
+			numStrings++;
+	}
+
+	@Override
+	public void visit(ForExpr forExpr) {
+		numForExprs++;
+		super.visit(forExpr);
+	}
+
+	@Override
+	public void visit(FunDef funDef) {
+		numFunDefs++;
+		super.visit(funDef);
+	}
+
+	@Override
+	public void visit(IfExpr ifExpr) {
+		numIfExprs++;
+		super.visit(ifExpr);
+	}
+
+	@Override
+	public void visit(WhileExpr whileExpr) {
+		numWhileExprs++;
+		super.visit(whileExpr);
+	}
+
+	/**
+	 * Counts the nodes of every function definition within a subtree that is
+	 * not nested within another function definition. Different function
+	 * definitions are counted in parallel.
+	 *
+	 * @param node
+	 *            The root of the subtree.
+	 * @param workers
+	 *            The worker threads.
+	 * @return The counts indexed by the outermost function definitions.
+	 */
+	public static HashMap<FunDef, CountVisitor> countOuterFunDefs(ASTNode node, Workers workers) {
+		final Vector<FunDef> funDefs = new Vector<FunDef>();
+		node.accept(new FullVisitor() {
+			@Override
+			public void visit(FunDef funDef) {
+				funDefs.add(funDef);
+			}
+		});
+		HashMap<FunDef, CountVisitor> counts = new HashMap<FunDef, CountVisitor>();
+		for (final FunDef funDef : funDefs) {
+			final CountVisitor count = new CountVisitor();
+			counts.put(funDef, count);
+			workers.fork(new Runnable() {
+				@Override
+				public void run() {
+					funDef.accept(count);
+				}
+			});
+		}
+		workers.join();
+		return counts;
+	}
+
+}
@@ -12,9 +12,10 @@ import compiler.data.ast.*;
  * </p>
  * 
  * <p>
- * Every concrete class in package {@link compiler.data.ast} implements a
- * method {@link compiler.data.ast.AST#accept(Visitor) accept} which
- * calls back the visitor:
+ * Every concrete class in package {@link compiler.data.ast} accepts a visitor
+ * by method {@link compiler.data.ast.AST#accept(Visitor) accept} which
+ * calls back the visitor (on a new stack segment if the tree is very deep,
+ * see {@link compiler.Recursion}):
  * <ul>
  * <li>All code that must be executed at each particular node is implemented in
  * the corresponding visiting method.</li>
@@ -24,9 +24,6 @@ public class Instr {
 	public Set<Integer> use = new HashSet<Integer>();
 	public Set<Integer> def = new HashSet<Integer>();
 	
-	public Set<Integer> in = new HashSet<Integer>();
-	public Set<Integer> out = new HashSet<Integer>();
-	
 	public ArrayList<Instr> succ = new ArrayList<Instr>();
 	
 	public Instr(String str, boolean isMove) {
@@ -42,11 +39,11 @@ public class Instr {
 		numArgs = 1;
 		
 		if(isDef1) {
-			if(t1 != EvalCodeGen.curFrag.FP) {
+			if(t1 != EvalCodeGen.curFrag().FP) {
 				def.add(t1);
 			}
 		} else {
-			if(t1 != EvalCodeGen.curFrag.FP) {
+			if(t1 != EvalCodeGen.curFrag().FP) {
 				use.add(t1);
 			}
 		}
@@ -60,20 +57,20 @@ public class Instr {
 		numArgs = 2;
 		
 		if(isDef1) {
-			if(t1 != EvalCodeGen.curFrag.FP) {
+			if(t1 != EvalCodeGen.curFrag().FP) {
 				def.add(t1);
 			}
 		} else {
-			if(t1 != EvalCodeGen.curFrag.FP) {
+			if(t1 != EvalCodeGen.curFrag().FP) {
 				use.add(t1);
 			}
 		}
 		if(isDef2) {
-			if(t2 != EvalCodeGen.curFrag.FP) {
+			if(t2 != EvalCodeGen.curFrag().FP) {
 				def.add(t2);
 			}
 		} else {
-			if(t2 != EvalCodeGen.curFrag.FP) {
+			if(t2 != EvalCodeGen.curFrag().FP) {
 				use.add(t2);
 			}
 		}
@@ -88,29 +85,29 @@ public class Instr {
 		numArgs = 3;
 		
 		if(isDef1) {
-			if(t1 != EvalCodeGen.curFrag.FP) {
+			if(t1 != EvalCodeGen.curFrag().FP) {
 				def.add(t1);
 			}
 		} else {
-			if(t1 != EvalCodeGen.curFrag.FP) {
+			if(t1 != EvalCodeGen.curFrag().FP) {
 				use.add(t1);
 			}
 		}
 		if(isDef2) {
-			if(t2 != EvalCodeGen.curFrag.FP) {
+			if(t2 != EvalCodeGen.curFrag().FP) {
 				def.add(t2);
 			}
 		} else {
-			if(t2 != EvalCodeGen.curFrag.FP) {
+			if(t2 != EvalCodeGen.curFrag().FP) {
 				use.add(t2);
 			}
 		}
 		if(isDef3) {
-			if(t3 != EvalCodeGen.curFrag.FP) {
+			if(t3 != EvalCodeGen.curFrag().FP) {
 				def.add(t3);
 			}
 		} else {
-			if(t3 != EvalCodeGen.curFrag.FP) {
+			if(t3 != EvalCodeGen.curFrag().FP) {
 				use.add(t3);
 			}
 		}
@@ -147,9 +144,6 @@ public class Instr {
 	}
 	
 	public void clearAttrs() {
-		this.in = new HashSet<Integer>();
-		this.out = new HashSet<Integer>();
-		
 		this.succ = new ArrayList<Instr>();
 	}
 	
@@ -15,10 +15,10 @@ public class CodeFragment extends Fragment {
 	public final Frame frame;
 
 	/** A temporary register used as the frame pointer. */
-	public final int FP;
+	public int FP;
 
 	/** A temporary register used for returning the function's result. */
-	public final int RV;
+	public int RV;
 
 	/** The intermediate code. */
 	public final IMCStmt stmt;
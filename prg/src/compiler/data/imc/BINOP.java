@@ -43,7 +43,7 @@ public class BINOP extends IMCExpr {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "BINOP:" + oper);
 		if (expr1 != null) expr1.toXML(logger);
@@ -52,7 +52,7 @@ public class BINOP extends IMCExpr {
 	}
 			
 	@Override
-	public SEXPR linCode() {
+	protected SEXPR linearize() {
 		int result = TEMP.newTempName();
 		SEXPR expr1LC = expr1.linCode();
 		SEXPR expr2LC = expr2.linCode();
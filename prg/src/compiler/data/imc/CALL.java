@@ -69,7 +69,7 @@ public class CALL extends IMCExpr {
 	}
 	
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		StringBuffer ws = new StringBuffer();
 		for (int arg = 0; arg < args.length; arg++)
@@ -81,7 +81,7 @@ public class CALL extends IMCExpr {
 	}
 	
 	@Override
-	public SEXPR linCode() {
+	protected SEXPR linearize() {
 		int result = TEMP.newTempName();
 		
 		Vector<IMCStmt> lc = new Vector<IMCStmt>();
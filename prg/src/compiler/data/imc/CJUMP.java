@@ -38,7 +38,7 @@ public class CJUMP extends IMCStmt {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "CJUMP:" + posLabel + ":" + negLabel);
 		if (cond != null) cond.toXML(logger);
@@ -46,7 +46,7 @@ public class CJUMP extends IMCStmt {
 	}
 
 	@Override
-	public STMTS linCode() {
+	protected STMTS linearize() {
 		SEXPR condLC = cond.linCode();
 		Vector<IMCStmt> lc = new Vector<IMCStmt>();
 		lc.addAll(((STMTS)(condLC.stmt)).stmts());
@@ -25,14 +25,14 @@ public class CONST extends IMCExpr {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "CONST:" + value);
 		logger.endElement();
 	}
 
 	@Override
-	public SEXPR linCode() {
+	protected SEXPR linearize() {
 		return new SEXPR(new STMTS(new Vector<IMCStmt>()), new CONST(value));
 	}
 	
@@ -26,7 +26,7 @@ public class ESTMT extends IMCStmt {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "ESTMT");
 		if (expr != null) expr.toXML(logger);
@@ -34,7 +34,7 @@ public class ESTMT extends IMCStmt {
 	}
 
 	@Override
-	public STMTS linCode() {
+	protected STMTS linearize() {
 		SEXPR exprLC = expr.linCode();
 		Vector<IMCStmt> lc = new Vector<IMCStmt>();
 		lc.addAll(((STMTS)(exprLC.stmt)).stmts());
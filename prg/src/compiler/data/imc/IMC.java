@@ -1,5 +1,6 @@
 package compiler.data.imc;
 
+import compiler.*;
 import compiler.common.logger.*;
 import compiler.data.ast.code.Visitor;
 
@@ -10,6 +11,31 @@ import compiler.data.ast.code.Visitor;
  */
 public abstract class IMC {
 	
-	public abstract void toXML(Logger logger);
+	/**
+	 * Logs the intermediate code. As the depth of intermediate code trees is
+	 * not limited, logging a node is a guarded call (see {@link Recursion}).
+	 * 
+	 * @param logger
+	 *            The logger.
+	 */
+	public final void toXML(final Logger logger) {
+		if (!Recursion.enter()) {
+			Recursion.extend(new Recursion.Call<Void, RuntimeException>() {
+				@Override
+				public Void call() {
+					toXML(logger);
+					return null;
+				}
+			});
+			return;
+		}
+		try {
+			writeXML(logger);
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	protected abstract void writeXML(Logger logger);
 
 }
@@ -1,5 +1,6 @@
 package compiler.data.imc;
 
+import compiler.*;
 import compiler.data.codegen.code.ImcVisitor;
 
 /**
@@ -9,7 +10,36 @@ import compiler.data.codegen.code.ImcVisitor;
  */
 public abstract class IMCExpr extends IMC {
 
-	public abstract SEXPR linCode();
+	/**
+	 * The identifier of this expression: expressions of the same compilation
+	 * are numbered (almost densely) from 0 in the order of their construction
+	 * (see {@link compiler.data.ast.attr.IMCAttribute} and
+	 * {@link Context#newImcExprId()}).
+	 */
+	public final int id = Context.current().newImcExprId();
+
+	/**
+	 * Linearizes the intermediate code. Linearizing a node is a guarded call
+	 * (see {@link Recursion}).
+	 * 
+	 * @return The linearized intermediate code.
+	 */
+	public final SEXPR linCode() {
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<SEXPR, RuntimeException>() {
+				@Override
+				public SEXPR call() {
+					return linCode();
+				}
+			});
+		try {
+			return linearize();
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	protected abstract SEXPR linearize();
 	
 	public abstract void accept(ImcVisitor visitor);
 
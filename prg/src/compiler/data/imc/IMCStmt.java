@@ -1,5 +1,6 @@
 package compiler.data.imc;
 
+import compiler.*;
 import compiler.data.codegen.code.ImcVisitor;
 
 /**
@@ -9,7 +10,28 @@ import compiler.data.codegen.code.ImcVisitor;
  */
 public abstract class IMCStmt extends IMC {
 	
-	public abstract STMTS linCode();
+	/**
+	 * Linearizes the intermediate code. Linearizing a node is a guarded call
+	 * (see {@link Recursion}).
+	 * 
+	 * @return The linearized intermediate code.
+	 */
+	public final STMTS linCode() {
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<STMTS, RuntimeException>() {
+				@Override
+				public STMTS call() {
+					return linCode();
+				}
+			});
+		try {
+			return linearize();
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	protected abstract STMTS linearize();
 	
 	public abstract void accept(ImcVisitor visitor);
 
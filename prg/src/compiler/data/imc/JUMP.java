@@ -26,14 +26,14 @@ public class JUMP extends IMCStmt {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "JUMP:" + label);
 		logger.endElement();
 	}
 	
 	@Override
-	public STMTS linCode() {
+	protected STMTS linearize() {
 		Vector<IMCStmt> lc = new Vector<IMCStmt>();
 		lc.add(new JUMP(label));
 		return new STMTS(lc);
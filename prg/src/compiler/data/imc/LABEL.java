@@ -26,27 +26,24 @@ public class LABEL extends IMCStmt {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "LABEL:" + label);
 		logger.endElement();
 	}
 
-	/** The number of all anonymous label names. */
-	private static int labelNameCount = 0;
-
 	/**
-	 * Returns a new anonymous label name.
+	 * Returns a new anonymous label name (unique within the current
+	 * compilation).
 	 * 
 	 * @return A new anonymous label name.
 	 */
 	public static String newLabelName() {
-		labelNameCount++;
-		return "L" + labelNameCount;
+		return NameAllocator.current().newLabelName();
 	}
 	
 	@Override
-	public STMTS linCode() {
+	protected STMTS linearize() {
 		Vector<IMCStmt> lc = new Vector<IMCStmt>();
 		lc.add(new LABEL(label));
 		return new STMTS(lc);
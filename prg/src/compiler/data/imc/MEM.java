@@ -32,7 +32,7 @@ public class MEM extends IMCExpr {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "MEM " + "(" + width + ")");
 		if (addr != null) addr.toXML(logger);
@@ -40,7 +40,7 @@ public class MEM extends IMCExpr {
 	}
 	
 	@Override
-	public SEXPR linCode() {
+	protected SEXPR linearize() {
 		int result = TEMP.newTempName();
 		SEXPR addrLC = addr.linCode();
 		Vector<IMCStmt> lc = new Vector<IMCStmt>();
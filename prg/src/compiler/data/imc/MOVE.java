@@ -33,7 +33,7 @@ public class MOVE extends IMCStmt {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "MOVE");
 		if (dst != null) dst.toXML(logger);
@@ -42,7 +42,7 @@ public class MOVE extends IMCStmt {
 	}
 		
 	@Override
-	public STMTS linCode() {
+	protected STMTS linearize() {
 		SEXPR dstLC;
 		SEXPR srcLC;
 		
@@ -26,14 +26,14 @@ public class NAME extends IMCExpr {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "NAME:" + name);
 		logger.endElement();
 	}
 
 	@Override
-	public SEXPR linCode() {
+	protected SEXPR linearize() {
 		return new SEXPR(new STMTS(new Vector<IMCStmt>()), new NAME(name));
 	}
 
@@ -16,14 +16,14 @@ public class NOP extends IMCExpr {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "NOP");
 		logger.endElement();
 	}
 	
 	@Override
-	public SEXPR linCode() {
+	protected SEXPR linearize() {
 		return new SEXPR(new STMTS(new Vector<IMCStmt>()), new NOP());
 	}
 
@@ -0,0 +1,176 @@
+package compiler.data.imc;
+
+import compiler.*;
+import compiler.common.report.*;
+
+/**
+ * An allocator of temporary register names and anonymous label names.
+ *
+ * <p>
+ * The names of a compilation are allocated by the allocator of its context
+ * (see {@link TEMP#newTempName()} and {@link LABEL#newLabelName()}) unless the
+ * thread allocating them is bound to an allocator of its own (see
+ * {@link #bind(NameAllocator)}).
+ * </p>
+ *
+ * <p>
+ * A part of the program whose code is generated on a separate thread is given
+ * an allocator of its own that allocates a block of label names reserved in
+ * advance (see {@link #reserve(int)}), so that the part gets exactly the same
+ * label names as if its code were generated by the thread performing the
+ * compilation. As the number of temporary register names a part needs is not
+ * known until its code is linearized, such an allocator allocates relative
+ * names instead, i.e., negative names that are relocated once the names the
+ * parts generated before it have allocated are known (see
+ * {@link #skipTempNames(int)} and {@link #relocate(int, int)}).
+ * </p>
+ *
+ * @author sliva
+ */
+public class NameAllocator {
+
+	/** The allocator the current thread is bound to. */
+	private static final InheritableThreadLocal<NameAllocator> current = new InheritableThreadLocal<NameAllocator>();
+
+	/** The number of temporary register names allocated so far. */
+	private int tempNameCount;
+
+	/** The number of anonymous label names allocated so far. */
+	private int labelNameCount;
+
+	/** The number of anonymous label names this allocator can allocate. */
+	private final int labelNameLimit;
+
+	/** Whether this allocator allocates relative temporary register names. */
+	private final boolean relative;
+
+	/**
+	 * Constructs a new allocator of all names.
+	 */
+	public NameAllocator() {
+		this(0, Integer.MAX_VALUE, false);
+	}
+
+	private NameAllocator(int labelNameCount, int labelNameLimit, boolean relative) {
+		this.tempNameCount = 0;
+		this.labelNameCount = labelNameCount;
+		this.labelNameLimit = labelNameLimit;
+		this.relative = relative;
+	}
+
+	/**
+	 * Returns the allocator names are allocated by on the current thread.
+	 *
+	 * @return The allocator the current thread is bound to or the allocator of
+	 *         the current compilation.
+	 */
+	public static NameAllocator current() {
+		NameAllocator names = current.get();
+		return names == null ? Context.current().imcNames : names;
+	}
+
+	/**
+	 * Binds the current thread (and the threads it creates) to an allocator.
+	 *
+	 * @param names
+	 *            The allocator or <code>null</code> to allocate names by the
+	 *            allocator of the current compilation again.
+	 */
+	public static void bind(NameAllocator names) {
+		current.set(names);
+	}
+
+	/**
+	 * Returns a new temporary register name.
+	 *
+	 * @return A new temporary register name.
+	 */
+	public int newTempName() {
+		tempNameCount++;
+		return relative ? -tempNameCount : tempNameCount;
+	}
+
+	/**
+	 * Returns a new anonymous label name.
+	 *
+	 * @return A new anonymous label name.
+	 * @throws InternalCompilerError
+	 *             If all names this allocator can allocate have been
+	 *             allocated.
+	 */
+	public String newLabelName() {
+		if (labelNameCount == labelNameLimit)
+			throw new InternalCompilerError();
+		labelNameCount++;
+		return "L" + labelNameCount;
+	}
+
+	/**
+	 * Reserves a block of anonymous label names that this allocator would
+	 * allocate next and skips them.
+	 *
+	 * @param numLabelNames
+	 *            The number of anonymous label names.
+	 * @return The allocator of the reserved label names and of relative
+	 *         temporary register names.
+	 */
+	public NameAllocator reserve(int numLabelNames) {
+		if (labelNameLimit - labelNameCount < numLabelNames)
+			throw new InternalCompilerError();
+		NameAllocator names = new NameAllocator(labelNameCount, labelNameCount + numLabelNames, true);
+		labelNameCount += numLabelNames;
+		return names;
+	}
+
+	/**
+	 * Checks whether all label names this allocator can allocate have been
+	 * allocated.
+	 *
+	 * @return <code>true</code> if all label names have been allocated or
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isExhausted() {
+		return labelNameCount == labelNameLimit;
+	}
+
+	/**
+	 * Returns the number of temporary register names allocated so far.
+	 *
+	 * @return The number of temporary register names allocated so far.
+	 */
+	public int numTempNames() {
+		return tempNameCount;
+	}
+
+	/**
+	 * Skips temporary register names that have been allocated by another
+	 * allocator as relative names.
+	 *
+	 * @param numTempNames
+	 *            The number of temporary register names.
+	 * @return The base the skipped relative names are relocated to (see
+	 *         {@link #relocate(int, int)}).
+	 */
+	public int skipTempNames(int numTempNames) {
+		if (relative)
+			throw new InternalCompilerError();
+		int base = tempNameCount;
+		tempNameCount += numTempNames;
+		return base;
+	}
+
+	/**
+	 * Relocates a temporary register name.
+	 *
+	 * @param name
+	 *            A temporary register name.
+	 * @param base
+	 *            The base relative names are relocated to.
+	 * @return The name itself if it is not relative or the relocated name
+	 *         otherwise.
+	 */
+	public static int relocate(int name, int base) {
+		return name < 0 ? base - name : name;
+	}
+
+}
@@ -32,7 +32,7 @@ public class SEXPR extends IMCExpr {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "SEXPR");
 		if (stmt != null) stmt.toXML(logger);
@@ -41,7 +41,7 @@ public class SEXPR extends IMCExpr {
 	}
 	
 	@Override
-	public SEXPR linCode() {
+	protected SEXPR linearize() {
 		STMTS stmtLC = stmt.linCode();
 		SEXPR exprLC = expr.linCode();
 		Vector<IMCStmt> lc = new Vector<IMCStmt>();
@@ -40,7 +40,7 @@ public class STMTS extends IMCStmt {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "STMTS");
 		for (int stmt = 0; stmt < stmts.size(); stmt++)
@@ -48,7 +48,7 @@ public class STMTS extends IMCStmt {
 		logger.endElement();
 	}
 	
-	public STMTS linCode() {
+	protected STMTS linearize() {
 		Vector<IMCStmt> lc = new Vector<IMCStmt>();
 		for (int stmt = 0; stmt < stmts.size(); stmt++) {
 			STMTS lcStmt = stmts.get(stmt).linCode();
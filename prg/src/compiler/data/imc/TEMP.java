@@ -12,8 +12,11 @@ import compiler.data.codegen.code.ImcVisitor;
  */
 public class TEMP extends IMCExpr {
 
-	/** The name of a temporary register. */
-	public final int name;
+	/**
+	 * The name of a temporary register (relocated if it is a relative name,
+	 * see {@link NameAllocator}).
+	 */
+	public int name;
 
 	/**
 	 * Constructs a new temporary register with a given name.
@@ -26,27 +29,24 @@ public class TEMP extends IMCExpr {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "TEMP:" + name);
 		logger.endElement();
 	}
 
-	/** The number of all temporary register names. */
-	public static int tempNameCount = 0;
-
 	/**
-	 * Returns a new temporary register name.
+	 * Returns a new temporary register name (unique within the current
+	 * compilation).
 	 * 
 	 * @return A new temporary register name.
 	 */
 	public static int newTempName() {
-		tempNameCount++;
-		return tempNameCount;
+		return NameAllocator.current().newTempName();
 	}
 	
 	@Override
-	public SEXPR linCode() {
+	protected SEXPR linearize() {
 		return new SEXPR(new STMTS(new Vector<IMCStmt>()), new TEMP(name));
 	}
 	
@@ -36,7 +36,7 @@ public class UNOP extends IMCExpr {
 	}
 
 	@Override
-	public void toXML(Logger logger) {
+	protected void writeXML(Logger logger) {
 		logger.begElement("imc");
 		logger.addAttribute("kind", "UNOP:" + oper);
 		if (expr != null) expr.toXML(logger);
@@ -44,7 +44,7 @@ public class UNOP extends IMCExpr {
 	}
 	
 	@Override
-	public SEXPR linCode() {
+	protected SEXPR linearize() {
 		int result = TEMP.newTempName();
 		SEXPR exprLC = expr.linCode();
 		Vector<IMCStmt> lc = new Vector<IMCStmt>();
@@ -18,16 +18,19 @@ public class ArrTyp extends Typ {
 	}
 
 	@Override
-	public boolean isStructEquivTo(Typ typ) {
-		if (typ == null)
-			return false;
+	protected boolean structEquiv(Typ typ) {
 		return (typ.actualTyp() instanceof ArrTyp) && (this.size == ((ArrTyp) (typ.actualTyp())).size)
 				&& (this.elemTyp.isStructEquivTo(((ArrTyp) (typ.actualTyp())).elemTyp));
 	}
 	
+	/** The size of this type in bytes (or -1 if not computed yet). */
+	private long byteSize = -1;
+
 	@Override
 	public long size() {
-		return size * elemTyp.size();
+		if (byteSize < 0)
+			byteSize = size * elemTyp.size();
+		return byteSize;
 	}
 
 	@Override
@@ -31,9 +31,7 @@ public class FunTyp extends Typ {
 	}
 
 	@Override
-	public boolean isStructEquivTo(Typ typ) {
-		if (typ == null)
-			return false;
+	protected boolean structEquiv(Typ typ) {
 		if (typ.actualTyp() instanceof FunTyp) {
 			FunTyp funType = (FunTyp) (typ.actualTyp());
 			boolean isEquiv = true;
@@ -8,9 +8,7 @@ import compiler.common.logger.Logger;
 public class IntegerTyp extends AtomTyp implements AssignableTyp, ComparableTyp, PassableTyp, ReturnableTyp {
 
 	@Override
-	public boolean isStructEquivTo(Typ typ) {
-		if (typ == null)
-			return false;
+	protected boolean structEquiv(Typ typ) {
 		return (typ.actualTyp() instanceof IntegerTyp);
 	}
 
@@ -14,9 +14,7 @@ public class PtrTyp extends Typ implements AssignableTyp, CastableTyp, Comparabl
 	}
 
 	@Override
-	public boolean isStructEquivTo(Typ typ) {
-		if (typ == null)
-			return false;
+	protected boolean structEquiv(Typ typ) {
 		return (typ.actualTyp() instanceof PtrTyp)
 				&& ((this.baseTyp.isStructEquivTo(((PtrTyp) (typ.actualTyp())).baseTyp))
 						|| (this.baseTyp.actualTyp() instanceof VoidTyp)
@@ -9,11 +9,11 @@ import compiler.common.logger.*;
  */
 public class RecTyp extends Typ {
 
-	public final String nameSpace;
+	public final int nameSpace;
 
 	private final Typ[] compTyps;
 
-	public RecTyp(String nameSpace, LinkedList<Typ> compTyps) {
+	public RecTyp(int nameSpace, LinkedList<Typ> compTyps) {
 		super();
 		this.nameSpace = nameSpace;
 		this.compTyps = new Typ[compTyps.size()];
@@ -30,9 +30,7 @@ public class RecTyp extends Typ {
 	}
 
 	@Override
-	public boolean isStructEquivTo(Typ typ) {
-		if (typ == null)
-			return false;
+	protected boolean structEquiv(Typ typ) {
 		if (typ.actualTyp() instanceof RecTyp) {
 			RecTyp funType = (RecTyp) (typ.actualTyp());
 			boolean isEquiv = true;
@@ -44,11 +42,17 @@ public class RecTyp extends Typ {
 			return false;
 	}
 	
+	/** The size of this type in bytes (or -1 if not computed yet). */
+	private long size = -1;
+
 	@Override
 	public long size() {
-		long size = 0;
-		for (int c = 0; c < this.compTyps.length; c++)
-			size = size + this.compTyps[c].size();
+		if (size < 0) {
+			long size = 0;
+			for (int c = 0; c < this.compTyps.length; c++)
+				size = size + this.compTyps[c].size();
+			this.size = size;
+		}
 		return size;
 	}
 
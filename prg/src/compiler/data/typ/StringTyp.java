@@ -8,9 +8,7 @@ import compiler.common.logger.Logger;
 public class StringTyp extends AtomTyp implements AssignableTyp, PassableTyp, ReturnableTyp {
 
 	@Override
-	public boolean isStructEquivTo(Typ typ) {
-		if (typ == null)
-			return false;
+	protected boolean structEquiv(Typ typ) {
 		return (typ.actualTyp() instanceof StringTyp);
 	}
 
@@ -1,5 +1,6 @@
 package compiler.data.typ;
 
+import compiler.*;
 import compiler.common.logger.*;
 
 /**
@@ -7,6 +8,13 @@ import compiler.common.logger.*;
  */
 public abstract class Typ implements Loggable {
 
+	/** The number of this type (unique within the compilation). */
+	public final int id;
+
+	public Typ() {
+		this.id = Context.current().typs.newTypId();
+	}
+
 	/**
 	 * Returns the actual type represented by this type.
 	 */
@@ -27,7 +35,7 @@ public abstract class Typ implements Loggable {
 	public static boolean equiv(Typ fstTyp, Typ sndTyp) {
 		if ((fstTyp == null) || (sndTyp == null))
 			return false;
-		return fstTyp.isStructEquivTo(sndTyp);
+		return Context.current().typs.equiv(fstTyp, sndTyp);
 	}
 
 	/**
@@ -38,7 +46,24 @@ public abstract class Typ implements Loggable {
 	 * @return <code>true</code> if this type is structurally equivalent to the
 	 *         specified type or <code>false</code> otherwise.
 	 */
-	public abstract boolean isStructEquivTo(Typ typ);
+	public final boolean isStructEquivTo(Typ typ) {
+		if (typ == null)
+			return false;
+		return Context.current().typs.equiv(this, typ);
+	}
+
+	/**
+	 * Checks whether this type is structurally equivalent to another type by
+	 * comparing their components with
+	 * {@link compiler.data.typ.Typ#isStructEquivTo(Typ) isStructEquivTo} (see
+	 * {@link compiler.data.typ.Typs#equiv(Typ, Typ)}).
+	 * 
+	 * @param typ
+	 *            Another type (not <code>null</code>).
+	 * @return <code>true</code> if this type is structurally equivalent to the
+	 *         specified type or <code>false</code> otherwise.
+	 */
+	protected abstract boolean structEquiv(Typ typ);
 
 	/**
 	 * Returns the size of this type in bytes.
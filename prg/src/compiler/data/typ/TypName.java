@@ -74,9 +74,7 @@ public class TypName extends Typ {
 	}
 
 	@Override
-	public boolean isStructEquivTo(Typ typ) {
-		if (typ == null)
-			return false;
+	protected boolean structEquiv(Typ typ) {
 		return this.actualTyp().isStructEquivTo(typ);
 	}
 
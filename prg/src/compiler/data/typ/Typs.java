@@ -0,0 +1,235 @@
+package compiler.data.typ;
+
+import java.util.*;
+
+/**
+ * The types of a single compilation.
+ *
+ * Atomic types, pointer types, array types and function types are
+ * hash-consed: a type is constructed only once for each combination of its
+ * components (which are compared by identity), so structurally identical
+ * types built from the same components are represented by the same canonical
+ * instance. Record types are not hash-consed as each of them has its own
+ * namespace of components, and type names are nominal.
+ *
+ * Structural equivalence of types is memoized per pair of types. Cycles
+ * through type names are handled by assuming that a pair of types being
+ * compared is equivalent once it is reached again; a result that relies on
+ * such an assumption made by an enclosing comparison is not memoized until
+ * that comparison is finished.
+ *
+ * As function bodies can be checked by several threads at the same time, all
+ * methods are synchronized.
+ *
+ * @author sliva
+ */
+public class Typs {
+
+	/** The number of types constructed so far. */
+	private int numTyps = 0;
+
+	private BooleanTyp booleanTyp = null;
+
+	private CharTyp charTyp = null;
+
+	private IntegerTyp integerTyp = null;
+
+	private StringTyp stringTyp = null;
+
+	private VoidTyp voidTyp = null;
+
+	/** Pointer types indexed by the numbers of their base types. */
+	private final HashMap<Integer, PtrTyp> ptrTyps = new HashMap<Integer, PtrTyp>();
+
+	/** Array types indexed by their sizes and the numbers of their element types. */
+	private final HashMap<Key, ArrTyp> arrTyps = new HashMap<Key, ArrTyp>();
+
+	/** Function types indexed by the numbers of their result and parameter types. */
+	private final HashMap<Key, FunTyp> funTyps = new HashMap<Key, FunTyp>();
+
+	/** The memoized results of equivalence checks indexed by pairs of types. */
+	private final HashMap<Long, Boolean> equivs = new HashMap<Long, Boolean>();
+
+	/**
+	 * The pairs of types being compared, each with the number of comparisons
+	 * enclosing its comparison.
+	 */
+	private final HashMap<Long, Integer> assumed = new HashMap<Long, Integer>();
+
+	/**
+	 * The outermost comparison whose assumption the current comparison relies
+	 * on (or {@link Integer#MAX_VALUE} if there is none).
+	 */
+	private int lowestAssumption = Integer.MAX_VALUE;
+
+	/**
+	 * A key composed of numbers.
+	 */
+	private static class Key {
+
+		private final long[] parts;
+
+		public Key(long[] parts) {
+			this.parts = parts;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(parts);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof Key) && Arrays.equals(parts, ((Key) obj).parts);
+		}
+
+	}
+
+	/** Returns the number of a new type. */
+	synchronized int newTypId() {
+		return numTyps++;
+	}
+
+	/** Returns the boolean type. */
+	public synchronized BooleanTyp booleanTyp() {
+		if (booleanTyp == null)
+			booleanTyp = new BooleanTyp();
+		return booleanTyp;
+	}
+
+	/** Returns the char type. */
+	public synchronized CharTyp charTyp() {
+		if (charTyp == null)
+			charTyp = new CharTyp();
+		return charTyp;
+	}
+
+	/** Returns the integer type. */
+	public synchronized IntegerTyp integerTyp() {
+		if (integerTyp == null)
+			integerTyp = new IntegerTyp();
+		return integerTyp;
+	}
+
+	/** Returns the string type. */
+	public synchronized StringTyp stringTyp() {
+		if (stringTyp == null)
+			stringTyp = new StringTyp();
+		return stringTyp;
+	}
+
+	/** Returns the void type. */
+	public synchronized VoidTyp voidTyp() {
+		if (voidTyp == null)
+			voidTyp = new VoidTyp();
+		return voidTyp;
+	}
+
+	/**
+	 * Returns the canonical pointer type.
+	 *
+	 * @param baseTyp
+	 *            The base type.
+	 * @return The pointer type.
+	 */
+	public synchronized PtrTyp ptrTyp(Typ baseTyp) {
+		if (baseTyp == null)
+			return new PtrTyp(baseTyp);
+		PtrTyp ptrTyp = ptrTyps.get(baseTyp.id);
+		if (ptrTyp == null) {
+			ptrTyp = new PtrTyp(baseTyp);
+			ptrTyps.put(baseTyp.id, ptrTyp);
+		}
+		return ptrTyp;
+	}
+
+	/**
+	 * Returns the canonical array type.
+	 *
+	 * @param size
+	 *            The number of elements.
+	 * @param elemTyp
+	 *            The type of elements.
+	 * @return The array type.
+	 */
+	public synchronized ArrTyp arrTyp(long size, Typ elemTyp) {
+		if (elemTyp == null)
+			return new ArrTyp(size, elemTyp);
+		Key key = new Key(new long[] { size, elemTyp.id });
+		ArrTyp arrTyp = arrTyps.get(key);
+		if (arrTyp == null) {
+			arrTyp = new ArrTyp(size, elemTyp);
+			arrTyps.put(key, arrTyp);
+		}
+		return arrTyp;
+	}
+
+	/**
+	 * Returns the canonical function type.
+	 *
+	 * @param parTyps
+	 *            The types of parameters.
+	 * @param resultTyp
+	 *            The type of the result.
+	 * @return The function type.
+	 */
+	public synchronized FunTyp funTyp(LinkedList<Typ> parTyps, Typ resultTyp) {
+		if (resultTyp == null)
+			return new FunTyp(parTyps, resultTyp);
+		long[] parts = new long[parTyps.size() + 1];
+		parts[0] = resultTyp.id;
+		int p = 1;
+		for (Typ parTyp : parTyps) {
+			if (parTyp == null)
+				return new FunTyp(parTyps, resultTyp);
+			parts[p++] = parTyp.id;
+		}
+		Key key = new Key(parts);
+		FunTyp funTyp = funTyps.get(key);
+		if (funTyp == null) {
+			funTyp = new FunTyp(parTyps, resultTyp);
+			funTyps.put(key, funTyp);
+		}
+		return funTyp;
+	}
+
+	/**
+	 * Checks whether two types are structurally equivalent.
+	 *
+	 * @param fstTyp
+	 *            The first type.
+	 * @param sndTyp
+	 *            The second type.
+	 * @return <code>true</code> if the specified types are structurally
+	 *         equivalent or <code>false</code> otherwise.
+	 */
+	public synchronized boolean equiv(Typ fstTyp, Typ sndTyp) {
+		if (fstTyp == sndTyp)
+			return true;
+		Long key = ((long) fstTyp.id << 32) | (sndTyp.id & 0xFFFFFFFFL);
+		Boolean isEquiv = equivs.get(key);
+		if (isEquiv != null)
+			return isEquiv;
+		Integer depth = assumed.get(key);
+		if (depth != null) {
+			lowestAssumption = Math.min(lowestAssumption, depth);
+			return true;
+		}
+
+		int outerLowestAssumption = lowestAssumption;
+		int ownDepth = assumed.size();
+		lowestAssumption = Integer.MAX_VALUE;
+		assumed.put(key, ownDepth);
+		try {
+			isEquiv = fstTyp.structEquiv(sndTyp);
+		} finally {
+			assumed.remove(key);
+		}
+		boolean isAssumed = lowestAssumption < ownDepth;
+		if ((!isEquiv) || (!isAssumed))
+			equivs.put(key, isEquiv);
+		lowestAssumption = isAssumed ? Math.min(outerLowestAssumption, lowestAssumption) : outerLowestAssumption;
+		return isEquiv;
+	}
+
+}
@@ -19,16 +19,29 @@ public abstract class Phase implements AutoCloseable {
 	public Phase(Task task, String phaseName) {
 		this.task = task;
 		if (this.task.loggedPhases.indexOf(phaseName) != -1) {
-			logger = new Logger(this.task.xmlFName + "." + phaseName + ".xml",
-					this.task.xslDName + "/" + phaseName + ".xsl");
+			logger = new Logger(
+					this.task.file(this.task.xmlFName + "." + phaseName + "." + this.task.logFormat).getPath(),
+					this.task.xslDName + "/" + phaseName + ".xsl", this.task.asyncLog, this.task.logFormat);
 		} else
 			logger = null;
+		task.openPhases.add(this);
 	}
 
 	@Override
 	public void close() {
+		task.openPhases.remove(this);
 		if (logger != null)
 			logger.close();
 	}
 
+	/**
+	 * Aborts the phase if compilation has been aborted by an error: the log of
+	 * the phase is abandoned.
+	 */
+	public void abort() {
+		task.openPhases.remove(this);
+		if (logger != null)
+			logger.abort();
+	}
+
 }
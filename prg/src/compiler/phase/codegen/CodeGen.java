@@ -7,6 +7,8 @@ import java.util.Set;
 import java.util.Vector;
 
 import compiler.Task;
+import compiler.common.stats.Stats;
+import compiler.data.ast.attr.Attributes;
 import compiler.common.report.CompilerError;
 import compiler.data.codegen.BranchInstr;
 import compiler.data.codegen.Instr;
@@ -47,20 +49,36 @@ public class CodeGen extends Phase {
 		super.close();
 	}
 	
+	/**
+	 * Generates instructions with temporary registers for a single code
+	 * fragment.
+	 * 
+	 * @param attrs
+	 *            The attributes of the AST nodes.
+	 * @param fragment
+	 *            The code fragment.
+	 * @return The code generator holding the generated instructions.
+	 */
+	public static EvalCodeGen selectInstructions(Attributes attrs, CodeFragment fragment) {
+		STMTS stmts = fragment.linCode;
+		EvalCodeGen codeGen = new EvalCodeGen(attrs, fragment);
+//		codeGen.addHeader();
+		codeGen.visit(stmts);
+		if(!fragment.label.equals("_")) {
+			Instr sto = new Instr("\tSTO %s,fp,0\n", fragment.RV, false, false);
+			sto.addToList(codeGen, codeGen.instructions);
+		}
+		codeGen.regs.add(fragment.RV);
+		codeGen.addFooter();
+		return codeGen;
+	}
+	
 	private void codeGeneration() {
 		for (Fragment fragment : task.fragments.values()) {
 			if (fragment instanceof CodeFragment) {
-				STMTS stmts = ((CodeFragment) fragment).linCode;
-				EvalCodeGen codeGen = new EvalCodeGen(task.prgAttrs, (CodeFragment) fragment);
+				EvalCodeGen codeGen = selectInstructions(task.prgAttrs, (CodeFragment) fragment);
 				task.prgAttrs.codeGenAttr.set((CodeFragment) fragment, codeGen);
-//				codeGen.addHeader();
-				codeGen.visit(stmts);
-				if(!fragment.label.equals("_")) {
-					Instr sto = new Instr("\tSTO %s,fp,0\n", ((CodeFragment) fragment).RV, false, false);
-					sto.addToList(codeGen, codeGen.instructions);
-				}
-				codeGen.regs.add(((CodeFragment) fragment).RV);
-				codeGen.addFooter();
+				Stats.FragmentStats stats = task.stats.fragment(fragment.label);
 				
 //				Integer t1 = TEMP.newTempName();
 //				codeGen.regs.add(t1);
@@ -134,17 +152,25 @@ public class CodeGen extends Phase {
 				}
 				
 				try {
-					CodeGenUtils.calcInOut(codeGen.instructions);
-//					PrintUtils.printInsAndOuts(codeGen.instructions, virtRegsMap);
+					stats.livenessIterations = CodeGenUtils.calcInOut(codeGen);
+//					PrintUtils.printInsAndOuts(codeGen.liveness, virtRegsMap);
 				} catch(Exception e) {
 					throw new CompilerError("Error while calculating instructions' ins and outs.");
 				}
 
-				try {
-					CodeGenUtils.calcInterference(codeGen);
-				} catch(Exception e) {
-					throw new CompilerError("Error while calculating interference graph (in CodeGen).");
+				// The linear scan allocator needs no interference graph, which
+				// is quadratic in the number of temporary registers.
+				if (this.print || !task.regAlloc.equals("linear")) {
+					try {
+						CodeGenUtils.calcInterference(codeGen);
+					} catch(Exception e) {
+						throw new CompilerError("Error while calculating interference graph (in CodeGen).");
+					}
 				}
+				stats.instructions = codeGen.instructions.size();
+				stats.temps = codeGen.regs.size();
+				if (codeGen.interferenceGraph != null)
+					stats.interferenceEdges = codeGen.interferenceGraph.numEdges();
 				
 				if(this.print) {
 					try {
@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Vector;
 
+import compiler.Context;
 import compiler.common.report.CompilerError;
 import compiler.data.ast.attr.Attributes;
 import compiler.data.codegen.BranchInstr;
@@ -15,18 +16,30 @@ import compiler.data.imc.*;
 public class EvalCodeGen extends FullImcVisitor {
 	
 	private final Attributes attrs;
-	public static CodeFragment curFrag;
 	public Vector<Instr> instructions = new Vector<Instr>();
 	public HashSet<Integer> regs = new HashSet<Integer>();
+	/** Temporaries introduced by spill code (never spilled again). */
+	public HashSet<Integer> spillTemps = new HashSet<Integer>();
 	public HashMap<LABEL, Instr> labelToInstr = new HashMap<LABEL, Instr>();
 	public LABEL curLabel = null;
 	public HashMap<String, LABEL> strToLabel = new HashMap<String, LABEL>();
+	public Liveness liveness;
 	public InterferenceGraph interferenceGraph;
 	
 	// empty constructor
 	public EvalCodeGen(Attributes attrs, CodeFragment curFrag) {
 		this.attrs = attrs;
-		EvalCodeGen.curFrag = curFrag;
+		Context.current().codeGenFragment = curFrag;
+	}
+
+	/**
+	 * Returns the code fragment instructions are currently being generated
+	 * for.
+	 * 
+	 * @return The current code fragment.
+	 */
+	public static CodeFragment curFrag() {
+		return Context.current().codeGenFragment;
 	}
 	
 	public void visit(BINOP binOp){
@@ -34,8 +47,8 @@ public class EvalCodeGen extends FullImcVisitor {
 			binOp.expr1.accept(this);
 			binOp.expr2.accept(this);
 			
-			Integer reg1 = attrs.regAttr.get(binOp.expr1);
-			Integer reg2 = attrs.regAttr.get(binOp.expr2);
+			int reg1 = attrs.regAttr.get(binOp.expr1);
+			int reg2 = attrs.regAttr.get(binOp.expr2);
 			
 			Integer temp = new Integer(TEMP.newTempName());
 			regs.add(temp);
@@ -124,7 +137,7 @@ public class EvalCodeGen extends FullImcVisitor {
 			for (int i = 0; i < call.numArgs(); i++) {
 				call.args(i).accept(this);
 				
-				Integer reg = attrs.regAttr.get(call.args(i));
+				int reg = attrs.regAttr.get(call.args(i));
 				Instr sto = new Instr("\tSTO %s,sp," + Long.toString(ptr) + "\n", reg, false, false);
 				ptr += call.widths(i);
 				sto.addToList(this, instructions);
@@ -144,7 +157,7 @@ public class EvalCodeGen extends FullImcVisitor {
 	public void visit(CJUMP cJump){
 		try {
 			cJump.cond.accept(this);
-			Integer reg1 = attrs.regAttr.get(cJump.cond);
+			int reg1 = attrs.regAttr.get(cJump.cond);
 			
 			Instr bp = new BranchInstr("\tBP %s," + cJump.posLabel + "\n", reg1, false, false, cJump.posLabel);
 			bp.addToList(this, instructions);
@@ -215,7 +228,7 @@ public class EvalCodeGen extends FullImcVisitor {
 			
 			Integer reg1 = new Integer(TEMP.newTempName());
 			regs.add(reg1);
-			Integer reg2 = attrs.regAttr.get(mem.addr);
+			int reg2 = attrs.regAttr.get(mem.addr);
 			Instr ldo = new Instr("\tLDO %s,%s,0\n", reg1, true, reg2, false, false);
 			attrs.regAttr.set(mem, reg1);
 			ldo.addToList(this, instructions);
@@ -231,8 +244,8 @@ public class EvalCodeGen extends FullImcVisitor {
 				((MEM)move.dst).addr.accept(this);
 				move.src.accept(this);
 				
-				Integer reg1 = attrs.regAttr.get(((MEM)move.dst).addr);
-				Integer reg2 = attrs.regAttr.get(move.src);
+				int reg1 = attrs.regAttr.get(((MEM)move.dst).addr);
+				int reg2 = attrs.regAttr.get(move.src);
 				
 				Instr sto = new Instr("\tSTO %s,%s,0\n", reg2, false, reg1, false, false);
 				sto.addToList(this, instructions);
@@ -240,8 +253,8 @@ public class EvalCodeGen extends FullImcVisitor {
 				move.dst.accept(this);
 				move.src.accept(this);
 				
-				Integer reg1 = attrs.regAttr.get(move.dst);
-				Integer reg2 = attrs.regAttr.get(move.src);
+				int reg1 = attrs.regAttr.get(move.dst);
+				int reg2 = attrs.regAttr.get(move.src);
 				
 				Instr add = new Instr("\tADD %s,%s,0\n", reg1, true, reg2, false, true);
 				add.addToList(this, instructions);
@@ -309,7 +322,7 @@ public class EvalCodeGen extends FullImcVisitor {
 	public void visit(UNOP unOp){
 		try {
 			unOp.expr.accept(this);
-			Integer reg = attrs.regAttr.get(unOp.expr);
+			int reg = attrs.regAttr.get(unOp.expr);
 			
 			if(unOp.oper.equals(UNOP.Oper.ADD)) {
 				attrs.regAttr.set(unOp, reg);
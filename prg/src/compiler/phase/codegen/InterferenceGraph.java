@@ -1,90 +1,241 @@
 package compiler.phase.codegen;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.TreeSet;
 
+/**
+ * The interference graph of temporary registers of a single code fragment.
+ *
+ * Temporary registers are numbered densely (in ascending order of their
+ * names). Edges are stored twice: in a triangular bit matrix (for constant
+ * time tests) and in adjacency lists (for enumerating neighbours). Registers
+ * can be removed from the graph (during simplification) which only updates
+ * the degrees of their neighbours; the set of removed registers together with
+ * the degrees can be saved by {@link #snapshot()} and restored by
+ * {@link #restore(Snapshot)}.
+ *
+ * @author sliva
+ */
 public class InterferenceGraph {
 
-	public HashMap<Integer, HashSet<Integer>> graph;
 	public EvalCodeGen codeGen;
-	
+
+	/** Temporary registers indexed by their numbers. */
+	private final int[] temps;
+
+	/** Numbers of temporary registers. */
+	private final HashMap<Integer, Integer> ids = new HashMap<Integer, Integer>();
+
+	/** The lower triangle of the adjacency matrix. */
+	private final long[] matrix;
+
+	/** Adjacency lists (indexed by numbers of temporary registers). */
+	private final int[][] adjList;
+
+	/** The lengths of adjacency lists. */
+	private final int[] adjSize;
+
+	/** The numbers of neighbours that have not been removed. */
+	private int[] degree;
+
+	/** Whether a register has been removed from the graph. */
+	private boolean[] removed;
+
+	/** The number of edges. */
+	private int numEdges;
+
 	public InterferenceGraph(EvalCodeGen codeGen) {
 		this.codeGen = codeGen;
-		
-		graph = new HashMap<Integer, HashSet<Integer>>();
-		for(Integer temp : codeGen.regs) {
-			addRegister(temp);
+
+		TreeSet<Integer> regs = new TreeSet<Integer>(codeGen.regs);
+		temps = new int[regs.size()];
+		for (Integer temp : regs) {
+			temps[ids.size()] = temp;
+			ids.put(temp, ids.size());
 		}
+		int n = temps.length;
+		matrix = new long[(int) (((long) n * (n - 1) / 2 + 63) / 64)];
+		adjList = new int[n][];
+		adjSize = new int[n];
+		degree = new int[n];
+		removed = new boolean[n];
+	}
+
+	/**
+	 * Returns the number of a temporary register.
+	 *
+	 * @param reg
+	 *            The temporary register.
+	 * @return Its number or <code>-1</code> if it is not a node of the graph.
+	 */
+	public int id(Integer reg) {
+		Integer id = ids.get(reg);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the temporary register with the specified number.
+	 *
+	 * @param id
+	 *            The number of the temporary register.
+	 * @return The temporary register.
+	 */
+	public int temp(int id) {
+		return temps[id];
+	}
+
+	/**
+	 * Returns the number of nodes of the graph (including removed ones).
+	 *
+	 * @return The number of nodes.
+	 */
+	public int size() {
+		return temps.length;
+	}
+
+	private static long bit(int id1, int id2) {
+		return id1 > id2 ? (long) id1 * (id1 - 1) / 2 + id2 : (long) id2 * (id2 - 1) / 2 + id1;
 	}
-	
+
 	public void addEdge(Integer t1, Integer t2) {
-//		addRegister(t1);
-//		addRegister(t2);
-		connect(t1, t2);
+		addEdge(id(t1), id(t2));
 	}
-	
-	public void removeReg(Integer reg) {
-		ArrayList<Integer> nodesToDisconnect = new ArrayList<Integer>(graph.get(reg));
-		disconnect(reg, nodesToDisconnect);
-		
-		graph.remove(reg);
+
+	/**
+	 * Adds an edge between two (different) registers given by their numbers
+	 * unless the edge already exists.
+	 */
+	public void addEdge(int id1, int id2) {
+		if ((id1 == id2) || isInInterferences(id1, id2))
+			return;
+		long bit = bit(id1, id2);
+		matrix[(int) (bit >>> 6)] |= 1L << bit;
+		append(id1, id2);
+		append(id2, id1);
+		numEdges++;
+	}
+
+	private void append(int id, int neighbour) {
+		if (adjList[id] == null)
+			adjList[id] = new int[4];
+		else if (adjSize[id] == adjList[id].length)
+			adjList[id] = Arrays.copyOf(adjList[id], 2 * adjSize[id]);
+		adjList[id][adjSize[id]++] = neighbour;
+		if (!removed[neighbour])
+			degree[id]++;
 	}
-	
+
 	public boolean isInInterferences(Integer reg1, Integer reg2) {
-		if(graph.get(reg1) == null) {
+		int id1 = id(reg1);
+		int id2 = id(reg2);
+		if ((id1 < 0) || (id2 < 0)) {
 			return false;
 		}
-		if(graph.get(reg1).contains(reg2)) {
-			return true;
-		}
-		return false;
-	}
-	
-	 public void addRegister(Integer reg) {
-		 if(graph.containsKey(reg)) {
-			 return;
-		 }
-		 graph.put(reg, new HashSet<Integer>());
-	 }
-	   
-	   
-	 public void connect(Integer reg1, Integer reg2) {
-		 this.graph.get(reg1).add(reg2);
-		 this.graph.get(reg2).add(reg1);
-	 }
-	 
-	 public void disconnect(Integer reg1, ArrayList<Integer> regs) {
-		 for(Integer reg2 : regs) {
-			 this.graph.get(reg1).remove(reg2);
-			 this.graph.get(reg2).remove(reg1);
-		 }
-	 }
-	 
-	 public void print() {
+		return isInInterferences(id1, id2);
+	}
+
+	public boolean isInInterferences(int id1, int id2) {
+		if (id1 == id2)
+			return false;
+		long bit = bit(id1, id2);
+		return (matrix[(int) (bit >>> 6)] & (1L << bit)) != 0;
+	}
+
+	/**
+	 * Removes a register from the graph: decrements the degrees of its
+	 * neighbours but keeps its edges (see {@link #neighbour(int, int)}).
+	 */
+	public void removeReg(Integer reg) {
+		remove(id(reg));
+	}
+
+	/**
+	 * Removes a register given by its number from the graph.
+	 */
+	public void remove(int id) {
+		if (removed[id])
+			return;
+		removed[id] = true;
+		for (int i = 0; i < adjSize[id]; i++)
+			degree[adjList[id][i]]--;
+	}
+
+	public boolean isRemoved(int id) {
+		return removed[id];
+	}
+
+	/**
+	 * Returns the number of neighbours of a register that have not been
+	 * removed from the graph.
+	 */
+	public int degree(int id) {
+		return degree[id];
+	}
+
+	/**
+	 * Returns the number of all neighbours of a register, including removed
+	 * ones.
+	 */
+	public int numNeighbours(int id) {
+		return adjSize[id];
+	}
+
+	/**
+	 * Returns the i-th neighbour of a register (neighbours are listed in the
+	 * order the edges have been added).
+	 */
+	public int neighbour(int id, int i) {
+		return adjList[id][i];
+	}
+
+	public int numEdges() {
+		return numEdges;
+	}
+
+	/**
+	 * Saves the set of removed registers and the degrees of all registers.
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(degree.clone(), removed.clone());
+	}
+
+	/**
+	 * Restores the set of removed registers and the degrees of all registers.
+	 */
+	public void restore(Snapshot snapshot) {
+		degree = snapshot.degree.clone();
+		removed = snapshot.removed.clone();
+	}
+
+	public void print() {
 		System.out.println("%INTERFERENCES:");
-		for (Integer reg : graph.keySet()) {
-			for(Integer interferent : graph.get(reg)) {
-				if(reg < interferent) {
-					System.out.println("(" + reg + ", " + interferent + ")");
+		for (int id = 0; id < temps.length; id++) {
+			int[] neighbours = new int[adjSize[id]];
+			System.arraycopy(adjList[id] == null ? neighbours : adjList[id], 0, neighbours, 0, adjSize[id]);
+			Arrays.sort(neighbours);
+			for (int neighbour : neighbours) {
+				if (id < neighbour) {
+					System.out.println("(" + temps[id] + ", " + temps[neighbour] + ")");
 				}
 			}
 		}
-	 }
-	 
-	 @Override
-	 public InterferenceGraph clone() {
-		InterferenceGraph interferenceGraph = new InterferenceGraph(this.codeGen);
-		interferenceGraph.graph = new HashMap<Integer, HashSet<Integer>>();
-		for(Integer key : this.graph.keySet()) {
-			interferenceGraph.addRegister(key);
-		}
-		for(Integer key : this.graph.keySet()) {
-			for(Integer interferent : this.graph.get(key)) {
-				interferenceGraph.addEdge(key, interferent);
-			}
+	}
+
+	/**
+	 * The saved state of the graph.
+	 */
+	public static class Snapshot {
+
+		private final int[] degree;
+
+		private final boolean[] removed;
+
+		private Snapshot(int[] degree, boolean[] removed) {
+			this.degree = degree;
+			this.removed = removed;
 		}
-//		interferenceGraph.graph = (HashMap<Integer, HashSet<Integer>>) this.graph.clone();
-		return interferenceGraph;
-	 }
+
+	}
+
 }
@@ -0,0 +1,316 @@
+package compiler.phase.codegen;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.Vector;
+
+import compiler.data.codegen.Instr;
+
+/**
+ * Liveness analysis of the instructions of a single code fragment.
+ *
+ * Temporary registers are numbered densely within the fragment (in ascending
+ * order of their names) and sets of temporary registers are represented by
+ * bit vectors indexed by these numbers. Live-in and live-out sets are computed
+ * by a worklist algorithm for basic blocks only; the sets of individual
+ * instructions are recomputed from the live-out set of their basic block when
+ * needed (see {@link #expand(int, BitSet[], BitSet[])}).
+ *
+ * Successors of instructions must be computed before the analysis is
+ * constructed.
+ *
+ * @author sliva
+ */
+public class Liveness {
+
+	/** The instructions of the code fragment. */
+	public final Vector<Instr> instructions;
+
+	/** Temporary registers indexed by their numbers. */
+	public final int[] temps;
+
+	/** Numbers of temporary registers. */
+	private final HashMap<Integer, Integer> tempNums = new HashMap<Integer, Integer>();
+
+	/** The numbers of temporary registers used by each instruction. */
+	private final int[][] uses;
+
+	/** The numbers of temporary registers defined by each instruction. */
+	private final int[][] defs;
+
+	/**
+	 * The index of the first instruction of each basic block (and the number
+	 * of instructions at the end).
+	 */
+	private final int[] blockStart;
+
+	/** Successors of basic blocks. */
+	private final int[][] blockSuccs;
+
+	/** Predecessors of basic blocks. */
+	private final int[][] blockPreds;
+
+	/** Temporary registers used in a basic block before they are defined. */
+	private final BitSet[] blockUse;
+
+	/** Temporary registers defined in a basic block. */
+	private final BitSet[] blockDef;
+
+	/** Live-in sets of basic blocks. */
+	private final BitSet[] blockIn;
+
+	/** Live-out sets of basic blocks. */
+	private final BitSet[] blockOut;
+
+	/**
+	 * Constructs the analysis of a sequence of instructions and splits the
+	 * instructions into basic blocks.
+	 *
+	 * @param instructions
+	 *            The instructions.
+	 */
+	public Liveness(Vector<Instr> instructions) {
+		this.instructions = instructions;
+		int numInstrs = instructions.size();
+
+		// Numbering of temporary registers.
+		TreeSet<Integer> allTemps = new TreeSet<Integer>();
+		for (Instr instr : instructions) {
+			allTemps.addAll(instr.use);
+			allTemps.addAll(instr.def);
+		}
+		temps = new int[allTemps.size()];
+		for (Integer temp : allTemps) {
+			tempNums.put(temp, tempNums.size());
+			temps[tempNums.size() - 1] = temp;
+		}
+		uses = new int[numInstrs][];
+		defs = new int[numInstrs][];
+		IdentityHashMap<Instr, Integer> instrNums = new IdentityHashMap<Instr, Integer>();
+		for (int i = 0; i < numInstrs; i++) {
+			Instr instr = instructions.get(i);
+			uses[i] = numbers(instr.use);
+			defs[i] = numbers(instr.def);
+			instrNums.put(instr, i);
+		}
+
+		// Basic blocks: a block starts at a jump target and ends with an
+		// instruction that does not simply fall through.
+		boolean[] isLeader = new boolean[numInstrs + 1];
+		isLeader[0] = true;
+		isLeader[numInstrs] = true;
+		int[][] succs = new int[numInstrs][];
+		for (int i = 0; i < numInstrs; i++) {
+			Instr instr = instructions.get(i);
+			int numSuccs = 0;
+			succs[i] = new int[instr.succ.size()];
+			for (Instr succ : instr.succ) {
+				if (succ == null)
+					continue;
+				int s = instrNums.get(succ);
+				succs[i][numSuccs++] = s;
+				if (s != i + 1)
+					isLeader[s] = true;
+			}
+			if (numSuccs != succs[i].length)
+				succs[i] = Arrays.copyOf(succs[i], numSuccs);
+			if ((numSuccs != 1) || (succs[i][0] != i + 1))
+				isLeader[i + 1] = true;
+		}
+		int numBlocks = 0;
+		int[] instrBlock = new int[numInstrs];
+		for (int i = 0; i < numInstrs; i++) {
+			if (isLeader[i])
+				numBlocks++;
+			instrBlock[i] = numBlocks - 1;
+		}
+		blockStart = new int[numBlocks + 1];
+		for (int i = numInstrs - 1; i >= 0; i--)
+			blockStart[instrBlock[i]] = i;
+		blockStart[numBlocks] = numInstrs;
+
+		// Control flow graph of basic blocks.
+		blockSuccs = new int[numBlocks][];
+		int[] numPreds = new int[numBlocks];
+		for (int b = 0; b < numBlocks; b++) {
+			int[] lastSuccs = succs[blockStart[b + 1] - 1];
+			blockSuccs[b] = new int[lastSuccs.length];
+			for (int s = 0; s < lastSuccs.length; s++) {
+				blockSuccs[b][s] = instrBlock[lastSuccs[s]];
+				numPreds[blockSuccs[b][s]]++;
+			}
+		}
+		blockPreds = new int[numBlocks][];
+		for (int b = 0; b < numBlocks; b++)
+			blockPreds[b] = new int[numPreds[b]];
+		for (int b = 0; b < numBlocks; b++)
+			for (int s : blockSuccs[b])
+				blockPreds[s][--numPreds[s]] = b;
+
+		// Local use and def sets of basic blocks.
+		blockUse = new BitSet[numBlocks];
+		blockDef = new BitSet[numBlocks];
+		blockIn = new BitSet[numBlocks];
+		blockOut = new BitSet[numBlocks];
+		for (int b = 0; b < numBlocks; b++) {
+			BitSet use = new BitSet(temps.length);
+			BitSet def = new BitSet(temps.length);
+			for (int i = blockStart[b + 1] - 1; i >= blockStart[b]; i--) {
+				for (int t : defs[i]) {
+					use.clear(t);
+					def.set(t);
+				}
+				for (int t : uses[i])
+					use.set(t);
+			}
+			blockUse[b] = use;
+			blockDef[b] = def;
+			blockIn[b] = (BitSet) use.clone();
+			blockOut[b] = new BitSet(temps.length);
+		}
+	}
+
+	private int[] numbers(Set<Integer> temps) {
+		int[] numbers = new int[temps.size()];
+		int n = 0;
+		for (Integer temp : temps)
+			numbers[n++] = tempNums.get(temp);
+		return numbers;
+	}
+
+	/**
+	 * Computes live-in and live-out sets of all basic blocks.
+	 *
+	 * @return The number of evaluations of basic blocks needed to reach the
+	 *         fixed point.
+	 */
+	public int solve() {
+		int numBlocks = blockIn.length;
+		ArrayDeque<Integer> worklist = new ArrayDeque<Integer>();
+		boolean[] isQueued = new boolean[numBlocks];
+		for (int b = numBlocks - 1; b >= 0; b--) {
+			worklist.add(b);
+			isQueued[b] = true;
+		}
+
+		int numEvals = 0;
+		BitSet newIn = new BitSet(temps.length);
+		while (!worklist.isEmpty()) {
+			int b = worklist.poll();
+			isQueued[b] = false;
+			numEvals++;
+
+			BitSet out = blockOut[b];
+			for (int s : blockSuccs[b])
+				out.or(blockIn[s]);
+			newIn.clear();
+			newIn.or(out);
+			newIn.andNot(blockDef[b]);
+			newIn.or(blockUse[b]);
+			if (newIn.equals(blockIn[b]))
+				continue;
+			blockIn[b].or(newIn);
+			for (int p : blockPreds[b]) {
+				if (!isQueued[p]) {
+					worklist.add(p);
+					isQueued[p] = true;
+				}
+			}
+		}
+		return numEvals;
+	}
+
+	/**
+	 * Returns the number of basic blocks.
+	 *
+	 * @return The number of basic blocks.
+	 */
+	public int numBlocks() {
+		return blockIn.length;
+	}
+
+	/**
+	 * Returns the index of the first instruction of a basic block.
+	 *
+	 * @param block
+	 *            The basic block.
+	 * @return The index of its first instruction.
+	 */
+	public int blockStart(int block) {
+		return blockStart[block];
+	}
+
+	/**
+	 * Returns the number of instructions in a basic block.
+	 *
+	 * @param block
+	 *            The basic block.
+	 * @return The number of its instructions.
+	 */
+	public int blockSize(int block) {
+		return blockStart[block + 1] - blockStart[block];
+	}
+
+	/**
+	 * Returns the live-out set of a basic block (which must not be modified).
+	 *
+	 * @param block
+	 *            The basic block.
+	 * @return Its live-out set.
+	 */
+	public BitSet liveOut(int block) {
+		return blockOut[block];
+	}
+
+	/**
+	 * Returns the numbers of temporary registers used by an instruction.
+	 *
+	 * @param instr
+	 *            The index of the instruction.
+	 * @return The numbers of temporary registers.
+	 */
+	public int[] uses(int instr) {
+		return uses[instr];
+	}
+
+	/**
+	 * Returns the numbers of temporary registers defined by an instruction.
+	 *
+	 * @param instr
+	 *            The index of the instruction.
+	 * @return The numbers of temporary registers.
+	 */
+	public int[] defs(int instr) {
+		return defs[instr];
+	}
+
+	/**
+	 * Computes live-in and live-out sets of all instructions of a basic block.
+	 *
+	 * @param block
+	 *            The basic block.
+	 * @param ins
+	 *            The array live-in sets are stored to (indexed relative to
+	 *            the start of the block).
+	 * @param outs
+	 *            The array live-out sets are stored to (indexed relative to
+	 *            the start of the block).
+	 */
+	public void expand(int block, BitSet[] ins, BitSet[] outs) {
+		BitSet live = (BitSet) blockOut[block].clone();
+		for (int i = blockStart[block + 1] - 1; i >= blockStart[block]; i--) {
+			outs[i - blockStart[block]] = (BitSet) live.clone();
+			for (int t : defs[i])
+				live.clear(t);
+			for (int t : uses[i])
+				live.set(t);
+			ins[i - blockStart[block]] = (BitSet) live.clone();
+		}
+	}
+
+}
@@ -20,14 +20,30 @@ public class EvalFrames extends FullVisitor {
 	private int level = 0;
 	private long localOffset = 0;
 	private String funPath = "";
-	private long funCounter = 0;
+	/** The number of nested functions labeled so far. */
+	protected long funCounter = 0;
 	private long maxOutCallSize = 0;
-	private Set<String> globalNames = new HashSet<String>();
+	/** Global names defined so far. */
+	protected Set<String> globalNames = new HashSet<String>();
 
 	public EvalFrames(Attributes attrs) {
 		this.attrs = attrs;
 	}
 
+	/**
+	 * Constructs a new frame evaluator that labels nested functions starting
+	 * with the given number.
+	 * 
+	 * @param attrs
+	 *            The attributes of the AST nodes.
+	 * @param funCounter
+	 *            The number of nested functions labeled so far.
+	 */
+	public EvalFrames(Attributes attrs, long funCounter) {
+		this.attrs = attrs;
+		this.funCounter = funCounter;
+	}
+
 	public void visit(ArrType arrType) {
 		arrType.size.accept(this);
 		arrType.elemType.accept(this);
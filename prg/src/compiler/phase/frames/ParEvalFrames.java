@@ -0,0 +1,82 @@
+package compiler.phase.frames;
+
+import java.util.*;
+
+import compiler.*;
+import compiler.data.ast.*;
+import compiler.data.ast.attr.*;
+import compiler.data.ast.code.*;
+
+/**
+ * Frame and access evaluator processing function bodies in parallel.
+ *
+ * <p>
+ * Each function definition that is not nested within another one is
+ * evaluated by a separate evaluator on one of the worker threads, while the
+ * rest of the program is evaluated by this evaluator. As nested functions are
+ * labeled by consecutive numbers, the nested functions of each function are
+ * counted in advance (see {@link compiler.data.ast.code.CountVisitor}), so that
+ * every function is labeled exactly as it is by
+ * {@link compiler.phase.frames.EvalFrames}. Errors are reported as by
+ * {@link compiler.phase.frames.EvalFrames} as well (see
+ * {@link compiler.Workers}).
+ * </p>
+ *
+ * @author sliva
+ */
+public class ParEvalFrames extends EvalFrames {
+
+	private final Attributes attrs;
+
+	/** The number of worker threads. */
+	private final int numThreads;
+
+	/** The worker threads evaluating function bodies. */
+	private Workers workers = null;
+
+	/** The counts of nodes of the outermost function definitions. */
+	private HashMap<FunDef, CountVisitor> counts = null;
+
+	public ParEvalFrames(Attributes attrs, int numThreads) {
+		super(attrs);
+		this.attrs = attrs;
+		this.numThreads = numThreads;
+	}
+
+	@Override
+	public void visit(Program program) {
+		workers = new Workers(numThreads);
+		try {
+			attrs.reserve();
+			counts = CountVisitor.countOuterFunDefs(program, workers);
+			try {
+				super.visit(program);
+			} catch (RuntimeException | Error ex) {
+				workers.join();
+				throw ex;
+			}
+			workers.join();
+		} finally {
+			workers.close();
+		}
+	}
+
+	@Override
+	public void visit(final FunDef funDef) {
+		if (globalNames.contains(funDef.name)) {
+			// Reports the error exactly as the sequential evaluator does.
+			super.visit(funDef);
+			return;
+		}
+		globalNames.add(funDef.name);
+		final EvalFrames evalFrames = new EvalFrames(attrs, funCounter);
+		funCounter += counts.get(funDef).numFunDefs - 1;
+		workers.fork(new Runnable() {
+			@Override
+			public void run() {
+				funDef.accept(evalFrames);
+			}
+		});
+	}
+
+}
@@ -2,6 +2,7 @@ package compiler.phase.imcode;
 
 import java.util.*;
 
+import compiler.*;
 import compiler.common.report.*;
 import compiler.data.acc.*;
 import compiler.data.ast.*;
@@ -21,13 +22,56 @@ public class EvalImcode extends FullVisitor {
 
 	private final Attributes attrs;
 
-	private final HashMap<String, Fragment> fragments;
+	private final Map<String, Fragment> fragments;
+
+	/** The allocator of temporary register names and anonymous label names. */
+	private final NameAllocator names;
 
 	private Stack<CodeFragment> codeFragments = new Stack<CodeFragment>();
 
 	public EvalImcode(Attributes attrs, HashMap<String, Fragment> fragments) {
+		this(attrs, fragments, Context.current().imcNames);
+	}
+
+	/**
+	 * Constructs a new evaluator of intermediate code that allocates names by
+	 * the given allocator.
+	 * 
+	 * @param attrs
+	 *            The attributes of the AST nodes.
+	 * @param fragments
+	 *            The fragments (indexed by their entry labels) the new
+	 *            fragments are added to.
+	 * @param names
+	 *            The allocator of temporary register names and anonymous
+	 *            label names.
+	 */
+	public EvalImcode(Attributes attrs, Map<String, Fragment> fragments, NameAllocator names) {
 		this.attrs = attrs;
 		this.fragments = fragments;
+		this.names = names;
+	}
+
+	/**
+	 * Adds a new fragment.
+	 * 
+	 * @param fragment
+	 *            The fragment.
+	 */
+	protected void addFragment(Fragment fragment) {
+		fragments.put(fragment.label, fragment);
+	}
+
+	/**
+	 * Prints out a warning.
+	 * 
+	 * @param position
+	 *            The position the warning refers to.
+	 * @param message
+	 *            The message of the warning.
+	 */
+	protected void warning(Position position, String message) {
+		Report.warning(position, message);
 	}
 
 	public void visit(ArrType arrType) {
@@ -44,7 +88,7 @@ public class EvalImcode extends FullVisitor {
 					long value = Long.parseLong(atomExpr.value);
 					attrs.imcAttr.set(atomExpr, new CONST(value));
 				} catch (NumberFormatException ex) {
-					Report.warning(atomExpr, "Illegal integer constant.");
+					warning(atomExpr, "Illegal integer constant.");
 				}
 				break;
 			case BOOLEAN:
@@ -69,11 +113,11 @@ public class EvalImcode extends FullVisitor {
 				}
 				break;
 			case STRING:
-				String label = LABEL.newLabelName();
+				String label = names.newLabelName();
 				attrs.imcAttr.set(atomExpr, new NAME(label));
 				ConstFragment fragment = new ConstFragment(label, atomExpr.value);
 				attrs.frgAttr.set(atomExpr, fragment);
-				fragments.put(fragment.label, fragment);
+				addFragment(fragment);
 				break;
 			case PTR:
 				attrs.imcAttr.set(atomExpr, new CONST(0));
@@ -217,9 +261,9 @@ public class EvalImcode extends FullVisitor {
 			IMCExpr bodyImc = (IMCExpr)attrs.imcAttr.get(forExpr.body);
 			
 			//LABEL entry = new LABEL(LABEL.newLabelName());
-			LABEL loop = new LABEL(LABEL.newLabelName());
-			LABEL loop2 = new LABEL(LABEL.newLabelName());
-			LABEL exit = new LABEL(LABEL.newLabelName());
+			LABEL loop = new LABEL(names.newLabelName());
+			LABEL loop2 = new LABEL(names.newLabelName());
+			LABEL exit = new LABEL(names.newLabelName());
 			Vector<IMCStmt> stmts = new Vector<IMCStmt>();
 			stmts.add(new MOVE(varImc, loBoundImc));
 			//stmts.add(entry);
@@ -288,8 +332,8 @@ public class EvalImcode extends FullVisitor {
 	public void visit(FunDef funDef) {
 		try {
 			Frame frame = attrs.frmAttr.get(funDef);
-			int FP = TEMP.newTempName();
-			int RV = TEMP.newTempName();
+			int FP = names.newTempName();
+			int RV = names.newTempName();
 			CodeFragment tmpFragment = new CodeFragment(frame, FP, RV, null);
 			codeFragments.push(tmpFragment);
 	
@@ -305,7 +349,7 @@ public class EvalImcode extends FullVisitor {
 			Fragment fragment = new CodeFragment(tmpFragment.frame, tmpFragment.FP, tmpFragment.RV, move);
 			attrs.frgAttr.set(funDef, fragment);
 			attrs.imcAttr.set(funDef, move);
-			fragments.put(fragment.label, fragment);
+			addFragment(fragment);
 		} catch (Exception e) {
 			throw new CompilerError("Error during generation of intermediate code at " + funDef.toString());
 		}
@@ -321,9 +365,9 @@ public class EvalImcode extends FullVisitor {
 			IMCExpr thenExpr = (IMCExpr)attrs.imcAttr.get(ifExpr.thenExpr);
 			IMCExpr elseExpr = (IMCExpr)attrs.imcAttr.get(ifExpr.elseExpr);
 			
-			LABEL thenL = new LABEL(LABEL.newLabelName());
-			LABEL elseL = new LABEL(LABEL.newLabelName());
-			LABEL endL = new LABEL(LABEL.newLabelName());
+			LABEL thenL = new LABEL(names.newLabelName());
+			LABEL elseL = new LABEL(names.newLabelName());
+			LABEL endL = new LABEL(names.newLabelName());
 			Vector<IMCStmt> stmts = new Vector<IMCStmt>();
 			stmts.add(new CJUMP(condExpr, thenL.label, elseL.label));
 			stmts.add(elseL);
@@ -370,8 +414,8 @@ public class EvalImcode extends FullVisitor {
 
 	public void visit(Program program) {
 		try {
-			int FP = TEMP.newTempName();
-			int RV = TEMP.newTempName();
+			int FP = names.newTempName();
+			int RV = names.newTempName();
 			CodeFragment tmpFragment = new CodeFragment(attrs.frmAttr.get(program), FP, RV, null);
 			codeFragments.push(tmpFragment);
 			
@@ -383,7 +427,7 @@ public class EvalImcode extends FullVisitor {
 			Fragment fragment = new CodeFragment(tmpFragment.frame, tmpFragment.FP, tmpFragment.RV, new ESTMT(expr));
 			attrs.frgAttr.set(program, fragment);
 			attrs.imcAttr.set(program, move);
-			fragments.put(fragment.label, fragment);
+			addFragment(fragment);
 		} catch (Exception e) {
 			throw new CompilerError("Error during generation of intermediate code at " + program.toString());
 		}
@@ -451,7 +495,7 @@ public class EvalImcode extends FullVisitor {
 				String label = ((StaticAccess) acc).label;
 				DataFragment fragment = new DataFragment(label, acc.size);
 				attrs.frgAttr.set(varDecl, fragment);
-				fragments.put(fragment.label, fragment);
+				addFragment(fragment);
 			}
 		} catch (Exception e) {
 			throw new CompilerError("Error during generation of intermediate code at " + varDecl.toString());
@@ -519,9 +563,9 @@ public class EvalImcode extends FullVisitor {
 			IMCExpr condExpr = (IMCExpr)attrs.imcAttr.get(whileExpr.cond);
 			IMCExpr bodyExpr = (IMCExpr)attrs.imcAttr.get(whileExpr.body);
 			
-			LABEL entry = new LABEL(LABEL.newLabelName());
-			LABEL loop = new LABEL(LABEL.newLabelName());
-			LABEL exit = new LABEL(LABEL.newLabelName());
+			LABEL entry = new LABEL(names.newLabelName());
+			LABEL loop = new LABEL(names.newLabelName());
+			LABEL exit = new LABEL(names.newLabelName());
 			Vector<IMCStmt> stmts = new Vector<IMCStmt>();
 			stmts.add(entry);
 			stmts.add(new CJUMP(condExpr, loop.label, exit.label));
@@ -0,0 +1,295 @@
+package compiler.phase.imcode;
+
+import java.util.*;
+
+import compiler.*;
+import compiler.common.report.*;
+import compiler.data.ast.*;
+import compiler.data.ast.attr.*;
+import compiler.data.ast.code.*;
+import compiler.data.codegen.code.*;
+import compiler.data.frg.*;
+import compiler.data.imc.*;
+
+/**
+ * Evaluates intermediate code of function bodies in parallel.
+ *
+ * <p>
+ * The code of each function definition that is not nested within another one
+ * is generated by a separate evaluator on one of the worker threads, while
+ * the rest of the program is evaluated by this evaluator. Every function is
+ * given its own allocator of exactly those anonymous label names
+ * {@link compiler.phase.imcode.EvalImcode} would allocate for it (the labels
+ * each function needs are counted in advance, see
+ * {@link compiler.data.ast.code.CountVisitor}). Temporary register names,
+ * however, are also allocated while the code is being linearized, so each
+ * function allocates relative names that are relocated once all functions
+ * are done (see {@link compiler.data.imc.NameAllocator}). Fragments and
+ * warnings are collected per function and are merged in the order
+ * {@link compiler.phase.imcode.EvalImcode} produces them, so the result is the
+ * same as if the code were generated sequentially.
+ * </p>
+ *
+ * @author sliva
+ */
+public class ParEvalImcode extends EvalImcode {
+
+	private final Attributes attrs;
+
+	private final HashMap<String, Fragment> fragments;
+
+	/** The allocator of temporary register names and anonymous label names. */
+	private final NameAllocator names;
+
+	/** The number of worker threads. */
+	private final int numThreads;
+
+	/** The worker threads evaluating function bodies. */
+	private Workers workers = null;
+
+	/** The counts of nodes of the outermost function definitions. */
+	private HashMap<FunDef, CountVisitor> counts = null;
+
+	/**
+	 * The fragments and warnings produced by a single evaluator between two
+	 * outermost function definitions.
+	 */
+	private static class Part {
+
+		public final LinkedHashMap<String, Fragment> fragments = new LinkedHashMap<String, Fragment>();
+
+		public final Vector<Position> warningPositions = new Vector<Position>();
+
+		public final Vector<String> warningMessages = new Vector<String>();
+
+		/** The allocator of relative temporary register names. */
+		public final NameAllocator names;
+
+		/** The base the relative temporary register names are relocated to. */
+		public int base = 0;
+
+		public Part(NameAllocator names) {
+			this.names = names;
+		}
+
+	}
+
+	/**
+	 * Relocates relative temporary register names within the code of
+	 * fragments. As the depth of intermediate code trees is not limited, the
+	 * code is traversed without recursion.
+	 */
+	private static class Relocator implements ImcVisitor {
+
+		private final int base;
+
+		private final Stack<IMC> imcs = new Stack<IMC>();
+
+		public Relocator(int base) {
+			this.base = base;
+		}
+
+		public void relocate(Fragment fragment) {
+			if (!(fragment instanceof CodeFragment))
+				return;
+			CodeFragment codeFragment = (CodeFragment) fragment;
+			codeFragment.FP = NameAllocator.relocate(codeFragment.FP, base);
+			codeFragment.RV = NameAllocator.relocate(codeFragment.RV, base);
+			if (codeFragment.stmt != null)
+				imcs.push(codeFragment.stmt);
+			if (codeFragment.linCode != null)
+				imcs.push(codeFragment.linCode);
+			while (!imcs.isEmpty()) {
+				IMC imc = imcs.pop();
+				if (imc instanceof IMCExpr)
+					((IMCExpr) imc).accept(this);
+				else
+					((IMCStmt) imc).accept(this);
+			}
+		}
+
+		public void visit(BINOP binOp) {
+			imcs.push(binOp.expr2);
+			imcs.push(binOp.expr1);
+		}
+
+		public void visit(CALL call) {
+			for (int i = call.numArgs() - 1; i >= 0; i--)
+				imcs.push(call.args(i));
+		}
+
+		public void visit(CJUMP cJump) {
+			imcs.push(cJump.cond);
+		}
+
+		public void visit(CONST constant) {
+		}
+
+		public void visit(ESTMT eStmt) {
+			imcs.push(eStmt.expr);
+		}
+
+		public void visit(JUMP jump) {
+		}
+
+		public void visit(LABEL label) {
+		}
+
+		public void visit(MEM mem) {
+			imcs.push(mem.addr);
+		}
+
+		public void visit(MOVE move) {
+			imcs.push(move.src);
+			imcs.push(move.dst);
+		}
+
+		public void visit(NAME name) {
+		}
+
+		public void visit(NOP nop) {
+		}
+
+		public void visit(SEXPR sExpr) {
+			imcs.push(sExpr.expr);
+			imcs.push(sExpr.stmt);
+		}
+
+		public void visit(STMTS stmts) {
+			for (int i = stmts.numStmts() - 1; i >= 0; i--)
+				imcs.push(stmts.stmts(i));
+		}
+
+		public void visit(TEMP temp) {
+			temp.name = NameAllocator.relocate(temp.name, base);
+		}
+
+		public void visit(UNOP unOp) {
+			imcs.push(unOp.expr);
+		}
+
+	}
+
+	/** The parts of the result in the order they are to be merged in. */
+	private final Vector<Part> parts = new Vector<Part>();
+
+	/** The part produced by this evaluator at the moment. */
+	private Part part = null;
+
+	/**
+	 * The allocator of relative temporary register names allocated by this
+	 * evaluator while linearizing the code of the program.
+	 */
+	private final NameAllocator programNames;
+
+	public ParEvalImcode(Attributes attrs, HashMap<String, Fragment> fragments, int numThreads) {
+		this(attrs, fragments, Context.current().imcNames, numThreads);
+	}
+
+	private ParEvalImcode(Attributes attrs, HashMap<String, Fragment> fragments, NameAllocator names,
+			int numThreads) {
+		super(attrs, fragments, names);
+		this.attrs = attrs;
+		this.fragments = fragments;
+		this.names = names;
+		this.numThreads = numThreads;
+		this.programNames = names.reserve(0);
+	}
+
+	private Part part() {
+		if (part == null) {
+			part = new Part(programNames);
+			parts.add(part);
+		}
+		return part;
+	}
+
+	@Override
+	protected void addFragment(Fragment fragment) {
+		part().fragments.put(fragment.label, fragment);
+	}
+
+	@Override
+	protected void warning(Position position, String message) {
+		part().warningPositions.add(position);
+		part().warningMessages.add(message);
+	}
+
+	@Override
+	public void visit(Program program) {
+		workers = new Workers(numThreads);
+		try {
+			attrs.reserve();
+			counts = CountVisitor.countOuterFunDefs(program, workers);
+			NameAllocator.bind(programNames);
+			try {
+				super.visit(program);
+			} catch (RuntimeException | Error ex) {
+				workers.join();
+				throw ex;
+			} finally {
+				NameAllocator.bind(null);
+			}
+			workers.join();
+
+			for (Part part : parts)
+				if (part.names != programNames)
+					part.base = names.skipTempNames(part.names.numTempNames());
+			int programBase = names.skipTempNames(programNames.numTempNames());
+			for (final Part part : parts) {
+				if (part.names == programNames)
+					part.base = programBase;
+				workers.fork(new Runnable() {
+					@Override
+					public void run() {
+						Relocator relocator = new Relocator(part.base);
+						for (Fragment fragment : part.fragments.values())
+							relocator.relocate(fragment);
+					}
+				});
+			}
+			workers.join();
+		} finally {
+			workers.close();
+		}
+
+		for (Part part : parts) {
+			for (int w = 0; w < part.warningPositions.size(); w++)
+				Report.warning(part.warningPositions.get(w), part.warningMessages.get(w));
+			// Fragments are put one by one (unlike by putAll) so that they are
+			// iterated over in the same order as if they were put sequentially.
+			for (Fragment fragment : part.fragments.values())
+				fragments.put(fragment.label, fragment);
+		}
+	}
+
+	@Override
+	public void visit(final FunDef funDef) {
+		CountVisitor count = counts.get(funDef);
+		final NameAllocator funNames = names
+				.reserve(count.numStrings + 3 * (count.numForExprs + count.numIfExprs + count.numWhileExprs));
+		final Part funPart = new Part(funNames);
+		parts.add(funPart);
+		part = null;
+		workers.fork(new Runnable() {
+			@Override
+			public void run() {
+				NameAllocator.bind(funNames);
+				try {
+					funDef.accept(new EvalImcode(attrs, funPart.fragments, funNames) {
+						@Override
+						protected void warning(Position position, String message) {
+							funPart.warningPositions.add(position);
+							funPart.warningMessages.add(message);
+						}
+					});
+				} finally {
+					NameAllocator.bind(null);
+				}
+				if (!funNames.isExhausted())
+					throw new InternalCompilerError();
+			}
+		});
+	}
+
+}
@@ -1,31 +1,254 @@
 package compiler.phase.lexan;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
 
 import compiler.*;
+import compiler.common.names.*;
 import compiler.common.report.*;
 import compiler.phase.*;
 
 /**
  * The lexical analyzer.
- * 
+ *
+ * The whole source file is mapped into memory and decoded into a character
+ * buffer at once. Characters are classified by a lookup table and symbols are
+ * recognized by scanning the buffer directly, i.e., without reading the file
+ * character by character. Positions are tracked by counting lines and columns
+ * (a tab advances the column by 8, other characters by 1). Keywords are
+ * recognized directly in the buffer and identifiers are interned from the
+ * buffer, so that a string is created only for the first occurrence of each
+ * identifier. Symbols are stored in a {@link TokenBuffer}; the parser reads
+ * them by their numbers (see {@link #nextToken()}).
+ *
  * @author sliva
  */
 public class LexAn extends Phase {
 
-	/** The source file. */
-	private BufferedReader srcFile;
 	/** Source file name. */
 	private String srcName;
-	/** Begin and end position of the current symbol. */
-	private Position symPosition;
+
+	/** The identifiers of the program. */
+	private final Names names = Context.current().names;
+
+	/** The table of lines of the source file. */
+	private final LineTable lines;
+
+	/** The symbols produced so far. */
+	private final TokenBuffer tokens;
+
+	/** The number of symbols that have already been returned. */
+	private int numReturned = 0;
+
+	/** The number of symbols scanned ahead at once. */
+	private static final int BATCH = 4096;
+
+	/**
+	 * The lexical error found while scanning ahead (reported when the symbol
+	 * it replaces is requested).
+	 */
+	private LexError error = null;
+
+	/** The content of the source file. */
+	private final char[] buffer;
+
+	/** The length of the content of the source file. */
+	private final int length;
+
+	/** The index of the next character in the buffer. */
+	private int next = 0;
+
+	/** The line of the next character. */
+	private int line = 1;
+
+	/** The column of the next character. */
+	private int column = 1;
+
+	/** The offset of the next EOF symbol (past the end of the file). */
+	private int eofOffset;
+
+	/* Classes of characters. */
+	private static final byte INVALID = 0;
+	private static final byte SPACE = 1;
+	private static final byte TAB = 2;
+	private static final byte LF = 3;
+	private static final byte COMMENT = 4;
+	private static final byte OPERATOR = 5;
+	private static final byte LETTER = 6;
+	private static final byte DIGIT = 7;
+	private static final byte CHAR_QUOTE = 8;
+	private static final byte STRING_QUOTE = 9;
+
+	/** Classes of ASCII characters. */
+	private static final byte[] classes = new byte[128];
+
+	/** Operators consisting of a single character. */
+	private static final Symbol.Token[] operators = new Symbol.Token[128];
+
+	/** Operators consisting of a character followed by <code>=</code>. */
+	private static final Symbol.Token[] operatorsEqu = new Symbol.Token[128];
+
+	/** Whether a character may follow a backslash in an escape sequence. */
+	private static final boolean[] isEscape = new boolean[128];
+
+	/*
+	 * Keywords, type names and constants that look like identifiers are
+	 * recognized by a perfect hash: the hash of a word is computed from its
+	 * length and its first two and last two characters, and every word is
+	 * stored in a different slot of the table.
+	 */
+
+	/** The number of bits of the hash. */
+	private static final int KEYWORD_BITS = 6;
+
+	/** The multiplier of the hash (chosen so that the hash is perfect). */
+	private static final int keywordMultiplier;
+
+	/** Words indexed by their hashes. */
+	private static final String[] keywordNames = new String[1 << KEYWORD_BITS];
+
+	/** Tokens of words indexed by their hashes. */
+	private static final Symbol.Token[] keywordTokens = new Symbol.Token[1 << KEYWORD_BITS];
+
+	static {
+		classes[' '] = SPACE;
+		classes['\r'] = SPACE;
+		classes['\t'] = TAB;
+		classes['\n'] = LF;
+		classes['#'] = COMMENT;
+		classes['_'] = LETTER;
+		for (char c = 'A'; c <= 'Z'; c++)
+			classes[c] = LETTER;
+		for (char c = 'a'; c <= 'z'; c++)
+			classes[c] = LETTER;
+		for (char c = '0'; c <= '9'; c++)
+			classes[c] = DIGIT;
+		classes['\''] = CHAR_QUOTE;
+		classes['"'] = STRING_QUOTE;
+
+		operator('+', Symbol.Token.ADD, null);
+		operator('&', Symbol.Token.AND, null);
+		operator('=', Symbol.Token.ASSIGN, Symbol.Token.EQU);
+		operator(':', Symbol.Token.COLON, null);
+		operator(',', Symbol.Token.COMMA, null);
+		operator('}', Symbol.Token.CLOSING_BRACE, null);
+		operator(']', Symbol.Token.CLOSING_BRACKET, null);
+		operator(')', Symbol.Token.CLOSING_PARENTHESIS, null);
+		operator('.', Symbol.Token.DOT, null);
+		operator('/', Symbol.Token.DIV, null);
+		operator('>', Symbol.Token.GTH, Symbol.Token.GEQ);
+		operator('<', Symbol.Token.LTH, Symbol.Token.LEQ);
+		operator('@', Symbol.Token.MEM, null);
+		operator('%', Symbol.Token.MOD, null);
+		operator('*', Symbol.Token.MUL, null);
+		operator('!', Symbol.Token.NOT, Symbol.Token.NEQ);
+		operator('{', Symbol.Token.OPENING_BRACE, null);
+		operator('[', Symbol.Token.OPENING_BRACKET, null);
+		operator('(', Symbol.Token.OPENING_PARENTHESIS, null);
+		operator('|', Symbol.Token.OR, null);
+		operator('-', Symbol.Token.SUB, null);
+		operator('^', Symbol.Token.VAL, null);
+
+		isEscape['\\'] = true;
+		isEscape['\''] = true;
+		isEscape['"'] = true;
+		isEscape['t'] = true;
+		isEscape['n'] = true;
+
+		// Type names and keywords are spelled as their tokens.
+		Vector<String> names = new Vector<String>();
+		Vector<Symbol.Token> tokens = new Vector<Symbol.Token>();
+		for (Symbol.Token token : Symbol.Token.values()) {
+			if ((token.ordinal() >= Symbol.Token.INTEGER.ordinal()) && (token.ordinal() <= Symbol.Token.WHILE.ordinal())) {
+				names.add(token.name().toLowerCase(Locale.ROOT));
+				tokens.add(token);
+			}
+		}
+		names.add("true");
+		tokens.add(Symbol.Token.CONST_BOOLEAN);
+		names.add("false");
+		tokens.add(Symbol.Token.CONST_BOOLEAN);
+		names.add("null");
+		tokens.add(Symbol.Token.CONST_NULL);
+		names.add("none");
+		tokens.add(Symbol.Token.CONST_NONE);
+
+		int multiplier = 1;
+		search: while (true) {
+			Arrays.fill(keywordNames, null);
+			for (int word = 0; word < names.size(); word++) {
+				char[] name = names.get(word).toCharArray();
+				int slot = keywordHash(name, 0, name.length, multiplier);
+				if (keywordNames[slot] != null) {
+					multiplier += 2;
+					continue search;
+				}
+				keywordNames[slot] = names.get(word);
+				keywordTokens[slot] = tokens.get(word);
+			}
+			break;
+		}
+		keywordMultiplier = multiplier;
+	}
+
+	/**
+	 * Computes the hash of a word that might be a keyword.
+	 *
+	 * @param chars
+	 *            The buffer containing the word.
+	 * @param start
+	 *            The index of the first character of the word.
+	 * @param length
+	 *            The length of the word (at least 2).
+	 * @param multiplier
+	 *            The multiplier of the hash.
+	 * @return The hash.
+	 */
+	private static int keywordHash(char[] chars, int start, int length, int multiplier) {
+		int end = start + length;
+		int key = (((chars[start] * 31 + chars[start + 1]) * 31 + chars[end - 2]) * 31 + chars[end - 1]) + length;
+		return (key * multiplier) >>> (32 - KEYWORD_BITS);
+	}
+
+	/**
+	 * Finds the keyword, type name or constant spelled by a word in the buffer.
+	 *
+	 * @param start
+	 *            The index of the first character of the word.
+	 * @param length
+	 *            The length of the word.
+	 * @return The index of the word in the table of keywords or
+	 *         <code>-1</code> if the word is an identifier.
+	 */
+	private int keyword(int start, int length) {
+		if (length < 2)
+			return -1;
+		int slot = keywordHash(buffer, start, length, keywordMultiplier);
+		String name = keywordNames[slot];
+		if ((name == null) || (name.length() != length))
+			return -1;
+		for (int i = 0; i < length; i++) {
+			if (name.charAt(i) != buffer[start + i])
+				return -1;
+		}
+		return slot;
+	}
+
+	private static void operator(char c, Symbol.Token token, Symbol.Token tokenEqu) {
+		classes[c] = OPERATOR;
+		operators[c] = token;
+		operatorsEqu[c] = tokenEqu;
+	}
 
 	/**
 	 * Constructs a new lexical analyzer.
-	 * 
-	 * Opens the source file and prepares the buffer. If logging is requested,
-	 * sets up the logger.
-	 * 
+	 *
+	 * Maps the source file into memory and decodes it. If logging is
+	 * requested, sets up the logger.
+	 *
 	 * @param task.srcFName
 	 *            The name of the source file name.
 	 */
@@ -33,508 +256,322 @@ public class LexAn extends Phase {
 		super(task, "lexan");
 
 		srcName = this.task.srcFName;
-		symPosition = new Position(srcName, 1, 1);
-		// Open the source file.
-		try {
-			srcFile = new BufferedReader(new FileReader(this.task.srcFName));
+		CharBuffer chars;
+		try (FileInputStream stream = new FileInputStream(this.task.file(this.task.srcFName))) {
+			FileChannel channel = stream.getChannel();
+			chars = Charset.defaultCharset().decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
 		} catch (FileNotFoundException ex) {
 			throw new CompilerError("Source file '" + this.task.srcFName + "' not found.");
-		}
+		} catch (IOException ex) {
+			throw new CompilerError("Source file '" + this.task.srcFName + "' cannot be read.");
+		}
+		if (chars.hasArray() && chars.arrayOffset() == 0) {
+			buffer = chars.array();
+		} else {
+			buffer = new char[chars.remaining()];
+			chars.get(buffer);
+		}
+		length = chars.limit();
+		eofOffset = length;
+		lines = new LineTable(srcName, buffer, length);
+		tokens = new TokenBuffer(lines, names);
 	}
 
 	/**
-	 * Terminates lexical analysis. Closes the source file and, if logging has
-	 * been requested, this method produces the report by closing the logger.
+	 * Terminates lexical analysis. If logging has been requested, this method
+	 * produces the report by closing the logger.
 	 */
 	@Override
 	public void close() {
-		// Close the source file.
-		if (srcFile != null) {
-			try {
-				srcFile.close();
-			} catch (IOException ex) {
-				Report.warning("Source file '" + task.srcFName + "' cannot be closed.");
-			}
-		}
 		super.close();
 	}
 
 	/**
 	 * Returns the next lexical symbol from the source file.
-	 * 
+	 *
 	 * @return The next lexical symbol.
-	 * @throws IOException 
+	 * @throws IOException
 	 */
 	public Symbol lexAn() throws IOException {
-		int next = srcFile.read();
-		
-//		System.out.println(next);
-		return readNormalMode(next);
+		return tokens.symbol(nextToken());
 	}
-	
+
 	/**
-	 * Returns the next lexical symbol from the source file, by looking at the next character
-	 * and deciding what kind of symbol the function should read and return.
-	 * 
-	 * @param next 
-	 * 			ASCII representation of the next character in the source file.
-	 * @return The next lexical symbol.
-	 * @throws IOException
+	 * Returns the buffer the lexical symbols are stored in.
+	 *
+	 * @return The buffer of lexical symbols.
 	 */
-	private Symbol readNormalMode(int next) throws IOException {
-		if(next == -1) {	// EOF
-			return log(new Symbol(Symbol.Token.EOF, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 43) {	// +
-			return log(new Symbol(Symbol.Token.ADD, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 38) {	// &
-			return log(new Symbol(Symbol.Token.AND, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 61) {	// =
-			srcFile.mark(1);
-			if(srcFile.read() == 61) {	// one more =
-				shiftEndPosition(1);
-				return log(new Symbol(Symbol.Token.EQU, "", shiftBothPositions(0, 1)));
-			}
-			srcFile.reset();
-			return log(new Symbol(Symbol.Token.ASSIGN, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 58) {	// :
-			return log(new Symbol(Symbol.Token.COLON, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 44) {	// ,
-			return log(new Symbol(Symbol.Token.COMMA, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 125) {	// }
-			return log(new Symbol(Symbol.Token.CLOSING_BRACE, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 93) {	// ]
-			return log(new Symbol(Symbol.Token.CLOSING_BRACKET, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 41) {	// )
-			return log(new Symbol(Symbol.Token.CLOSING_PARENTHESIS, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 46) {	// .
-			return log(new Symbol(Symbol.Token.DOT, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 47) {	// /
-			return log(new Symbol(Symbol.Token.DIV, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 62) {	// >
-			srcFile.mark(1);
-			if(srcFile.read() == 61) {	// =
-				shiftEndPosition(1);
-				return log(new Symbol(Symbol.Token.GEQ, "", shiftBothPositions(0, 1)));
+	public TokenBuffer tokens() {
+		return tokens;
+	}
+
+	/**
+	 * Returns the number of the next lexical symbol from the source file (see
+	 * {@link #tokens()}).
+	 *
+	 * Symbols are scanned ahead in batches; a lexical error found while
+	 * scanning ahead is reported only once all symbols preceding it have been
+	 * returned.
+	 *
+	 * @return The number of the next lexical symbol.
+	 */
+	public int nextToken() {
+		if (numReturned == tokens.size()) {
+			if (error != null)
+				throw error;
+			try {
+				int sym;
+				do {
+					sym = scan();
+				} while ((tokens.token(sym) != Symbol.Token.EOF) && (tokens.size() - numReturned < BATCH));
+			} catch (LexError error) {
+				if (numReturned == tokens.size())
+					throw error;
+				this.error = error;
 			}
-			srcFile.reset();
-			return log(new Symbol(Symbol.Token.GTH, "", shiftBothPositions(0, 1)));
 		}
-		if(next == 60) {	// <
-			srcFile.mark(1);
-			if(srcFile.read() == 61) {	// =
-				shiftEndPosition(1);
-				return log(new Symbol(Symbol.Token.LEQ, "", shiftBothPositions(0, 1)));
+		return numReturned++;
+	}
+
+	/**
+	 * Scans the next lexical symbol and appends it to the buffer.
+	 *
+	 * @return The number of the symbol.
+	 */
+	private int scan() {
+		while (true) {
+			if (next == length) {	// EOF
+				return eof();
 			}
-			srcFile.reset();
-			return log(new Symbol(Symbol.Token.LTH, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 64) {	// @
-			return log(new Symbol(Symbol.Token.MEM, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 37) {	// %
-			return log(new Symbol(Symbol.Token.MOD, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 42) {	// *
-			return log(new Symbol(Symbol.Token.MUL, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 33) {	// !
-			srcFile.mark(1);
-			if(srcFile.read() == 61) {	// =
-				shiftEndPosition(1);
-				return log(new Symbol(Symbol.Token.NEQ, "", shiftBothPositions(0, 1)));
+			char c = buffer[next];
+			switch (c < 128 ? classes[c] : INVALID) {
+			case SPACE:
+				next++;
+				column++;
+				break;
+			case TAB:
+				next++;
+				column += 8;
+				break;
+			case LF:
+				next++;
+				line++;
+				column = 1;
+				lines.addLine(next);
+				break;
+			case COMMENT:
+				skipComment();
+				break;
+			case OPERATOR:
+				if ((operatorsEqu[c] != null) && (next + 1 < length) && (buffer[next + 1] == '=')) {
+					next += 2;
+					return token(operatorsEqu[c], -1, 2);
+				}
+				next++;
+				return token(operators[c], -1, 1);
+			case LETTER:
+				return readIdentifier();
+			case DIGIT:
+				return readInteger();
+			case CHAR_QUOTE:
+				return readCharMode();
+			case STRING_QUOTE:
+				return readStringMode();
+			default:
+				throw new LexError("Invalid symbol", new Position(srcName, line, column));
 			}
-			srcFile.reset();
-			return log(new Symbol(Symbol.Token.NOT, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 123) {	// {
-			return log(new Symbol(Symbol.Token.OPENING_BRACE, "", shiftBothPositions(0, 1)));
 		}
-		if(next == 91) {	// [
-			return log(new Symbol(Symbol.Token.OPENING_BRACKET, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 40) {	// (
-			return log(new Symbol(Symbol.Token.OPENING_PARENTHESIS, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 124) {	// |
-			return log(new Symbol(Symbol.Token.OR, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 45) {	// -
-			return log(new Symbol(Symbol.Token.SUB, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 94) {	// ^
-			return log(new Symbol(Symbol.Token.VAL, "", shiftBothPositions(0, 1)));
-		}
-		if(next == 34) {	// "
-			return readStringMode();
-		}
-		if(next == 39) {	// '
-			return readCharMode();
-		}
-		if(next == 35) {	// #
-			skipComment();
-			return readNormalMode(srcFile.read());
-		}
-		if(next >= 48 && next <= 57) {	// number
-			return readInteger(next);
-		}
-		if(next == 95 || (next >= 65 && next <= 90) || (next >= 97 && next <= 122)) {
-			//underscore or letter -> identifier, keyword, type name, pointer constant or void constant
-			return readIdentifier(next);
-		}
-		if(next == 32) {
-			// space
-			shiftBothPositions(0, 1);
-			return readNormalMode(srcFile.read());
-		}
-		if(next == 13) {
-			// CR
-			shiftBothPositions(0, 1);
-			return readNormalMode(srcFile.read());
-		}
-		if(next == 10) {
-			// LF
-			shiftBothPositions(1, 0);
-			return readNormalMode(srcFile.read());
-		}
-		if(next == 9) {
-			// TAB
-			shiftBothPositions(0, 8);
-			return readNormalMode(srcFile.read());
-		}
-		
-		throw new LexError("Invalid symbol", symPosition);
 	}
-	
+
+	/**
+	 * Returns the character at the specified index in the buffer.
+	 *
+	 * @param index
+	 *            The index of the character.
+	 * @return The character or <code>-1</code> if the index is past the end of
+	 *         the source file.
+	 */
+	private int charAt(int index) {
+		return index < length ? buffer[index] : -1;
+	}
+
 	/**
-	 * Shifts the end position of the current symbol.
-	 * 
-	 * @param columnShift
-	 * 			The number of columns the end position should be shifted to the right.
+	 * Appends a symbol that consists of the specified number of characters
+	 * preceding the next character (the symbol starts at the current column)
+	 * to the buffer, and moves the current column past it.
+	 *
+	 * @param token
+	 *            The token of the symbol.
+	 * @param lexemeId
+	 *            The number of the lexeme of the symbol (or <code>-1</code>).
+	 * @param width
+	 *            The number of characters of the symbol.
+	 * @return The number of the symbol.
 	 */
-	private void shiftEndPosition(int columnShift) {
-		Position endPos = new Position(srcName, symPosition.getEndLine(), symPosition.getEndColumn() + columnShift);
-		symPosition = new Position(symPosition, endPos);
+	private int token(Symbol.Token token, int lexemeId, int width) {
+		return log(tokens.add(token, lexemeId, next - width, next - 1), width);
 	}
-	
+
 	/**
-	 * Shifts the end position of the current symbol if lineShift equals 0, otherwise the function
-	 * shifts the end position to one line lower and sets the column of the current symbol to 1.
-	 * At the end the function returns the position of the symbol and sets the position to the start
-	 * of the next symbol.
-	 * 
-	 * @param lineShift
-	 * 		The number of lines the end position should be shifted.
-	 * @param columnShift
-	 * 		The number of columns the end position should be shifted to the right.
-	 * @return The starting position of the next symbol.
+	 * Appends the EOF symbol to the buffer. Every next EOF symbol is placed
+	 * one column further.
+	 *
+	 * @return The number of the symbol.
 	 */
-	private Position shiftBothPositions(int lineShift, int columnShift) {
-		// we return the previous position
-		Position prevPos = new Position(symPosition);
-		// if we shift line, then set the column number to 1
-		columnShift = lineShift > 0 ? 1 : symPosition.getEndColumn() + columnShift;
-		Position endPos = new Position(srcName, symPosition.getEndLine() + lineShift, columnShift);
-		symPosition = new Position(endPos, endPos);
-		
-		return prevPos;
+	private int eof() {
+		int sym = tokens.add(Symbol.Token.EOF, -1, eofOffset, eofOffset);
+		eofOffset++;
+		return log(sym, 1);
 	}
-	
+
+	private int log(int sym, int width) {
+		column += width;
+		if (logger != null)
+			tokens.symbol(sym).log(logger);
+		return sym;
+	}
+
 	/**
 	 * Skips comments, i.e. all characters that follow a "#" sign, until it founds LF.
 	 * If the function finds EOF, it throws an error.
-	 * 
-	 * @throws IOException
 	 */
-	private void skipComment() throws IOException {
-		int next = srcFile.read();
-		shiftBothPositions(0, 1);
-		while(next != 10) {
-			next = srcFile.read();
-			shiftBothPositions(0, 1);
-			if(next == -1) {
-				throw new LexError("After the comment there must be a LF", symPosition);
+	private void skipComment() {
+		// The character following "#" is skipped unchecked.
+		int index = next + 1;
+		column++;
+		int c = charAt(index++);
+		while (c != '\n') {
+			c = charAt(index++);
+			column++;
+			if (c == -1) {
+				throw new LexError("After the comment there must be a LF", new Position(srcName, line, column));
 			}
-			if(next > 127) {
-				throw new LexError("Only ASCII characters are allowed", symPosition);
+			if (c > 127) {
+				throw new LexError("Only ASCII characters are allowed", new Position(srcName, line, column));
 			}
 		}
-		shiftBothPositions(1, 0);
+		next = index;
+		line++;
+		column = 1;
+		lines.addLine(next);
 	}
-	
+
 	/**
 	 * Reads an identifier, but first checks if it is a boolean constant, pointer constant,
-	 * void constant, type name or keyword. 
-	 * 
-	 * @param firstChar
-	 * 			First, already read character of the identifier.
-	 * @return The next lexical symbol.
-	 * @throws IOException
+	 * void constant, type name or keyword.
+	 *
+	 * @return The number of the next lexical symbol.
 	 */
-	private Symbol readIdentifier(int firstChar) throws IOException {
-		String identifier = Character.toString((char)firstChar);
-		srcFile.mark(1);
-		int next = srcFile.read();
-		while(next == 95 || (next >= 65 && next <= 90) || (next >= 97 && next <= 122) || (next >= 48 && next <= 57)) {
-			identifier += Character.toString((char)next);
-			srcFile.mark(1);
-			next = srcFile.read();
-		}
-		srcFile.reset();
-		
-		// Shift the end position of the identifier
-		shiftEndPosition(identifier.length() - 1);
-		
-		// Check if identifier is actually a boolean constant
-		if("true".equals(identifier) || "false".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.CONST_BOOLEAN, identifier, shiftBothPositions(0, 1)));
-		}
-		
-		// Check if identifier is actually a pointer constant -> null
-		if("null".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.CONST_NULL, identifier, shiftBothPositions(0, 1)));
-		}
-				
-		// Check if identifier is actually a void constant -> none
-		if("none".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.CONST_NONE, identifier, shiftBothPositions(0, 1)));
-		}
-		
-		// Check if identifier is actually a type name
-		if("integer".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.INTEGER, "", shiftBothPositions(0, 1)));
-		}
-		if("boolean".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.BOOLEAN, "", shiftBothPositions(0, 1)));
-		}
-		if("char".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.CHAR, "", shiftBothPositions(0, 1)));
-		}
-		if("string".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.STRING, "", shiftBothPositions(0, 1)));
-		}
-		if("void".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.VOID, "", shiftBothPositions(0, 1)));
-		}
-		
-		// Check if identifier is actually a keyword
-		if("arr".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.ARR, "", shiftBothPositions(0, 1)));
-		}
-		if("else".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.ELSE, "", shiftBothPositions(0, 1)));
-		}
-		if("end".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.END, "", shiftBothPositions(0, 1)));
-		}
-		if("for".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.FOR, "", shiftBothPositions(0, 1)));
-		}
-		if("fun".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.FUN, "", shiftBothPositions(0, 1)));
-		}
-		if("if".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.IF, "", shiftBothPositions(0, 1)));
-		}
-		if("then".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.THEN, "", shiftBothPositions(0, 1)));
-		}
-		if("ptr".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.PTR, "", shiftBothPositions(0, 1)));
-		}
-		if("rec".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.REC, "", shiftBothPositions(0, 1)));
-		}
-		if("typ".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.TYP, "", shiftBothPositions(0, 1)));
-		}
-		if("var".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.VAR, "", shiftBothPositions(0, 1)));
-		}
-		if("where".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.WHERE, "", shiftBothPositions(0, 1)));
-		}
-		if("while".equals(identifier)) {
-			return log(new Symbol(Symbol.Token.WHILE, "", shiftBothPositions(0, 1)));
+	private int readIdentifier() {
+		int start = next;
+		do {
+			next++;
+		} while ((next < length) && (buffer[next] < 128) && (classes[buffer[next]] >= LETTER)
+				&& (classes[buffer[next]] <= DIGIT));
+		int length = next - start;
+
+		int slot = keyword(start, length);
+		if (slot < 0) {
+			return token(Symbol.Token.IDENTIFIER, names.intern(buffer, start, length), length);
+		}
+		Symbol.Token token = keywordTokens[slot];
+		switch (token) {
+		case CONST_BOOLEAN:
+		case CONST_NULL:
+		case CONST_NONE:
+			return token(token, names.intern(keywordNames[slot]), length);
+		default:
+			return token(token, -1, length);
 		}
-		
-		// Otherwise it is an identifier
-		return log(new Symbol(Symbol.Token.IDENTIFIER, identifier, shiftBothPositions(0, 1)));
 	}
-	
+
 	/**
 	 * Reads an integer constant.
-	 * 
-	 * @param firstDigit
-	 * 			First, already read digit.
-	 * @return The integer constant as the next lexical symbol.
-	 * @throws IOException
+	 *
+	 * @return The number of the integer constant as the next lexical symbol.
 	 */
-	private Symbol readInteger(int firstDigit) throws IOException {
-		String lexeme = Character.toString((char)firstDigit);
-		srcFile.mark(1);
-		int next = srcFile.read();
-		while(next >= 48 && next <= 57) {
-//			shiftEndPosition(1);
-			lexeme += Character.toString((char)next);
-			srcFile.mark(1);
-			next = srcFile.read();
-		}
-		srcFile.reset();
-//		try {
-//			Long.parseLong(lexeme);
-//		} catch (NumberFormatException e) {
-//			throw new LexError("The integer is not in the valid interval", symPosition);
-//		}
-		
-		// Shift the end position of the integer constant
-		shiftEndPosition(lexeme.length() - 1);
-		
-		return log(new Symbol(Symbol.Token.CONST_INTEGER, lexeme, shiftBothPositions(0, 1)));
+	private int readInteger() {
+		int start = next;
+		do {
+			next++;
+		} while ((next < length) && (buffer[next] >= '0') && (buffer[next] <= '9'));
+		return token(Symbol.Token.CONST_INTEGER, names.intern(buffer, start, next - start), next - start);
 	}
-	
+
 	/**
-	 * Reads a character constant.
-	 * 
-	 * @return The character constant as the next lexical symbol.
-	 * @throws IOException
+	 * Checks whether a character can appear in a character or string constant
+	 * without being escaped.
 	 */
-	private Symbol readCharMode() throws IOException {
-		int next = srcFile.read();
-		shiftEndPosition(1);
-		
-		if (next == 92) {	// \
-			next = srcFile.read();
-			if(isClosedChar()) {
-				// The character is constant (together with single quotes and the escape character) 
-				// consists of 4 characters, because the position pointer is already pointing at 
-				// the beginning of the character constant, we shift the end position for 2 places
-				shiftEndPosition(2);
-				if(next == 92) {	// \
-					return log(new Symbol(Symbol.Token.CONST_CHAR, "'\\\\'", shiftBothPositions(0, 1)));
-				}
-				if(next == 39) {	// '
-					return log(new Symbol(Symbol.Token.CONST_CHAR, "'\\''", shiftBothPositions(0, 1)));
-				}
-				if(next == 34) {	// "
-					return log(new Symbol(Symbol.Token.CONST_CHAR, "'\\\"'", shiftBothPositions(0, 1)));
-				}
-				if(next == 116) {	// t
-					return log(new Symbol(Symbol.Token.CONST_CHAR, "'\\t'", shiftBothPositions(0, 1)));
-				}
-				if(next == 110) {	// n
-					return log(new Symbol(Symbol.Token.CONST_CHAR, "'\\n'", shiftBothPositions(0, 1)));
-				}
-				
-				shiftEndPosition(-2);
-				throw new LexError("Invalid escape sequence", symPosition);
-			}
-
-			throw new LexError("Single quote is not closed");
-		} else if (next >= 32 && next <= 126 && next != 92 && next != 39 && next != 34) {	// [32, 126] ASCII representation and not a backslash, single or double quote
-			if(isClosedChar()) {
-				// The character is constant (together with single quotes) consists of 3 characters, 
-				// because the position pointer is already pointing at the beginning of the character 
-				// constant, we shift the end position for 1 place
-				shiftEndPosition(1);
-				return log(new Symbol(Symbol.Token.CONST_CHAR, "'" + Character.toString((char)next) + "'", shiftBothPositions(0, 1)));
-			} 
-			
-			throw new LexError("Single quote is not closed", symPosition);
-		}
-		
-		throw new LexError("Invalid character in character constant", symPosition);
+	private static boolean isPlain(int c) {
+		return c >= 32 && c <= 126 && c != '\\' && c != '\'' && c != '"';
 	}
-	
+
 	/**
-	 * Checks if the character constant is properly closed with a single quote (')
-	 * 
-	 * @return True if the character constant is properly closed with a single quote, otherwise false.
-	 * @throws IOException
+	 * Returns the position of the character of a character constant (used in
+	 * error messages only).
 	 */
-	private boolean isClosedChar() throws IOException {
-		srcFile.mark(1);
-		if(srcFile.read() == 39) {	// '
-			return true;
-		}
-		srcFile.reset();
-		return false;
+	private Position charPosition() {
+		return new Position(srcName, line, column + 1);
 	}
-	
+
 	/**
-	 * Reads a string constant.
-	 * 
-	 * @return The string constant as the next lexical symbol.
-	 * @throws IOException
+	 * Reads a character constant.
+	 *
+	 * @return The number of the character constant as the next lexical symbol.
 	 */
-	private Symbol readStringMode() throws IOException {
-		String lexeme = "\"";
-		shiftEndPosition(1);	// for the quotes
-		int next = srcFile.read();
-		// The length of the string constant together with double quotes, needed for position shifting
-//		int strLen = 1;
-		
-		while(next != 34) {	// "
-			shiftEndPosition(1);
-			if (next == 92) {	// \
-				next = srcFile.read();
-				shiftEndPosition(1);
-				if(next == 92) {			// \
-					lexeme += "\\\\";
-				} else if(next == 39) {		// '
-					lexeme += "\\'";
-				} else if(next == 34) {		// "
-					lexeme += "\\\"";
-				} else if(next == 116) {	// t
-					lexeme += "\\t";
-				} else if(next == 110) {	// n
-					lexeme += "\\n";
-				} else {
-					throw new LexError("Invalid escape sequence", symPosition);
+	private int readCharMode() {
+		int c = charAt(next + 1);
+
+		if (c == '\\') {
+			if (charAt(next + 3) == '\'') {
+				c = charAt(next + 2);
+				if ((c != -1) && (c < 128) && isEscape[c]) {
+					int lexemeId = names.intern(buffer, next, 4);
+					next += 4;
+					return token(Symbol.Token.CONST_CHAR, lexemeId, 4);
 				}
-//				strLen += 2;	// increase constant's length by 2 (escape character and the actual character)
-			} else if (next >= 32 && next <= 126 && next != 92 && next != 39 && next != 34) {	// [32, 126] ASCII representation
-				lexeme += Character.toString((char)next);
-//				strLen++;	// increment constant's length
-			} else {
-				// not a valid char
-				throw new LexError("Invalid character in string constant", symPosition);
+				throw new LexError("Invalid escape sequence", charPosition());
 			}
-			next = srcFile.read();
+			throw new LexError("Single quote is not closed");
+		} else if (isPlain(c)) {
+			if (charAt(next + 2) == '\'') {
+				int lexemeId = names.intern(buffer, next, 3);
+				next += 3;
+				return token(Symbol.Token.CONST_CHAR, lexemeId, 3);
+			}
+			throw new LexError("Single quote is not closed", charPosition());
 		}
-		
-		// shift the end position for strLen places
-//		shiftEndPosition(strLen);
-//		shiftEndPosition(lexeme.length() - 1);
-		lexeme += "\"";
-		
-		return log(new Symbol(Symbol.Token.CONST_STRING, lexeme, shiftBothPositions(0, 1)));
+
+		throw new LexError("Invalid character in character constant", charPosition());
 	}
 
 	/**
-	 * Prints out the symbol and returns it.
-	 * 
-	 * This method should be called by the lexical analyzer before it returns a
-	 * symbol so that the symbol can be logged (even if logging of lexical
-	 * analysis has not been requested).
-	 * 
-	 * @param symbol
-	 *            The symbol to be printed out.
-	 * @return The symbol received as an argument.
+	 * Reads a string constant.
+	 *
+	 * @return The number of the string constant as the next lexical symbol.
 	 */
-	private Symbol log(Symbol symbol) {
-		symbol.log(logger);
-		return symbol;
+	private int readStringMode() {
+		int index = next + 1;
+		// The end column of the string constant.
+		int endColumn = column + 1;
+		int c = charAt(index++);
+		while (c != '"') {
+			endColumn++;
+			if (c == '\\') {
+				c = charAt(index++);
+				endColumn++;
+				if ((c == -1) || (c > 127) || !isEscape[c]) {
+					throw new LexError("Invalid escape sequence", new Position(srcName, line, endColumn));
+				}
+			} else if (!isPlain(c)) {
+				throw new LexError("Invalid character in string constant", new Position(srcName, line, endColumn));
+			}
+			c = charAt(index++);
+		}
+
+		int lexemeId = names.intern(buffer, next, index - next);
+		next = index;
+		return token(Symbol.Token.CONST_STRING, lexemeId, endColumn - column + 1);
 	}
 
 }
@@ -149,6 +149,12 @@ public class Symbol extends Position implements Loggable {
 	/** The lexeme of this symbol. */
 	public final String lexeme;
 
+	/**
+	 * The number of the identifier (see {@link compiler.common.names.Names})
+	 * or <code>-1</code> if this symbol is not an identifier.
+	 */
+	public final int nameId;
+
 	/**
 	 * Constructs a new symbol.
 	 * 
@@ -160,9 +166,26 @@ public class Symbol extends Position implements Loggable {
 	 *            The symbol's position.
 	 */
 	public Symbol(Token token, String lexeme, Position position) {
+		this(token, lexeme, -1, position);
+	}
+
+	/**
+	 * Constructs a new symbol.
+	 * 
+	 * @param token
+	 *            The symbol's token.
+	 * @param lexeme
+	 *            The symbols's lexeme.
+	 * @param nameId
+	 *            The number of the identifier.
+	 * @param position
+	 *            The symbol's position.
+	 */
+	public Symbol(Token token, String lexeme, int nameId, Position position) {
 		super(position);
 		this.token = token;
 		this.lexeme = lexeme;
+		this.nameId = nameId;
 	}
 
 	/**
@@ -177,6 +200,7 @@ public class Symbol extends Position implements Loggable {
 		super(position);
 		this.token = token;
 		this.lexeme = null;
+		this.nameId = -1;
 	}
 
 	@Override
@@ -0,0 +1,166 @@
+package compiler.phase.lexan;
+
+import java.util.*;
+
+import compiler.common.names.*;
+import compiler.common.report.*;
+
+/**
+ * The buffer of lexical symbols produced by the lexical analyzer.
+ *
+ * Symbols are not stored as objects but in parallel arrays indexed by the
+ * number of the symbol: its token, the offsets of its first and last
+ * characters (see {@link compiler.common.report.LineTable}) and the number of
+ * its lexeme (see
+ * {@link compiler.common.names.Names}). Objects of class
+ * {@link compiler.phase.lexan.Symbol} are constructed only when they are
+ * needed, i.e., for logging and reporting errors.
+ *
+ * @author sliva
+ */
+public class TokenBuffer {
+
+	/** All tokens (indexed by their ordinal numbers). */
+	private static final Symbol.Token[] allTokens = Symbol.Token.values();
+
+	/** The table of lines of the source file. */
+	private final LineTable lines;
+
+	/** The lexemes of symbols. */
+	private final Names names;
+
+	/** Tokens of symbols (ordinal numbers). */
+	private byte[] kind = new byte[1024];
+
+	/** The offsets of the first characters of symbols. */
+	private int[] begOffset = new int[1024];
+
+	/** The offsets of the last characters of symbols. */
+	private int[] endOffset = new int[1024];
+
+	/**
+	 * Numbers of lexemes of symbols or <code>-1</code> if the lexeme is
+	 * empty.
+	 */
+	private int[] lexemeId = new int[1024];
+
+	/** The number of symbols. */
+	private int size = 0;
+
+	/**
+	 * Constructs an empty buffer.
+	 *
+	 * @param lines
+	 *            The table of lines of the source file.
+	 * @param names
+	 *            The lexemes of symbols.
+	 */
+	public TokenBuffer(LineTable lines, Names names) {
+		this.lines = lines;
+		this.names = names;
+	}
+
+	/**
+	 * Appends a symbol.
+	 *
+	 * @param token
+	 *            The token of the symbol.
+	 * @param lexemeId
+	 *            The number of the lexeme or <code>-1</code> if the lexeme is
+	 *            empty.
+	 * @param begOffset
+	 *            The offset of the first character of the symbol.
+	 * @param endOffset
+	 *            The offset of the last character of the symbol.
+	 * @return The number of the symbol.
+	 */
+	public int add(Symbol.Token token, int lexemeId, int begOffset, int endOffset) {
+		if (size == kind.length) {
+			kind = Arrays.copyOf(kind, 2 * size);
+			this.begOffset = Arrays.copyOf(this.begOffset, 2 * size);
+			this.endOffset = Arrays.copyOf(this.endOffset, 2 * size);
+			this.lexemeId = Arrays.copyOf(this.lexemeId, 2 * size);
+		}
+		kind[size] = (byte) token.ordinal();
+		this.begOffset[size] = begOffset;
+		this.endOffset[size] = endOffset;
+		this.lexemeId[size] = lexemeId;
+		return size++;
+	}
+
+	/**
+	 * Returns the number of symbols.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the token of a symbol.
+	 */
+	public Symbol.Token token(int sym) {
+		return allTokens[kind[sym]];
+	}
+
+	/**
+	 * Returns the lexeme of a symbol.
+	 */
+	public String lexeme(int sym) {
+		return lexemeId[sym] < 0 ? "" : names.name(lexemeId[sym]);
+	}
+
+	/**
+	 * Returns the number of the identifier or <code>-1</code> if the symbol
+	 * is not an identifier.
+	 */
+	public int nameId(int sym) {
+		return kind[sym] == Symbol.Token.IDENTIFIER.ordinal() ? lexemeId[sym] : -1;
+	}
+
+	/**
+	 * Returns the position of a symbol.
+	 */
+	public Position position(int sym) {
+		return new Position(lines, begOffset[sym], endOffset[sym]);
+	}
+
+	/**
+	 * Returns the position spanning from the beginning of the first symbol to
+	 * the end of the last symbol.
+	 */
+	public Position position(int begSym, int endSym) {
+		return new Position(lines, begOffset[begSym], endOffset[endSym]);
+	}
+
+	/**
+	 * Returns the position spanning from the beginning of a symbol to the end
+	 * of a position.
+	 */
+	public Position position(int begSym, Position endPosition) {
+		return new Position(position(begSym), endPosition);
+	}
+
+	/**
+	 * Returns the position spanning from the beginning of a position to the end
+	 * of a symbol.
+	 */
+	public Position position(Position begPosition, int endSym) {
+		return new Position(begPosition, position(endSym));
+	}
+
+	/**
+	 * Returns the symbol with the specified number.
+	 */
+	public Symbol symbol(int sym) {
+		return new Symbol(token(sym), lexeme(sym), nameId(sym), position(sym));
+	}
+
+	/**
+	 * Returns the position of a symbol in the same form as
+	 * {@link compiler.common.report.Position#toString()}.
+	 */
+	public String toString(int sym) {
+		return position(sym).toString();
+	}
+
+}
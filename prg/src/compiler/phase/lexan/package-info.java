@@ -12,6 +12,14 @@
  * </p>
  * 
  * <p>
+ * The parser polls the lexical analyzer by calling
+ * {@link compiler.phase.lexan.LexAn#nextToken() nextToken} instead: it returns
+ * the number of the next symbol in the
+ * {@link compiler.phase.lexan.TokenBuffer token buffer}, so that no object is
+ * constructed for a symbol unless it is logged.
+ * </p>
+ * 
+ * <p>
  * To produce the correct log report (if it has been requested), method
  * {@link compiler.phase.lexan.Symbol#log(Logger) log} of every symbol returned
  * by {@link compiler.phase.lexan.LexAn#lexAn() lexAn} should be called before
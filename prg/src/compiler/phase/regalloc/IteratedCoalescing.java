@@ -0,0 +1,498 @@
+package compiler.phase.regalloc;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Vector;
+
+import compiler.data.codegen.Instr;
+import compiler.phase.codegen.EvalCodeGen;
+import compiler.phase.codegen.InterferenceGraph;
+import compiler.phase.utils.CodeGenUtils;
+
+/**
+ * Coloring of the interference graph of a single code fragment by iterated
+ * register coalescing (L. George and A. W. Appel, 1996).
+ *
+ * Simplification, coalescing of moves (using the Briggs and George tests),
+ * freezing of moves and selection of potential spills are driven by
+ * worklists until the graph is empty; then colors are assigned to registers
+ * in the reverse order of their removal. Potential spills are chosen by
+ * their spill costs (see {@link #spillCost(Integer)}) divided by their
+ * degrees. Registers and moves are referred to by their numbers in the
+ * interference graph and in {@link #moves}, respectively. The interference
+ * graph is modified during coloring.
+ *
+ * @author sliva
+ */
+public class IteratedCoalescing {
+
+	/** The maximal loop nesting depth taken into account by spill costs. */
+	private static final int maxLoopDepth = 9;
+
+	/** The interference graph. */
+	private final InterferenceGraph graph;
+
+	/** The number of available registers. */
+	private final int numRegs;
+
+	/** Low-degree registers that are not move related. */
+	private final BitSet simplifyWorklist = new BitSet();
+
+	/** Low-degree move related registers. */
+	private final BitSet freezeWorklist = new BitSet();
+
+	/** High-degree registers. */
+	private final BitSet spillWorklist = new BitSet();
+
+	/** Registers marked for spilling. */
+	private final BitSet spilledNodes = new BitSet();
+
+	/** Registers that have been coalesced. */
+	private final BitSet coalescedNodes = new BitSet();
+
+	/** Registers that have been colored. */
+	private final BitSet coloredNodes = new BitSet();
+
+	/** Registers removed from the graph (in the order of removal). */
+	private final int[] selectStack;
+
+	/** The number of registers on {@link #selectStack}. */
+	private int selectSize = 0;
+
+	/** The register a coalesced register has been coalesced into. */
+	private final int[] alias;
+
+	/** The colors of registers. */
+	private final int[] color;
+
+	/** The move instructions. */
+	public final Vector<Instr> moves = new Vector<Instr>();
+
+	/** The source registers of moves. */
+	private int[] moveSrc;
+
+	/** The target registers of moves. */
+	private int[] moveDst;
+
+	/** Moves that have been coalesced. */
+	private final BitSet coalescedMoves = new BitSet();
+
+	/** Moves whose source and target interfere. */
+	private final BitSet constrainedMoves = new BitSet();
+
+	/** Moves that will no longer be considered for coalescing. */
+	private final BitSet frozenMoves = new BitSet();
+
+	/** Moves enabled for possible coalescing. */
+	private final BitSet worklistMoves = new BitSet();
+
+	/** Moves not yet ready for coalescing. */
+	private final BitSet activeMoves = new BitSet();
+
+	/** The moves each register is associated with. */
+	private final int[][] moveList;
+
+	/** The lengths of {@link #moveList}. */
+	private final int[] moveListSize;
+
+	/** Spill costs: uses and definitions weighted by loop nesting depth. */
+	private final double[] spillCost;
+
+	/** Whether a register has been introduced by spill code. */
+	private final boolean[] isSpillTemp;
+
+	/** The degrees of registers at the time they were chosen as potential spills. */
+	private final int[] spillDegree;
+
+	/**
+	 * Constructs the coloring of the interference graph of a code fragment
+	 * (liveness analysis and the interference graph must be up to date).
+	 *
+	 * @param codeGen
+	 *            The code fragment.
+	 * @param numRegs
+	 *            The number of available registers.
+	 */
+	public IteratedCoalescing(EvalCodeGen codeGen, int numRegs) {
+		this.graph = codeGen.interferenceGraph;
+		this.numRegs = numRegs;
+
+		int n = graph.size();
+		selectStack = new int[n];
+		alias = new int[n];
+		color = new int[n];
+		moveList = new int[n][];
+		moveListSize = new int[n];
+		spillCost = new double[n];
+		isSpillTemp = new boolean[n];
+		spillDegree = new int[n];
+
+		int[] loopDepths = CodeGenUtils.calcLoopDepths(codeGen);
+		for (int i = 0; i < codeGen.instructions.size(); i++) {
+			Instr instr = codeGen.instructions.get(i);
+			double weight = Math.pow(10, Math.min(loopDepths[i], maxLoopDepth));
+			for (Integer reg : instr.use) {
+				int node = graph.id(reg);
+				if (node >= 0)
+					spillCost[node] += weight;
+			}
+			for (Integer reg : instr.def) {
+				int node = graph.id(reg);
+				if (node >= 0)
+					spillCost[node] += weight;
+			}
+		}
+		for (Integer reg : codeGen.spillTemps) {
+			int node = graph.id(reg);
+			if (node >= 0)
+				isSpillTemp[node] = true;
+		}
+
+		Vector<Integer> srcs = new Vector<Integer>();
+		Vector<Integer> dsts = new Vector<Integer>();
+		for (Instr instr : codeGen.instructions) {
+			if ((!instr.isMove) || (instr.use.size() != 1) || (instr.def.size() != 1))
+				continue;
+			int src = graph.id(instr.use.iterator().next());
+			int dst = graph.id(instr.def.iterator().next());
+			if ((src < 0) || (dst < 0))
+				continue;
+			int move = moves.size();
+			moves.add(instr);
+			srcs.add(src);
+			dsts.add(dst);
+			addMove(src, move);
+			addMove(dst, move);
+			worklistMoves.set(move);
+		}
+		moveSrc = new int[moves.size()];
+		moveDst = new int[moves.size()];
+		for (int move = 0; move < moves.size(); move++) {
+			moveSrc[move] = srcs.get(move);
+			moveDst[move] = dsts.get(move);
+		}
+	}
+
+	private void addMove(int node, int move) {
+		if (moveList[node] == null)
+			moveList[node] = new int[2];
+		else if (moveListSize[node] == moveList[node].length)
+			moveList[node] = Arrays.copyOf(moveList[node], 2 * moveListSize[node]);
+		moveList[node][moveListSize[node]++] = move;
+	}
+
+	/**
+	 * Colors the interference graph.
+	 *
+	 * @return <code>true</code> if all registers have been colored,
+	 *         <code>false</code> if some registers must be spilled.
+	 */
+	public boolean color() {
+		makeWorklist();
+		while (true) {
+			if (!simplifyWorklist.isEmpty())
+				simplify();
+			else if (!worklistMoves.isEmpty())
+				coalesce();
+			else if (!freezeWorklist.isEmpty())
+				freeze();
+			else if (!spillWorklist.isEmpty())
+				selectSpill();
+			else
+				break;
+		}
+		assignColors();
+		return spilledNodes.isEmpty();
+	}
+
+	/**
+	 * Returns the color of a register.
+	 *
+	 * @param reg
+	 *            The register.
+	 * @return Its color or <code>null</code> if it has not been colored.
+	 */
+	public Integer color(Integer reg) {
+		int node = graph.id(reg);
+		if ((node < 0) || !coloredNodes.get(node))
+			return null;
+		return color[node];
+	}
+
+	/**
+	 * Returns the registers that must be spilled.
+	 *
+	 * @return The registers.
+	 */
+	public Vector<Integer> spilledRegs() {
+		Vector<Integer> regs = new Vector<Integer>();
+		for (int node = spilledNodes.nextSetBit(0); node >= 0; node = spilledNodes.nextSetBit(node + 1))
+			regs.add(graph.temp(node));
+		return regs;
+	}
+
+	/**
+	 * Returns the spill cost of a register, i.e., the number of its uses and
+	 * definitions, each weighted by <code>10^d</code> where <code>d</code>
+	 * is the loop nesting depth of the instruction.
+	 *
+	 * @param reg
+	 *            The register.
+	 * @return Its spill cost.
+	 */
+	public double spillCost(Integer reg) {
+		return spillCost[graph.id(reg)];
+	}
+
+	/**
+	 * Returns the degree of a register at the time it was chosen as a
+	 * potential spill.
+	 *
+	 * @param reg
+	 *            The register.
+	 * @return Its degree.
+	 */
+	public int spillDegree(Integer reg) {
+		return spillDegree[graph.id(reg)];
+	}
+
+	/**
+	 * Returns whether a move has been coalesced.
+	 *
+	 * @param move
+	 *            The index of the move in {@link #moves}.
+	 * @return <code>true</code> if the move has been coalesced.
+	 */
+	public boolean isCoalesced(int move) {
+		return coalescedMoves.get(move);
+	}
+
+	private void makeWorklist() {
+		for (int node = 0; node < graph.size(); node++) {
+			if (graph.degree(node) >= numRegs)
+				spillWorklist.set(node);
+			else if (moveRelated(node))
+				freezeWorklist.set(node);
+			else
+				simplifyWorklist.set(node);
+		}
+	}
+
+	private boolean moveRelated(int node) {
+		for (int i = 0; i < moveListSize[node]; i++) {
+			int move = moveList[node][i];
+			if (activeMoves.get(move) || worklistMoves.get(move))
+				return true;
+		}
+		return false;
+	}
+
+	private void simplify() {
+		int node = simplifyWorklist.nextSetBit(0);
+		simplifyWorklist.clear(node);
+		selectStack[selectSize++] = node;
+		graph.remove(node);
+		for (int i = 0; i < graph.numNeighbours(node); i++)
+			decrementedDegree(graph.neighbour(node, i));
+	}
+
+	/**
+	 * Moves a register whose degree has been decremented from the spill
+	 * worklist if its degree has become low.
+	 */
+	private void decrementedDegree(int node) {
+		if (graph.isRemoved(node) || (!spillWorklist.get(node)) || (graph.degree(node) >= numRegs))
+			return;
+		enableMoves(node);
+		for (int i = 0; i < graph.numNeighbours(node); i++) {
+			int neighbour = graph.neighbour(node, i);
+			if (!graph.isRemoved(neighbour))
+				enableMoves(neighbour);
+		}
+		spillWorklist.clear(node);
+		if (moveRelated(node))
+			freezeWorklist.set(node);
+		else
+			simplifyWorklist.set(node);
+	}
+
+	private void enableMoves(int node) {
+		for (int i = 0; i < moveListSize[node]; i++) {
+			int move = moveList[node][i];
+			if (activeMoves.get(move)) {
+				activeMoves.clear(move);
+				worklistMoves.set(move);
+			}
+		}
+	}
+
+	private void coalesce() {
+		int move = worklistMoves.nextSetBit(0);
+		worklistMoves.clear(move);
+		int u = alias(moveDst[move]);
+		int v = alias(moveSrc[move]);
+		if (u == v) {
+			coalescedMoves.set(move);
+			addWorklist(u);
+		} else if (graph.isInInterferences(u, v)) {
+			constrainedMoves.set(move);
+			addWorklist(u);
+			addWorklist(v);
+		} else if (george(u, v) || briggs(u, v)) {
+			coalescedMoves.set(move);
+			combine(u, v);
+			addWorklist(u);
+		} else
+			activeMoves.set(move);
+	}
+
+	private void addWorklist(int node) {
+		if (freezeWorklist.get(node) && (!moveRelated(node)) && (graph.degree(node) < numRegs)) {
+			freezeWorklist.clear(node);
+			simplifyWorklist.set(node);
+		}
+	}
+
+	/**
+	 * The George test: every neighbour of <code>v</code> is either of low
+	 * degree or already interferes with <code>u</code>.
+	 */
+	private boolean george(int u, int v) {
+		for (int i = 0; i < graph.numNeighbours(v); i++) {
+			int t = graph.neighbour(v, i);
+			if (graph.isRemoved(t))
+				continue;
+			if ((graph.degree(t) >= numRegs) && (!graph.isInInterferences(t, u)))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * The Briggs test: the combined register would have fewer than
+	 * <code>numRegs</code> neighbours of high degree.
+	 */
+	private boolean briggs(int u, int v) {
+		int numHigh = 0;
+		for (int i = 0; i < graph.numNeighbours(u); i++) {
+			int t = graph.neighbour(u, i);
+			if ((!graph.isRemoved(t)) && (graph.degree(t) >= numRegs))
+				numHigh++;
+		}
+		for (int i = 0; i < graph.numNeighbours(v); i++) {
+			int t = graph.neighbour(v, i);
+			if ((!graph.isRemoved(t)) && (graph.degree(t) >= numRegs) && (!graph.isInInterferences(t, u)))
+				numHigh++;
+		}
+		return numHigh < numRegs;
+	}
+
+	private void combine(int u, int v) {
+		if (freezeWorklist.get(v))
+			freezeWorklist.clear(v);
+		else
+			spillWorklist.clear(v);
+		coalescedNodes.set(v);
+		alias[v] = u;
+		for (int i = 0; i < moveListSize[v]; i++)
+			addMove(u, moveList[v][i]);
+		enableMoves(v);
+		graph.remove(v);
+		for (int i = 0; i < graph.numNeighbours(v); i++) {
+			int t = graph.neighbour(v, i);
+			if (graph.isRemoved(t))
+				continue;
+			graph.addEdge(t, u);
+			decrementedDegree(t);
+		}
+		if ((graph.degree(u) >= numRegs) && freezeWorklist.get(u)) {
+			freezeWorklist.clear(u);
+			spillWorklist.set(u);
+		}
+	}
+
+	private int alias(int node) {
+		while (coalescedNodes.get(node))
+			node = alias[node];
+		return node;
+	}
+
+	private void freeze() {
+		int node = freezeWorklist.nextSetBit(0);
+		freezeWorklist.clear(node);
+		simplifyWorklist.set(node);
+		freezeMoves(node);
+	}
+
+	private void freezeMoves(int u) {
+		for (int i = 0; i < moveListSize[u]; i++) {
+			int move = moveList[u][i];
+			if (!(activeMoves.get(move) || worklistMoves.get(move)))
+				continue;
+			int v = alias(moveDst[move]) == alias(u) ? alias(moveSrc[move]) : alias(moveDst[move]);
+			activeMoves.clear(move);
+			worklistMoves.clear(move);
+			frozenMoves.set(move);
+			if (freezeWorklist.get(v) && (!moveRelated(v)) && (graph.degree(v) < numRegs)) {
+				freezeWorklist.clear(v);
+				simplifyWorklist.set(v);
+			}
+		}
+	}
+
+	/**
+	 * Chooses a potential spill: the register with the lowest spill cost per
+	 * interference; registers introduced by spill code are chosen only if
+	 * there is no other register left.
+	 */
+	private void selectSpill() {
+		int node = -1;
+		for (int m = spillWorklist.nextSetBit(0); m >= 0; m = spillWorklist.nextSetBit(m + 1)) {
+			if (node < 0) {
+				node = m;
+				continue;
+			}
+			if (isSpillTemp[m] != isSpillTemp[node]) {
+				if (isSpillTemp[node])
+					node = m;
+				continue;
+			}
+			if (spillCost[m] / graph.degree(m) < spillCost[node] / graph.degree(node))
+				node = m;
+		}
+		spillDegree[node] = graph.degree(node);
+		spillWorklist.clear(node);
+		simplifyWorklist.set(node);
+		freezeMoves(node);
+	}
+
+	private void assignColors() {
+		boolean[] isUsed = new boolean[numRegs];
+		while (selectSize > 0) {
+			int node = selectStack[--selectSize];
+			Arrays.fill(isUsed, false);
+			for (int i = 0; i < graph.numNeighbours(node); i++) {
+				int neighbour = alias(graph.neighbour(node, i));
+				if (coloredNodes.get(neighbour))
+					isUsed[color[neighbour]] = true;
+			}
+			int c = 0;
+			while ((c < numRegs) && isUsed[c])
+				c++;
+			if (c == numRegs)
+				spilledNodes.set(node);
+			else {
+				coloredNodes.set(node);
+				color[node] = c;
+			}
+		}
+		for (int node = coalescedNodes.nextSetBit(0); node >= 0; node = coalescedNodes.nextSetBit(node + 1)) {
+			int target = alias(node);
+			if (coloredNodes.get(target)) {
+				coloredNodes.set(node);
+				color[node] = color[target];
+			}
+		}
+	}
+
+}
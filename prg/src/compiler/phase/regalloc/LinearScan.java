@@ -0,0 +1,215 @@
+package compiler.phase.regalloc;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Vector;
+
+import compiler.phase.codegen.EvalCodeGen;
+import compiler.phase.codegen.Liveness;
+
+/**
+ * Register allocation by linear scan (M. Poletto and V. Sarkar, 1999).
+ *
+ * Each temporary register is given a single live interval spanning all
+ * instructions it is live at (computed from the liveness analysis of the
+ * code fragment). Every instruction has two positions, the first one for
+ * reading its operands and the second one for writing its results, so that
+ * a register whose last use is an instruction can be reused for its result
+ * (as in the interference graph). Intervals are processed in the order of their starts and
+ * are assigned registers that are not used by overlapping intervals; if no
+ * register is free, the interval ending last is spilled. Temporary registers
+ * introduced by spill code are spilled only if there is no other choice.
+ *
+ * The allocation is much faster than graph coloring but the generated code
+ * is worse.
+ *
+ * @author sliva
+ */
+public class LinearScan {
+
+	/** The liveness analysis of the code fragment. */
+	private final Liveness liveness;
+
+	/** The number of available registers. */
+	private final int numRegs;
+
+	/** The first position of the live interval of each temporary. */
+	private final int[] start;
+
+	/** The last position of the live interval of each temporary. */
+	private final int[] end;
+
+	/** Whether a temporary has been introduced by spill code. */
+	private final boolean[] isSpillTemp;
+
+	/** The colors of temporaries (or <code>-1</code> if spilled). */
+	private final int[] color;
+
+	/** Temporaries that must be spilled. */
+	private final BitSet spilled = new BitSet();
+
+	/**
+	 * Constructs the allocation for a code fragment (liveness analysis must be
+	 * up to date).
+	 *
+	 * @param codeGen
+	 *            The code fragment.
+	 * @param numRegs
+	 *            The number of available registers.
+	 */
+	public LinearScan(EvalCodeGen codeGen, int numRegs) {
+		this.liveness = codeGen.liveness;
+		this.numRegs = numRegs;
+
+		int n = liveness.temps.length;
+		start = new int[n];
+		end = new int[n];
+		Arrays.fill(start, Integer.MAX_VALUE);
+		Arrays.fill(end, -1);
+		for (int b = 0; b < liveness.numBlocks(); b++) {
+			BitSet live = (BitSet) liveness.liveOut(b).clone();
+			for (int i = liveness.blockStart(b) + liveness.blockSize(b) - 1; i >= liveness.blockStart(b); i--) {
+				for (int t = live.nextSetBit(0); t >= 0; t = live.nextSetBit(t + 1))
+					extend(t, 2 * i + 1);
+				for (int t : liveness.defs(i)) {
+					extend(t, 2 * i + 1);
+					live.clear(t);
+				}
+				for (int t : liveness.uses(i)) {
+					extend(t, 2 * i);
+					live.set(t);
+				}
+			}
+		}
+
+		isSpillTemp = new boolean[n];
+		for (int t = 0; t < n; t++)
+			isSpillTemp[t] = codeGen.spillTemps.contains(liveness.temps[t]);
+		color = new int[n];
+	}
+
+	private void extend(int t, int pos) {
+		if (pos < start[t])
+			start[t] = pos;
+		if (pos > end[t])
+			end[t] = pos;
+	}
+
+	/**
+	 * Allocates registers.
+	 *
+	 * @return <code>true</code> if all temporaries have been assigned
+	 *         registers, <code>false</code> if some temporaries must be
+	 *         spilled.
+	 */
+	public boolean color() {
+		Integer[] intervals = new Integer[liveness.temps.length];
+		for (int t = 0; t < intervals.length; t++)
+			intervals[t] = t;
+		Arrays.sort(intervals, new Comparator<Integer>() {
+			public int compare(Integer t1, Integer t2) {
+				return start[t1] != start[t2] ? Integer.compare(start[t1], start[t2]) : Integer.compare(t1, t2);
+			}
+		});
+
+		// Active intervals ordered by their ends.
+		int[] active = new int[numRegs];
+		int numActive = 0;
+		boolean[] isUsed = new boolean[numRegs];
+
+		for (int t : intervals) {
+			if (end[t] < 0)
+				continue;
+
+			// Expire intervals that have ended.
+			int numExpired = 0;
+			while ((numExpired < numActive) && (end[active[numExpired]] < start[t])) {
+				isUsed[color[active[numExpired]]] = false;
+				numExpired++;
+			}
+			System.arraycopy(active, numExpired, active, 0, numActive - numExpired);
+			numActive -= numExpired;
+
+			if (numActive < numRegs) {
+				int c = 0;
+				while (isUsed[c])
+					c++;
+				isUsed[c] = true;
+				color[t] = c;
+			} else {
+				// Spill the interval ending last (avoiding spill temporaries).
+				int victim = -1;
+				for (int a = numActive - 1; a >= 0; a--) {
+					if (!isSpillTemp[active[a]]) {
+						victim = a;
+						break;
+					}
+				}
+				if ((victim >= 0) && (isSpillTemp[t] || (end[active[victim]] > end[t]))) {
+					int s = active[victim];
+					color[t] = color[s];
+					color[s] = -1;
+					spilled.set(s);
+					System.arraycopy(active, victim + 1, active, victim, numActive - victim - 1);
+					numActive--;
+				} else {
+					color[t] = -1;
+					spilled.set(t);
+					continue;
+				}
+			}
+
+			// Insert the interval into the active intervals.
+			int a = numActive;
+			while ((a > 0) && (end[active[a - 1]] > end[t])) {
+				active[a] = active[a - 1];
+				a--;
+			}
+			active[a] = t;
+			numActive++;
+		}
+		return spilled.isEmpty();
+	}
+
+	/**
+	 * Returns the color of a temporary register.
+	 *
+	 * @param reg
+	 *            The temporary register.
+	 * @return Its color or <code>null</code> if it has not been assigned a
+	 *         register.
+	 */
+	public Integer color(Integer reg) {
+		int t = Arrays.binarySearch(liveness.temps, reg);
+		if ((t < 0) || (end[t] < 0) || spilled.get(t))
+			return null;
+		return color[t];
+	}
+
+	/**
+	 * Returns the temporary registers that must be spilled.
+	 *
+	 * @return The temporary registers.
+	 */
+	public Vector<Integer> spilledRegs() {
+		Vector<Integer> regs = new Vector<Integer>();
+		for (int t = spilled.nextSetBit(0); t >= 0; t = spilled.nextSetBit(t + 1))
+			regs.add(liveness.temps[t]);
+		return regs;
+	}
+
+	/**
+	 * Returns the live interval of a temporary register.
+	 *
+	 * @param reg
+	 *            The temporary register.
+	 * @return The interval in the form <code>[start,end]</code> (given by
+	 *         indices of instructions).
+	 */
+	public String interval(Integer reg) {
+		int t = Arrays.binarySearch(liveness.temps, reg);
+		return "[" + start[t] / 2 + "," + end[t] / 2 + "]";
+	}
+
+}
@@ -3,15 +3,15 @@ package compiler.phase.regalloc;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Stack;
 import java.util.Vector;
 
+import compiler.Context;
 import compiler.Task;
 import compiler.common.report.CompilerError;
+import compiler.common.stats.Stats;
 import compiler.data.ast.attr.Attributes;
 import compiler.data.codegen.Instr;
 import compiler.data.frg.CodeFragment;
@@ -29,11 +29,11 @@ public class RegAlloc extends Phase {
 
 	private Task task;
 	private final Attributes attrs;
-	public Stack<ColoredReg> tempsStack = new Stack<ColoredReg>();
 	public HashMap<Integer, Integer> regToColor = new HashMap<Integer, Integer>();
 	private int numRegs;
 	private HashSet<Integer> spills = new HashSet<Integer>();
-	public static CodeFragment curCodeFragment = null;
+	private Stats.FragmentStats fragStats = null;
+	private boolean emit;
 
 	/**
 	 * Constructs the phase that performs register allocation.
@@ -42,10 +42,24 @@ public class RegAlloc extends Phase {
 	 *            The parameters and internal data of the compilation process.
 	 */
 	public RegAlloc(Task task) {
+		this(task, true);
+	}
+
+	/**
+	 * Constructs the phase that performs register allocation.
+	 * 
+	 * @param task
+	 *            The parameters and internal data of the compilation process.
+	 * @param emit
+	 *            Whether the <code>.mms</code> file is written (if not, the
+	 *            code is formatted but discarded).
+	 */
+	public RegAlloc(Task task, boolean emit) {
 		super(task, "regalloc");
 
 		this.task = task;
 		this.attrs = task.prgAttrs;
+		this.emit = emit;
 		
 		numRegs = task.numRegs;
 		allocateRegs();
@@ -59,8 +73,16 @@ public class RegAlloc extends Phase {
 	public void close() {
 		super.close();
 	}
+
+	/**
+	 * Returns the code fragment registers are currently being allocated for.
+	 * 
+	 * @return The current code fragment.
+	 */
+	public static CodeFragment curCodeFragment() {
+		return Context.current().regAllocFragment;
+	}
 	
-	@SuppressWarnings("unchecked")
 	public void allocateRegs() {
 		PrintWriter writer = null;
 		String srcName;
@@ -68,11 +90,14 @@ public class RegAlloc extends Phase {
 		srcName = arr[arr.length - 1]; 
 		arr = srcName.split("\\.");
 		String mmsName = arr[arr.length-2] + ".mms";
-		try {
-			writer = new PrintWriter(mmsName, "UTF-8");
-		} catch (FileNotFoundException | UnsupportedEncodingException e) {
-			throw new CompilerError("Error while creating .mms file.");
-		}
+		if (emit) {
+			try {
+				writer = new PrintWriter(task.file(mmsName), "UTF-8");
+			} catch (FileNotFoundException | UnsupportedEncodingException e) {
+				throw new CompilerError("Error while creating .mms file.");
+			}
+		} else
+			writer = new PrintWriter(Writer.nullWriter());
 		writer.println("io\tIS $255");
 		writer.println("sp\tGREG 0");
 		writer.println("fp\tGREG 0");
@@ -126,26 +151,23 @@ public class RegAlloc extends Phase {
 		for (Fragment fragment : task.fragments.values()) {
 			if (fragment instanceof CodeFragment) {
 				CodeFragment frag = (CodeFragment) fragment;
-				curCodeFragment = frag;
+				Context.current().regAllocFragment = frag;
 				EvalCodeGen codeGen = attrs.codeGenAttr.get(frag);
+				fragStats = task.stats.fragment(frag.label);
 				
-				boolean areAllColored = false;
+				if (logger != null) {
+					logger.begElement("fragment");
+					logger.addAttribute("label", frag.label);
+				}
 				
-				while(!areAllColored){
-					if(codeGen.interferenceGraph == null) {
-						build(codeGen);
-					}
-					InterferenceGraph interferenceGraph = codeGen.interferenceGraph.clone();
-					HashSet<Integer> regs = (HashSet<Integer>) codeGen.regs.clone();
-					while(!regs.isEmpty()) {
-						simplify(codeGen, regs);
-						spill(codeGen, regs);
-					}
-					areAllColored = select(codeGen, interferenceGraph);
-					if(!areAllColored) {
-						startOver(codeGen);
-						codeGen.interferenceGraph = null;
-					}
+				long allocStart = System.nanoTime();
+				if (task.regAlloc.equals("linear"))
+					allocateLinear(codeGen);
+				else
+					allocateGraph(codeGen);
+				fragStats.regAllocTime += System.nanoTime() - allocStart;
+				if (logger != null) {
+					logger.endElement();
 				}
 //				PrintUtils.printWithRealRegs(codeGen, regToColor);
 				RegAllocUtils.prolog(frag, writer);
@@ -160,6 +182,86 @@ public class RegAlloc extends Phase {
 		writer.close();
 	}
 	
+	/**
+	 * Allocates registers for a code fragment by iterated register coalescing.
+	 */
+	private void allocateGraph(EvalCodeGen codeGen) {
+		boolean areAllColored = false;
+		while (!areAllColored) {
+			if (codeGen.interferenceGraph == null) {
+				build(codeGen);
+			}
+			IteratedCoalescing coloring = new IteratedCoalescing(codeGen, numRegs);
+			areAllColored = coloring.color();
+			if (areAllColored) {
+				for (Integer reg : codeGen.regs) {
+					regToColor.put(reg, coloring.color(reg));
+				}
+				logCoalescedMoves(coloring);
+				removeCoalescedMoves(codeGen);
+			} else {
+				Vector<Integer> spilledRegs = coloring.spilledRegs();
+				if (logger != null) {
+					for (Integer reg : spilledRegs) {
+						logger.begElement("spill");
+						logger.addAttribute("round", Integer.toString(fragStats.spillRounds + 1));
+						logger.addAttribute("temp", "T" + reg);
+						logger.addAttribute("cost", Double.toString(coloring.spillCost(reg)));
+						logger.addAttribute("degree", Integer.toString(coloring.spillDegree(reg)));
+						logger.endElement();
+					}
+				}
+				spill(codeGen, spilledRegs);
+				codeGen.interferenceGraph = null;
+			}
+		}
+	}
+
+	/**
+	 * Allocates registers for a code fragment by linear scan. The liveness
+	 * analysis produced by code generation is used in the first round; the
+	 * interference graph is not needed.
+	 */
+	private void allocateLinear(EvalCodeGen codeGen) {
+		boolean areAllColored = false;
+		while (!areAllColored) {
+			if (codeGen.liveness == null) {
+				buildLiveness(codeGen);
+			}
+			LinearScan scan = new LinearScan(codeGen, numRegs);
+			areAllColored = scan.color();
+			if (areAllColored) {
+				for (Integer reg : codeGen.regs) {
+					regToColor.put(reg, scan.color(reg));
+				}
+				removeCoalescedMoves(codeGen);
+			} else {
+				Vector<Integer> spilledRegs = scan.spilledRegs();
+				if (logger != null) {
+					for (Integer reg : spilledRegs) {
+						logger.begElement("spill");
+						logger.addAttribute("round", Integer.toString(fragStats.spillRounds + 1));
+						logger.addAttribute("temp", "T" + reg);
+						logger.addAttribute("interval", scan.interval(reg));
+						logger.endElement();
+					}
+				}
+				spill(codeGen, spilledRegs);
+				codeGen.liveness = null;
+			}
+		}
+	}
+
+	/**
+	 * Inserts spill code for the spilled temporary registers.
+	 */
+	private void spill(EvalCodeGen codeGen, Vector<Integer> spilledRegs) {
+		fragStats.spillRounds++;
+		fragStats.spilledTemps += spilledRegs.size();
+		spills.addAll(spilledRegs);
+		startOver(codeGen);
+	}
+
 	private void clearInstrAttrs(Vector<Instr> instructions) {
 		try {
 			for(Instr instr : instructions) {
@@ -170,12 +272,22 @@ public class RegAlloc extends Phase {
 		}
 	}
 	
+	public void buildLiveness(EvalCodeGen codeGen) {
+		try {
+			clearInstrAttrs(codeGen.instructions);
+			CodeGenUtils.calcInstrSuccessors(codeGen);
+			fragStats.regAllocLivenessIterations += CodeGenUtils.calcInOut(codeGen);
+		} catch(Exception e) {
+			throw new CompilerError("Error in liveness analysis during register allocation.");
+		}
+	}
+	
 	public void build(EvalCodeGen codeGen) {
 		try {
 			codeGen.interferenceGraph = new InterferenceGraph(codeGen);
 			clearInstrAttrs(codeGen.instructions);
 			CodeGenUtils.calcInstrSuccessors(codeGen);
-			CodeGenUtils.calcInOut(codeGen.instructions);
+			fragStats.regAllocLivenessIterations += CodeGenUtils.calcInOut(codeGen);
 			CodeGenUtils.calcInterference(codeGen);
 //			HashMap<Integer, String> virtRegsMap = PrintUtils.buildVirtRegsMap(codeGen.regs, 2);
 //			PrintUtils.printWithRegs(codeGen.instructions, virtRegsMap);
@@ -185,84 +297,39 @@ public class RegAlloc extends Phase {
 		}
 	}
 	
-	public void simplify(EvalCodeGen codeGen, HashSet<Integer> regs) {
-		try {
-			HashMap<Integer, HashSet<Integer>> graph = codeGen.interferenceGraph.graph;
-			boolean canSimplify = true;
-			while(canSimplify) {
-				canSimplify = false;
-				Integer toRemove = null;
-				ArrayList<Integer> regsArr = new ArrayList<Integer>(regs);
-				Collections.sort(regsArr);
-				for (Integer reg : regsArr) {
-//					System.out.println(reg);
-//					System.out.println(graph.get(reg));
-					if (graph.get(reg).size() < numRegs) {
-						toRemove = reg;
-//						codeGen.interferenceGraph.removeReg(reg);
-						canSimplify = true;
-						tempsStack.push(new ColoredReg(reg));
-						break;
-					}
-				}
-				if(toRemove != null) {
-					codeGen.interferenceGraph.removeReg(toRemove);
-					regs.remove(toRemove);
+	/**
+	 * Reports the moves that have been coalesced.
+	 */
+	private void logCoalescedMoves(IteratedCoalescing coloring) {
+		for (int move = 0; move < coloring.moves.size(); move++) {
+			Instr instr = coloring.moves.get(move);
+			if (coloring.isCoalesced(move)) {
+				fragStats.coalescedMoves++;
+				if (logger != null) {
+					logger.begElement("coalesced");
+					logger.addAttribute("dst", "T" + instr.t1);
+					logger.addAttribute("src", "T" + instr.t2);
+					logger.addAttribute("reg", "$" + regToColor.get(instr.t1));
+					logger.endElement();
 				}
 			}
-		} catch(Exception e) {
-			throw new CompilerError("Error in simplify phase during register allocation.");
 		}
 	}
-	
-	public void spill(EvalCodeGen codeGen, HashSet<Integer> regs) {
-		try {
-			Integer toRemove = null;
-			ArrayList<Integer> regsArr = new ArrayList<Integer>(regs);
-			Collections.sort(regsArr);
-			for(Integer reg : regsArr) {
-				toRemove = reg;
-				tempsStack.push(new ColoredReg(reg));
-				break;
-			}
-			if(toRemove != null) {
-				codeGen.interferenceGraph.removeReg(toRemove);
-				regs.remove(toRemove);
-			}
-		} catch(Exception e) {
-			throw new CompilerError("Error in spill phase during register allocation.");
-		}
-	}
-	
-	public boolean select(EvalCodeGen codeGen, InterferenceGraph interferenceGraph) {
-		try {
-			boolean areAllColored = true;
-			while(!tempsStack.isEmpty()) {
-				ColoredReg reg = tempsStack.pop();
-				HashSet<Integer> neighbourColors = new HashSet<Integer>();
-				for(Integer neighbour : interferenceGraph.graph.get(reg.reg)) {
-					if(regToColor.get(neighbour) != null) {
-						neighbourColors.add(regToColor.get(neighbour));
-					}
-				}
-				boolean isColorAssigned = false;
-				for(Integer i = 0; i < numRegs; i++) {
-					if(!neighbourColors.contains(i)) {
-						regToColor.put(reg.reg, i);
-						reg.color = i;
-						isColorAssigned = true;
-						break;
-					}
-				}
-				if(!isColorAssigned) {
-					spills.add(reg.reg);
-					areAllColored = false;
-				}
+
+	/**
+	 * Removes moves whose source and target have been assigned the same
+	 * register.
+	 */
+	private void removeCoalescedMoves(EvalCodeGen codeGen) {
+		Vector<Instr> instructions = new Vector<Instr>(codeGen.instructions.size());
+		for (Instr instr : codeGen.instructions) {
+			if (instr.isMove && (instr.label == null) && instr.def.contains(instr.t1) && instr.use.contains(instr.t2)
+					&& regToColor.get(instr.t1).equals(regToColor.get(instr.t2))) {
+				continue;
 			}
-			return areAllColored;
-		} catch(Exception e) {
-			throw new CompilerError("Error in select phase during register allocation.");
+			instructions.add(instr);
 		}
+		codeGen.instructions = instructions;
 	}
 	
 	public void startOver(EvalCodeGen codeGen) {
@@ -77,7 +77,7 @@ public class EvalDecl extends FullVisitor {
 
 	public void visit(FunCall funCall) {
 		try {
-			this.attrs.declAttr.set(funCall, symbolTable.fndDecl(funCall.name()));
+			this.attrs.declAttr.set(funCall, symbolTable.fndDecl(funCall.nameId()));
 		} catch (CannotFndNameDecl e) {
 			throw new SemanticError("Cannot find function declaration at " + funCall.toString());
 		}
@@ -88,7 +88,7 @@ public class EvalDecl extends FullVisitor {
 	public void visit(FunDecl funDecl) {
 		if(prototype) {
 			try {
-				symbolTable.insDecl(funDecl.name, funDecl);
+				symbolTable.insDecl(funDecl.nameId, funDecl);
 			} catch (CannotInsNameDecl e1) {
 				throw new SemanticError("Cannot insert function declaration at " + funDecl.toString());
 			}
@@ -107,7 +107,7 @@ public class EvalDecl extends FullVisitor {
 	public void visit(FunDef funDef) {
 		if(prototype) {
 			try {
-				symbolTable.insDecl(funDef.name, funDef);
+				symbolTable.insDecl(funDef.nameId, funDef);
 			} catch (CannotInsNameDecl e1) {
 				throw new SemanticError("Cannot insert function declaration at " + funDef.toString());
 			}
@@ -134,7 +134,7 @@ public class EvalDecl extends FullVisitor {
 		parDecl.type.accept(this);
 		
 		try {
-			symbolTable.insDecl(parDecl.name, parDecl);
+			symbolTable.insDecl(parDecl.nameId, parDecl);
 		} catch (CannotInsNameDecl e) {
 			throw new SemanticError("Cannot insert parameter declaration at " + parDecl.toString());
 		}
@@ -156,7 +156,7 @@ public class EvalDecl extends FullVisitor {
 	public void visit(TypeDecl typDecl) {
 		if(prototype) {
 			try {
-				symbolTable.insDecl(typDecl.name, typDecl);
+				symbolTable.insDecl(typDecl.nameId, typDecl);
 			} catch (CannotInsNameDecl e) {
 				throw new SemanticError("Cannot insert type declaration at " + typDecl.toString());
 			}
@@ -170,7 +170,7 @@ public class EvalDecl extends FullVisitor {
 
 	public void visit(TypeName typeName) {
 		try {
-			this.attrs.declAttr.set(typeName, symbolTable.fndDecl(typeName.name()));
+			this.attrs.declAttr.set(typeName, symbolTable.fndDecl(typeName.nameId()));
 		} catch (CannotFndNameDecl e) {
 			throw new SemanticError("Cannot find type declaration at " + typeName.toString());
 		}
@@ -183,7 +183,7 @@ public class EvalDecl extends FullVisitor {
 	public void visit(VarDecl varDecl) {
 		if(prototype) {
 			try {
-				symbolTable.insDecl(varDecl.name, varDecl);
+				symbolTable.insDecl(varDecl.nameId, varDecl);
 			} catch (CannotInsNameDecl e) {
 				throw new SemanticError("Cannot insert variable declaration at " + varDecl.toString());
 			}
@@ -194,7 +194,7 @@ public class EvalDecl extends FullVisitor {
 
 	public void visit(VarName varName) {
 		try {
-			this.attrs.declAttr.set(varName, symbolTable.fndDecl(varName.name()));
+			this.attrs.declAttr.set(varName, symbolTable.fndDecl(varName.nameId()));
 		} catch (CannotFndNameDecl e) {
 			throw new SemanticError("Cannot find variable declaration at " + varName.toString());
 		}
@@ -0,0 +1,108 @@
+package compiler.phase.seman;
+
+import compiler.common.report.*;
+import compiler.data.ast.*;
+import compiler.data.ast.attr.*;
+
+/**
+ * Resolves names and checks types within a single traversal.
+ * 
+ * <p>
+ * The traversal is performed by {@link compiler.phase.seman.EvalTyp} while
+ * each name is linked to its declaration just before its type is needed. The
+ * scopes are maintained as in {@link compiler.phase.seman.EvalDecl}: all
+ * declarations of a where expression are declared before any of them is
+ * typed, parameters are declared one after another while they are typed in
+ * run 1 (the result type of a function is typed outside the scope of its
+ * parameters) and are declared once again before the body of a function is
+ * checked in run 2.
+ * </p>
+ * 
+ * <p>
+ * As names are resolved and types are checked in a different order than by
+ * the two passes performed one after another, the error reported might not
+ * be the one the separate passes would report. Hence nothing is reported
+ * here: once an error is found, the separate passes should be performed
+ * instead (see {@link compiler.phase.seman.PassManager}).
+ * </p>
+ * 
+ * @author sliva
+ */
+public class EvalDeclTyp extends EvalTyp {
+
+	private final Attributes attrs;
+
+	public EvalDeclTyp(Attributes attrs) {
+		super(attrs);
+		this.attrs = attrs;
+	}
+
+	/** The symbol table used for resolving names. */
+	private SymbolTable nameTable = new SymbolTable();
+
+	private Decl fndDecl(int nameId, Position position) {
+		try {
+			return nameTable.fndDecl(nameId);
+		} catch (CannotFndNameDecl e) {
+			throw new SemanticError("Cannot find declaration at " + position.toString());
+		}
+	}
+
+	private void insDecl(Decl decl) {
+		try {
+			nameTable.insDecl(decl.nameId, decl);
+		} catch (CannotInsNameDecl e) {
+			throw new SemanticError("Cannot insert declaration at " + decl.toString());
+		}
+	}
+
+	@Override
+	protected void begPars(FunDecl funDecl) {
+		nameTable.enterScope();
+		if (run == 2) {
+			for (int p = 0; p < funDecl.numPars(); p++)
+				insDecl(funDecl.par(p));
+		}
+	}
+
+	@Override
+	protected void endPars(FunDecl funDecl) {
+		nameTable.leaveScope();
+	}
+
+	@Override
+	protected void report(String message) {
+	}
+
+	public void visit(FunCall funCall) {
+		this.attrs.declAttr.set(funCall, fndDecl(funCall.nameId(), funCall));
+		super.visit(funCall);
+	}
+
+	public void visit(ParDecl parDecl) {
+		super.visit(parDecl);
+		if (run == 1)
+			insDecl(parDecl);
+	}
+
+	public void visit(TypeName typeName) {
+		this.attrs.declAttr.set(typeName, fndDecl(typeName.nameId(), typeName));
+		super.visit(typeName);
+	}
+
+	public void visit(VarName varName) {
+		this.attrs.declAttr.set(varName, fndDecl(varName.nameId(), varName));
+		super.visit(varName);
+	}
+
+	public void visit(WhereExpr whereExpr) {
+		nameTable.enterScope();
+		for (int d = 0; d < whereExpr.numDecls(); d++) {
+			if (!(whereExpr.decl(d) instanceof DeclError))
+				insDecl(whereExpr.decl(d));
+		}
+		super.visit(whereExpr);
+		nameTable.leaveScope();
+	}
+
+}
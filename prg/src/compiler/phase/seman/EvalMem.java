@@ -23,7 +23,7 @@ public class EvalMem extends FullVisitor {
 	}
 
 	public void visit(AtomExpr atomExpr) {
-		this.attrs.memAttr.set(atomExpr, false);
+		evalMem(atomExpr);
 	}
 
 	public void visit(AtomType atomType) {
@@ -32,24 +32,13 @@ public class EvalMem extends FullVisitor {
 	public void visit(BinExpr binExpr) {
 		binExpr.fstExpr.accept(this);
 		binExpr.sndExpr.accept(this);
-		if (binExpr.oper.equals(BinExpr.Oper.ARR)) {
-			this.attrs.memAttr.set(binExpr, true);
-		} else if (binExpr.oper.equals(BinExpr.Oper.ASSIGN)) {
-			if(!this.attrs.memAttr.get(binExpr.fstExpr)) {
-				throw new SemanticError("Semantic error: expression at " + binExpr.fstExpr.toString() + " must denote an object in memory");
-			}
-			this.attrs.memAttr.set(binExpr, false);
-		} else if (binExpr.oper.equals(BinExpr.Oper.REC)) {
-			this.attrs.memAttr.set(binExpr, true);
-		} else {
-			this.attrs.memAttr.set(binExpr, false);
-		}
+		evalMem(binExpr);
 	}
 
 	public void visit(CastExpr castExpr) {
 		castExpr.type.accept(this);
 		castExpr.expr.accept(this);
-		this.attrs.memAttr.set(castExpr, false);
+		evalMem(castExpr);
 	}
 
 	public void visit(CompDecl compDecl) {
@@ -57,7 +46,7 @@ public class EvalMem extends FullVisitor {
 	}
 
 	public void visit(CompName compName) {
-		this.attrs.memAttr.set(compName, false);
+		evalMem(compName);
 	}
 	
 	public void visit(DeclError declError) {
@@ -67,11 +56,11 @@ public class EvalMem extends FullVisitor {
 		for (int e = 0; e < exprs.numExprs(); e++) {
 			exprs.expr(e).accept(this);
 		}
-		this.attrs.memAttr.set(exprs, false);
+		evalMem(exprs);
 	}
 
 	public void visit(ExprError exprError) {
-		this.attrs.memAttr.set(exprError, false);
+		evalMem(exprError);
 	}
 
 	public void visit(ForExpr forExpr) {
@@ -79,14 +68,14 @@ public class EvalMem extends FullVisitor {
 		forExpr.loBound.accept(this);
 		forExpr.hiBound.accept(this);
 		forExpr.body.accept(this);
-		this.attrs.memAttr.set(forExpr, false);
+		evalMem(forExpr);
 	}
 
 	public void visit(FunCall funCall) {
 		for (int a = 0; a < funCall.numArgs(); a++) {
 			funCall.arg(a).accept(this);
 		}
-		this.attrs.memAttr.set(funCall, false);
+		evalMem(funCall);
 	}
 
 	public void visit(FunDecl funDecl) {
@@ -106,7 +95,7 @@ public class EvalMem extends FullVisitor {
 		ifExpr.cond.accept(this);
 		ifExpr.thenExpr.accept(this);
 		ifExpr.elseExpr.accept(this);
-		this.attrs.memAttr.set(ifExpr, false);
+		evalMem(ifExpr);
 	}
 
 	public void visit(ParDecl parDecl) {
@@ -115,7 +104,7 @@ public class EvalMem extends FullVisitor {
 
 	public void visit(Program program) {
 		program.expr.accept(this);
-		this.attrs.memAttr.set(program, false);
+		evalMem(program);
 	}
 
 	public void visit(PtrType ptrType) {
@@ -140,16 +129,7 @@ public class EvalMem extends FullVisitor {
 
 	public void visit(UnExpr unExpr) {
 		unExpr.subExpr.accept(this);
-		if(unExpr.oper.equals(UnExpr.Oper.VAL)) {
-			this.attrs.memAttr.set(unExpr, true);
-		} else if(unExpr.oper.equals(UnExpr.Oper.MEM)) {
-			if(!this.attrs.memAttr.get(unExpr.subExpr)) {
-				throw new SemanticError("Semantic error: expression at " + unExpr.subExpr.toString() + " must denote an object in memory");
-			}
-			this.attrs.memAttr.set(unExpr, false);
-		} else {
-			this.attrs.memAttr.set(unExpr, false);
-		}
+		evalMem(unExpr);
 	}
 
 	public void visit(VarDecl varDecl) {
@@ -157,7 +137,7 @@ public class EvalMem extends FullVisitor {
 	}
 
 	public void visit(VarName varName) {
-		this.attrs.memAttr.set(varName, true);
+		evalMem(varName);
 	}
 
 	public void visit(WhereExpr whereExpr) {
@@ -165,12 +145,92 @@ public class EvalMem extends FullVisitor {
 		for (int d = 0; d < whereExpr.numDecls(); d++) {
 			whereExpr.decl(d).accept(this);
 		}
-		this.attrs.memAttr.set(whereExpr, false);
+		evalMem(whereExpr);
 	}
 
 	public void visit(WhileExpr whileExpr) {
 		whileExpr.cond.accept(this);
 		whileExpr.body.accept(this);
+		evalMem(whileExpr);
+	}
+
+	// Evaluation of single expressions (once their subexpressions have been
+	// evaluated), shared with EvalValueMem.
+
+	void evalMem(AtomExpr atomExpr) {
+		this.attrs.memAttr.set(atomExpr, false);
+	}
+
+	void evalMem(BinExpr binExpr) {
+		if (binExpr.oper.equals(BinExpr.Oper.ARR)) {
+			this.attrs.memAttr.set(binExpr, true);
+		} else if (binExpr.oper.equals(BinExpr.Oper.ASSIGN)) {
+			if(!this.attrs.memAttr.get(binExpr.fstExpr)) {
+				throw new SemanticError("Semantic error: expression at " + binExpr.fstExpr.toString() + " must denote an object in memory");
+			}
+			this.attrs.memAttr.set(binExpr, false);
+		} else if (binExpr.oper.equals(BinExpr.Oper.REC)) {
+			this.attrs.memAttr.set(binExpr, true);
+		} else {
+			this.attrs.memAttr.set(binExpr, false);
+		}
+	}
+
+	void evalMem(CastExpr castExpr) {
+		this.attrs.memAttr.set(castExpr, false);
+	}
+
+	void evalMem(CompName compName) {
+		this.attrs.memAttr.set(compName, false);
+	}
+
+	void evalMem(Exprs exprs) {
+		this.attrs.memAttr.set(exprs, false);
+	}
+
+	void evalMem(ExprError exprError) {
+		this.attrs.memAttr.set(exprError, false);
+	}
+
+	void evalMem(ForExpr forExpr) {
+		this.attrs.memAttr.set(forExpr, false);
+	}
+
+	void evalMem(FunCall funCall) {
+		this.attrs.memAttr.set(funCall, false);
+	}
+
+	void evalMem(IfExpr ifExpr) {
+		this.attrs.memAttr.set(ifExpr, false);
+	}
+
+	void evalMem(Program program) {
+		this.attrs.memAttr.set(program, false);
+	}
+
+	void evalMem(UnExpr unExpr) {
+		if(unExpr.oper.equals(UnExpr.Oper.VAL)) {
+			this.attrs.memAttr.set(unExpr, true);
+		} else if(unExpr.oper.equals(UnExpr.Oper.MEM)) {
+			if(!this.attrs.memAttr.get(unExpr.subExpr)) {
+				throw new SemanticError("Semantic error: expression at " + unExpr.subExpr.toString() + " must denote an object in memory");
+			}
+			this.attrs.memAttr.set(unExpr, false);
+		} else {
+			this.attrs.memAttr.set(unExpr, false);
+		}
+	}
+
+	void evalMem(VarName varName) {
+		this.attrs.memAttr.set(varName, true);
+	}
+
+	void evalMem(WhereExpr whereExpr) {
+		this.attrs.memAttr.set(whereExpr, false);
+	}
+
+	void evalMem(WhileExpr whileExpr) {
 		this.attrs.memAttr.set(whileExpr, false);
 	}
+
 }
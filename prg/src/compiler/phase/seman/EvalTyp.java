@@ -2,6 +2,7 @@ package compiler.phase.seman;
 
 import java.util.LinkedList;
 
+import compiler.*;
 import compiler.common.report.*;
 import compiler.data.ast.*;
 import compiler.data.ast.attr.*;
@@ -22,23 +23,67 @@ import compiler.data.typ.*;
 public class EvalTyp extends FullVisitor {
 
 	private final Attributes attrs;
-	private int run = 2;
+
+	/** The types of the program. */
+	private final Typs typs = Context.current().typs;
+
+	/**
+	 * The run of the traversal of declarations: types are named in run 0,
+	 * declarations are typed in run 1 and function bodies are checked in run 2.
+	 */
+	protected int run = 2;
 	
 	public EvalTyp(Attributes attrs) {
 		this.attrs = attrs;
 	}
 	
-	/** The symbol table. */
-	private SymbolTable symbolTable = new SymbolTable();
+	/** The symbol table (of components of records). */
+	protected SymbolTable symbolTable = new SymbolTable();
 	
-	private String lastRecNamespace = "#";
+	private int lastRecNamespace = SymbolTable.DEFAULT_NAMESPACE;
+
+	/**
+	 * Called before the parameters of a function are typed (run 1) or before
+	 * the parameters and the body of a function definition are checked (run
+	 * 2).
+	 * 
+	 * @param funDecl
+	 *            The function.
+	 */
+	protected void begPars(FunDecl funDecl) {
+	}
+
+	/**
+	 * Called after the parameters of a function are typed (run 1) or after
+	 * the parameters and the body of a function definition are checked (run
+	 * 2).
+	 * 
+	 * @param funDecl
+	 *            The function.
+	 */
+	protected void endPars(FunDecl funDecl) {
+	}
+
+	/**
+	 * Prints the message of an unexpected exception thrown while checking an
+	 * expression.
+	 * 
+	 * @param message
+	 *            The message.
+	 */
+	protected void report(String message) {
+		System.out.println(message);
+	}
 
 	public void visit(ArrType arrType) {
 		try {
 			arrType.size.accept(this);
 			arrType.elemType.accept(this);
-			if(this.attrs.valueAttr.get(arrType.size) > 0) {
-				this.attrs.typAttr.set(arrType, new ArrTyp(this.attrs.valueAttr.get(arrType.size), this.attrs.typAttr.get(arrType.elemType)));
+			if(!this.attrs.valueAttr.isSet(arrType.size)) {
+				throw new SemanticError("Semantic error: invalid array expression at " + arrType.toString());
+			}
+			if(this.attrs.valueAttr.value(arrType.size) > 0) {
+				this.attrs.typAttr.set(arrType, typs.arrTyp(this.attrs.valueAttr.value(arrType.size), this.attrs.typAttr.get(arrType.elemType)));
 			} else {
 				throw new SemanticError("Semantic error: invalid size of array at " + arrType.toString());
 			}
@@ -50,17 +95,17 @@ public class EvalTyp extends FullVisitor {
 	public void visit(AtomExpr atomExpr) {
 		try {
 			if(atomExpr.type.equals(AtomExpr.AtomTypes.BOOLEAN)) {
-				this.attrs.typAttr.set(atomExpr, new BooleanTyp());
+				this.attrs.typAttr.set(atomExpr, typs.booleanTyp());
 			} else if(atomExpr.type.equals(AtomExpr.AtomTypes.INTEGER)) {
-				this.attrs.typAttr.set(atomExpr, new IntegerTyp());
+				this.attrs.typAttr.set(atomExpr, typs.integerTyp());
 			} else if(atomExpr.type.equals(AtomExpr.AtomTypes.CHAR)) {
-				this.attrs.typAttr.set(atomExpr, new CharTyp());
+				this.attrs.typAttr.set(atomExpr, typs.charTyp());
 			} else if(atomExpr.type.equals(AtomExpr.AtomTypes.STRING)) {
-				this.attrs.typAttr.set(atomExpr, new StringTyp());
+				this.attrs.typAttr.set(atomExpr, typs.stringTyp());
 			} else if(atomExpr.type.equals(AtomExpr.AtomTypes.PTR)) {
-				this.attrs.typAttr.set(atomExpr, new PtrTyp(new VoidTyp()));
+				this.attrs.typAttr.set(atomExpr, typs.ptrTyp(typs.voidTyp()));
 			} else if(atomExpr.type.equals(AtomExpr.AtomTypes.VOID)) {
-				this.attrs.typAttr.set(atomExpr, new VoidTyp());
+				this.attrs.typAttr.set(atomExpr, typs.voidTyp());
 			} else {
 				throw new SemanticError("Semantic error: invalid atom expression at " + atomExpr.toString());
 			}
@@ -72,15 +117,15 @@ public class EvalTyp extends FullVisitor {
 	public void visit(AtomType atomType) {
 		try {
 			if(atomType.type.equals(AtomType.AtomTypes.BOOLEAN)) {
-				this.attrs.typAttr.set(atomType, new BooleanTyp());
+				this.attrs.typAttr.set(atomType, typs.booleanTyp());
 			} else if(atomType.type.equals(AtomType.AtomTypes.INTEGER)) {
-				this.attrs.typAttr.set(atomType, new IntegerTyp());
+				this.attrs.typAttr.set(atomType, typs.integerTyp());
 			} else if(atomType.type.equals(AtomType.AtomTypes.CHAR)) {
-				this.attrs.typAttr.set(atomType, new CharTyp());
+				this.attrs.typAttr.set(atomType, typs.charTyp());
 			} else if(atomType.type.equals(AtomType.AtomTypes.STRING)) {
-				this.attrs.typAttr.set(atomType, new StringTyp());
+				this.attrs.typAttr.set(atomType, typs.stringTyp());
 			} else if(atomType.type.equals(AtomType.AtomTypes.VOID)) {
-				this.attrs.typAttr.set(atomType, new VoidTyp());
+				this.attrs.typAttr.set(atomType, typs.voidTyp());
 			} else {
 				throw new SemanticError("Semantic error: invalid atom type at " + atomType.toString());
 			}
@@ -102,7 +147,7 @@ public class EvalTyp extends FullVisitor {
 					if(!(this.attrs.typAttr.get(binExpr.sndExpr).actualTyp() instanceof IntegerTyp)) {
 						throw new SemanticError("Semantic error: expression at " + binExpr.sndExpr.toString() + " must be integer");
 					}
-					this.attrs.typAttr.set(binExpr, new IntegerTyp());
+					this.attrs.typAttr.set(binExpr, typs.integerTyp());
 				} else if(binExpr.oper.equals(BinExpr.Oper.AND) || binExpr.oper.equals(BinExpr.Oper.OR)) {
 					binExpr.fstExpr.accept(this);
 					binExpr.sndExpr.accept(this);
@@ -112,7 +157,7 @@ public class EvalTyp extends FullVisitor {
 					if(!(this.attrs.typAttr.get(binExpr.sndExpr).actualTyp() instanceof BooleanTyp)) {
 						throw new SemanticError("Semantic error: expression at " + binExpr.sndExpr.toString() + " must be boolean");
 					}
-					this.attrs.typAttr.set(binExpr, new BooleanTyp());
+					this.attrs.typAttr.set(binExpr, typs.booleanTyp());
 				} else if(binExpr.oper.equals(BinExpr.Oper.EQU) || binExpr.oper.equals(BinExpr.Oper.NEQ) ||
 						binExpr.oper.equals(BinExpr.Oper.LTH) || binExpr.oper.equals(BinExpr.Oper.LEQ) || 
 						binExpr.oper.equals(BinExpr.Oper.GTH) || binExpr.oper.equals(BinExpr.Oper.GEQ)) {
@@ -123,7 +168,7 @@ public class EvalTyp extends FullVisitor {
 								this.attrs.typAttr.get(binExpr.fstExpr).actualTyp() instanceof IntegerTyp ||
 								this.attrs.typAttr.get(binExpr.fstExpr).actualTyp() instanceof CharTyp ||
 								this.attrs.typAttr.get(binExpr.fstExpr).actualTyp() instanceof PtrTyp) {
-							this.attrs.typAttr.set(binExpr, new BooleanTyp());
+							this.attrs.typAttr.set(binExpr, typs.booleanTyp());
 						} else {
 							throw new SemanticError("Semantic error: expressions at " + binExpr.fstExpr.toString() + " and " + binExpr.sndExpr.toString() + "must be of boolean, integer, char or pointer type");
 						}
@@ -141,7 +186,7 @@ public class EvalTyp extends FullVisitor {
 					if(!Typ.equiv(fstTyp, sndTyp)) {
 						throw new SemanticError("Semantic error: expressions at " + binExpr.fstExpr + " and " + binExpr.sndExpr + " have different types");
 					}
-					this.attrs.typAttr.set(binExpr, new VoidTyp());
+					this.attrs.typAttr.set(binExpr, typs.voidTyp());
 				} else if (binExpr.oper.equals(BinExpr.Oper.REC)) {
 					binExpr.fstExpr.accept(this);
 					if(!(this.attrs.typAttr.get(binExpr.fstExpr).actualTyp() instanceof RecTyp)) {
@@ -168,7 +213,7 @@ public class EvalTyp extends FullVisitor {
 				}
 //			}
 		} catch (Exception e) {
-			System.out.println(e.getMessage());
+			report(e.getMessage());
 			throw new SemanticError("Semantic error: invalid binary expression at " + binExpr.toString());
 		}
 	}
@@ -200,7 +245,7 @@ public class EvalTyp extends FullVisitor {
 		try {
 			compDecl.type.accept(this);
 			try {
-				symbolTable.insDecl(symbolTable.getTopNamespace(), compDecl.name, compDecl);
+				symbolTable.insDecl(symbolTable.getTopNamespace(), compDecl.nameId, compDecl);
 			} catch (CannotInsNameDecl e) {
 				throw new SemanticError("Semantic error: cannot insert component declaration at " + compDecl.toString());
 			}
@@ -212,8 +257,8 @@ public class EvalTyp extends FullVisitor {
 
 	public void visit(CompName compName) {
 		try {
-			this.attrs.declAttr.set(compName, symbolTable.fndDecl(lastRecNamespace, compName.name()));
-			this.attrs.typAttr.set(compName, this.attrs.typAttr.get(symbolTable.fndDecl(lastRecNamespace, compName.name())));
+			this.attrs.declAttr.set(compName, symbolTable.fndDecl(lastRecNamespace, compName.nameId()));
+			this.attrs.typAttr.set(compName, this.attrs.typAttr.get(symbolTable.fndDecl(lastRecNamespace, compName.nameId())));
 		} catch (CannotFndNameDecl e) {
 			throw new SemanticError("Semantic error: cannot find component declaration at " + compName.toString());
 		} catch (Exception e) {
@@ -260,7 +305,7 @@ public class EvalTyp extends FullVisitor {
 				if(this.attrs.typAttr.get(forExpr.body) == null) {
 					throw new SemanticError("Semantic error: body in for expression at " + forExpr.toString() + " is undefined (null)");
 				}
-				this.attrs.typAttr.set(forExpr, new VoidTyp());
+				this.attrs.typAttr.set(forExpr, typs.voidTyp());
 			}
 		} catch (Exception e) {
 			throw new SemanticError("Semantic error: invalid for expression at " + forExpr.toString());
@@ -294,12 +339,14 @@ public class EvalTyp extends FullVisitor {
 		try {
 			if (run == 1) {
 				LinkedList<Typ> parTyps = new LinkedList<Typ>();
+				begPars(funDecl);
 				for (int p = 0; p < funDecl.numPars(); p++) {
 					funDecl.par(p).accept(this);
 					parTyps.add(this.attrs.typAttr.get(funDecl.par(p)));
 				}
+				endPars(funDecl);
 				funDecl.type.accept(this);
-				FunTyp funTyp = new FunTyp(parTyps, this.attrs.typAttr.get(funDecl.type));
+				FunTyp funTyp = typs.funTyp(parTyps, this.attrs.typAttr.get(funDecl.type));
 				this.attrs.typAttr.set(funDecl, funTyp);
 			} else if (run == 2) {
 				Typ typ = this.attrs.typAttr.get(funDecl.type).actualTyp();
@@ -319,22 +366,26 @@ public class EvalTyp extends FullVisitor {
 		try {
 			if(run == 1) {
 				LinkedList<Typ> parTyps = new LinkedList<Typ>();
+				begPars(funDef);
 				for (int p = 0; p < funDef.numPars(); p++) {
 					funDef.par(p).accept(this);
 					parTyps.add(this.attrs.typAttr.get(funDef.par(p)));
 				}
+				endPars(funDef);
 				funDef.type.accept(this);
-				FunTyp funTyp = new FunTyp(parTyps, this.attrs.typAttr.get(funDef.type));
+				FunTyp funTyp = typs.funTyp(parTyps, this.attrs.typAttr.get(funDef.type));
 				this.attrs.typAttr.set(funDef, funTyp);
 			} else if (run == 2) {
 				Typ typ = this.attrs.typAttr.get(funDef.type).actualTyp();
 				if(!(typ instanceof ReturnableTyp)) {
 					throw new SemanticError("Semantic error: invalid function return type at " + funDef.toString());
 				}
+				begPars(funDef);
 				for (int p = 0; p < funDef.numPars(); p++) {
 					funDef.par(p).accept(this);
 				}
 				funDef.body.accept(this);
+				endPars(funDef);
 				FunTyp funTyp = (FunTyp)this.attrs.typAttr.get(funDef).actualTyp();
 				if (!funTyp.resultTyp.isStructEquivTo(this.attrs.typAttr.get(funDef.body))) {
 					throw new SemanticError("Semantic error: function body returns different type than function return type, at " + funDef.toString());
@@ -360,7 +411,7 @@ public class EvalTyp extends FullVisitor {
 				if(this.attrs.typAttr.get(ifExpr.elseExpr) == null) {
 					throw new SemanticError("Semantic error: else body in if expression at " + ifExpr.toString() + " is undefined (null)");
 				}
-				this.attrs.typAttr.set(ifExpr, new VoidTyp());
+				this.attrs.typAttr.set(ifExpr, typs.voidTyp());
 			}
 		} catch (Exception e) {
 			throw new SemanticError("Semantic error: invalid if expression at " + ifExpr.toString());
@@ -395,7 +446,7 @@ public class EvalTyp extends FullVisitor {
 	public void visit(PtrType ptrType) {
 		try{
 			ptrType.baseType.accept(this);
-			this.attrs.typAttr.set(ptrType, new PtrTyp(this.attrs.typAttr.get(ptrType.baseType)));
+			this.attrs.typAttr.set(ptrType, typs.ptrTyp(this.attrs.typAttr.get(ptrType.baseType)));
 		} catch (Exception e) {
 			throw new SemanticError("Semantic error: invalid pointer type at " + ptrType.toString());
 		}
@@ -403,7 +454,7 @@ public class EvalTyp extends FullVisitor {
 
 	public void visit(RecType recType) {
 		try {
-			String nameSpace = symbolTable.newNamespace(recType.toString());
+			int nameSpace = symbolTable.newNamespace(recType.toString());
 			symbolTable.enterNamespace(nameSpace);
 			LinkedList<Typ> compTyps = new LinkedList<Typ>();
 			for (int c = 0; c < recType.numComps(); c++) {
@@ -462,18 +513,18 @@ public class EvalTyp extends FullVisitor {
 				unExpr.subExpr.accept(this);
 				if(unExpr.oper.equals(UnExpr.Oper.NOT)) {
 					if(this.attrs.typAttr.get(unExpr.subExpr).actualTyp() instanceof BooleanTyp) {
-						this.attrs.typAttr.set(unExpr, new BooleanTyp());
+						this.attrs.typAttr.set(unExpr, typs.booleanTyp());
 					} else {
 						throw new SemanticError("Semantic error: expression at " + unExpr.subExpr.toString() + " must be boolean");
 					}
 				} else if(unExpr.oper.equals(UnExpr.Oper.ADD) || unExpr.oper.equals(UnExpr.Oper.SUB)) {
 					if(this.attrs.typAttr.get(unExpr.subExpr).actualTyp() instanceof IntegerTyp) {
-						this.attrs.typAttr.set(unExpr, new IntegerTyp());
+						this.attrs.typAttr.set(unExpr, typs.integerTyp());
 					} else {
 						throw new SemanticError("Semantic error: expression at " + unExpr.subExpr.toString() + " must be integer");
 					}
 				} else if(unExpr.oper.equals(UnExpr.Oper.MEM)) {
-					this.attrs.typAttr.set(unExpr, new PtrTyp(this.attrs.typAttr.get(unExpr.subExpr)));
+					this.attrs.typAttr.set(unExpr, typs.ptrTyp(this.attrs.typAttr.get(unExpr.subExpr)));
 				} else if(unExpr.oper.equals(UnExpr.Oper.VAL)) {
 					if(this.attrs.typAttr.get(unExpr.subExpr).actualTyp() instanceof PtrTyp) {
 						PtrTyp ptrTyp = (PtrTyp)this.attrs.typAttr.get(unExpr.subExpr).actualTyp();
@@ -545,7 +596,7 @@ public class EvalTyp extends FullVisitor {
 				if(this.attrs.typAttr.get(whileExpr.body) == null) {
 					throw new SemanticError("Semantic error: body in while expression at " + whileExpr.toString() + " is undefined (null)");
 				}
-				this.attrs.typAttr.set(whileExpr, new VoidTyp());
+				this.attrs.typAttr.set(whileExpr, typs.voidTyp());
 			}
 		} catch (Exception e) {
 			throw new SemanticError("Semantic error: invalid while expression at " + whileExpr.toString());
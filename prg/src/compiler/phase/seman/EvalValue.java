@@ -37,7 +37,7 @@ public class EvalValue extends FullVisitor {
 
 	public void visit(AtomExpr atomExpr) {
 		if(atomExpr.type.equals(AtomExpr.AtomTypes.INTEGER)) {
-			Long value;
+			long value;
 			try {
 				value = Long.parseLong((isNegativeUnary ? "-" : "") + atomExpr.value);
 			} catch (NumberFormatException e) {
@@ -53,51 +53,22 @@ public class EvalValue extends FullVisitor {
 	public void visit(BinExpr binExpr) {
 		binExpr.fstExpr.accept(this);
 		binExpr.sndExpr.accept(this);
+		if (!this.attrs.valueAttr.isSet(binExpr.fstExpr) || !this.attrs.valueAttr.isSet(binExpr.sndExpr))
+			return;
+		long fstValue = this.attrs.valueAttr.value(binExpr.fstExpr);
+		long sndValue = this.attrs.valueAttr.value(binExpr.sndExpr);
 		if(binExpr.oper.equals(BinExpr.Oper.ADD)) {
-			try {
-				Long fstValue = this.attrs.valueAttr.get(binExpr.fstExpr);
-				Long sndValue = this.attrs.valueAttr.get(binExpr.sndExpr);
-				Long value = fstValue + sndValue;
-				this.attrs.valueAttr.set(binExpr, value);
-			} catch (Exception e) {
-				return;
-			}
+			this.attrs.valueAttr.set(binExpr, fstValue + sndValue);
 		} else if(binExpr.oper.equals(BinExpr.Oper.SUB)) {
-			try {
-				Long fstValue = this.attrs.valueAttr.get(binExpr.fstExpr);
-				Long sndValue = this.attrs.valueAttr.get(binExpr.sndExpr);
-				Long value = fstValue - sndValue;
-				this.attrs.valueAttr.set(binExpr, value);
-			} catch (Exception e) {
-				return;
-			}
+			this.attrs.valueAttr.set(binExpr, fstValue - sndValue);
 		} else if(binExpr.oper.equals(BinExpr.Oper.MUL)) {
-			try {
-				Long fstValue = this.attrs.valueAttr.get(binExpr.fstExpr);
-				Long sndValue = this.attrs.valueAttr.get(binExpr.sndExpr);
-				Long value = fstValue * sndValue;
-				this.attrs.valueAttr.set(binExpr, value);
-			} catch (Exception e) {
-				return;
-			}
+			this.attrs.valueAttr.set(binExpr, fstValue * sndValue);
 		} else if(binExpr.oper.equals(BinExpr.Oper.DIV)) {
-			try {
-				Long fstValue = this.attrs.valueAttr.get(binExpr.fstExpr);
-				Long sndValue = this.attrs.valueAttr.get(binExpr.sndExpr);
-				Long value = fstValue / sndValue;
-				this.attrs.valueAttr.set(binExpr, value);
-			} catch (Exception e) {
-				return;
-			}
+			if (sndValue != 0)
+				this.attrs.valueAttr.set(binExpr, fstValue / sndValue);
 		} else if(binExpr.oper.equals(BinExpr.Oper.MOD)) {
-			try {
-				Long fstValue = this.attrs.valueAttr.get(binExpr.fstExpr);
-				Long sndValue = this.attrs.valueAttr.get(binExpr.sndExpr);
-				Long value = fstValue % sndValue;
-				this.attrs.valueAttr.set(binExpr, value);
-			} catch (Exception e) {
-				return;
-			}
+			if (sndValue != 0)
+				this.attrs.valueAttr.set(binExpr, fstValue % sndValue);
 		}
 	}
 
@@ -188,9 +159,8 @@ public class EvalValue extends FullVisitor {
 			isNegativeUnary = true;
 		}
 		unExpr.subExpr.accept(this);
-		Long value = null;
-		value = this.attrs.valueAttr.get(unExpr.subExpr);
-		if(value != null) {
+		if(this.attrs.valueAttr.isSet(unExpr.subExpr)) {
+			long value = this.attrs.valueAttr.value(unExpr.subExpr);
 			if(unExpr.oper.equals(UnExpr.Oper.ADD)) {
 				try {
 					this.attrs.valueAttr.set(unExpr, value);
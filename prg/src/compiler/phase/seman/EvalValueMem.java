@@ -0,0 +1,98 @@
+package compiler.phase.seman;
+
+import compiler.data.ast.*;
+import compiler.data.ast.attr.*;
+
+/**
+ * Computes the values of simple integer constant expressions and evaluates
+ * which expressions evaluate to addressable values within a single traversal.
+ * 
+ * <p>
+ * The traversal is performed by {@link compiler.phase.seman.EvalValue} while
+ * each expression is also evaluated by {@link compiler.phase.seman.EvalMem}
+ * once its subexpressions have been. Neither pass depends on the results of
+ * the other one.
+ * </p>
+ * 
+ * @author sliva
+ */
+public class EvalValueMem extends EvalValue {
+
+	private final EvalMem evalMem;
+
+	public EvalValueMem(Attributes attrs) {
+		super(attrs);
+		this.evalMem = new EvalMem(attrs);
+	}
+
+	public void visit(AtomExpr atomExpr) {
+		super.visit(atomExpr);
+		evalMem.evalMem(atomExpr);
+	}
+
+	public void visit(BinExpr binExpr) {
+		super.visit(binExpr);
+		evalMem.evalMem(binExpr);
+	}
+
+	public void visit(CastExpr castExpr) {
+		super.visit(castExpr);
+		evalMem.evalMem(castExpr);
+	}
+
+	public void visit(CompName compName) {
+		super.visit(compName);
+		evalMem.evalMem(compName);
+	}
+
+	public void visit(Exprs exprs) {
+		super.visit(exprs);
+		evalMem.evalMem(exprs);
+	}
+
+	public void visit(ExprError exprError) {
+		super.visit(exprError);
+		evalMem.evalMem(exprError);
+	}
+
+	public void visit(ForExpr forExpr) {
+		super.visit(forExpr);
+		evalMem.evalMem(forExpr);
+	}
+
+	public void visit(FunCall funCall) {
+		super.visit(funCall);
+		evalMem.evalMem(funCall);
+	}
+
+	public void visit(IfExpr ifExpr) {
+		super.visit(ifExpr);
+		evalMem.evalMem(ifExpr);
+	}
+
+	public void visit(Program program) {
+		super.visit(program);
+		evalMem.evalMem(program);
+	}
+
+	public void visit(UnExpr unExpr) {
+		super.visit(unExpr);
+		evalMem.evalMem(unExpr);
+	}
+
+	public void visit(VarName varName) {
+		super.visit(varName);
+		evalMem.evalMem(varName);
+	}
+
+	public void visit(WhereExpr whereExpr) {
+		super.visit(whereExpr);
+		evalMem.evalMem(whereExpr);
+	}
+
+	public void visit(WhileExpr whileExpr) {
+		super.visit(whileExpr);
+		evalMem.evalMem(whileExpr);
+	}
+
+}
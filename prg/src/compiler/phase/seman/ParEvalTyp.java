@@ -0,0 +1,108 @@
+package compiler.phase.seman;
+
+import java.util.*;
+
+import compiler.*;
+import compiler.data.ast.*;
+import compiler.data.ast.attr.*;
+
+/**
+ * Type checker checking function bodies in parallel.
+ *
+ * <p>
+ * Names must already be resolved by {@link compiler.phase.seman.EvalDecl}.
+ * Once the declarations of the where expression the program consists of are
+ * typed, the bodies of the functions defined there are checked by separate
+ * type checkers on worker threads while the rest of the program is checked by
+ * this type checker. The components of records declared so far are kept in a
+ * symbol table that is not modified any more, and each type checker makes its
+ * own declarations of components within a symbol table chained to it.
+ * </p>
+ *
+ * <p>
+ * As function bodies are checked in no particular order, the error reported
+ * might not be the one {@link compiler.phase.seman.EvalTyp} would report.
+ * Hence nothing is reported here: once an error is found, the passes should
+ * be performed one after another instead (see
+ * {@link compiler.phase.seman.PassManager}).
+ * </p>
+ *
+ * @author sliva
+ */
+public class ParEvalTyp extends EvalTyp {
+
+	private final Attributes attrs;
+
+	/** The number of worker threads. */
+	private final int numThreads;
+
+	/** The worker threads checking function bodies. */
+	private Workers workers = null;
+
+	/** The functions defined within the where expression of the program. */
+	private final HashSet<FunDef> outerFunDefs = new HashSet<FunDef>();
+
+	/**
+	 * The symbol table function bodies are checked against (or
+	 * <code>null</code> if no function body has been forked yet).
+	 */
+	private SymbolTable outerSymbolTable = null;
+
+	public ParEvalTyp(Attributes attrs, int numThreads) {
+		super(attrs);
+		this.attrs = attrs;
+		this.numThreads = numThreads;
+	}
+
+	@Override
+	protected void report(String message) {
+	}
+
+	@Override
+	public void visit(Program program) {
+		workers = new Workers(numThreads);
+		try {
+			attrs.reserve();
+			if (program.expr instanceof WhereExpr) {
+				WhereExpr whereExpr = (WhereExpr) program.expr;
+				for (int d = 0; d < whereExpr.numDecls(); d++)
+					if (whereExpr.decl(d) instanceof FunDef)
+						outerFunDefs.add((FunDef) whereExpr.decl(d));
+			}
+			try {
+				super.visit(program);
+			} catch (RuntimeException | Error ex) {
+				workers.join();
+				throw ex;
+			}
+			workers.join();
+		} finally {
+			workers.close();
+		}
+	}
+
+	@Override
+	public void visit(final FunDef funDef) {
+		if ((run != 2) || !outerFunDefs.contains(funDef)) {
+			super.visit(funDef);
+			return;
+		}
+		if (outerSymbolTable == null) {
+			outerSymbolTable = symbolTable;
+			symbolTable = new SymbolTable(outerSymbolTable);
+		}
+		final EvalTyp evalTyp = new EvalTyp(attrs) {
+			@Override
+			protected void report(String message) {
+			}
+		};
+		evalTyp.symbolTable = new SymbolTable(outerSymbolTable);
+		workers.fork(new Runnable() {
+			@Override
+			public void run() {
+				funDef.accept(evalTyp);
+			}
+		});
+	}
+
+}
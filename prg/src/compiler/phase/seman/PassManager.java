@@ -0,0 +1,95 @@
+package compiler.phase.seman;
+
+import compiler.*;
+import compiler.common.report.*;
+import compiler.data.ast.attr.*;
+
+/**
+ * Semantic analysis pass manager.
+ * 
+ * <p>
+ * The passes of semantic analysis, i.e., {@link compiler.phase.seman.EvalValue}
+ * , {@link compiler.phase.seman.EvalDecl},
+ * {@link compiler.phase.seman.EvalTyp} and {@link compiler.phase.seman.EvalMem}
+ * , are performed within two traversals of the abstract syntax tree:
+ * {@link compiler.phase.seman.EvalValueMem} computes values and addressability
+ * (neither depends on declarations or types) and
+ * {@link compiler.phase.seman.EvalDeclTyp} resolves names and checks types
+ * (which needs the values of array sizes). Each traversal is measured as a
+ * separate phase. If function bodies are processed in parallel, names are
+ * resolved by {@link compiler.phase.seman.EvalDecl} first and types are then
+ * checked by {@link compiler.phase.seman.ParEvalTyp} instead.
+ * </p>
+ * 
+ * <p>
+ * Fused traversals and parallel type checking find semantic errors in a
+ * different order than separate passes do. Hence, if a semantic error is
+ * found, the attributes are discarded and the passes are performed once again
+ * one after another, so that exactly the same error is reported as without
+ * fusing. Internal compiler errors and runtime exceptions are not caught.
+ * </p>
+ * 
+ * @author sliva
+ */
+public class PassManager {
+
+	/** The compilation task. */
+	private final Task task;
+
+	/**
+	 * Constructs a new pass manager.
+	 * 
+	 * @param task
+	 *            The compilation task.
+	 */
+	public PassManager(Task task) {
+		this.task = task;
+	}
+
+	/**
+	 * Performs all passes of semantic analysis, fusing them or checking
+	 * function bodies in parallel where possible.
+	 */
+	public void run() {
+		try {
+			task.stats.begPhase("EvalValue+EvalMem");
+			(new EvalValueMem(task.prgAttrs)).visit(task.prgAST);
+			task.stats.endPhase();
+			if (task.parallelism > 1) {
+				task.stats.begPhase("EvalDecl");
+				(new EvalDecl(task.prgAttrs)).visit(task.prgAST);
+				task.stats.endPhase();
+				task.stats.begPhase("EvalTyp");
+				(new ParEvalTyp(task.prgAttrs, task.parallelism)).visit(task.prgAST);
+				task.stats.endPhase();
+			} else {
+				task.stats.begPhase("EvalDecl+EvalTyp");
+				(new EvalDeclTyp(task.prgAttrs)).visit(task.prgAST);
+				task.stats.endPhase();
+			}
+		} catch (SemanticError ex) {
+			task.stats.endPhase();
+			task.prgAttrs = new Attributes();
+			runSeparately();
+		}
+	}
+
+	/**
+	 * Performs all passes of semantic analysis one after another.
+	 */
+	public void runSeparately() {
+		task.stats.begPhase("EvalValue");
+		(new EvalValue(task.prgAttrs)).visit(task.prgAST);
+		task.stats.endPhase();
+		task.stats.begPhase("EvalDecl");
+		(new EvalDecl(task.prgAttrs)).visit(task.prgAST);
+		task.stats.endPhase();
+		task.stats.begPhase("EvalTyp");
+		(new EvalTyp(task.prgAttrs)).visit(task.prgAST);
+		task.stats.endPhase();
+		task.stats.begPhase("EvalMem");
+		(new EvalMem(task.prgAttrs)).visit(task.prgAST);
+		task.stats.endPhase();
+	}
+
+}
@@ -76,12 +76,12 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(atomExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(atomExpr) != null)
-			attrs.typAttr.get(atomExpr).log(logger);
-		if (attrs.valueAttr.get(atomExpr) != null)
-			logger.addAttribute("value", attrs.valueAttr.get(atomExpr).toString());
+		if (attrs.valueAttr.isSet(atomExpr))
+			logger.addAttribute("value", Long.toString(attrs.valueAttr.value(atomExpr)));
 		if (attrs.memAttr.get(atomExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(atomExpr) != null)
+			attrs.typAttr.get(atomExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -102,12 +102,12 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(binExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(binExpr) != null)
-			attrs.typAttr.get(binExpr).log(logger);
-		if (attrs.valueAttr.get(binExpr) != null)
-			logger.addAttribute("value", attrs.valueAttr.get(binExpr).toString());
+		if (attrs.valueAttr.isSet(binExpr))
+			logger.addAttribute("value", Long.toString(attrs.valueAttr.value(binExpr)));
 		if (attrs.memAttr.get(binExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(binExpr) != null)
+			attrs.typAttr.get(binExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -141,8 +141,6 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(compName);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(compName) != null)
-			attrs.typAttr.get(compName).log(logger);
 		{
 			Decl decl = attrs.declAttr.get(compName);
 			if (decl != null) {
@@ -153,6 +151,8 @@ public class SemAnToXML extends AbstrToXML {
 		}
 		if (attrs.memAttr.get(compName))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(compName) != null)
+			attrs.typAttr.get(compName).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -173,10 +173,10 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(exprs);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(exprs) != null)
-			attrs.typAttr.get(exprs).log(logger);
 		if (attrs.memAttr.get(exprs))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(exprs) != null)
+			attrs.typAttr.get(exprs).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -197,10 +197,10 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(forExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(forExpr) != null)
-			attrs.typAttr.get(forExpr).log(logger);
 		if (attrs.memAttr.get(forExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(forExpr) != null)
+			attrs.typAttr.get(forExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -210,8 +210,6 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(funCall);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(funCall) != null)
-			attrs.typAttr.get(funCall).log(logger);
 		{
 			Decl decl = attrs.declAttr.get(funCall);
 			if (decl != null) {
@@ -222,6 +220,8 @@ public class SemAnToXML extends AbstrToXML {
 		}
 		if (attrs.memAttr.get(funCall))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(funCall) != null)
+			attrs.typAttr.get(funCall).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -253,10 +253,10 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(ifExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(ifExpr) != null)
-			attrs.typAttr.get(ifExpr).log(logger);
 		if (attrs.memAttr.get(ifExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(ifExpr) != null)
+			attrs.typAttr.get(ifExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -277,10 +277,10 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(program);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(program) != null)
-			attrs.typAttr.get(program).log(logger);
 		if (attrs.memAttr.get(program))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(program) != null)
+			attrs.typAttr.get(program).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -338,8 +338,6 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(typeName);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(typeName) != null)
-			attrs.typAttr.get(typeName).log(logger);
 		{
 			Decl decl = attrs.declAttr.get(typeName);
 			if (decl != null) {
@@ -348,6 +346,8 @@ public class SemAnToXML extends AbstrToXML {
 				logger.addAttribute("decl", ((Position) decl).toString());
 			}
 		}
+		if (attrs.typAttr.get(typeName) != null)
+			attrs.typAttr.get(typeName).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -357,12 +357,12 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(unExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(unExpr) != null)
-			attrs.typAttr.get(unExpr).log(logger);
-		if (attrs.valueAttr.get(unExpr) != null)
-			logger.addAttribute("value", attrs.valueAttr.get(unExpr).toString());
+		if (attrs.valueAttr.isSet(unExpr))
+			logger.addAttribute("value", Long.toString(attrs.valueAttr.value(unExpr)));
 		if (attrs.memAttr.get(unExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(unExpr) != null)
+			attrs.typAttr.get(unExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -383,8 +383,6 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(varName);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(varName) != null)
-			attrs.typAttr.get(varName).log(logger);
 		{
 			Decl decl = attrs.declAttr.get(varName);
 			if (decl != null) {
@@ -395,6 +393,8 @@ public class SemAnToXML extends AbstrToXML {
 		}
 		if (attrs.memAttr.get(varName))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(varName) != null)
+			attrs.typAttr.get(varName).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -404,10 +404,10 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(whereExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(whereExpr) != null)
-			attrs.typAttr.get(whereExpr).log(logger);
 		if (attrs.memAttr.get(whereExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(whereExpr) != null)
+			attrs.typAttr.get(whereExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
@@ -417,10 +417,10 @@ public class SemAnToXML extends AbstrToXML {
 		begElement();
 		super.visit(whileExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(whileExpr) != null)
-			attrs.typAttr.get(whileExpr).log(logger);
 		if (attrs.memAttr.get(whileExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(whileExpr) != null)
+			attrs.typAttr.get(whileExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
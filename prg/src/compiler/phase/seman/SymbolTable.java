@@ -2,6 +2,7 @@ package compiler.phase.seman;
 
 import java.util.*;
 
+import compiler.*;
 import compiler.common.report.*;
 import compiler.data.ast.*;
 
@@ -25,9 +26,10 @@ import compiler.data.ast.*;
  * inner scope.</li>
  * <li><i>namespaces</i>: The default namespace is <code>#</code>. A new
  * namespace is entered by calling
- * {@link compiler.phase.seman.SymbolTable#enterNamespace(String)
- * enterNamespace} and providing the unique namespace name enterNamespace} where
- * the uniqueness of the namespace's name is the responsibility of the
+ * {@link compiler.phase.seman.SymbolTable#enterNamespace(int)
+ * enterNamespace} and providing the unique namespace number obtained by
+ * {@link compiler.phase.seman.SymbolTable#newNamespace(String) newNamespace}
+ * where the uniqueness of the namespace's name is the responsibility of the
  * programmer. The namespace is leaved by calling
  * {@link compiler.phase.seman.SymbolTable#leaveNamespace() leaveNamespace}.
  * Namespaces are nested and each declaration made within outer namespaces is
@@ -35,71 +37,193 @@ import compiler.data.ast.*;
  * the same name within the inner namespace.</li>
  * </ul>
  * 
+ * <p>
+ * Names are given by their numbers (see {@link compiler.common.names.Names})
+ * and namespaces are numbered as well, so declarations are found by pairs of
+ * numbers without building or hashing strings. All declarations made are kept
+ * on a trail in the order they have been made, so leaving a scope merely
+ * undoes the declarations at the top of the trail: the time needed for
+ * entering and leaving scopes is proportional to the number of declarations
+ * made within them.
+ * </p>
+ * 
+ * <p>
+ * A symbol table can be chained to an outer symbol table that is not
+ * modified any more: declarations are looked up within the outer symbol table
+ * unless found within the symbol table itself, while new declarations and
+ * namespaces are made within the symbol table only. Hence several symbol
+ * tables chained to the same outer symbol table can be used by different
+ * threads at the same time.
+ * </p>
+ * 
  * @author sliva
  */
 public class SymbolTable {
 
+	/** The number of the default namespace. */
+	public static final int DEFAULT_NAMESPACE = 0;
+
 	/**
 	 * Creates a new symbol table.
 	 * 
 	 * The initial scope is entered and the default namespace is prepared.
 	 */
 	public SymbolTable() {
-		symbolTable = new HashMap<String, LinkedList<ScopedDecl>>();
+		this(null);
+	}
+
+	/**
+	 * Creates a new symbol table chained to an outer symbol table.
+	 * 
+	 * The initial scope is entered and the namespace the outer symbol table is
+	 * within is entered.
+	 * 
+	 * @param outer
+	 *            The outer symbol table (or <code>null</code> if there is
+	 *            none).
+	 */
+	public SymbolTable(SymbolTable outer) {
+		this.outer = outer;
+
+		heads = new int[256];
+		Arrays.fill(heads, -1);
+
+		keys = new long[16];
+		keyIdxs = new int[16];
+		isUsed = new boolean[16];
+		numKeys = 0;
+
+		decls = new Decl[64];
+		declKeyIdxs = new int[64];
+		outers = new int[64];
+		numDecls = 0;
 
 		scope = 0;
-		scopes = new LinkedList<LinkedList<String>>();
-		scopes.addFirst(new LinkedList<String>());
+		scopeBegs = new int[16];
 
-		namespaces = new Stack<String>();
-		namespaces.push("");
+		namespaceIds = new HashMap<String, Integer>();
+		namespaceNames = new Vector<String>();
+		namespaces = new int[8];
+		if (outer == null) {
+			firstNamespace = 0;
+			namespaceId("#");
+			namespaces[0] = namespaceId("");
+		} else {
+			firstNamespace = outer.firstNamespace + outer.namespaceNames.size();
+			namespaces[0] = outer.getTopNamespace();
+		}
+		numNamespaces = 1;
 	}
 
+	/** The outer symbol table (or <code>null</code> if there is none). */
+	private final SymbolTable outer;
+
 	// Scopes.
 
+	/*
+	 * Each name within its namespace is given a key index: a name within the
+	 * default namespace is indexed by its number directly, any other name is
+	 * given an index the first time it is declared. The declarations of a name
+	 * form a list (linked by the trail indices of outer declarations) with the
+	 * most recent declaration at the head of the list.
+	 */
+
 	/**
-	 * A declaration of a name at a particular scope.
-	 * 
-	 * @author sliva
+	 * The trail indices of the most recent declarations of names (indexed by
+	 * key indices, -1 if there is none).
 	 */
-	private class ScopedDecl {
+	private int[] heads;
 
-		/** The scope. */
-		public int scope;
+	/** Names within namespaces other than the default one. */
+	private long[] keys;
 
-		/** The declaration. */
-		public Decl decl;
+	/** Key indices of names within namespaces other than the default one. */
+	private int[] keyIdxs;
 
-	}
+	/** Whether a slot of the hash table of keys is used. */
+	private boolean[] isUsed;
 
-	/** The current scope. */
-	private int scope;
+	/** The number of used slots of the hash table of keys. */
+	private int numKeys;
+
+	/** The declarations made (the trail). */
+	private Decl[] decls;
+
+	/** The key indices of names declared by the declarations on the trail. */
+	private int[] declKeyIdxs;
 
 	/**
-	 * The mapping of each node to its declarations at different scopes. The of
-	 * name's declarations includes all declarations at different scopes, with
-	 * the most recent declaration at the head of the list.
+	 * The trail indices of declarations of the same names at outer scopes (-1
+	 * if there is none).
 	 */
-	private HashMap<String, LinkedList<ScopedDecl>> symbolTable;
+	private int[] outers;
+
+	/** The number of declarations on the trail. */
+	private int numDecls;
+
+	/** The current scope. */
+	private int scope;
+
+	/** The size of the trail when each active scope has been entered. */
+	private int[] scopeBegs;
 
 	/**
-	 * A stack of spaces, i.e., a list of all declarations by scopes, used for
-	 * flushing out declarations when leaving a scope.
+	 * Returns the key index of a name within a namespace.
 	 * 
-	 * <p>
-	 * The inner list includes all names that have been declared at a particular
-	 * scope, and thus the outer list contains all names declared at different
-	 * scopes, with the most recent scope at the head of the list.
-	 * </p>
+	 * @param create
+	 *            Whether a new key index should be given to a name within a
+	 *            namespace other than the default one if it has none yet.
+	 * @return The key index or -1 if there is none.
 	 */
-	private LinkedList<LinkedList<String>> scopes;
+	private int keyIdx(int nameSpace, int nameId, boolean create) {
+		if (nameSpace == DEFAULT_NAMESPACE)
+			return 2 * nameId;
+		long key = ((long) nameSpace << 32) | (nameId & 0xFFFFFFFFL);
+		int mask = keys.length - 1;
+		int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		while (isUsed[slot]) {
+			if (keys[slot] == key)
+				return keyIdxs[slot];
+			slot = (slot + 1) & mask;
+		}
+		if (!create)
+			return -1;
+		keys[slot] = key;
+		keyIdxs[slot] = 2 * numKeys + 1;
+		isUsed[slot] = true;
+		if (2 * ++numKeys > keys.length)
+			rehash();
+		return 2 * numKeys - 1;
+	}
+
+	private void rehash() {
+		long[] oldKeys = keys;
+		int[] oldKeyIdxs = keyIdxs;
+		boolean[] oldIsUsed = isUsed;
+		keys = new long[2 * oldKeys.length];
+		keyIdxs = new int[2 * oldKeys.length];
+		isUsed = new boolean[2 * oldKeys.length];
+		int mask = keys.length - 1;
+		for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+			if (!oldIsUsed[oldSlot])
+				continue;
+			int slot = (int) ((oldKeys[oldSlot] * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+			while (isUsed[slot])
+				slot = (slot + 1) & mask;
+			keys[slot] = oldKeys[oldSlot];
+			keyIdxs[slot] = oldKeyIdxs[oldSlot];
+			isUsed[slot] = true;
+		}
+	}
 
 	/**
 	 * Enters a new scope.
 	 */
 	public void enterScope() {
 		scope++;
-		scopes.addFirst(new LinkedList<String>());
+		if (scope == scopeBegs.length)
+			scopeBegs = Arrays.copyOf(scopeBegs, 2 * scopeBegs.length);
+		scopeBegs[scope] = numDecls;
 	}
 
 	/**
@@ -107,13 +231,12 @@ public class SymbolTable {
 	 * current scope.
 	 */
 	public void leaveScope() {
-		for (String name : scopes.peek()) {
-			LinkedList<ScopedDecl> scopedDecls = symbolTable.get(name);
-			scopedDecls.removeFirst();
-			if (scopedDecls.isEmpty())
-				symbolTable.remove(name);
+		int scopeBeg = scopeBegs[scope];
+		while (numDecls > scopeBeg) {
+			numDecls--;
+			heads[declKeyIdxs[numDecls]] = outers[numDecls];
+			decls[numDecls] = null;
 		}
-		scopes.removeFirst();
 		scope--;
 	}
 
@@ -123,54 +246,51 @@ public class SymbolTable {
 	 * 
 	 * @param nameSpace
 	 *            The namespace that the declaration of the name is made within.
-	 * @param name
-	 *            The name declared.
+	 * @param nameId
+	 *            The number of the name declared.
 	 * @param decl
 	 *            The declaration of the name.
 	 * @throws CannotInsNameDecl
 	 *             If the name cannot be declared at this scope as it has
 	 *             already been.
 	 */
-	public void insDecl(String nameSpace, String name, Decl decl) throws CannotInsNameDecl {
-		LinkedList<ScopedDecl> scopedDecls = symbolTable.get(nameSpace + name);
-		if (scopedDecls == null) {
-			scopedDecls = new LinkedList<ScopedDecl>();
-			{
-				ScopedDecl scopedDecl = new ScopedDecl();
-				scopedDecl.scope = scope;
-				scopedDecl.decl = decl;
-				scopedDecls.addFirst(scopedDecl);
-				scopes.peek().addFirst(nameSpace + name);
-			}
-			symbolTable.put(nameSpace + name, scopedDecls);
-		} else {
-			ScopedDecl scopedDecl = scopedDecls.peekFirst();
-			if (scopedDecl.scope == scope) {
-				throw new CannotInsNameDecl(((Position) scopedDecl.decl).toString());
-			} else {
-				scopedDecl = new ScopedDecl();
-				scopedDecl.scope = scope;
-				scopedDecl.decl = decl;
-				scopedDecls.addFirst(scopedDecl);
-				scopes.peek().addFirst(nameSpace + name);
-			}
+	public void insDecl(int nameSpace, int nameId, Decl decl) throws CannotInsNameDecl {
+		int keyIdx = keyIdx(nameSpace, nameId, true);
+		if (keyIdx >= heads.length) {
+			int length = heads.length;
+			heads = Arrays.copyOf(heads, Math.max(2 * length, keyIdx + 1));
+			Arrays.fill(heads, length, heads.length, -1);
 		}
+		int head = heads[keyIdx];
+		if (head >= scopeBegs[scope])
+			throw new CannotInsNameDecl(((Position) decls[head]).toString());
+
+		if (numDecls == decls.length) {
+			decls = Arrays.copyOf(decls, 2 * numDecls);
+			declKeyIdxs = Arrays.copyOf(declKeyIdxs, 2 * numDecls);
+			outers = Arrays.copyOf(outers, 2 * numDecls);
+		}
+		decls[numDecls] = decl;
+		declKeyIdxs[numDecls] = keyIdx;
+		outers[numDecls] = head;
+		heads[keyIdx] = numDecls;
+		numDecls++;
 	}
 
 	/**
 	 * Inserts a declaration of a name within the current scope and within the
 	 * default namespace.
 	 * 
-	 * @param name
-	 *            The name declared.
+	 * @param nameId
+	 *            The number of the name declared.
 	 * @param decl
 	 *            The declaration of the name.
 	 * @throws CannotInsNameDecl
 	 *             If the name cannot be declared at this scope as it has
 	 *             already been.
 	 */
-	public void insDecl(String name, Decl decl) throws CannotInsNameDecl {
-		insDecl("#", name, decl);
+	public void insDecl(int nameId, Decl decl) throws CannotInsNameDecl {
+		insDecl(DEFAULT_NAMESPACE, nameId, decl);
 	}
 
 	/**
@@ -179,72 +299,122 @@ public class SymbolTable {
 	 * 
 	 * @param nameSpace
 	 *            The namespace that the declaration of the name is made within.
-	 * @param name
-	 *            The name the declaration is being looked for.
+	 * @param nameId
+	 *            The number of the name the declaration is being looked for.
 	 * @return The declaration of the name.
 	 * @throws CannotFndNameDecl
 	 *             If the declaration is not found.
 	 */
-	public Decl fndDecl(String nameSpace, String name) throws CannotFndNameDecl {
-		LinkedList<ScopedDecl> scopedDecls = symbolTable.get(nameSpace + name);
-		if ((scopedDecls == null) || (scopedDecls.isEmpty()))
-			throw new CannotFndNameDecl(nameSpace + name);
-		else
-			return scopedDecls.peekFirst().decl;
+	public Decl fndDecl(int nameSpace, int nameId) throws CannotFndNameDecl {
+		int keyIdx = keyIdx(nameSpace, nameId, false);
+		if ((keyIdx < 0) || (keyIdx >= heads.length) || (heads[keyIdx] < 0)) {
+			if ((outer != null) && (nameSpace < firstNamespace))
+				return outer.fndDecl(nameSpace, nameId);
+			throw new CannotFndNameDecl(namespaceName(nameSpace) + Context.current().names.name(nameId));
+		} else
+			return decls[heads[keyIdx]];
 	}
 
 	/**
 	 * Returns the declaration of a name within all active scopes and within the
 	 * default namespace.
 	 * 
-	 * @param name
-	 *            The name the declaration is being looked for.
+	 * @param nameId
+	 *            The number of the name the declaration is being looked for.
 	 * @return The declaration of the name.
 	 * @throws CannotFndNameDecl
 	 *             If the declaration is not found.
 	 */
-	public Decl fndDecl(String name) throws CannotFndNameDecl {
-		return fndDecl("#", name);
+	public Decl fndDecl(int nameId) throws CannotFndNameDecl {
+		return fndDecl(DEFAULT_NAMESPACE, nameId);
 	}
 
 	// Namespaces.
 
 	/** The stack of namespaces. */
-	private Stack<String> namespaces;
+	private int[] namespaces;
+
+	/** The number of namespaces on the stack. */
+	private int numNamespaces;
+
+	/** Numbers of namespaces. */
+	private HashMap<String, Integer> namespaceIds;
+
+	/**
+	 * Names of namespaces indexed by their numbers (less the number of the
+	 * first namespace).
+	 */
+	private Vector<String> namespaceNames;
 
 	/**
-	 * Generates a new namespace name.
+	 * The number of the first namespace of this symbol table (namespaces of
+	 * the outer symbol table have smaller numbers).
+	 */
+	private final int firstNamespace;
+
+	private int namespaceId(String namespace) {
+		Integer id = namespaceIds.get(namespace);
+		if ((id == null) && (outer != null))
+			id = outer.findNamespaceId(namespace);
+		if (id == null) {
+			id = firstNamespace + namespaceNames.size();
+			namespaceIds.put(namespace, id);
+			namespaceNames.add(namespace);
+		}
+		return id;
+	}
+
+	private Integer findNamespaceId(String namespace) {
+		Integer id = namespaceIds.get(namespace);
+		if ((id == null) && (outer != null))
+			id = outer.findNamespaceId(namespace);
+		return id;
+	}
+
+	private String namespaceName(int namespace) {
+		if (namespace < firstNamespace)
+			return outer.namespaceName(namespace);
+		return namespaceNames.get(namespace - firstNamespace);
+	}
+
+	/**
+	 * Generates a new namespace.
 	 * 
 	 * @param name
 	 *            The name associated with this namespace.
-	 * @return A new namespace name unique within a current context.
+	 * @return The number of a new namespace unique within a current context.
 	 */
-	public String newNamespace(String name) {
-		return (namespaces.size() > 0 ? namespaces.peek() : "") + name + "#";
+	public int newNamespace(String name) {
+		return namespaceId((numNamespaces > 0 ? namespaceName(namespaces[numNamespaces - 1]) : "") + name + "#");
 	}
 
 	/**
 	 * Enters a new namespace;
 	 * 
 	 * @param namespace
-	 *            The namespace's name.
+	 *            The namespace's number.
 	 */
-	public void enterNamespace(String namespace) {
-		namespaces.push(namespace);
+	public void enterNamespace(int namespace) {
+		if (numNamespaces == namespaces.length)
+			namespaces = Arrays.copyOf(namespaces, 2 * numNamespaces);
+		namespaces[numNamespaces++] = namespace;
 	}
 
 	/**
 	 * Leaves the current namespace.
 	 */
 	public void leaveNamespace() {
-		if (namespaces.size() > 0)
-			namespaces.pop();
+		if (numNamespaces > 0)
+			numNamespaces--;
 		else
 			throw new InternalCompilerError();
 	}
 	
-	public String getTopNamespace() {
-		return namespaces.peek();
+	public int getTopNamespace() {
+		if (numNamespaces > 0)
+			return namespaces[numNamespaces - 1];
+		else
+			throw new EmptyStackException();
 	}
 
 }
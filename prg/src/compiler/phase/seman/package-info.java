@@ -19,6 +19,12 @@
  * assignment.</li>
  * </ul>
  * 
+ * <p>
+ * The visitors are run by {@link compiler.phase.seman.PassManager} which fuses
+ * them into two traversals ({@link compiler.phase.seman.EvalValueMem} and
+ * {@link compiler.phase.seman.EvalDeclTyp}).
+ * </p>
+ * 
  * @author sliva
  */
 package compiler.phase.seman;
\ No newline at end of file
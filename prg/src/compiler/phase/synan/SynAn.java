@@ -22,6 +22,9 @@ public class SynAn extends Phase {
 	/** The lexical analyzer. */
 	private final LexAn lexAn;
 
+	/** The lexical symbols produced by the lexical analyzer. */
+	private final TokenBuffer tokens;
+
 	/**
 	 * Constructs a new syntax analyzer.
 	 * 
@@ -31,6 +34,7 @@ public class SynAn extends Phase {
 	public SynAn(Task task) {
 		super(task, "synan");
 		this.lexAn = new LexAn(task);
+		this.tokens = lexAn.tokens();
 		if(task.phase.equals("synan")){
 			this.logger.setTransformer(//
 					new Transformer() {
@@ -49,8 +53,15 @@ public class SynAn extends Phase {
 							return null;
 						}
 	
-						private void leftMostDer(Node node) {
-							if (((Element) node).getTagName().equals("nont")) {
+						// The derivation tree is as deep as the program is
+						// nested, so it is walked with an explicit stack.
+						private void leftMostDer(Node root) {
+							Stack<Node> nodes = new Stack<Node>();
+							nodes.push(root);
+							while (!nodes.isEmpty()) {
+								Node node = nodes.pop();
+								if (!((Element) node).getTagName().equals("nont"))
+									continue;
 								String nodeName = nodeName(node);
 								NodeList children = node.getChildNodes();
 								StringBuffer production = new StringBuffer();
@@ -61,10 +72,8 @@ public class SynAn extends Phase {
 									production.append(" " + childName);
 								}
 								Report.info(production.toString());
-								for (int childIdx = 0; childIdx < children.getLength(); childIdx++) {
-									Node child = children.item(childIdx);
-									leftMostDer(child);
-								}
+								for (int childIdx = children.getLength() - 1; childIdx >= 0; childIdx--)
+									nodes.push(children.item(childIdx));
 							}
 						}
 	
@@ -87,8 +96,11 @@ public class SynAn extends Phase {
 		super.close();
 	}
 
-	/** The parser's lookahead buffer. */
-	private Symbol laSymbol;
+	/** The parser's lookahead buffer (the number of the symbol). */
+	private int laSymbol;
+
+	/** The token of the symbol in the lookahead buffer. */
+	private Symbol.Token laToken;
 
 	/**
 	 * Reads the next lexical symbol from the source file and stores it in the
@@ -98,13 +110,42 @@ public class SynAn extends Phase {
 	 * @return The previous symbol (the one that has just been replaced by the
 	 *         new symbol).
 	 */
-	private Symbol nextSymbol() throws IOException {
-		Symbol symbol = laSymbol;
-		symbol.log(logger);
-		laSymbol = lexAn.lexAn();
+	private int nextSymbol() throws IOException {
+		int symbol = laSymbol;
+		if (logger != null)
+			tokens.symbol(symbol).log(logger);
+		laSymbol = lexAn.nextToken();
+		laToken = tokens.token(laSymbol);
 		return symbol;
 	}
 
+	// Positions of AST nodes are constructed from numbers of lexical symbols
+	// and positions of subtrees.
+
+	private Position position(int sym) {
+		return tokens.position(sym);
+	}
+
+	private Position position(int begSym, int endSym) {
+		return tokens.position(begSym, endSym);
+	}
+
+	private Position position(int begSym, Position endPosition) {
+		return tokens.position(begSym, endPosition);
+	}
+
+	private Position position(Position begPosition, int endSym) {
+		return tokens.position(begPosition, endSym);
+	}
+
+	private Position position(Position begPosition, Position endPosition) {
+		return new Position(begPosition, endPosition);
+	}
+
+	private Position position(Position position) {
+		return new Position(position);
+	}
+
 	/**
 	 * Logs the error token inserted when a missing lexical symbol has been
 	 * reported.
@@ -148,10 +189,11 @@ public class SynAn extends Phase {
 	 * @throws IOException 
 	 */
 	public Program synAn() throws IOException {
-		laSymbol = lexAn.lexAn();
+		laSymbol = lexAn.nextToken();
+		laToken = tokens.token(laSymbol);
 		Program prg = parseProgram();
-		if (laSymbol.token != Symbol.Token.EOF)
-			Report.warning(laSymbol, "Unexpected symbol(s) at the end of file.");
+		if (laToken != Symbol.Token.EOF)
+			Report.warning(tokens.position(laSymbol), "Unexpected symbol(s) at the end of file.");
 		return prg;
 	}
 
@@ -161,7 +203,7 @@ public class SynAn extends Phase {
 	private Program parseProgram() throws IOException {
 		begLog("Program");
 		Program prg = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: 
 		case SUB:
 		case NOT:
@@ -180,20 +222,36 @@ public class SynAn extends Phase {
 		case WHILE:
 		{
 			Expr e = parseExpression();
-			prg = new Program(new Position(e), e);
+			prg = new Program(position(e), e);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseProgram()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseProgram()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return prg;
 	}
 	
 	private Expr parseExpression() throws IOException {
+		// Expressions (and types) can be nested arbitrarily deep.
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<Expr, IOException>() {
+				@Override
+				public Expr call() throws IOException {
+					return parseExpression();
+				}
+			});
+		try {
+			return parseNestedExpression();
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private Expr parseNestedExpression() throws IOException {
 		begLog("Expression");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: 
 		case SUB:
 		case NOT:
@@ -211,31 +269,49 @@ public class SynAn extends Phase {
 		case FOR:
 		case WHILE:
 		{
-			e = parseAssignmentExpression();
+			if (logger == null)
+				e = parseOperatorExpression();
+			else
+				e = parseAssignmentExpression();
 			e = parseExpressionPrime(e);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseExpression()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseExpression()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
 	}
 	
-	private Expr parseExpressionPrime(Expr expr) throws IOException {
+	private Expr parseExpressionPrime(final Expr expr) throws IOException {
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<Expr, IOException>() {
+				@Override
+				public Expr call() throws IOException {
+					return parseExpressionPrime(expr);
+				}
+			});
+		try {
+			return parseNestedExpressionPrime(expr);
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private Expr parseNestedExpressionPrime(Expr expr) throws IOException {
 		begLog("ExpressionPrime");
 		Expr e = expr;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case WHERE: {
-			Symbol symWhere = nextSymbol();
-			Symbol symEnd;
+			int symWhere = nextSymbol();
+			int symEnd;
 			LinkedList<Decl> decls = parseDeclarations();
-			if (laSymbol.token == Symbol.Token.END) {
+			if (laToken == Symbol.Token.END) {
 				symEnd = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseExpressionPrime()/: missing symbol END, instead saw unexpected symbol " + laSymbol.token + " at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseExpressionPrime()/: missing symbol END, instead saw unexpected symbol " + laToken + " at " + tokens.toString(laSymbol));
 			}
-			e = new WhereExpr(new Position(expr, symEnd), expr, decls);
+			e = new WhereExpr(position(expr, symEnd), expr, decls);
 			e = parseExpressionPrime(e);
 			break;
 		}
@@ -253,7 +329,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseExpressionPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseExpressionPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -263,7 +339,7 @@ public class SynAn extends Phase {
 		begLog("Expressions");
 		LinkedList<Expr> exprs = new LinkedList<Expr>();
 //		Exprs e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: 
 		case SUB:
 		case NOT:
@@ -283,21 +359,52 @@ public class SynAn extends Phase {
 		{
 			exprs.add(parseExpression());
 			exprs = parseExpressionsPrime(exprs);
-//			e = new Exprs(new Position("smeni", 0, 0), exprs);
+//			e = new Exprs(position("smeni", 0, 0), exprs);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseExpressions()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseExpressions()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return exprs;
 	}
 	
-	private LinkedList<Expr> parseExpressionsPrime(LinkedList<Expr> exprs) throws IOException {
+	private LinkedList<Expr> parseExpressionsPrime(final LinkedList<Expr> exprs) throws IOException {
+		// Unless the derivation tree is being logged, the list is parsed by a
+		// loop; otherwise every element adds a level to the derivation tree.
+		if (logger == null) {
+			while (true) {
+				switch (laToken) {
+				case COMMA:
+					nextSymbol();
+					exprs.add(parseExpression());
+					continue;
+				case CLOSING_PARENTHESIS:
+					return exprs;
+				default:
+					throw new SyntaxError("Syntax error /parseExpressionsPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
+				}
+			}
+		}
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<LinkedList<Expr>, IOException>() {
+				@Override
+				public LinkedList<Expr> call() throws IOException {
+					return parseExpressionsPrime(exprs);
+				}
+			});
+		try {
+			return parseNestedExpressionsPrime(exprs);
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private LinkedList<Expr> parseNestedExpressionsPrime(LinkedList<Expr> exprs) throws IOException {
 		begLog("ExpressionsPrime");
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case COMMA: {
-			Symbol symComma = nextSymbol();
+			int symComma = nextSymbol();
 			exprs.add(parseExpression());
 			exprs = parseExpressionsPrime(exprs);
 			break;
@@ -306,16 +413,333 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseExpressionsPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseExpressionsPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return exprs;
 	}
 	
+	// Unless the derivation tree is being logged, the operator layers of an
+	// expression (from the assignment expression down to the postfix
+	// expression) are parsed by the precedence-climbing parser below instead
+	// of the recursive descent. It builds the same trees and reports the same
+	// syntax errors, but it keeps pending operators and operands on its own
+	// stacks: neither long chains of binary operators nor deeply nested prefix
+	// and postfix operators use up the Java stack.
+
+	/* Precedence levels of operators. */
+	private static final int ASSIGN_LEVEL = 0;
+	private static final int OR_LEVEL = 1;
+	private static final int AND_LEVEL = 2;
+	private static final int REL_LEVEL = 3;
+	private static final int ADD_LEVEL = 4;
+	private static final int MUL_LEVEL = 5;
+	private static final int PREFIX_LEVEL = 6;
+
+	/**
+	 * The names of the parse methods that report an unexpected symbol instead
+	 * of the operand of an operator (indexed by the level of the operator).
+	 */
+	private static final String[] operandParsers = { "parseDisjunctiveExpression", "parseConjunctiveExpression",
+			"parseRelationalExpression", "parseAdditiveExpression", "parseMultiplicativeExpression",
+			"parsePrefixExpression", "parsePrefixExpression" };
+
+	/** The levels of pending operators. */
+	private int[] oprLevels = new int[64];
+
+	/** The symbols of pending operators. */
+	private int[] oprSymbols = new int[64];
+
+	/** The types of pending casts (<code>null</code> for other operators). */
+	private Type[] oprTypes = new Type[64];
+
+	/** The number of pending operators. */
+	private int oprCount = 0;
+
+	/** The pending operands. */
+	private Expr[] opnds = new Expr[64];
+
+	/** The number of pending operands. */
+	private int opndCount = 0;
+
+	/**
+	 * Parses an assignment expression using the precedence-climbing parser.
+	 * 
+	 * @return The expression.
+	 */
+	private Expr parseOperatorExpression() throws IOException {
+		// Nested expressions (e.g., within parentheses) use the top of the
+		// same stacks.
+		int oprBase = oprCount;
+		int opndBase = opndCount;
+		String operandParser = "parseAssignmentExpression";
+		while (true) {
+			// Prefix operators.
+			boolean prefix = true;
+			while (prefix) {
+				switch (laToken) {
+				case ADD:
+				case SUB:
+				case NOT:
+				case MEM:
+					pushOperator(PREFIX_LEVEL, nextSymbol(), null);
+					operandParser = "parsePrefixExpression";
+					break;
+				case OPENING_BRACKET: {
+					int symOpeningBracket = nextSymbol();
+					Type type = parseType();
+					if (laToken == Symbol.Token.CLOSING_BRACKET) {
+						nextSymbol();
+					} else {
+						throw new SyntaxError("Syntax error /parsePrefixExpression()/: missing closing bracket, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
+					}
+					pushOperator(PREFIX_LEVEL, symOpeningBracket, type);
+					operandParser = "parsePrefixExpression";
+					break;
+				}
+				default:
+					prefix = false;
+				}
+			}
+
+			// The operand with its postfix operators.
+			switch (laToken) {
+			case IDENTIFIER:
+			case CONST_INTEGER:
+			case CONST_BOOLEAN:
+			case CONST_CHAR:
+			case CONST_STRING:
+			case CONST_NULL:
+			case CONST_NONE:
+			case OPENING_PARENTHESIS:
+			case IF:
+			case FOR:
+			case WHILE:
+				break;
+			default:
+				throw new SyntaxError("Syntax error /" + operandParser + "()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
+			}
+			pushOperand(parsePostfixOperators(parseAtomicExpression()));
+			reduce(oprBase, PREFIX_LEVEL);
+
+			// The binary operator (if any).
+			int level = binaryLevel(laToken);
+			if (level < 0)
+				break;
+			switch (level) {
+			case ASSIGN_LEVEL:
+				// Assignments are not associative.
+				reduce(oprBase, level + 1);
+				if ((oprCount > oprBase) && (oprLevels[oprCount - 1] == level))
+					throw new SyntaxError("Syntax error /parseExpressionPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
+				break;
+			case REL_LEVEL:
+				// Relational operators are not associative.
+				reduce(oprBase, level + 1);
+				if ((oprCount > oprBase) && (oprLevels[oprCount - 1] == level))
+					throw new SyntaxError("Syntax error /parseConjunctiveExpressionPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
+				break;
+			default:
+				reduce(oprBase, level);
+				break;
+			}
+			pushOperator(level, nextSymbol(), null);
+			operandParser = operandParsers[level];
+		}
+		reduce(oprBase, ASSIGN_LEVEL);
+
+		if (opndCount != opndBase + 1)
+			throw new InternalCompilerError();
+		Expr e = opnds[--opndCount];
+		opnds[opndCount] = null;
+		return e;
+	}
+
+	/**
+	 * Parses the postfix operators following an atomic expression using the
+	 * precedence-climbing parser.
+	 * 
+	 * @param expr
+	 *            The atomic expression.
+	 * @return The postfix expression.
+	 */
+	private Expr parsePostfixOperators(Expr expr) throws IOException {
+		Expr e = expr;
+		while (true) {
+			switch (laToken) {
+			case OPENING_BRACKET: {
+				int symOpeningBracket = nextSymbol();
+				int symClosingBracket;
+				Expr sndExpr = parseExpression();
+				if (laToken == Symbol.Token.CLOSING_BRACKET) {
+					symClosingBracket = nextSymbol();
+				} else {
+					throw new SyntaxError("Syntax error /parsePostfixExpressionPrime()/: missing closing bracket, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
+				}
+				e = new BinExpr(position(e, symClosingBracket), BinExpr.Oper.ARR, e, sndExpr);
+				break;
+			}
+			case DOT: {
+				int symDot = nextSymbol();
+				int symId;
+				if (laToken == Symbol.Token.IDENTIFIER) {
+					symId = nextSymbol();
+				} else {
+					throw new SyntaxError("Syntax error /parsePostfixExpressionPrime()/: missing identifier, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
+				}
+				e = new BinExpr(position(e, symId), BinExpr.Oper.REC, e, new CompName(position(symId), tokens.lexeme(symId), tokens.nameId(symId)));
+				break;
+			}
+			case VAL: {
+				int symVal = nextSymbol();
+				e = new UnExpr(position(e, symVal), UnExpr.Oper.VAL, e);
+				break;
+			}
+			case WHERE:
+			case END:
+			case COMMA:
+			case ASSIGN:
+			case OR:
+			case AND:
+			case EQU: 
+			case NEQ:
+			case LTH:
+			case GTH:
+			case LEQ:
+			case GEQ:
+			case ADD:
+			case SUB:
+			case MUL:
+			case DIV: 
+			case MOD:
+			case CLOSING_BRACKET: 
+			case CLOSING_PARENTHESIS: 
+			case THEN: 
+			case ELSE: 
+			case COLON: 
+			case TYP: 
+			case FUN: 
+			case VAR:
+			case EOF:
+				return e;
+			default:
+				throw new SyntaxError("Syntax error /parsePostfixExpressionPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
+			}
+		}
+	}
+
+	/**
+	 * Returns the level of a binary operator, or -1 if the token does not
+	 * denote a binary operator.
+	 */
+	private static int binaryLevel(Symbol.Token token) {
+		switch (token) {
+		case ASSIGN:
+			return ASSIGN_LEVEL;
+		case OR:
+			return OR_LEVEL;
+		case AND:
+			return AND_LEVEL;
+		case EQU:
+		case NEQ:
+		case LTH:
+		case GTH:
+		case LEQ:
+		case GEQ:
+			return REL_LEVEL;
+		case ADD:
+		case SUB:
+			return ADD_LEVEL;
+		case MUL:
+		case DIV:
+		case MOD:
+			return MUL_LEVEL;
+		default:
+			return -1;
+		}
+	}
+
+	private void pushOperator(int level, int sym, Type type) {
+		if (oprCount == oprLevels.length) {
+			oprLevels = Arrays.copyOf(oprLevels, 2 * oprCount);
+			oprSymbols = Arrays.copyOf(oprSymbols, 2 * oprCount);
+			oprTypes = Arrays.copyOf(oprTypes, 2 * oprCount);
+		}
+		oprLevels[oprCount] = level;
+		oprSymbols[oprCount] = sym;
+		oprTypes[oprCount] = type;
+		oprCount++;
+	}
+
+	private void pushOperand(Expr expr) {
+		if (opndCount == opnds.length)
+			opnds = Arrays.copyOf(opnds, 2 * opndCount);
+		opnds[opndCount++] = expr;
+	}
+
+	/**
+	 * Applies the pending operators (above the given base) of at least the
+	 * given level to the pending operands.
+	 */
+	private void reduce(int oprBase, int minLevel) {
+		while ((oprCount > oprBase) && (oprLevels[oprCount - 1] >= minLevel)) {
+			oprCount--;
+			int sym = oprSymbols[oprCount];
+			Type type = oprTypes[oprCount];
+			oprTypes[oprCount] = null;
+			Expr sndExpr = opnds[--opndCount];
+			opnds[opndCount] = null;
+			Expr e;
+			if (oprLevels[oprCount] == PREFIX_LEVEL) {
+				if (type != null) {
+					e = new CastExpr(position(sym, sndExpr), type, sndExpr);
+				} else {
+					UnExpr.Oper oper;
+					switch (tokens.token(sym)) {
+					case ADD: oper = UnExpr.Oper.ADD; break;
+					case SUB: oper = UnExpr.Oper.SUB; break;
+					case NOT: oper = UnExpr.Oper.NOT; break;
+					case MEM: oper = UnExpr.Oper.MEM; break;
+					default: throw new InternalCompilerError();
+					}
+					e = new UnExpr(position(sym, sndExpr), oper, sndExpr);
+				}
+			} else {
+				Expr fstExpr = opnds[--opndCount];
+				BinExpr.Oper oper;
+				switch (tokens.token(sym)) {
+				case ASSIGN: oper = BinExpr.Oper.ASSIGN; break;
+				case OR: oper = BinExpr.Oper.OR; break;
+				case AND: oper = BinExpr.Oper.AND; break;
+				case EQU: oper = BinExpr.Oper.EQU; break;
+				case NEQ: oper = BinExpr.Oper.NEQ; break;
+				case LTH: oper = BinExpr.Oper.LTH; break;
+				case GTH: oper = BinExpr.Oper.GTH; break;
+				case LEQ: oper = BinExpr.Oper.LEQ; break;
+				case GEQ: oper = BinExpr.Oper.GEQ; break;
+				case ADD: oper = BinExpr.Oper.ADD; break;
+				case SUB: oper = BinExpr.Oper.SUB; break;
+				case MUL: oper = BinExpr.Oper.MUL; break;
+				case DIV: oper = BinExpr.Oper.DIV; break;
+				case MOD: oper = BinExpr.Oper.MOD; break;
+				default: throw new InternalCompilerError();
+				}
+				e = new BinExpr(position(fstExpr, sndExpr), oper, fstExpr, sndExpr);
+			}
+			opnds[opndCount++] = e;
+		}
+	}
+	
+	// When the derivation tree is being logged, the operator layers of an
+	// expression are parsed by the recursive descent below. As a chain of
+	// binary operators or a run of prefix or postfix operators nests the
+	// derivation tree as deeply as it is long, the recursive productions are
+	// guarded (see Recursion).
+
 	private Expr parseAssignmentExpression() throws IOException {
 		begLog("AssignmentExpression");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: 
 		case SUB:
 		case NOT:
@@ -338,7 +762,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseAssignmentExpression()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseAssignmentExpression()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -347,11 +771,11 @@ public class SynAn extends Phase {
 	private Expr parseAssignmentExpressionPrime(Expr expr) throws IOException {
 		begLog("AssignmentExpressionPrime");
 		Expr e = expr;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ASSIGN: {
-			Symbol symAssign = nextSymbol();
+			int symAssign = nextSymbol();
 			Expr disExpr = parseDisjunctiveExpression();
-			e = new BinExpr(new Position(expr, disExpr), BinExpr.Oper.ASSIGN, expr, disExpr);
+			e = new BinExpr(position(expr, disExpr), BinExpr.Oper.ASSIGN, expr, disExpr);
 			break;
 		}
 		case WHERE:
@@ -369,7 +793,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseAssignmentExpressionPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseAssignmentExpressionPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -378,7 +802,7 @@ public class SynAn extends Phase {
 	private Expr parseDisjunctiveExpression() throws IOException {
 		begLog("DisjunctiveExpression");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: 
 		case SUB:
 		case NOT:
@@ -401,20 +825,35 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseDisjunctiveExpression()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseDisjunctiveExpression()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
 	}
 	
-	private Expr parseDisjunctiveExpressionPrime(Expr expr) throws IOException {
+	private Expr parseDisjunctiveExpressionPrime(final Expr expr) throws IOException {
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<Expr, IOException>() {
+				@Override
+				public Expr call() throws IOException {
+					return parseDisjunctiveExpressionPrime(expr);
+				}
+			});
+		try {
+			return parseNestedDisjunctiveExpressionPrime(expr);
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private Expr parseNestedDisjunctiveExpressionPrime(Expr expr) throws IOException {
 		begLog("DisjunctiveExpressionPrime");
 		Expr e = expr;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case OR: {
-			Symbol symOr = nextSymbol();
+			int symOr = nextSymbol();
 			Expr conExpr = parseConjunctiveExpression();
-			e = new BinExpr(new Position(expr, conExpr), BinExpr.Oper.OR, expr, conExpr);
+			e = new BinExpr(position(expr, conExpr), BinExpr.Oper.OR, expr, conExpr);
 			e = parseDisjunctiveExpressionPrime(e);
 			break;
 		}
@@ -434,7 +873,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseDisjunctiveExpressionPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseDisjunctiveExpressionPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -443,7 +882,7 @@ public class SynAn extends Phase {
 	private Expr parseConjunctiveExpression() throws IOException {
 		begLog("ConjunctiveExpression");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: 
 		case SUB:
 		case NOT:
@@ -466,20 +905,35 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseConjunctiveExpression()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseConjunctiveExpression()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
 	}
 	
-	private Expr parseConjunctiveExpressionPrime(Expr expr) throws IOException {
+	private Expr parseConjunctiveExpressionPrime(final Expr expr) throws IOException {
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<Expr, IOException>() {
+				@Override
+				public Expr call() throws IOException {
+					return parseConjunctiveExpressionPrime(expr);
+				}
+			});
+		try {
+			return parseNestedConjunctiveExpressionPrime(expr);
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private Expr parseNestedConjunctiveExpressionPrime(Expr expr) throws IOException {
 		begLog("ConjunctiveExpressionPrime");
 		Expr e = expr;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case AND: {
-			Symbol symAnd = nextSymbol();
+			int symAnd = nextSymbol();
 			Expr relExpr = parseRelationalExpression();
-			e = new BinExpr(new Position(expr, relExpr), BinExpr.Oper.AND, expr, relExpr);
+			e = new BinExpr(position(expr, relExpr), BinExpr.Oper.AND, expr, relExpr);
 			e = parseConjunctiveExpressionPrime(e);
 			break;
 		}
@@ -500,7 +954,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseConjunctiveExpressionPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseConjunctiveExpressionPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -509,7 +963,7 @@ public class SynAn extends Phase {
 	private Expr parseRelationalExpression() throws IOException {
 		begLog("RelationalExpression");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: 
 		case SUB:
 		case NOT:
@@ -532,7 +986,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseRelationalExpression()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseRelationalExpression()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -541,41 +995,41 @@ public class SynAn extends Phase {
 	private Expr parseRelationalExpressionPrime(Expr expr) throws IOException {
 		begLog("RelationalExpressionPrime");
 		Expr e = expr;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case EQU: {
-			Symbol symEqu = nextSymbol();
+			int symEqu = nextSymbol();
 			Expr addExpr = parseAdditiveExpression();
-			e = new BinExpr(new Position(expr, addExpr), BinExpr.Oper.EQU, expr, addExpr);
+			e = new BinExpr(position(expr, addExpr), BinExpr.Oper.EQU, expr, addExpr);
 			break;
 		}
 		case NEQ: {
-			Symbol symNeq = nextSymbol();
+			int symNeq = nextSymbol();
 			Expr addExpr = parseAdditiveExpression();
-			e = new BinExpr(new Position(expr, addExpr), BinExpr.Oper.NEQ, expr, addExpr);
+			e = new BinExpr(position(expr, addExpr), BinExpr.Oper.NEQ, expr, addExpr);
 			break;
 		}
 		case LTH: {
-			Symbol symLth = nextSymbol();
+			int symLth = nextSymbol();
 			Expr addExpr = parseAdditiveExpression();
-			e = new BinExpr(new Position(expr, addExpr), BinExpr.Oper.LTH, expr, addExpr);
+			e = new BinExpr(position(expr, addExpr), BinExpr.Oper.LTH, expr, addExpr);
 			break;
 		}
 		case GTH: {
-			Symbol symGth = nextSymbol();
+			int symGth = nextSymbol();
 			Expr addExpr = parseAdditiveExpression();
-			e = new BinExpr(new Position(expr, addExpr), BinExpr.Oper.GTH, expr, addExpr);
+			e = new BinExpr(position(expr, addExpr), BinExpr.Oper.GTH, expr, addExpr);
 			break;
 		}
 		case LEQ: {
-			Symbol symLeq = nextSymbol();
+			int symLeq = nextSymbol();
 			Expr addExpr = parseAdditiveExpression();
-			e = new BinExpr(new Position(expr, addExpr), BinExpr.Oper.LEQ, expr, addExpr);
+			e = new BinExpr(position(expr, addExpr), BinExpr.Oper.LEQ, expr, addExpr);
 			break;
 		}
 		case GEQ: {
-			Symbol symGeq = nextSymbol();
+			int symGeq = nextSymbol();
 			Expr addExpr = parseAdditiveExpression();
-			e = new BinExpr(new Position(expr, addExpr), BinExpr.Oper.GEQ, expr, addExpr);
+			e = new BinExpr(position(expr, addExpr), BinExpr.Oper.GEQ, expr, addExpr);
 			break;
 		}
 		case WHERE:
@@ -596,7 +1050,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseRelationalExpressionPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseRelationalExpressionPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -605,7 +1059,7 @@ public class SynAn extends Phase {
 	private Expr parseAdditiveExpression() throws IOException {
 		begLog("AdditiveExpression");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: 
 		case SUB:
 		case NOT:
@@ -628,27 +1082,42 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseAdditiveExpression()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseAdditiveExpression()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
 	}
 	
-	private Expr parseAdditiveExpressionPrime(Expr expr) throws IOException {
+	private Expr parseAdditiveExpressionPrime(final Expr expr) throws IOException {
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<Expr, IOException>() {
+				@Override
+				public Expr call() throws IOException {
+					return parseAdditiveExpressionPrime(expr);
+				}
+			});
+		try {
+			return parseNestedAdditiveExpressionPrime(expr);
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private Expr parseNestedAdditiveExpressionPrime(Expr expr) throws IOException {
 		begLog("AdditiveExpressionPrime");
 		Expr e = expr;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: {
-			Symbol symAdd = nextSymbol();
+			int symAdd = nextSymbol();
 			Expr mulExpr = parseMultiplicativeExpression();
-			e = new BinExpr(new Position(expr, mulExpr), BinExpr.Oper.ADD, expr, mulExpr);
+			e = new BinExpr(position(expr, mulExpr), BinExpr.Oper.ADD, expr, mulExpr);
 			e = parseAdditiveExpressionPrime(e);
 			break;
 		}
 		case SUB: {
-			Symbol symSub = nextSymbol();
+			int symSub = nextSymbol();
 			Expr mulExpr = parseMultiplicativeExpression();
-			e = new BinExpr(new Position(expr, mulExpr), BinExpr.Oper.SUB, expr, mulExpr);
+			e = new BinExpr(position(expr, mulExpr), BinExpr.Oper.SUB, expr, mulExpr);
 			e = parseAdditiveExpressionPrime(e);
 			break;
 		}
@@ -676,7 +1145,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseAdditiveExpressionPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseAdditiveExpressionPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -685,7 +1154,7 @@ public class SynAn extends Phase {
 	private Expr parseMultiplicativeExpression() throws IOException {
 		begLog("MultiplicativeExpression");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: 
 		case SUB:
 		case NOT:
@@ -708,34 +1177,49 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseMultiplicativeExpression()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseMultiplicativeExpression()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
 	}
 	
-	private Expr parseMultiplicativeExpressionPrime(Expr expr) throws IOException {
+	private Expr parseMultiplicativeExpressionPrime(final Expr expr) throws IOException {
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<Expr, IOException>() {
+				@Override
+				public Expr call() throws IOException {
+					return parseMultiplicativeExpressionPrime(expr);
+				}
+			});
+		try {
+			return parseNestedMultiplicativeExpressionPrime(expr);
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private Expr parseNestedMultiplicativeExpressionPrime(Expr expr) throws IOException {
 		begLog("MultiplicativeExpressionPrime");
 		Expr e = expr;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case MUL: {
-			Symbol symMul = nextSymbol();
+			int symMul = nextSymbol();
 			Expr prefExpr = parsePrefixExpression();
-			e = new BinExpr(new Position(expr, prefExpr), BinExpr.Oper.MUL, expr, prefExpr);
+			e = new BinExpr(position(expr, prefExpr), BinExpr.Oper.MUL, expr, prefExpr);
 			e = parseMultiplicativeExpressionPrime(e);
 			break;
 		}
 		case DIV: {
-			Symbol symDiv = nextSymbol();
+			int symDiv = nextSymbol();
 			Expr prefExpr = parsePrefixExpression();
-			e = new BinExpr(new Position(expr, prefExpr), BinExpr.Oper.DIV, expr, prefExpr);
+			e = new BinExpr(position(expr, prefExpr), BinExpr.Oper.DIV, expr, prefExpr);
 			e = parseMultiplicativeExpressionPrime(e);
 			break;
 		}
 		case MOD: {
-			Symbol symMod = nextSymbol();
+			int symMod = nextSymbol();
 			Expr prefExpr = parsePrefixExpression();
-			e = new BinExpr(new Position(expr, prefExpr), BinExpr.Oper.MOD, expr, prefExpr);
+			e = new BinExpr(position(expr, prefExpr), BinExpr.Oper.MOD, expr, prefExpr);
 			e = parseMultiplicativeExpressionPrime(e);
 			break;
 		}
@@ -765,51 +1249,66 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseMultiplicativeExpressionPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseMultiplicativeExpressionPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
 	}
 	
 	private Expr parsePrefixExpression() throws IOException {
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<Expr, IOException>() {
+				@Override
+				public Expr call() throws IOException {
+					return parsePrefixExpression();
+				}
+			});
+		try {
+			return parseNestedPrefixExpression();
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private Expr parseNestedPrefixExpression() throws IOException {
 		begLog("PrefixExpression");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: {
-			Symbol symAdd = nextSymbol();
+			int symAdd = nextSymbol();
 			Expr prefExpr = parsePrefixExpression();
-			e = new UnExpr(new Position(symAdd, prefExpr), UnExpr.Oper.ADD, prefExpr);
+			e = new UnExpr(position(symAdd, prefExpr), UnExpr.Oper.ADD, prefExpr);
 			break;
 		}
 		case SUB: {
-			Symbol symSub = nextSymbol();
+			int symSub = nextSymbol();
 			Expr prefExpr = parsePrefixExpression();
-			e = new UnExpr(new Position(symSub, prefExpr), UnExpr.Oper.SUB, prefExpr);
+			e = new UnExpr(position(symSub, prefExpr), UnExpr.Oper.SUB, prefExpr);
 			break;
 		}
 		case NOT: {
-			Symbol symNot = nextSymbol();
+			int symNot = nextSymbol();
 			Expr prefExpr = parsePrefixExpression();
-			e = new UnExpr(new Position(symNot, prefExpr), UnExpr.Oper.NOT, prefExpr);
+			e = new UnExpr(position(symNot, prefExpr), UnExpr.Oper.NOT, prefExpr);
 			break;
 		}
 		case MEM: {
-			Symbol symMem = nextSymbol();
+			int symMem = nextSymbol();
 			Expr prefExpr = parsePrefixExpression();
-			e = new UnExpr(new Position(symMem, prefExpr), UnExpr.Oper.MEM, prefExpr);
+			e = new UnExpr(position(symMem, prefExpr), UnExpr.Oper.MEM, prefExpr);
 			break;
 		}
 		case OPENING_BRACKET: {
-			Symbol symOpeningBracket = nextSymbol();
-			Symbol symClosingBracket;
+			int symOpeningBracket = nextSymbol();
+			int symClosingBracket;
 			Type type = parseType();
-			if (laSymbol.token == Symbol.Token.CLOSING_BRACKET) {
+			if (laToken == Symbol.Token.CLOSING_BRACKET) {
 				symClosingBracket = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parsePrefixExpression()/: missing closing bracket, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parsePrefixExpression()/: missing closing bracket, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Expr prefExpr = parsePrefixExpression();
-			e = new CastExpr(new Position(symOpeningBracket, prefExpr), type, prefExpr);
+			e = new CastExpr(position(symOpeningBracket, prefExpr), type, prefExpr);
 			break;
 		}
 		case IDENTIFIER:
@@ -828,7 +1327,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parsePrefixExpression()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parsePrefixExpression()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -837,7 +1336,7 @@ public class SynAn extends Phase {
 	private Expr parsePostfixExpression() throws IOException {
 		begLog("PostfixExpression");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER:
 		case CONST_INTEGER:
 		case CONST_BOOLEAN:
@@ -855,44 +1354,59 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parsePostfixExpression()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parsePostfixExpression()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
 	}
 	
-	private Expr parsePostfixExpressionPrime(Expr expr) throws IOException {
+	private Expr parsePostfixExpressionPrime(final Expr expr) throws IOException {
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<Expr, IOException>() {
+				@Override
+				public Expr call() throws IOException {
+					return parsePostfixExpressionPrime(expr);
+				}
+			});
+		try {
+			return parseNestedPostfixExpressionPrime(expr);
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private Expr parseNestedPostfixExpressionPrime(Expr expr) throws IOException {
 		begLog("PostfixExpressionPrime");
 		Expr e = expr;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case OPENING_BRACKET: {
-			Symbol symOpeningBracket = nextSymbol();
-			Symbol symClosingBracket;
+			int symOpeningBracket = nextSymbol();
+			int symClosingBracket;
 			Expr sndExpr = parseExpression();
-			if (laSymbol.token == Symbol.Token.CLOSING_BRACKET) {
+			if (laToken == Symbol.Token.CLOSING_BRACKET) {
 				symClosingBracket = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parsePostfixExpressionPrime()/: missing closing bracket, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parsePostfixExpressionPrime()/: missing closing bracket, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			e = new BinExpr(new Position(expr, symClosingBracket), BinExpr.Oper.ARR, expr, sndExpr);
+			e = new BinExpr(position(expr, symClosingBracket), BinExpr.Oper.ARR, expr, sndExpr);
 			e = parsePostfixExpressionPrime(e);
 			break;
 		}
 		case DOT: {
-			Symbol symDot = nextSymbol();
-			Symbol symId;
-			if (laSymbol.token == Symbol.Token.IDENTIFIER) {
+			int symDot = nextSymbol();
+			int symId;
+			if (laToken == Symbol.Token.IDENTIFIER) {
 				symId = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parsePostfixExpressionPrime()/: missing identifier, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parsePostfixExpressionPrime()/: missing identifier, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			e = new BinExpr(new Position(expr, symId), BinExpr.Oper.REC, expr, new CompName(new Position(symId), symId.lexeme));
+			e = new BinExpr(position(expr, symId), BinExpr.Oper.REC, expr, new CompName(position(symId), tokens.lexeme(symId), tokens.nameId(symId)));
 			e = parsePostfixExpressionPrime(e);
 			break;
 		}
 		case VAL: {
-			Symbol symVal = nextSymbol();
-			e = new UnExpr(new Position(expr, symVal), UnExpr.Oper.VAL, expr);
+			int symVal = nextSymbol();
+			e = new UnExpr(position(expr, symVal), UnExpr.Oper.VAL, expr);
 			e = parsePostfixExpressionPrime(e);
 			break;
 		}
@@ -925,7 +1439,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parsePostfixExpressionPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parsePostfixExpressionPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -934,152 +1448,152 @@ public class SynAn extends Phase {
 	private Expr parseAtomicExpression() throws IOException {
 		begLog("AtomicExpression");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER: {
-			Symbol symId = nextSymbol();
+			int symId = nextSymbol();
 			e = parseArgumentsOpt(symId);
 			if(e == null) {
-				e = new VarName(new Position(symId), symId.lexeme);
+				e = new VarName(position(symId), tokens.lexeme(symId), tokens.nameId(symId));
 			}
 			break;
 		}
 		case CONST_INTEGER: {
-			Symbol constInt = nextSymbol();
-			e = new AtomExpr(new Position(constInt), AtomExpr.AtomTypes.INTEGER, constInt.lexeme);
+			int constInt = nextSymbol();
+			e = new AtomExpr(position(constInt), AtomExpr.AtomTypes.INTEGER, tokens.lexeme(constInt));
 			break;
 		}
 		case CONST_BOOLEAN: {
-			Symbol constBool = nextSymbol();
-			e = new AtomExpr(new Position(constBool), AtomExpr.AtomTypes.BOOLEAN, constBool.lexeme);
+			int constBool = nextSymbol();
+			e = new AtomExpr(position(constBool), AtomExpr.AtomTypes.BOOLEAN, tokens.lexeme(constBool));
 			break;
 		}
 		case CONST_CHAR: {
-			Symbol constChar = nextSymbol();
-			e = new AtomExpr(new Position(constChar), AtomExpr.AtomTypes.CHAR, constChar.lexeme);
+			int constChar = nextSymbol();
+			e = new AtomExpr(position(constChar), AtomExpr.AtomTypes.CHAR, tokens.lexeme(constChar));
 			break;
 		}
 		case CONST_STRING: {
-			Symbol constStr = nextSymbol();
-			e = new AtomExpr(new Position(constStr), AtomExpr.AtomTypes.STRING, constStr.lexeme);
+			int constStr = nextSymbol();
+			e = new AtomExpr(position(constStr), AtomExpr.AtomTypes.STRING, tokens.lexeme(constStr));
 			break;
 		}
 		case CONST_NULL: {
-			Symbol constNull = nextSymbol();
-			e = new AtomExpr(new Position(constNull), AtomExpr.AtomTypes.PTR, constNull.lexeme);
+			int constNull = nextSymbol();
+			e = new AtomExpr(position(constNull), AtomExpr.AtomTypes.PTR, tokens.lexeme(constNull));
 			break;
 		}
 		case CONST_NONE: {
-			Symbol constNone = nextSymbol();
-			e = new AtomExpr(new Position(constNone), AtomExpr.AtomTypes.VOID, constNone.lexeme);
+			int constNone = nextSymbol();
+			e = new AtomExpr(position(constNone), AtomExpr.AtomTypes.VOID, tokens.lexeme(constNone));
 			break;
 		}
 		case OPENING_PARENTHESIS: {
-			Symbol symOpeningPar = nextSymbol();
-			Symbol symClosingPar;
+			int symOpeningPar = nextSymbol();
+			int symClosingPar;
 			LinkedList<Expr> exprs = parseExpressions();
-			if (laSymbol.token == Symbol.Token.CLOSING_PARENTHESIS) {
+			if (laToken == Symbol.Token.CLOSING_PARENTHESIS) {
 				symClosingPar = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing closing parenthesis, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing closing parenthesis, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			if (exprs.size() == 1) {
 				e = exprs.get(0);
 			} else if (exprs.size() > 1){
-				e = new Exprs(new Position(symOpeningPar, symClosingPar), exprs);
+				e = new Exprs(position(symOpeningPar, symClosingPar), exprs);
 			}
 			break;
 		}
 		case IF: {
-			Symbol symIf = nextSymbol();
-			Symbol symThen, symElse, symEnd;
+			int symIf = nextSymbol();
+			int symThen, symElse, symEnd;
 			Expr cond = parseExpression();
-			if (laSymbol.token == Symbol.Token.THEN) {
+			if (laToken == Symbol.Token.THEN) {
 				symThen = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol THEN, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol THEN, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Expr thenExpr = parseExpression();
-			if (laSymbol.token == Symbol.Token.ELSE) {
+			if (laToken == Symbol.Token.ELSE) {
 				symElse = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol ELSE, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol ELSE, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Expr elseExpr = parseExpression();
-			if (laSymbol.token == Symbol.Token.END) {
+			if (laToken == Symbol.Token.END) {
 				symEnd = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol END, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol END, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			e = new IfExpr(new Position(symIf, symEnd), cond, thenExpr, elseExpr);
+			e = new IfExpr(position(symIf, symEnd), cond, thenExpr, elseExpr);
 			break;
 		}
 		case FOR: {
-			Symbol symFor = nextSymbol();
-			Symbol symId, symAssign, symComma, symColon, symEnd;
-			if (laSymbol.token == Symbol.Token.IDENTIFIER) {
+			int symFor = nextSymbol();
+			int symId, symAssign, symComma, symColon, symEnd;
+			if (laToken == Symbol.Token.IDENTIFIER) {
 				symId = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing identifier, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing identifier, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			VarName var = new VarName(new Position(symId), symId.lexeme);
-			if (laSymbol.token == Symbol.Token.ASSIGN) {
+			VarName var = new VarName(position(symId), tokens.lexeme(symId), tokens.nameId(symId));
+			if (laToken == Symbol.Token.ASSIGN) {
 				symAssign = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol ASSIGN, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol ASSIGN, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Expr loBound = parseExpression();
-			if (laSymbol.token == Symbol.Token.COMMA) {
+			if (laToken == Symbol.Token.COMMA) {
 				symComma = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol ',', instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol ',', instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Expr hiBound = parseExpression();
-			if (laSymbol.token == Symbol.Token.COLON) {
+			if (laToken == Symbol.Token.COLON) {
 				symComma = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol ':', instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol ':', instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Expr body = parseExpression();
-			if (laSymbol.token == Symbol.Token.END) {
+			if (laToken == Symbol.Token.END) {
 				symEnd = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol END, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol END, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			e = new ForExpr(new Position(symFor, symEnd), var, loBound, hiBound, body);
+			e = new ForExpr(position(symFor, symEnd), var, loBound, hiBound, body);
 			break;
 		}
 		case WHILE:
 		{
-			Symbol symWhile = nextSymbol();
-			Symbol symColon, symEnd;
+			int symWhile = nextSymbol();
+			int symColon, symEnd;
 			Expr cond = parseExpression();
-			if (laSymbol.token == Symbol.Token.COLON) {
+			if (laToken == Symbol.Token.COLON) {
 				symColon = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol ':', instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol ':', instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Expr body = parseExpression();
-			if (laSymbol.token == Symbol.Token.END) {
+			if (laToken == Symbol.Token.END) {
 				symEnd = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol END, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseAtomicExpression()/: missing symbol END, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			e = new WhileExpr(new Position(symWhile, symEnd), cond, body);
+			e = new WhileExpr(position(symWhile, symEnd), cond, body);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseAtomicExpression()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseAtomicExpression()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
 	}
 	
-	private Expr parseArgumentsOpt(Symbol sym) throws IOException {
+	private Expr parseArgumentsOpt(int sym) throws IOException {
 		begLog("ArgumentsOpt");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case OPENING_PARENTHESIS: {
-			Symbol symOpeningPar = nextSymbol();
+			int symOpeningPar = nextSymbol();
 			e = parseArgumentsOptPrime(sym);
 			break;
 		}
@@ -1115,19 +1629,19 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseArgumentsOpt()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseArgumentsOpt()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
 	}
 	
-	private Expr parseArgumentsOptPrime(Symbol sym) throws IOException {
+	private Expr parseArgumentsOptPrime(int sym) throws IOException {
 		begLog("ArgumentsOptPrime");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case CLOSING_PARENTHESIS: {
-			Symbol symClosingPar = nextSymbol();
-			e = new FunCall(new Position(sym, symClosingPar), sym.lexeme, new LinkedList<Expr>());
+			int symClosingPar = nextSymbol();
+			e = new FunCall(position(sym, symClosingPar), tokens.lexeme(sym), tokens.nameId(sym), new LinkedList<Expr>());
 			break;
 		}
 		case ADD:
@@ -1146,18 +1660,18 @@ public class SynAn extends Phase {
 		case IF:
 		case FOR:
 		case WHILE: {
-			Symbol symClosingPar;
+			int symClosingPar;
 			LinkedList<Expr> exprs = parseExpressions();
-			if (laSymbol.token == Symbol.Token.CLOSING_PARENTHESIS) {
+			if (laToken == Symbol.Token.CLOSING_PARENTHESIS) {
 				symClosingPar = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseArgumentsOptPrime()/: missing closing parenthesis, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseArgumentsOptPrime()/: missing closing parenthesis, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			e = new FunCall(new Position(sym, symClosingPar), sym.lexeme, exprs);
+			e = new FunCall(position(sym, symClosingPar), tokens.lexeme(sym), tokens.nameId(sym), exprs);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseArgumentsOptPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseArgumentsOptPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -1166,7 +1680,7 @@ public class SynAn extends Phase {
 	private LinkedList<Decl> parseDeclarations() throws IOException {
 		begLog("Declarations");
 		LinkedList<Decl> decls = new LinkedList<Decl>();
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case TYP:
 		case FUN:
 		case VAR: {
@@ -1175,15 +1689,47 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseDeclarations()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseDeclarations()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return decls;
 	}
 	
-	private LinkedList<Decl> parseDeclarationsPrime(LinkedList<Decl> decls) throws IOException {
+	private LinkedList<Decl> parseDeclarationsPrime(final LinkedList<Decl> decls) throws IOException {
+		// Unless the derivation tree is being logged, the list is parsed by a
+		// loop; otherwise every element adds a level to the derivation tree.
+		if (logger == null) {
+			while (true) {
+				switch (laToken) {
+				case TYP:
+				case FUN:
+				case VAR:
+					decls.add(parseDeclaration());
+					continue;
+				case END:
+					return decls;
+				default:
+					throw new SyntaxError("Syntax error /parseDeclarationsPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
+				}
+			}
+		}
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<LinkedList<Decl>, IOException>() {
+				@Override
+				public LinkedList<Decl> call() throws IOException {
+					return parseDeclarationsPrime(decls);
+				}
+			});
+		try {
+			return parseNestedDeclarationsPrime(decls);
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private LinkedList<Decl> parseNestedDeclarationsPrime(LinkedList<Decl> decls) throws IOException {
 		begLog("DeclarationsPrime");
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case TYP:
 		case FUN:
 		case VAR: {
@@ -1194,7 +1740,7 @@ public class SynAn extends Phase {
 		case END:
 			break;
 		default:
-			throw new SyntaxError("Syntax error /parseDeclarationsPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseDeclarationsPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return decls;
@@ -1203,7 +1749,7 @@ public class SynAn extends Phase {
 	private Decl parseDeclaration() throws IOException {
 		begLog("Declaration");
 		Decl d = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case TYP: {
 			d = parseTypeDeclaration();
 			break;
@@ -1217,7 +1763,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseDeclaration()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseDeclaration()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return d;
@@ -1226,26 +1772,26 @@ public class SynAn extends Phase {
 	private TypeDecl parseTypeDeclaration() throws IOException {
 		begLog("TypeDeclaration");
 		TypeDecl d = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case TYP: {
-			Symbol symTyp = nextSymbol();
-			Symbol symId, symColon;
-			if (laSymbol.token == Symbol.Token.IDENTIFIER) {
+			int symTyp = nextSymbol();
+			int symId, symColon;
+			if (laToken == Symbol.Token.IDENTIFIER) {
 				symId = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseTypeDeclaration()/: missing identifier, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseTypeDeclaration()/: missing identifier, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			if (laSymbol.token == Symbol.Token.COLON) {
+			if (laToken == Symbol.Token.COLON) {
 				symColon = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseTypeDeclaration()/: missing symbol ':', instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseTypeDeclaration()/: missing symbol ':', instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Type type = parseType();
-			d = new TypeDecl(new Position(symTyp, type), symId.lexeme, type);
+			d = new TypeDecl(position(symTyp, type), tokens.lexeme(symId), tokens.nameId(symId), type);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseTypeDeclaration()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseTypeDeclaration()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return d;
@@ -1254,42 +1800,42 @@ public class SynAn extends Phase {
 	private FunDecl parseFunctionDeclaration() throws IOException {
 		begLog("FunctionDeclaration");
 		FunDecl d = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case FUN: {
-			Symbol symFun = nextSymbol();
-			Symbol symId, symOpeningPar, symClosingPar, symColon;
-			if (laSymbol.token == Symbol.Token.IDENTIFIER) {
+			int symFun = nextSymbol();
+			int symId, symOpeningPar, symClosingPar, symColon;
+			if (laToken == Symbol.Token.IDENTIFIER) {
 				symId = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseFunctionDeclaration()/: missing identifier, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseFunctionDeclaration()/: missing identifier, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			if (laSymbol.token == Symbol.Token.OPENING_PARENTHESIS) {
+			if (laToken == Symbol.Token.OPENING_PARENTHESIS) {
 				symOpeningPar = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseFunctionDeclaration()/: missing opening parenthesis, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseFunctionDeclaration()/: missing opening parenthesis, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			LinkedList<ParDecl> pars = parseParametersOpt();
-			if (laSymbol.token == Symbol.Token.CLOSING_PARENTHESIS) {
+			if (laToken == Symbol.Token.CLOSING_PARENTHESIS) {
 				symClosingPar = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseFunctionDeclaration()/: missing closing parenthesis, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseFunctionDeclaration()/: missing closing parenthesis, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			if (laSymbol.token == Symbol.Token.COLON) {
+			if (laToken == Symbol.Token.COLON) {
 				symColon = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseFunctionDeclaration()/: missing symbol ':', instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseFunctionDeclaration()/: missing symbol ':', instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Type type = parseType();
 			Expr body = parseFunctionBodyOpt();
 			if(body == null) {
-				d = new FunDecl(new Position(symFun, type), symId.lexeme, pars, type);
+				d = new FunDecl(position(symFun, type), tokens.lexeme(symId), tokens.nameId(symId), pars, type);
 			} else {
-				d = new FunDef(new Position(symFun, body), symId.lexeme, pars, type, body);
+				d = new FunDef(position(symFun, body), tokens.lexeme(symId), tokens.nameId(symId), pars, type, body);
 			}
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseFunctionDeclaration()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseFunctionDeclaration()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return d;
@@ -1298,7 +1844,7 @@ public class SynAn extends Phase {
 	private LinkedList<ParDecl> parseParametersOpt() throws IOException {
 		begLog("ParametersOpt");
 		LinkedList<ParDecl> pars = new LinkedList<ParDecl>();
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER: {
 			pars = parseParameters();
 			break;
@@ -1307,7 +1853,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseParametersOpt()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseParametersOpt()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return pars;
@@ -1316,24 +1862,55 @@ public class SynAn extends Phase {
 	private LinkedList<ParDecl> parseParameters() throws IOException {
 		begLog("Parameters");
 		LinkedList<ParDecl> pars = new LinkedList<ParDecl>();
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER: {
 			pars.add(parseParameter());
 			pars = parseParametersPrime(pars);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseParameters()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseParameters()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return pars;
 	}
 	
-	private LinkedList<ParDecl> parseParametersPrime(LinkedList<ParDecl> pars) throws IOException {
+	private LinkedList<ParDecl> parseParametersPrime(final LinkedList<ParDecl> pars) throws IOException {
+		// Unless the derivation tree is being logged, the list is parsed by a
+		// loop; otherwise every element adds a level to the derivation tree.
+		if (logger == null) {
+			while (true) {
+				switch (laToken) {
+				case COMMA:
+					nextSymbol();
+					pars.add(parseParameter());
+					continue;
+				case CLOSING_PARENTHESIS:
+					return pars;
+				default:
+					throw new SyntaxError("Syntax error /parseParametersPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
+				}
+			}
+		}
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<LinkedList<ParDecl>, IOException>() {
+				@Override
+				public LinkedList<ParDecl> call() throws IOException {
+					return parseParametersPrime(pars);
+				}
+			});
+		try {
+			return parseNestedParametersPrime(pars);
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private LinkedList<ParDecl> parseNestedParametersPrime(LinkedList<ParDecl> pars) throws IOException {
 		begLog("ParametersPrime");
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case COMMA: {
-			Symbol symComma = nextSymbol();
+			int symComma = nextSymbol();
 			pars.add(parseParameter());
 			pars = parseParametersPrime(pars);
 			break;
@@ -1342,7 +1919,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseParametersPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseParametersPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return pars;
@@ -1351,21 +1928,21 @@ public class SynAn extends Phase {
 	private ParDecl parseParameter() throws IOException {
 		begLog("Parameter");
 		ParDecl d = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER: {
-			Symbol symId = nextSymbol();
-			Symbol symColon;
-			if (laSymbol.token == Symbol.Token.COLON) {
+			int symId = nextSymbol();
+			int symColon;
+			if (laToken == Symbol.Token.COLON) {
 				symColon = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseParameter()/: missing symbol ':', instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseParameter()/: missing symbol ':', instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Type type = parseType();
-			d = new ParDecl(new Position(symId, type), symId.lexeme, type);
+			d = new ParDecl(position(symId, type), tokens.lexeme(symId), tokens.nameId(symId), type);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseParameter()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseParameter()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return d;
@@ -1374,9 +1951,9 @@ public class SynAn extends Phase {
 	private Expr parseFunctionBodyOpt() throws IOException {
 		begLog("FunctionBodyOpt");
 		Expr e = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ASSIGN: {
-			Symbol symAssign = nextSymbol();
+			int symAssign = nextSymbol();
 			e = parseExpression();
 			break;
 		}
@@ -1387,7 +1964,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseFunctionBodyOpt()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseFunctionBodyOpt()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return e;
@@ -1396,108 +1973,123 @@ public class SynAn extends Phase {
 	private VarDecl parseVariableDeclaration() throws IOException {
 		begLog("VariableDeclaration");
 		VarDecl d = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case VAR: {
-			Symbol symVar = nextSymbol();
-			Symbol symId;
-			if (laSymbol.token == Symbol.Token.IDENTIFIER) {
+			int symVar = nextSymbol();
+			int symId;
+			if (laToken == Symbol.Token.IDENTIFIER) {
 				symId = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseVariableDeclaration()/: missing identifier, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseVariableDeclaration()/: missing identifier, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			if (laSymbol.token == Symbol.Token.COLON) {
+			if (laToken == Symbol.Token.COLON) {
 				nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseVariableDeclaration()/: missing symbol ':', instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseVariableDeclaration()/: missing symbol ':', instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Type type = parseType();
-			d = new VarDecl(new Position(symVar, type), symId.lexeme, type);
+			d = new VarDecl(position(symVar, type), tokens.lexeme(symId), tokens.nameId(symId), type);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseVariableDeclaration()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseVariableDeclaration()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return d;
 	}
 	
 	private Type parseType() throws IOException {
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<Type, IOException>() {
+				@Override
+				public Type call() throws IOException {
+					return parseType();
+				}
+			});
+		try {
+			return parseNestedType();
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private Type parseNestedType() throws IOException {
 		begLog("Type");
 		Type t = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER: {
-			Symbol symId = nextSymbol();
-			t = new TypeName(new Position(symId), symId.lexeme);
+			int symId = nextSymbol();
+			t = new TypeName(position(symId), tokens.lexeme(symId), tokens.nameId(symId));
 			break;
 		}
 		case INTEGER: {
-			Symbol symInt = nextSymbol();
-			t = new AtomType(new Position(symInt), AtomType.AtomTypes.INTEGER);
+			int symInt = nextSymbol();
+			t = new AtomType(position(symInt), AtomType.AtomTypes.INTEGER);
 			break;
 		}
 		case BOOLEAN: {
-			Symbol symBool = nextSymbol();
-			t = new AtomType(new Position(symBool), AtomType.AtomTypes.BOOLEAN);
+			int symBool = nextSymbol();
+			t = new AtomType(position(symBool), AtomType.AtomTypes.BOOLEAN);
 			break;
 		}
 		case CHAR: {
-			Symbol symChar = nextSymbol();
-			t = new AtomType(new Position(symChar), AtomType.AtomTypes.CHAR);
+			int symChar = nextSymbol();
+			t = new AtomType(position(symChar), AtomType.AtomTypes.CHAR);
 			break;
 		}
 		case STRING: {
-			Symbol symStr = nextSymbol();
-			t = new AtomType(new Position(symStr), AtomType.AtomTypes.STRING);
+			int symStr = nextSymbol();
+			t = new AtomType(position(symStr), AtomType.AtomTypes.STRING);
 			break;
 		}
 		case VOID: {
-			Symbol symVoid = nextSymbol();
-			t = new AtomType(new Position(symVoid), AtomType.AtomTypes.VOID);
+			int symVoid = nextSymbol();
+			t = new AtomType(position(symVoid), AtomType.AtomTypes.VOID);
 			break;
 		}
 		case ARR: {
-			Symbol symArr = nextSymbol();
-			Symbol symOpeningBracket, symClosingBracket;
-			if (laSymbol.token == Symbol.Token.OPENING_BRACKET) {
+			int symArr = nextSymbol();
+			int symOpeningBracket, symClosingBracket;
+			if (laToken == Symbol.Token.OPENING_BRACKET) {
 				symOpeningBracket = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseType()/: missing opening bracket, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseType()/: missing opening bracket, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Expr size = parseExpression();
-			if (laSymbol.token == Symbol.Token.CLOSING_BRACKET) {
+			if (laToken == Symbol.Token.CLOSING_BRACKET) {
 				symClosingBracket = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseType()/: missing closing bracket, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseType()/: missing closing bracket, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Type elemType = parseType();
-			t = new ArrType(new Position(symArr, elemType), size, elemType);
+			t = new ArrType(position(symArr, elemType), size, elemType);
 			break;
 		}
 		case REC: {
-			Symbol symRec = nextSymbol();
-			Symbol symOpeningBrace, symClosingBrace;
-			if (laSymbol.token == Symbol.Token.OPENING_BRACE) {
+			int symRec = nextSymbol();
+			int symOpeningBrace, symClosingBrace;
+			if (laToken == Symbol.Token.OPENING_BRACE) {
 				symOpeningBrace = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseType()/: missing opening brace, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseType()/: missing opening brace, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			LinkedList<CompDecl> comps = parseComponents();
-			if (laSymbol.token == Symbol.Token.CLOSING_BRACE) {
+			if (laToken == Symbol.Token.CLOSING_BRACE) {
 				symClosingBrace = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseType()/: missing closing brace, instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseType()/: missing closing brace, instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
-			t = new RecType(new Position(symRec, symClosingBrace), comps);
+			t = new RecType(position(symRec, symClosingBrace), comps);
 			break;
 		}
 		case PTR: {
-			Symbol symPtr = nextSymbol();
+			int symPtr = nextSymbol();
 			Type baseType = parseType();
-			t = new PtrType(new Position(symPtr, baseType), baseType);
+			t = new PtrType(position(symPtr, baseType), baseType);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseType()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseType()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return t;
@@ -1506,24 +2098,55 @@ public class SynAn extends Phase {
 	private LinkedList<CompDecl> parseComponents() throws IOException {
 		begLog("Components");
 		LinkedList<CompDecl> comps = new LinkedList<CompDecl>();
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER: {
 			comps.add(parseComponent());
 			comps = parseComponentsPrime(comps);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseComponents()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseComponents()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return comps;
 	}
 	
-	private LinkedList<CompDecl> parseComponentsPrime(LinkedList<CompDecl> comps) throws IOException {
+	private LinkedList<CompDecl> parseComponentsPrime(final LinkedList<CompDecl> comps) throws IOException {
+		// Unless the derivation tree is being logged, the list is parsed by a
+		// loop; otherwise every element adds a level to the derivation tree.
+		if (logger == null) {
+			while (true) {
+				switch (laToken) {
+				case COMMA:
+					nextSymbol();
+					comps.add(parseComponent());
+					continue;
+				case CLOSING_BRACE:
+					return comps;
+				default:
+					throw new SyntaxError("Syntax error /parseComponentsPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
+				}
+			}
+		}
+		if (!Recursion.enter())
+			return Recursion.extend(new Recursion.Call<LinkedList<CompDecl>, IOException>() {
+				@Override
+				public LinkedList<CompDecl> call() throws IOException {
+					return parseComponentsPrime(comps);
+				}
+			});
+		try {
+			return parseNestedComponentsPrime(comps);
+		} finally {
+			Recursion.exit();
+		}
+	}
+
+	private LinkedList<CompDecl> parseNestedComponentsPrime(LinkedList<CompDecl> comps) throws IOException {
 		begLog("ComponentsPrime");
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case COMMA: {
-			Symbol symComma = nextSymbol();
+			int symComma = nextSymbol();
 			comps.add(parseComponent());
 			comps = parseComponentsPrime(comps);
 			break;
@@ -1532,7 +2155,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseComponentsPrime()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseComponentsPrime()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return comps;
@@ -1541,21 +2164,21 @@ public class SynAn extends Phase {
 	private CompDecl parseComponent() throws IOException {
 		begLog("Component");
 		CompDecl d = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER: {
-			Symbol symId = nextSymbol();
-			Symbol symColon;
-			if (laSymbol.token == Symbol.Token.COLON) {
+			int symId = nextSymbol();
+			int symColon;
+			if (laToken == Symbol.Token.COLON) {
 				symColon = nextSymbol();
 			} else {
-				throw new SyntaxError("Syntax error /parseComponent()/: missing symbol ':', instead saw unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+				throw new SyntaxError("Syntax error /parseComponent()/: missing symbol ':', instead saw unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 			}
 			Type type = parseType();
-			d = new CompDecl(new Position(symId, type), symId.lexeme, type);
+			d = new CompDecl(position(symId, type), tokens.lexeme(symId), tokens.nameId(symId), type);
 			break;
 		}
 		default:
-			throw new SyntaxError("Syntax error /parseComponent()/: unexpected symbol " + laSymbol.token +" at " + laSymbol.toString());
+			throw new SyntaxError("Syntax error /parseComponent()/: unexpected symbol " + laToken +" at " + tokens.toString(laSymbol));
 		}
 		endLog();
 		return d;
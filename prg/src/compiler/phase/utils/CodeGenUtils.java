@@ -1,8 +1,9 @@
 package compiler.phase.utils;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
 import java.util.Vector;
 
 import compiler.data.codegen.BranchInstr;
@@ -10,6 +11,7 @@ import compiler.data.codegen.Instr;
 import compiler.data.imc.LABEL;
 import compiler.phase.codegen.EvalCodeGen;
 import compiler.phase.codegen.InterferenceGraph;
+import compiler.phase.codegen.Liveness;
 
 public class CodeGenUtils {
 
@@ -34,75 +36,123 @@ public class CodeGenUtils {
 		}
 	}
 	
-	public static void calcInOut(Vector<Instr> instructions) {
-		boolean hasChanged = true;
-//		int numIter = 0;
-		while(hasChanged) {
-			hasChanged = false;
-			for (int i = instructions.size()-1; i >= 0; i--) {
-
-				Instr instr = instructions.get(i);
-				
-				Set<Integer> newOut = new HashSet<Integer>();
-				for(Instr succ : instr.succ) {
-					newOut.addAll(succ.in);
+	/**
+	 * Computes the loop nesting depth of each instruction. Every jump to an
+	 * earlier (or the same) instruction is treated as a back edge of a loop
+	 * whose body consists of all instructions that reach the jump without
+	 * passing the loop header. Successors of instructions must be computed
+	 * before.
+	 * 
+	 * @return The loop nesting depths indexed by positions of instructions.
+	 */
+	public static int[] calcLoopDepths(EvalCodeGen codeGen) {
+		Vector<Instr> instructions = codeGen.instructions;
+		int numInstrs = instructions.size();
+		IdentityHashMap<Instr, Integer> indices = new IdentityHashMap<Instr, Integer>();
+		for (int i = 0; i < numInstrs; i++) {
+			indices.put(instructions.get(i), i);
+		}
+		ArrayList<ArrayList<Integer>> preds = new ArrayList<ArrayList<Integer>>(numInstrs);
+		for (int i = 0; i < numInstrs; i++) {
+			preds.add(new ArrayList<Integer>(1));
+		}
+		for (int i = 0; i < numInstrs; i++) {
+			for (Instr succ : instructions.get(i).succ) {
+				Integer s = indices.get(succ);
+				if (s != null) {
+					preds.get(s).add(i);
+				}
+			}
+		}
+		
+		int[] depths = new int[numInstrs];
+		boolean[] inLoop = new boolean[numInstrs];
+		ArrayDeque<Integer> worklist = new ArrayDeque<Integer>();
+		ArrayList<Integer> body = new ArrayList<Integer>();
+		for (int i = 0; i < numInstrs; i++) {
+			for (Instr succ : instructions.get(i).succ) {
+				Integer header = indices.get(succ);
+				if ((header == null) || (header > i)) {
+					continue;
 				}
-				if(!newOut.equals(instr.out)) {
-					hasChanged = true;
+				// The natural loop of the back edge i -> header.
+				body.clear();
+				inLoop[header] = true;
+				body.add(header);
+				if (!inLoop[i]) {
+					inLoop[i] = true;
+					body.add(i);
+					worklist.add(i);
 				}
-				instr.out = newOut;
-				
-				Set<Integer> newIn = new HashSet<Integer>(instr.out);
-				newIn.removeAll(instr.def);
-				newIn.addAll(instr.use);
-				if(!newIn.equals(instr.in)) {
-					hasChanged = true;
+				while (!worklist.isEmpty()) {
+					for (int pred : preds.get(worklist.poll())) {
+						if (!inLoop[pred]) {
+							inLoop[pred] = true;
+							body.add(pred);
+							worklist.add(pred);
+						}
+					}
+				}
+				for (int instr : body) {
+					depths[instr]++;
+					inLoop[instr] = false;
 				}
-				instr.in = newIn;
 			}
-//			numIter++;
-//			System.out.println(numIter);
 		}
+		return depths;
 	}
 	
+	/**
+	 * Computes live-in and live-out temporaries of basic blocks of the code
+	 * fragment (see {@link Liveness}).
+	 * 
+	 * @return The number of evaluations of basic blocks needed to reach the
+	 *         fixed point.
+	 */
+	public static int calcInOut(EvalCodeGen codeGen) {
+		codeGen.liveness = new Liveness(codeGen.instructions);
+		return codeGen.liveness.solve();
+	}
+	
+	/**
+	 * Builds the interference graph: each temporary defined by an instruction
+	 * interferes with all temporaries live after it, except that the target
+	 * of a move does not interfere with its source.
+	 */
 	public static void calcInterference(EvalCodeGen codeGen) {
-		codeGen.interferenceGraph = new InterferenceGraph(codeGen);
-		Vector<Instr> instructions = codeGen.instructions;
-		for (int i = 0; i < instructions.size(); i++) {
-			Instr instr = instructions.get(i);
-			
-			ArrayList<Integer> ins = new ArrayList<Integer>(instr.in);
-			for (int j = 0; j < ins.size(); j++) {
-				Integer t1 = ins.get(j);
-				for (int k = j+1; k < ins.size(); k++) {
-					Integer t2 = ins.get(k);
-					if(!codeGen.interferenceGraph.isInInterferences(t1, t2)) {
-//						if(instr.isMove) {
-//							if(!((instr.def.contains(t1) && instr.use.contains(t2)) || (instr.def.contains(t2) && instr.use.contains(t1)))) {
-//								codeGen.interferenceGraph.addEdge(new InterferenceEdge(t1, t2));
-//							}
-//						} else {
-							codeGen.interferenceGraph.addEdge(t1, t2);
-//						}
+		InterferenceGraph graph = new InterferenceGraph(codeGen);
+		codeGen.interferenceGraph = graph;
+		Liveness liveness = codeGen.liveness;
+		int[] ids = new int[liveness.temps.length];
+		for (int t = 0; t < ids.length; t++) {
+			ids[t] = graph.id(liveness.temps[t]);
+		}
+		for (int b = 0; b < liveness.numBlocks(); b++) {
+			BitSet live = (BitSet) liveness.liveOut(b).clone();
+			for (int i = liveness.blockStart(b) + liveness.blockSize(b) - 1; i >= liveness.blockStart(b); i--) {
+				int[] uses = liveness.uses(i);
+				int[] defs = liveness.defs(i);
+				if (codeGen.instructions.get(i).isMove) {
+					for (int u : uses) {
+						live.clear(u);
 					}
 				}
-			}
-			
-			ArrayList<Integer> outs = new ArrayList<Integer>(instr.out);
-			for (int j = 0; j < outs.size(); j++) {
-				Integer t1 = outs.get(j);
-				for (int k = j+1; k < outs.size(); k++) {
-					Integer t2 = outs.get(k);
-					if(!codeGen.interferenceGraph.isInInterferences(t1, t2)) {
-//						if(instr.isMove) {
-//							if(!((instr.def.contains(t1) && instr.use.contains(t2)) || (instr.def.contains(t2) && instr.use.contains(t1)))) {
-//								codeGen.interferenceGraph.addEdge(new InterferenceEdge(t1, t2));
-//							}
-//						} else {
-							codeGen.interferenceGraph.addEdge(t1, t2);
-//						}
+				for (int d : defs) {
+					live.set(d);
+				}
+				for (int d : defs) {
+					for (int t = live.nextSetBit(0); t >= 0; t = live.nextSetBit(t + 1)) {
+						if (t != d) {
+							graph.addEdge(ids[d], ids[t]);
+						}
 					}
 				}
+				for (int d : defs) {
+					live.clear(d);
+				}
+				for (int u : uses) {
+					live.set(u);
+				}
 			}
 		}
 	}
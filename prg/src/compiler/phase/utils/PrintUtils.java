@@ -1,6 +1,7 @@
 package compiler.phase.utils;
 
 import java.io.PrintWriter;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Vector;
@@ -8,6 +9,7 @@ import java.util.Vector;
 import compiler.data.codegen.Instr;
 import compiler.data.imc.TEMP;
 import compiler.phase.codegen.EvalCodeGen;
+import compiler.phase.codegen.Liveness;
 
 public class PrintUtils {
 
@@ -66,19 +68,24 @@ public class PrintUtils {
 		}
 	}
 	
-	public static void printInsAndOuts(Vector<Instr> instructions, HashMap<Integer, String> virtRegsMap) {
-		for(Instr instr : instructions) {
-			System.out.println(instr.print(virtRegsMap));
-			System.out.print("INS:");
-			for(Integer temp : instr.in) {
-				System.out.print(virtRegsMap.get(temp) + ", ");
-			}
-			System.out.println();
-			System.out.print("OUTS:");
-			for(Integer temp : instr.out) {
-				System.out.print(virtRegsMap.get(temp) + ", ");
+	public static void printInsAndOuts(Liveness liveness, HashMap<Integer, String> virtRegsMap) {
+		for (int b = 0; b < liveness.numBlocks(); b++) {
+			BitSet[] ins = new BitSet[liveness.blockSize(b)];
+			BitSet[] outs = new BitSet[liveness.blockSize(b)];
+			liveness.expand(b, ins, outs);
+			for (int i = 0; i < ins.length; i++) {
+				System.out.println(liveness.instructions.get(liveness.blockStart(b) + i).print(virtRegsMap));
+				System.out.print("INS:");
+				for (int t = ins[i].nextSetBit(0); t >= 0; t = ins[i].nextSetBit(t + 1)) {
+					System.out.print(virtRegsMap.get(liveness.temps[t]) + ", ");
+				}
+				System.out.println();
+				System.out.print("OUTS:");
+				for (int t = outs[i].nextSetBit(0); t >= 0; t = outs[i].nextSetBit(t + 1)) {
+					System.out.print(virtRegsMap.get(liveness.temps[t]) + ", ");
+				}
+				System.out.println();
 			}
-			System.out.println();
 		}
 	}
 	
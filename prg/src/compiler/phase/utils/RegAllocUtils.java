@@ -211,8 +211,8 @@ public class RegAllocUtils {
 		Integer temp = TEMP.newTempName();
 		
 		Long offset = (long)0;
-		if(RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t1) != null) {
-			offset = RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t1);
+		if(RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t1) != null) {
+			offset = RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t1);
 		}
 //		System.out.print("OFFSET:");
 //		System.out.print(instr.t1);
@@ -223,6 +223,7 @@ public class RegAllocUtils {
 		
 		codeGen.regs.remove(instr.t1);
 		codeGen.regs.add(temp);
+		codeGen.spillTemps.add(temp);
 		
 		Instr ldo = new Instr("\tLDO %s,fp,%s\n", temp, true, reg, false, false);
 		ldo.addToListAtIndex(codeGen, codeGen.instructions, index);
@@ -233,8 +234,8 @@ public class RegAllocUtils {
 		Integer temp =  TEMP.newTempName();
 		
 		Long offset = (long)0;
-		if(RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t2) != null) {
-			offset = RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t2);
+		if(RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t2) != null) {
+			offset = RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t2);
 		}
 //		System.out.print("OFFSET:");
 //		System.out.print(instr.t2);
@@ -245,6 +246,7 @@ public class RegAllocUtils {
 		
 		codeGen.regs.remove(instr.t2);
 		codeGen.regs.add(temp);
+		codeGen.spillTemps.add(temp);
 		Instr ldo = new Instr("\tLDO %s,fp,%s\n", temp, true, reg, false, false);
 		ldo.addToListAtIndex(codeGen, codeGen.instructions, index);
 		instr.changeReg(temp, 2);
@@ -254,8 +256,8 @@ public class RegAllocUtils {
 		Integer temp =  TEMP.newTempName();
 		
 		Long offset = (long)0;
-		if(RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t3) != null) {
-			offset = RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t3);
+		if(RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t3) != null) {
+			offset = RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t3);
 		}
 //		System.out.print("OFFSET:");
 //		System.out.print(instr.t3);
@@ -266,6 +268,7 @@ public class RegAllocUtils {
 		
 		codeGen.regs.remove(instr.t3);
 		codeGen.regs.add(temp);
+		codeGen.spillTemps.add(temp);
 		Instr ldo = new Instr("\tLDO %s,fp,%s\n", temp, true, reg, false, false);
 		ldo.addToListAtIndex(codeGen, codeGen.instructions, index);
 		instr.changeReg(temp, 3);
@@ -275,12 +278,12 @@ public class RegAllocUtils {
 		Integer temp =  TEMP.newTempName();
 		
 		Long offset = (long)0;
-		if(RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t1) != null) {
-			offset = RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t1);
+		if(RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t1) != null) {
+			offset = RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t1);
 		} else {
-			RegAlloc.curCodeFragment.frame.tmpVarsSize += 8;
-			offset = RegAlloc.curCodeFragment.frame.getTmpVarsOffset();
-			RegAlloc.curCodeFragment.frame.tmpVarsToOffset.put(instr.t1, offset);
+			RegAlloc.curCodeFragment().frame.tmpVarsSize += 8;
+			offset = RegAlloc.curCodeFragment().frame.getTmpVarsOffset();
+			RegAlloc.curCodeFragment().frame.tmpVarsToOffset.put(instr.t1, offset);
 		}
 //		System.out.print("OFFSET:");
 //		System.out.print(instr.t1);
@@ -291,6 +294,7 @@ public class RegAllocUtils {
 		
 		codeGen.regs.remove(instr.t1);
 		codeGen.regs.add(temp);
+		codeGen.spillTemps.add(temp);
 		Instr sto = new Instr("\tSTO %s,fp,%s\n", temp, false, reg, false, false);
 		sto.addToListAtIndex(codeGen, codeGen.instructions, index + 1);
 		instr.changeReg(temp, 1);
@@ -300,12 +304,12 @@ public class RegAllocUtils {
 		Integer temp =  TEMP.newTempName();
 		
 		Long offset = (long)0;
-		if(RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t2) != null) {
-			offset = RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t2);
+		if(RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t2) != null) {
+			offset = RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t2);
 		} else {
-			RegAlloc.curCodeFragment.frame.tmpVarsSize += 8;
-			offset = RegAlloc.curCodeFragment.frame.getTmpVarsOffset();
-			RegAlloc.curCodeFragment.frame.tmpVarsToOffset.put(instr.t2, offset);
+			RegAlloc.curCodeFragment().frame.tmpVarsSize += 8;
+			offset = RegAlloc.curCodeFragment().frame.getTmpVarsOffset();
+			RegAlloc.curCodeFragment().frame.tmpVarsToOffset.put(instr.t2, offset);
 		}
 //		System.out.print("OFFSET:");
 //		System.out.print(instr.t2);
@@ -316,6 +320,7 @@ public class RegAllocUtils {
 		
 		codeGen.regs.remove(instr.t2);
 		codeGen.regs.add(temp);
+		codeGen.spillTemps.add(temp);
 		
 		Instr sto = new Instr("\tSTO %s,fp,%s\n", temp, false, reg, false, false);
 		sto.addToListAtIndex(codeGen, codeGen.instructions, index + 1);
@@ -326,12 +331,12 @@ public class RegAllocUtils {
 		Integer temp =  TEMP.newTempName();
 		
 		Long offset = (long)0;
-		if(RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t3) != null) {
-			offset = RegAlloc.curCodeFragment.frame.tmpVarsToOffset.get(instr.t3);
+		if(RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t3) != null) {
+			offset = RegAlloc.curCodeFragment().frame.tmpVarsToOffset.get(instr.t3);
 		} else {
-			RegAlloc.curCodeFragment.frame.tmpVarsSize += 8;
-			offset = RegAlloc.curCodeFragment.frame.getTmpVarsOffset();
-			RegAlloc.curCodeFragment.frame.tmpVarsToOffset.put(instr.t3, offset);
+			RegAlloc.curCodeFragment().frame.tmpVarsSize += 8;
+			offset = RegAlloc.curCodeFragment().frame.getTmpVarsOffset();
+			RegAlloc.curCodeFragment().frame.tmpVarsToOffset.put(instr.t3, offset);
 		}
 //		System.out.print("OFFSET:");
 //		System.out.print(instr.t3);
@@ -342,6 +347,7 @@ public class RegAllocUtils {
 		
 		codeGen.regs.remove(instr.t3);
 		codeGen.regs.add(temp);
+		codeGen.spillTemps.add(temp);
 		Instr sto = new Instr("\tSTO %s,fp,%s\n", temp, false, reg, false, false);
 		sto.addToListAtIndex(codeGen, codeGen.instructions, index + 1);
 		instr.changeReg(temp, 3);
@@ -350,6 +356,7 @@ public class RegAllocUtils {
 	public static ArrayList<Integer> loadOffset(EvalCodeGen codeGen, Instr instr, int index, long offset) {
 		Integer temp = new Integer(TEMP.newTempName());
 		codeGen.regs.add(temp);
+		codeGen.spillTemps.add(temp);
 		Instr set = new Instr("\tSETL %s," + Long.toString(offset & 0xFFFFL) + "\n", temp, true, false);
 		set.addToListAtIndex(codeGen, codeGen.instructions, index);
 		index++;
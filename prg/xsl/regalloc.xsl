@@ -0,0 +1,83 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet version="1.0" xmlns:xsl="http://www.w3.org/1999/XSL/Transform">
+
+<xsl:template match="report">
+  <html>
+    <style>
+      table, tr, td {
+      text-align: left;
+      vertical-align: top;
+      }
+    </style>
+    <body>
+      <xsl:apply-templates select="fragment"/>
+    </body>
+  </html>
+</xsl:template>
+
+<xsl:template match="fragment">
+  <table style="background-color:#FCF265;font-family:helvetica;line-height:133%;margin-bottom:10px">
+    <tr>
+      <td colspan="3">
+	<text>&#xA0;</text>
+	<font style="font-family:courier new">
+	  <xsl:value-of select="@label"/>
+	</font>
+	<text>&#xA0;</text>
+      </td>
+    </tr>
+    <xsl:apply-templates select="spill"/>
+    <xsl:apply-templates select="coalesced"/>
+  </table>
+</xsl:template>
+
+<xsl:template match="coalesced">
+  <tr style="background-color:#D4CA90;font-size:80%">
+    <td>
+      <text>&#xA0;coalesced&#xA0;</text>
+    </td>
+    <td style="font-family:courier new">
+      <text>&#xA0;</text>
+      <xsl:value-of select="@dst"/>
+      <text>&#xA0;&#x2190;&#xA0;</text>
+      <xsl:value-of select="@src"/>
+      <text>&#xA0;</text>
+    </td>
+    <td style="font-family:courier new">
+      <text>&#xA0;</text>
+      <xsl:value-of select="@reg"/>
+      <text>&#xA0;</text>
+    </td>
+  </tr>
+</xsl:template>
+
+<xsl:template match="spill">
+  <tr style="background-color:#F2A99F;font-size:80%">
+    <td>
+      <text>&#xA0;spilled&#xA0;(round&#xA0;</text>
+      <xsl:value-of select="@round"/>
+      <text>)&#xA0;</text>
+    </td>
+    <td style="font-family:courier new">
+      <text>&#xA0;</text>
+      <xsl:value-of select="@temp"/>
+      <text>&#xA0;</text>
+    </td>
+    <td>
+      <xsl:if test="@cost">
+        <text>&#xA0;cost&#xA0;</text>
+        <xsl:value-of select="@cost"/>
+        <text>,&#xA0;degree&#xA0;</text>
+        <xsl:value-of select="@degree"/>
+        <text>&#xA0;</text>
+      </xsl:if>
+      <xsl:if test="@interval">
+        <text>&#xA0;interval&#xA0;</text>
+        <xsl:value-of select="@interval"/>
+        <text>&#xA0;</text>
+      </xsl:if>
+    </td>
+  </tr>
+</xsl:template>
+
+</xsl:stylesheet>
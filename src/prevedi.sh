@@ -1,6 +1,6 @@
 #!/bin/bash
 
 cd ../prg
-javac -d bin -sourcepath src src/compiler/Main.java
+javac -d bin -sourcepath src src/compiler/Main.java src/compiler/Server.java src/compiler/Client.java src/compiler/bench/Bench.java
 cd ../src
 make $*